@@ -0,0 +1,55 @@
+#!/bin/bash
+# usage: bin/fast_start.sh build | run [spring args...]
+set -e
+PROJECT_ROOT="$(cd "$(dirname "${BASH_SOURCE[0]}")/.." && pwd)"
+OUT="$PROJECT_ROOT/target/fast-start"
+JAR="$PROJECT_ROOT/target/yield-forecast-1.0-SNAPSHOT.jar"
+MAIN=com.yieldforecast.YieldForecastApplication
+
+case "$1" in
+  build)
+    echo "Building AOT-processed jar..."
+    cd "$PROJECT_ROOT"
+    mvn -B -q -Pfast-start clean package -DskipTests
+
+    echo "Extracting classpath to $OUT..."
+    rm -rf "$OUT"
+    mkdir -p "$OUT/unpacked" "$OUT/lib" "$OUT/training"
+    (cd "$OUT/unpacked" && jar -xf "$JAR")
+    jar --create --file "$OUT/application.jar" -C "$OUT/unpacked/BOOT-INF/classes" .
+    CLASSPATH="$OUT/application.jar"
+    while read -r entry; do
+      lib="${entry#- \"BOOT-INF/lib/}"
+      lib="${lib%\"}"
+      cp "$OUT/unpacked/BOOT-INF/lib/$lib" "$OUT/lib/$lib"
+      CLASSPATH="$CLASSPATH:$OUT/lib/$lib"
+    done < "$OUT/unpacked/BOOT-INF/classpath.idx"
+    echo "$CLASSPATH" > "$OUT/classpath"
+    rm -rf "$OUT/unpacked"
+
+    echo "Recording class-data-sharing archive..."
+    cd "$OUT/training"
+    java -XX:ArchiveClassesAtExit="$OUT/app.jsa" -Dspring.aot.enabled=true -Dspring.context.exit=onRefresh \
+      -cp "$CLASSPATH" "$MAIN" --spring.profiles.active=prod --spring.main.lazy-initialization=false \
+      --spring.jpa.hibernate.ddl-auto=update --server.port=0 --startup.warmup.enabled=false > "$OUT/training.log" 2>&1
+    rm -rf "$OUT/training"
+    echo "Fast-start build ready: $(du -h "$OUT/app.jsa" | cut -f1) archive"
+    ;;
+  run)
+    shift
+    if [ ! -f "$OUT/app.jsa" ]; then
+      echo "Run '$0 build' first" >&2
+      exit 1
+    fi
+    cd "$PROJECT_ROOT"
+    if [ -f .env ]; then
+      export $(grep -v '^#' .env | xargs)
+    fi
+    exec java -XX:SharedArchiveFile="$OUT/app.jsa" -Dspring.aot.enabled=true -cp "$(cat "$OUT/classpath")" \
+      "$MAIN" --spring.profiles.active=prod "$@"
+    ;;
+  *)
+    echo "usage: $0 build | run [spring args...]" >&2
+    exit 1
+    ;;
+esac
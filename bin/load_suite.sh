@@ -0,0 +1,52 @@
+#!/bin/bash
+# usage: bin/load_suite.sh [scenario...] [-- load_test.py options]
+# Starts the packaged backend in a scratch directory with Earth Engine replaced by
+# src/main/python/simulated_backend.py, runs bin/load_test.py once per scenario (default: all of them) and
+# stops the backend. Backend options go in APP_ARGS, e.g.
+#   APP_ARGS="--python.simulator.error-rate=0.05 --python.simulator.capacity=4" bin/load_suite.sh mixed -- --sessions 50
+# Reports are also written as JSON to target/load-suite/<scenario>.json. Run mvn package first.
+set -e
+PROJECT_ROOT="$(cd "$(dirname "${BASH_SOURCE[0]}")/.." && pwd)"
+JAR="$PROJECT_ROOT/target/yield-forecast-1.0-SNAPSHOT.jar"
+PORT="${LOAD_PORT:-18081}"
+WORKDIR="$PROJECT_ROOT/target/load-suite"
+
+SCENARIOS=()
+while [ $# -gt 0 ] && [ "$1" != "--" ]; do
+  SCENARIOS+=("$1")
+  shift
+done
+[ "$1" = "--" ] && shift
+[ ${#SCENARIOS[@]} -eq 0 ] && SCENARIOS=(availability visualization forecast yields mixed)
+
+if [ ! -f "$JAR" ]; then
+  echo "Run mvn package first" >&2
+  exit 1
+fi
+
+rm -rf "$WORKDIR"
+mkdir -p "$WORKDIR"
+cd "$WORKDIR"
+
+java -jar "$JAR" --server.port="$PORT" \
+  --python.simulator.script="$PROJECT_ROOT/src/main/python/simulated_backend.py" \
+  --auth.throttle.ip-attempts=1000000 \
+  --spring.jpa.show-sql=false --logging.level.com.yieldforecast=WARN \
+  $APP_ARGS > app.log 2>&1 &
+APP_PID=$!
+trap 'kill "$APP_PID" 2>/dev/null; wait "$APP_PID" 2>/dev/null || true' EXIT
+
+until curl -s -o /dev/null "http://localhost:$PORT/api/health/circuit"; do
+  if ! kill -0 "$APP_PID" 2>/dev/null; then
+    echo "startup failed, see $WORKDIR/app.log" >&2
+    exit 1
+  fi
+  sleep 0.5
+done
+
+STATUS=0
+for scenario in "${SCENARIOS[@]}"; do
+  python3 "$PROJECT_ROOT/bin/load_test.py" --base-url "http://localhost:$PORT" --scenario "$scenario" \
+    --json "$WORKDIR/$scenario.json" "$@" || STATUS=1
+done
+exit $STATUS
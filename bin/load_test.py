@@ -0,0 +1,293 @@
+#!/usr/bin/env python3
+"""Drives the backend with concurrent signed-in sessions and reports throughput and latency percentiles.
+
+usage: bin/load_test.py [--base-url URL] [--scenario NAME] [--sessions N] [--duration SECONDS]
+                        [--zones N] [--think-ms MS] [--seed N] [--json FILE]
+
+Scenarios: availability, visualization, forecast, yields, mixed. Each session is its own user
+(load-<n>@loadtest.local, registered if the sign-in is refused) with its own cookie or bearer token, and loops over the
+scenario's requests until the duration is up. Zones are drawn from a pool of --zones small polygons, so a
+smaller pool means more result-cache hits. Forecasts are followed to the end of their job; `forecast.job`
+is the time from submission until the job succeeded or failed.
+
+Meant to run against a backend started with the simulated Earth Engine (see bin/load_suite.sh); against the
+real one every request spends quota.
+"""
+import argparse
+import http.client
+import json
+import random
+import sys
+import threading
+import time
+import urllib.parse
+from collections import Counter, defaultdict
+
+PASSWORD = 'load-test-password'
+SCENARIOS = {
+    'availability': {'availability': 1},
+    'visualization': {'visualization': 1},
+    'forecast': {'forecast': 1},
+    'yields': {'yields.list': 7, 'yields.get': 2, 'yields.create': 1},
+    'mixed': {'availability': 3, 'visualization': 3, 'forecast': 1, 'yields.list': 2, 'yields.get': 1},
+}
+SEASONS = [('2024-03-01', '2024-05-31'), ('2024-06-01', '2024-08-31'), ('2024-09-01', '2024-11-30')]
+PARAMETERS = ['NDVI', 'NDMI', 'RECI']
+JOB_POLL_SECONDS = 0.5
+JOB_TIMEOUT_SECONDS = 600
+
+
+class Client:
+    def __init__(self, base_url, timeout):
+        url = urllib.parse.urlsplit(base_url)
+        self.host = url.hostname
+        self.port = url.port or 80
+        self.timeout = timeout
+        self.connection = None
+        self.cookie = None
+        self.token = None
+
+    def request(self, method, path, body=None):
+        headers = {'Accept': 'application/json'}
+        if body is not None:
+            body = json.dumps(body).encode('utf-8')
+            headers['Content-Type'] = 'application/json'
+        if self.cookie:
+            headers['Cookie'] = self.cookie
+        if self.token:
+            headers['Authorization'] = 'Bearer ' + self.token
+        for attempt in range(2):
+            if self.connection is None:
+                self.connection = http.client.HTTPConnection(self.host, self.port, timeout=self.timeout)
+            try:
+                self.connection.request(method, path, body=body, headers=headers)
+                response = self.connection.getresponse()
+                data = response.read()
+                cookie = response.getheader('Set-Cookie')
+                if cookie and cookie.startswith('JSESSIONID='):
+                    self.cookie = cookie.split(';', 1)[0]
+                return response.status, response.getheader('Location'), data
+            except (http.client.HTTPException, OSError):
+                self.connection.close()
+                self.connection = None
+                if attempt == 1:
+                    raise
+        return None
+
+    def sign_in(self, email):
+        credentials = {'email': email, 'password': PASSWORD}
+        status, _, data = self.request('POST', '/api/auth/login', credentials)
+        if status == 401:
+            self.request('POST', '/api/auth/register', dict(credentials, fullName='Load Test'))
+            status, _, data = self.request('POST', '/api/auth/login', credentials)
+        if status != 200:
+            raise RuntimeError(f'login as {email} failed with {status}: {data[:200].decode("utf-8", "replace")}')
+        body = json.loads(data)
+        self.token = body.get('accessToken')
+        return body['id']
+
+
+class Recorder:
+    def __init__(self):
+        self.lock = threading.Lock()
+        self.samples = defaultdict(list)
+        self.statuses = defaultdict(Counter)
+
+    def add(self, operation, status, seconds):
+        with self.lock:
+            self.samples[operation].append((seconds * 1000, 200 <= status < 300 if isinstance(status, int)
+                                            else status == 'SUCCEEDED'))
+            self.statuses[operation][status] += 1
+
+    def report(self, elapsed):
+        rows = []
+        for operation in sorted(self.samples):
+            samples = self.samples[operation]
+            latencies = sorted(ms for ms, _ in samples)
+            rows.append({
+                'operation': operation,
+                'count': len(samples),
+                'ok': sum(1 for _, ok in samples if ok),
+                'throughput': len(samples) / elapsed,
+                'p50': percentile(latencies, 50),
+                'p90': percentile(latencies, 90),
+                'p99': percentile(latencies, 99),
+                'max': latencies[-1],
+                'statuses': {str(k): v for k, v in sorted(self.statuses[operation].items(), key=str)},
+            })
+        return rows
+
+
+def percentile(sorted_values, p):
+    if not sorted_values:
+        return 0.0
+    rank = max(0, min(len(sorted_values) - 1, int(round(p / 100.0 * len(sorted_values) + 0.5)) - 1))
+    return sorted_values[rank]
+
+
+def make_zones(count, rng):
+    zones = []
+    for _ in range(count):
+        lng = 126.5 + rng.random() * 2
+        lat = 35.0 + rng.random() * 2.5
+        w = 0.002 + rng.random() * 0.006
+        h = 0.002 + rng.random() * 0.006
+        zones.append({'type': 'Polygon', 'coordinates': [[[lng, lat], [lng + w, lat], [lng + w, lat + h],
+                                                          [lng, lat + h], [lng, lat]]]})
+    return zones
+
+
+class Session(threading.Thread):
+    def __init__(self, index, args, zones, recorder, deadline, seed):
+        super().__init__(name=f'session-{index}', daemon=True)
+        self.index = index
+        self.args = args
+        self.zones = zones
+        self.recorder = recorder
+        self.deadline = deadline
+        self.rng = random.Random(seed)
+        self.client = Client(args.base_url, args.timeout)
+        self.user_id = None
+        self.record_ids = []
+        self.error = None
+
+    def run(self):
+        weights = SCENARIOS[self.args.scenario]
+        operations = list(weights)
+        try:
+            while time.time() < self.deadline.value:
+                operation = self.rng.choices(operations, [weights[o] for o in operations])[0]
+                if operation == 'yields.get' and not self.record_ids:
+                    operation = 'yields.list'
+                getattr(self, operation.replace('.', '_'))()
+                if self.args.think_ms > 0:
+                    time.sleep(self.rng.expovariate(1000.0 / self.args.think_ms))
+        except Exception as e:
+            self.error = e
+
+    def timed(self, operation, method, path, body=None):
+        started = time.monotonic()
+        try:
+            status, location, data = self.client.request(method, path, body)
+        except (http.client.HTTPException, OSError) as e:
+            self.recorder.add(operation, type(e).__name__, time.monotonic() - started)
+            return None, None, None
+        self.recorder.add(operation, status, time.monotonic() - started)
+        return status, location, data
+
+    def zone_request(self):
+        start, end = self.rng.choice(SEASONS)
+        return {'geometry': self.rng.choice(self.zones), 'startDate': start, 'endDate': end}
+
+    def availability(self):
+        self.timed('availability', 'POST', '/api/forecast/check-availability', self.zone_request())
+
+    def visualization(self):
+        body = self.zone_request()
+        body['parameter'] = self.rng.choice(PARAMETERS)
+        self.timed('visualization', 'POST', '/api/forecast/visualization', body)
+
+    def forecast(self):
+        body = self.zone_request()
+        body['parameter'] = self.rng.choice(PARAMETERS)
+        body['location'] = f'Load zone {self.zones.index(body["geometry"])}'
+        submitted = time.monotonic()
+        status, location, _ = self.timed('forecast.run', 'POST', '/api/forecast/run', body)
+        if status != 200 or not location:
+            return
+        while time.monotonic() - submitted < JOB_TIMEOUT_SECONDS:
+            time.sleep(JOB_POLL_SECONDS)
+            status, _, data = self.timed('forecast.poll', 'GET', location)
+            if status != 200:
+                continue
+            job = json.loads(data)
+            if job.get('status') in ('SUCCEEDED', 'FAILED'):
+                self.recorder.add('forecast.job', job['status'], time.monotonic() - submitted)
+                return
+        self.recorder.add('forecast.job', 'TIMEOUT', time.monotonic() - submitted)
+
+    def yields_list(self):
+        status, _, data = self.timed('yields.list', 'GET', '/api/yields?fields=id,location,date,yieldPrediction')
+        if status == 200:
+            self.record_ids = [record['id'] for record in json.loads(data)][-100:]
+
+    def yields_get(self):
+        self.timed('yields.get', 'GET', f'/api/yields/{self.rng.choice(self.record_ids)}')
+
+    def yields_create(self):
+        start, end = self.rng.choice(SEASONS)
+        geometry = self.rng.choice(self.zones)
+        ring = geometry['coordinates'][0]
+        status, _, data = self.timed('yields.create', 'POST', '/api/yields', {
+            'userId': self.user_id,
+            'location': 'Load test field',
+            'date': end,
+            'startDate': start,
+            'endDate': end,
+            'parameter': self.rng.choice(PARAMETERS),
+            'prediction': round(self.rng.uniform(20, 30), 2),
+            'latitude': ring[0][1],
+            'longitude': ring[0][0],
+            'geometryJson': json.dumps(geometry),
+        })
+        if status == 200:
+            self.record_ids.append(json.loads(data)['id'])
+
+
+class Deadline:
+    value = float('inf')
+
+
+def print_report(rows, elapsed, args):
+    print(f'\nscenario {args.scenario}: {args.sessions} sessions, {elapsed:.1f} s, {args.zones} zones')
+    print(f'{"operation":<15}{"count":>8}{"ok":>8}{"req/s":>9}{"p50 ms":>10}{"p90 ms":>10}{"p99 ms":>10}'
+          f'{"max ms":>10}  statuses')
+    for row in rows:
+        statuses = ' '.join(f'{k}:{v}' for k, v in row['statuses'].items())
+        print(f'{row["operation"]:<15}{row["count"]:>8}{row["ok"]:>8}{row["throughput"]:>9.2f}{row["p50"]:>10.0f}'
+              f'{row["p90"]:>10.0f}{row["p99"]:>10.0f}{row["max"]:>10.0f}  {statuses}')
+
+
+def main():
+    parser = argparse.ArgumentParser(description=__doc__.split('\n')[0])
+    parser.add_argument('--base-url', default='http://localhost:8080')
+    parser.add_argument('--scenario', choices=sorted(SCENARIOS), default='mixed')
+    parser.add_argument('--sessions', type=int, default=20)
+    parser.add_argument('--duration', type=float, default=60, help='seconds of load after sign-in')
+    parser.add_argument('--zones', type=int, default=50, help='distinct zones to draw requests from')
+    parser.add_argument('--think-ms', type=float, default=0, help='mean pause between a session\'s requests')
+    parser.add_argument('--timeout', type=float, default=600, help='HTTP timeout per request in seconds')
+    parser.add_argument('--seed', type=int, default=1)
+    parser.add_argument('--json', help='also write the report as JSON to this file')
+    args = parser.parse_args()
+
+    rng = random.Random(args.seed)
+    zones = make_zones(args.zones, rng)
+    recorder = Recorder()
+    deadline = Deadline()
+    sessions = [Session(i, args, zones, recorder, deadline, rng.random()) for i in range(args.sessions)]
+    for session in sessions:
+        session.user_id = session.client.sign_in(f'load-{session.index}@loadtest.local')
+
+    started = time.time()
+    deadline.value = started + args.duration
+    for session in sessions:
+        session.start()
+    for session in sessions:
+        session.join()
+    elapsed = time.time() - started
+
+    rows = recorder.report(elapsed)
+    print_report(rows, elapsed, args)
+    failed = [s for s in sessions if s.error]
+    for session in failed:
+        print(f'{session.name} stopped early: {session.error!r}', file=sys.stderr)
+    if args.json:
+        with open(args.json, 'w') as f:
+            json.dump({'scenario': args.scenario, 'sessions': args.sessions, 'seconds': elapsed,
+                       'operations': rows}, f, indent=2)
+    return 1 if failed else 0
+
+
+if __name__ == '__main__':
+    sys.exit(main())
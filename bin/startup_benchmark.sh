@@ -0,0 +1,66 @@
+#!/bin/bash
+# usage: bin/startup_benchmark.sh [runs]
+# Starts the backend repeatedly in a scratch directory and reports, for the plain jar (ddl-auto=update, eager
+# beans), the prod profile and the fast-start build (prod profile + AOT + class-data sharing), the JVM uptime
+# at which Spring reports the application started and the wall time until the first HTTP response.
+# Run bin/fast_start.sh build first.
+set -e
+PROJECT_ROOT="$(cd "$(dirname "${BASH_SOURCE[0]}")/.." && pwd)"
+OUT="$PROJECT_ROOT/target/fast-start"
+JAR="$PROJECT_ROOT/target/yield-forecast-1.0-SNAPSHOT.jar"
+MAIN=com.yieldforecast.YieldForecastApplication
+RUNS="${1:-5}"
+PORT="${BENCHMARK_PORT:-18080}"
+WORKDIR="$PROJECT_ROOT/target/startup-benchmark"
+
+if [ ! -f "$OUT/app.jsa" ]; then
+  echo "Run bin/fast_start.sh build first" >&2
+  exit 1
+fi
+
+rm -rf "$WORKDIR"
+mkdir -p "$WORKDIR"
+cd "$WORKDIR"
+
+measure() {
+  local started=$(date +%s%N)
+  "$@" --server.port="$PORT" --startup.warmup.enabled=false > app.log 2>&1 &
+  local pid=$!
+  until curl -s -o /dev/null "http://localhost:$PORT/api/health/circuit"; do
+    if ! kill -0 "$pid" 2>/dev/null; then
+      echo "startup failed, see $WORKDIR/app.log" >&2
+      exit 1
+    fi
+    sleep 0.05
+  done
+  local responded=$(date +%s%N)
+  kill "$pid"
+  wait "$pid" 2>/dev/null || true
+  local ready=$(grep -ao 'process running for [0-9.]*' app.log | awk '{ printf "%d", $4 * 1000 }')
+  echo "$ready $(( (responded - started) / 1000000 ))"
+}
+
+median() {
+  local sorted=($(printf '%s\n' "$@" | sort -n))
+  echo "${sorted[$(( ${#sorted[@]} / 2 ))]}"
+}
+
+report() {
+  local name="$1"
+  shift
+  local ready=()
+  local responded=()
+  for i in $(seq "$RUNS"); do
+    local sample=($(measure "$@"))
+    ready+=("${sample[0]}")
+    responded+=("${sample[1]}")
+  done
+  printf '%-12s ready median %6d ms (%s)   first response median %6d ms (%s)\n' "$name" \
+    "$(median "${ready[@]}")" "${ready[*]}" "$(median "${responded[@]}")" "${responded[*]}"
+}
+
+measure java -jar "$JAR" > /dev/null
+report "jar" java -jar "$JAR"
+report "prod" java -jar "$JAR" --spring.profiles.active=prod
+report "fast-start" java -XX:SharedArchiveFile="$OUT/app.jsa" -Dspring.aot.enabled=true \
+  -cp "$(cat "$OUT/classpath")" "$MAIN" --spring.profiles.active=prod
@@ -340,9 +340,9 @@ export default function DashboardPage() {
             parameter: record.parameter || 'NDVI'
         });
 
-        if (record.geometryJson) {
+        if (record.geometry || record.geometryJson) {
             try {
-                const geom = JSON.parse(record.geometryJson);
+                const geom = record.geometry ?? JSON.parse(record.geometryJson!);
                 setSelectedGeometry(geom);
                 setDrawnGeometry(geom);
                 setMessage(`Loaded settings from "${record.location}". Run forecast to create a new entry.`);
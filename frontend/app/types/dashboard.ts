@@ -2,15 +2,20 @@ export interface YieldRecord {
     id: number;
     location: string;
     date: string;
-    prediction: number;
+    prediction?: number;
+    yieldPrediction?: number;
     latitude: number;
     longitude: number;
-    geometryJson: string;
+    geometry?: any;
+    geometryJson?: string;
     parameter: string;
     userId: number;
     startDate: string;
     endDate: string;
     indexValue?: number;
+    ndviValue?: number;
+    ndmiValue?: number;
+    reciValue?: number;
 }
 
 export interface AvailableDate {
@@ -2,10 +2,8 @@ package com.yieldforecast;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
-import org.springframework.context.annotation.ComponentScan;
 
 @SpringBootApplication
-@ComponentScan(basePackages = {"com.yieldforecast"})
 public class YieldForecastApplication {
 
     public static void main(String[] args) {
@@ -0,0 +1,78 @@
+package com.yieldforecast.config;
+
+import org.hibernate.engine.jdbc.connections.spi.JdbcConnectionAccess;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGenerationException;
+import org.hibernate.id.IdentifierGenerator;
+import org.hibernate.internal.util.config.ConfigurationHelper;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Properties;
+
+/**
+ * Hands out ids from blocks reserved in a counter table whose {@code next_value} is the first id no node has
+ * reserved yet. A block is reserved with a single {@code UPDATE ... RETURNING} on its own autocommit
+ * connection: SQLite takes the write lock before it reads the counter, so concurrent reservations wait on
+ * {@code busy_timeout}. Hibernate's table generator reads and then updates in one deferred transaction, which
+ * under WAL fails with SQLITE_BUSY as soon as another writer commits in between.
+ */
+public class BlockIdGenerator implements IdentifierGenerator {
+
+    public static final String TABLE = "table";
+    public static final String KEY = "key";
+    public static final String BLOCK_SIZE = "block_size";
+
+    private String sql;
+    private String key;
+    private int blockSize;
+
+    private long next;
+    private long limit;
+
+    @Override
+    public void configure(Type type, Properties parameters, ServiceRegistry serviceRegistry) {
+        String table = ConfigurationHelper.getString(TABLE, parameters);
+        key = ConfigurationHelper.getString(KEY, parameters);
+        blockSize = Math.max(1, ConfigurationHelper.getInt(BLOCK_SIZE, parameters, 50));
+        sql = "UPDATE " + table + " SET next_value = next_value + ? WHERE generator = ? RETURNING next_value";
+    }
+
+    @Override
+    public synchronized Object generate(SharedSessionContractImplementor session, Object object) {
+        if (next >= limit) {
+            limit = reserve(session.getJdbcConnectionAccess());
+            next = limit - blockSize;
+        }
+        return next++;
+    }
+
+    private long reserve(JdbcConnectionAccess access) {
+        try {
+            Connection connection = access.obtainConnection();
+            boolean autoCommit = connection.getAutoCommit();
+            try {
+                connection.setAutoCommit(true);
+                try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                    statement.setInt(1, blockSize);
+                    statement.setString(2, key);
+                    try (ResultSet rs = statement.executeQuery()) {
+                        if (!rs.next()) {
+                            throw new IdentifierGenerationException("No id counter row for " + key);
+                        }
+                        return rs.getLong(1);
+                    }
+                }
+            } finally {
+                connection.setAutoCommit(autoCommit);
+                access.releaseConnection(connection);
+            }
+        } catch (SQLException e) {
+            throw new IdentifierGenerationException("Could not reserve ids for " + key, e);
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.yieldforecast.config;
+
+import com.yieldforecast.service.LoginThrottle;
+import com.yieldforecast.service.PythonScheduler;
+import com.yieldforecast.service.TokenService;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class FastStartConfig {
+
+    /**
+     * Beans kept eager when {@code spring.main.lazy-initialization} is on: the ones nothing injects but that must
+     * exist before the first write, and the ones that validate their settings, so a bad value fails the start
+     * instead of the first request that needs it.
+     */
+    @Bean
+    static LazyInitializationExcludeFilter eagerStartupBeans() {
+        return LazyInitializationExcludeFilter.forBeanTypes(IdGeneratorInitializer.class,
+                YieldClusterListener.class, EntityCacheListener.class, TokenService.class, LoginThrottle.class,
+                PythonScheduler.class);
+    }
+}
@@ -0,0 +1,42 @@
+package com.yieldforecast.config;
+
+import com.yieldforecast.entity.YieldRecord;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+@Component
+public class IdGeneratorInitializer {
+
+    private static final Logger logger = LoggerFactory.getLogger(IdGeneratorInitializer.class);
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @PostConstruct
+    public void alignYieldRecordIds() {
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + YieldRecord.ID_GENERATOR_TABLE
+                + " (generator VARCHAR(255) NOT NULL PRIMARY KEY, next_value BIGINT)");
+        Long maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM yield_records", Long.class);
+        long floor = (maxId != null ? maxId : 0) + YieldRecord.ID_ALLOCATION_SIZE + 1;
+
+        String table = YieldRecord.ID_GENERATOR_TABLE;
+        int inserted = jdbcTemplate.update("INSERT OR IGNORE INTO " + table + " (generator, next_value) VALUES (?, ?)",
+                YieldRecord.ID_GENERATOR_KEY, floor);
+        if (inserted > 0) {
+            logger.info("Initialized yield record id generator at {}", floor);
+            return;
+        }
+        // Never lowers the counter, so it is safe while another node is reserving a block.
+        jdbcTemplate.update("UPDATE " + table + " SET next_value = MAX(COALESCE(next_value, 0), ?) WHERE generator = ?",
+                floor, YieldRecord.ID_GENERATOR_KEY);
+        logger.info("Yield record id generator is at least {}", floor);
+    }
+}
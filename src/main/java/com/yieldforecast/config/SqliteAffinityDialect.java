@@ -0,0 +1,30 @@
+package com.yieldforecast.config;
+
+import org.hibernate.community.dialect.SQLiteDialect;
+
+import java.sql.Types;
+
+/**
+ * SQLite stores every column with one of a few type affinities, so the declared type read back from the
+ * schema (INTEGER for a rowid key, REAL for a double) rarely matches the JDBC type Hibernate maps an
+ * attribute to. Treat types with the same affinity as equivalent so {@code ddl-auto=validate} works.
+ */
+public class SqliteAffinityDialect extends SQLiteDialect {
+
+    @Override
+    public boolean equivalentTypes(int typeCode1, int typeCode2) {
+        return super.equivalentTypes(typeCode1, typeCode2) || affinity(typeCode1) == affinity(typeCode2);
+    }
+
+    private static char affinity(int typeCode) {
+        return switch (typeCode) {
+            case Types.BOOLEAN, Types.BIT, Types.TINYINT, Types.SMALLINT, Types.INTEGER, Types.BIGINT -> 'I';
+            case Types.REAL, Types.FLOAT, Types.DOUBLE -> 'R';
+            case Types.NUMERIC, Types.DECIMAL -> 'N';
+            case Types.CHAR, Types.VARCHAR, Types.LONGVARCHAR, Types.NCHAR, Types.NVARCHAR, Types.LONGNVARCHAR,
+                    Types.CLOB, Types.NCLOB -> 'T';
+            case Types.BINARY, Types.VARBINARY, Types.LONGVARBINARY, Types.BLOB -> 'B';
+            default -> (char) typeCode;
+        };
+    }
+}
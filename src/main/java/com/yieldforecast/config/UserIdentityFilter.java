@@ -0,0 +1,53 @@
+package com.yieldforecast.config;
+
+import com.yieldforecast.service.TokenService;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Optional;
+
+public class UserIdentityFilter extends OncePerRequestFilter {
+
+    public static final String USER_ID_ATTRIBUTE = "userId";
+
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    private final TokenService tokenService;
+
+    public UserIdentityFilter(TokenService tokenService) {
+        this.tokenService = tokenService;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        Long userId = null;
+        if (tokenService.isEnabled()) {
+            String authorization = request.getHeader(HttpHeaders.AUTHORIZATION);
+            if (authorization != null && authorization.regionMatches(true, 0, BEARER_PREFIX, 0,
+                    BEARER_PREFIX.length())) {
+                Optional<TokenService.Claims> claims = tokenService.verify(
+                        authorization.substring(BEARER_PREFIX.length()).trim(), TokenService.TokenType.ACCESS);
+                if (claims.isPresent()) {
+                    userId = claims.get().userId();
+                }
+            }
+        } else {
+            HttpSession session = request.getSession(false);
+            if (session != null) {
+                userId = (Long) session.getAttribute(USER_ID_ATTRIBUTE);
+            }
+        }
+
+        if (userId != null) {
+            request.setAttribute(USER_ID_ATTRIBUTE, userId);
+        }
+        chain.doFilter(request, response);
+    }
+}
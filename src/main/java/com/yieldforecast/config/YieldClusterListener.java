@@ -0,0 +1,117 @@
+package com.yieldforecast.config;
+
+import com.yieldforecast.entity.User;
+import com.yieldforecast.entity.YieldRecord;
+import com.yieldforecast.service.YieldClusterService;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.List;
+
+@Component
+public class YieldClusterListener implements PostCommitInsertEventListener, PostCommitUpdateEventListener,
+        PostCommitDeleteEventListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(YieldClusterListener.class);
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Lazy
+    @Autowired
+    private YieldClusterService clusterService;
+
+    @PostConstruct
+    public void register() {
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry().getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_COMMIT_INSERT, this);
+        registry.appendListeners(EventType.POST_COMMIT_UPDATE, this);
+        registry.appendListeners(EventType.POST_COMMIT_DELETE, this);
+        logger.info("Registered yield cluster aggregate listener");
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return YieldRecord.class.equals(persister.getMappedClass());
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        if (event.getEntity() instanceof YieldRecord) {
+            added(event.getPersister(), event.getState());
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if (!(event.getEntity() instanceof YieldRecord record)) {
+            return;
+        }
+        if (event.getOldState() == null) {
+            clusterService.invalidate(record.getUserId());
+            return;
+        }
+        removed(event.getPersister(), event.getOldState());
+        added(event.getPersister(), event.getState());
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (event.getEntity() instanceof YieldRecord) {
+            removed(event.getPersister(), event.getDeletedState());
+        }
+    }
+
+    @Override
+    public void onPostInsertCommitFailed(PostInsertEvent event) {
+    }
+
+    @Override
+    public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+    }
+
+    @Override
+    public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+    }
+
+    private void added(EntityPersister persister, Object[] state) {
+        clusterService.recordAdded(userId(persister, state), (Double) value(persister, state, "latitude"),
+                (Double) value(persister, state, "longitude"), (Double) value(persister, state, "yieldPrediction"));
+    }
+
+    private void removed(EntityPersister persister, Object[] state) {
+        clusterService.recordRemoved(userId(persister, state), (Double) value(persister, state, "latitude"),
+                (Double) value(persister, state, "longitude"), (Double) value(persister, state, "yieldPrediction"));
+    }
+
+    private Long userId(EntityPersister persister, Object[] state) {
+        Object user = value(persister, state, "user");
+        return user instanceof User ? ((User) user).getId() : null;
+    }
+
+    private Object value(EntityPersister persister, Object[] state, String property) {
+        if (state == null) {
+            return null;
+        }
+        List<String> names = Arrays.asList(persister.getPropertyNames());
+        int index = names.indexOf(property);
+        return index >= 0 ? state[index] : null;
+    }
+}
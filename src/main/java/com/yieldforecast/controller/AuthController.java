@@ -2,10 +2,15 @@ package com.yieldforecast.controller;
 
 import com.yieldforecast.entity.User;
 import com.yieldforecast.service.AuthService;
+import com.yieldforecast.service.LoginRejectedException;
+import com.yieldforecast.service.LoginThrottle;
+import com.yieldforecast.service.TokenService;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpSession;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -22,6 +27,12 @@ public class AuthController {
     @Autowired
     private AuthService authService;
 
+    @Autowired
+    private TokenService tokenService;
+
+    @Autowired
+    private LoginThrottle loginThrottle;
+
     @PostMapping("/register")
     public ResponseEntity<?> register(@RequestBody Map<String, String> payload) {
         try {
@@ -47,6 +58,8 @@ public class AuthController {
 
             logger.info("User registered successfully: {}", email);
             return ResponseEntity.ok(response);
+        } catch (LoginRejectedException e) {
+            return rejected(e);
         } catch (Exception e) {
             logger.error("Registration failed: {}", e.getMessage(), e);
             return ResponseEntity.status(500).body(Map.of("error", e.getMessage()));
@@ -54,7 +67,7 @@ public class AuthController {
     }
 
     @PostMapping("/login")
-    public ResponseEntity<?> login(@RequestBody Map<String, String> payload, HttpSession session) {
+    public ResponseEntity<?> login(@RequestBody Map<String, String> payload, HttpServletRequest request) {
         try {
             String email = payload.get("email");
             String password = payload.get("password");
@@ -63,13 +76,18 @@ public class AuthController {
                 return ResponseEntity.badRequest().body(Map.of("error", "Missing email or password"));
             }
 
-            Optional<User> userOpt = authService.login(email, password);
+            String clientIp = loginThrottle.clientIp(request.getRemoteAddr(), request.getHeader("X-Forwarded-For"));
+            Optional<User> userOpt = authService.login(email, password, clientIp);
             if (userOpt.isPresent()) {
                 User user = userOpt.get();
-                session.setAttribute("userId", user.getId());
-                session.setAttribute("userEmail", user.getEmail());
-
                 Map<String, Object> response = new HashMap<>();
+                if (tokenService.isEnabled()) {
+                    response.putAll(tokenService.issueTokens(user));
+                } else {
+                    HttpSession session = request.getSession();
+                    session.setAttribute("userId", user.getId());
+                    session.setAttribute("userEmail", user.getEmail());
+                }
                 response.put("id", user.getId());
                 response.put("email", user.getEmail());
                 response.put("fullName", user.getFullName());
@@ -81,21 +99,52 @@ public class AuthController {
             } else {
                 return ResponseEntity.status(401).body(Map.of("error", "Invalid credentials"));
             }
+        } catch (LoginRejectedException e) {
+            logger.warn("Login rejected for {}: {}", payload.get("email"), e.getReason());
+            return rejected(e);
         } catch (Exception e) {
             logger.error("Login failed", e);
             return ResponseEntity.status(500).body(Map.of("error", "Login failed"));
         }
     }
 
+    @PostMapping("/refresh")
+    public ResponseEntity<?> refresh(@RequestBody Map<String, String> payload) {
+        if (!tokenService.isEnabled()) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Token authentication is not enabled"));
+        }
+
+        Optional<TokenService.Claims> claims = tokenService.verify(payload.get("refreshToken"),
+                TokenService.TokenType.REFRESH);
+        if (claims.isEmpty()) {
+            return ResponseEntity.status(401).body(Map.of("error", "Invalid or expired refresh token"));
+        }
+
+        Optional<User> userOpt = authService.loadUser(claims.get().userId());
+        if (userOpt.isEmpty()) {
+            return ResponseEntity.status(401).body(Map.of("error", "User not found"));
+        }
+        if (userOpt.get().getTokenVersion() != claims.get().version()) {
+            return ResponseEntity.status(401).body(Map.of("error", "Refresh token has been revoked"));
+        }
+        return ResponseEntity.ok(tokenService.issueTokens(userOpt.get()));
+    }
+
     @PostMapping("/logout")
-    public ResponseEntity<?> logout(HttpSession session) {
-        session.invalidate();
+    public ResponseEntity<?> logout(HttpServletRequest request,
+            @RequestAttribute(name = "userId", required = false) Long userId) {
+        if (tokenService.isEnabled() && userId != null) {
+            authService.revokeTokens(userId);
+        }
+        HttpSession session = request.getSession(false);
+        if (session != null) {
+            session.invalidate();
+        }
         return ResponseEntity.ok(Map.of("message", "Logged out successfully"));
     }
 
     @GetMapping("/me")
-    public ResponseEntity<?> getCurrentUser(HttpSession session) {
-        Long userId = (Long) session.getAttribute("userId");
+    public ResponseEntity<?> getCurrentUser(@RequestAttribute(name = "userId", required = false) Long userId) {
         if (userId == null) {
             return ResponseEntity.status(401).body(Map.of("error", "Not authenticated"));
         }
@@ -114,4 +163,10 @@ public class AuthController {
             return ResponseEntity.status(404).body(Map.of("error", "User not found"));
         }
     }
-}
\ No newline at end of file
+
+    private ResponseEntity<?> rejected(LoginRejectedException e) {
+        return ResponseEntity.status(e.getStatusCode())
+                .header(HttpHeaders.RETRY_AFTER, Long.toString(e.getRetryAfterSeconds()))
+                .body(Map.of("error", e.getReason()));
+    }
+}
@@ -1,18 +1,36 @@
 package com.yieldforecast.controller;
 
+import com.yieldforecast.dto.AvailabilityRequest;
+import com.yieldforecast.dto.ForecastRunRequest;
+import com.yieldforecast.dto.GeoJsonGeometry;
+import com.yieldforecast.dto.VisualizationRequest;
+import com.yieldforecast.entity.ForecastJob;
+import com.yieldforecast.service.AuthorizationService;
+import com.yieldforecast.service.CircuitOpenException;
+import com.yieldforecast.service.ForecastJobService;
 import com.yieldforecast.service.ForecastService;
-import jakarta.servlet.http.HttpSession;
+import com.yieldforecast.service.GeometryCost;
+import com.yieldforecast.service.GeometryService;
+import com.yieldforecast.service.ResultPayload;
+import org.json.JSONObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestAttribute;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.util.LinkedHashMap;
 import java.util.Map;
-import java.util.concurrent.CompletableFuture;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/forecast")
@@ -23,31 +41,85 @@ public class ForecastController {
     @Autowired
     private ForecastService forecastService;
 
+    @Autowired
+    private GeometryService geometryService;
+
+    @Autowired
+    private ForecastJobService forecastJobService;
+
+    @Autowired
+    private AuthorizationService authorizationService;
+
     @PostMapping("/run")
-    public ResponseEntity<String> runForecast(@RequestBody Map<String, Object> payload, HttpSession session) {
+    public ResponseEntity<String> runForecast(@RequestBody ForecastRunRequest request, @RequestAttribute(name = "userId", required = false) Long userId) {
         logger.info("Received /run request.");
 
-        Long userId = (Long) session.getAttribute("userId");
         if (userId == null) {
             logger.warn("Unauthorized forecast attempt");
             return ResponseEntity.status(401).body("Unauthorized");
         }
-        CompletableFuture.runAsync(() -> {
-            try {
-                forecastService.processForecast(payload, userId);
-            } catch (Exception e) {
-                logger.error("Forecast execution failed in background task", e);
+
+        GeoJsonGeometry geometry;
+        GeometryCost cost;
+        try {
+            if (request.id() != null) {
+                authorizationService.verifyRecordOwnership(request.id(), userId);
             }
-        });
+            geometry = geometryService.parse(request.geometry());
+            cost = geometryService.preflight(geometry, request.startDate(), request.endDate());
+        } catch (IllegalArgumentException e) {
+            logger.warn("Rejecting forecast for user {}: {}", userId, e.getMessage());
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (ResponseStatusException e) {
+            logger.warn("Rejecting forecast for user {}: {}", userId, e.getReason());
+            return ResponseEntity.status(e.getStatusCode()).body(e.getReason());
+        }
+
+        if (!forecastService.canProcessForecast(request, geometry)) {
+            logger.warn("Rejecting forecast for user {}: Earth Engine circuit is open", userId);
+            return ResponseEntity.status(503).body("Earth Engine is temporarily unavailable");
+        }
+        ForecastJob job = forecastJobService.enqueue(request, geometry, userId);
 
-        return ResponseEntity.ok("Forecast process started");
+        return ResponseEntity.ok()
+                .header(HttpHeaders.LOCATION, "/api/forecast/jobs/" + job.getId())
+                .body("Forecast process started");
+    }
+
+    @GetMapping("/jobs/{id}")
+    public ResponseEntity<?> getJob(@PathVariable Long id, @RequestAttribute(name = "userId", required = false) Long userId) {
+        if (userId == null) {
+            return ResponseEntity.status(401).body(Map.of("error", "Unauthorized"));
+        }
+
+        Optional<ForecastJob> job = forecastJobService.findJob(id);
+        if (job.isEmpty() || !job.get().getUserId().equals(userId)) {
+            return ResponseEntity.status(404).body(Map.of("error", "Forecast job not found"));
+        }
+
+        ForecastJob found = job.get();
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("id", found.getId());
+        body.put("status", found.getStatus());
+        body.put("location", found.getLocation());
+        body.put("attempts", found.getAttempts());
+        body.put("worker", found.getLeaseOwner());
+        body.put("createdAt", found.getCreatedAt());
+        body.put("startedAt", found.getStartedAt());
+        body.put("finishedAt", found.getFinishedAt());
+        body.put("error", found.getLastError());
+        return ResponseEntity.ok(body);
     }
 
     @PostMapping("/check-availability")
-    public ResponseEntity<String> checkDataAvailability(@RequestBody Map<String, Object> payload) {
+    public ResponseEntity<?> checkDataAvailability(@RequestBody AvailabilityRequest request) {
         try {
-            String result = forecastService.checkAvailability(payload);
-            return ResponseEntity.ok(result);
+            ResultPayload result = forecastService.checkAvailability(request);
+            return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(result);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(new JSONObject().put("error", e.getMessage()).toString());
+        } catch (ResponseStatusException e) {
+            return statusError(e);
         } catch (Exception e) {
             logger.error("Exception in checkDataAvailability", e);
             return ResponseEntity.status(500).body("{\"error\":\"" + e.getMessage() + "\"}");
@@ -55,13 +127,27 @@ public class ForecastController {
     }
 
     @PostMapping("/visualization")
-    public ResponseEntity<String> getVisualization(@RequestBody Map<String, Object> payload) {
+    public ResponseEntity<?> getVisualization(@RequestBody VisualizationRequest request) {
         try {
-            String result = forecastService.getVisualization(payload);
-            return ResponseEntity.ok(result);
+            ResultPayload result = forecastService.getVisualization(request);
+            return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(result);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(new JSONObject().put("error", e.getMessage()).toString());
+        } catch (ResponseStatusException e) {
+            return statusError(e);
         } catch (Exception e) {
             logger.error("Exception in getVisualization", e);
             return ResponseEntity.status(500).body("{\"error\":\"" + e.getMessage() + "\"}");
         }
     }
-}
\ No newline at end of file
+
+    private ResponseEntity<String> statusError(ResponseStatusException e) {
+        logger.warn("Request rejected with {}: {}", e.getStatusCode(), e.getReason());
+        ResponseEntity.BodyBuilder builder = ResponseEntity.status(e.getStatusCode());
+        if (e instanceof CircuitOpenException) {
+            builder.header(HttpHeaders.RETRY_AFTER,
+                    Long.toString(((CircuitOpenException) e).getRetryAfterSeconds()));
+        }
+        return builder.body(new JSONObject().put("error", e.getReason()).toString());
+    }
+}
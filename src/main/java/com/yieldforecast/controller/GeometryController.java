@@ -0,0 +1,118 @@
+package com.yieldforecast.controller;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.yieldforecast.service.ZoneClassificationService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestAttribute;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+@RestController
+@RequestMapping("/api/geometry")
+public class GeometryController {
+
+    private static final Logger logger = LoggerFactory.getLogger(GeometryController.class);
+
+    @Autowired
+    private ZoneClassificationService classificationService;
+
+    @PostMapping("/classify")
+    public void classifyPoints(HttpServletRequest request, @RequestAttribute(name = "userId", required = false) Long userId, HttpServletResponse response)
+            throws IOException {
+        if (userId == null) {
+            logger.warn("No authenticated user - unauthorized classify attempt");
+            writeError(response, 401, "Unauthorized");
+            return;
+        }
+
+        boolean gzipIn = "gzip".equalsIgnoreCase(request.getHeader(HttpHeaders.CONTENT_ENCODING));
+        String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        boolean gzipOut = acceptEncoding != null && acceptEncoding.contains("gzip");
+
+        InputStream in = new BufferedInputStream(
+                gzipIn ? new GZIPInputStream(request.getInputStream()) : request.getInputStream(), 64 * 1024);
+
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        LazyOutputStream out = new LazyOutputStream(response, gzipOut);
+
+        try {
+            classificationService.classify(userId, in, out);
+            out.close();
+        } catch (IllegalArgumentException | JsonProcessingException e) {
+            if (out.isOpened()) {
+                throw e;
+            }
+            writeError(response, 400, e.getMessage());
+        }
+    }
+
+    private void writeError(HttpServletResponse response, int status, String message) throws IOException {
+        response.setStatus(status);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.getWriter().write(new JSONObject().put("error", message).toString());
+    }
+
+    private static final class LazyOutputStream extends OutputStream {
+        private final HttpServletResponse response;
+        private final boolean gzip;
+        private OutputStream delegate;
+
+        private LazyOutputStream(HttpServletResponse response, boolean gzip) {
+            this.response = response;
+            this.gzip = gzip;
+        }
+
+        private boolean isOpened() {
+            return delegate != null;
+        }
+
+        private OutputStream delegate() throws IOException {
+            if (delegate == null) {
+                response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+                if (gzip) {
+                    response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+                }
+                delegate = gzip ? new GZIPOutputStream(response.getOutputStream(), 64 * 1024)
+                        : response.getOutputStream();
+            }
+            return delegate;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            delegate().write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            delegate().write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (delegate != null) {
+                delegate.flush();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            delegate().close();
+        }
+    }
+}
@@ -1,9 +1,27 @@
 package com.yieldforecast.controller;
 
+import com.yieldforecast.service.AuthorizationService;
+import com.yieldforecast.service.EntityCache;
+import com.yieldforecast.service.ForecastJobService;
+import com.yieldforecast.service.GeometryService;
+import com.yieldforecast.service.LoginThrottle;
+import com.yieldforecast.service.PasswordHashingService;
+import com.yieldforecast.service.PythonCircuitBreaker;
+import com.yieldforecast.service.PythonConcurrencyLimiter;
+import com.yieldforecast.service.PythonExecutionService;
+import com.yieldforecast.service.PythonScheduler;
+import com.yieldforecast.service.RasterTileStore;
+import com.yieldforecast.service.ResultSegmentStore;
+import com.yieldforecast.service.StartupWarmupService;
+import com.yieldforecast.service.TokenService;
+import com.yieldforecast.service.ZoneSeriesStore;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.availability.ApplicationAvailability;
+import org.springframework.boot.availability.ReadinessState;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestAttribute;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -17,42 +35,109 @@ public class HealthController {
         @Value("${python.executable}")
         private String pythonExecutable;
 
+        @Autowired
+        private PythonCircuitBreaker circuitBreaker;
+
+        @Autowired
+        private GeometryService geometryService;
+
+        @Autowired
+        private PythonExecutionService pythonExecutionService;
+
+        @Autowired
+        private PythonScheduler pythonScheduler;
+
+        @Autowired
+        private PythonConcurrencyLimiter concurrencyLimiter;
+
+        @Autowired
+        private ForecastJobService forecastJobService;
+
+        @Autowired
+        private ResultSegmentStore resultSegmentStore;
+
+        @Autowired
+        private RasterTileStore rasterTileStore;
+
+        @Autowired
+        private TokenService tokenService;
+
+        @Autowired
+        private PasswordHashingService passwordHashingService;
+
+        @Autowired
+        private LoginThrottle loginThrottle;
+
+        @Autowired
+        private EntityCache entityCache;
+
+        @Autowired
+        private ZoneSeriesStore zoneSeriesStore;
+
+        @Autowired
+        private StartupWarmupService startupWarmupService;
+
+        @Autowired
+        private AuthorizationService authorizationService;
+
+        @Autowired
+        private ApplicationAvailability applicationAvailability;
+
+        @GetMapping("/ready")
+        public ResponseEntity<Map<String, Object>> getReadiness() {
+                ReadinessState state = applicationAvailability.getReadinessState();
+                Map<String, Object> warmup = startupWarmupService.snapshot();
+                Map<String, Object> response = new HashMap<>();
+                response.put("readiness", state.name());
+                response.put("warmupCompleted", warmup.containsKey("completedMs"));
+                return ResponseEntity.status(state == ReadinessState.ACCEPTING_TRAFFIC ? 200 : 503).body(response);
+        }
+
         @GetMapping("/gee")
         public ResponseEntity<Map<String, Object>> checkGeeConnection() {
                 Map<String, Object> response = new HashMap<>();
+                PythonCircuitBreaker.State state = circuitBreaker.getState();
+                response.put("status", state == PythonCircuitBreaker.State.CLOSED ? "UP" : "DEGRADED");
+                response.put("circuit", state.name());
+                response.put("geeProjectIdConfigured", geeProjectIdFromEnvFile() != null
+                                || !isBlank(System.getenv("GEE_PROJECT_ID")));
+                return ResponseEntity.ok(response);
+        }
 
-                try {
-                        io.github.cdimascio.dotenv.Dotenv dotenv = io.github.cdimascio.dotenv.Dotenv.configure()
-                                        .directory(".")
-                                        .ignoreIfMissing()
-                                        .load();
+        @GetMapping("/details")
+        public ResponseEntity<Map<String, Object>> getDetails(
+                        @RequestAttribute(name = "userId", required = false) Long userId) {
+                authorizationService.requireAdmin(userId);
+                Map<String, Object> response = new HashMap<>();
 
-                        String geeProjectId = dotenv.get("GEE_PROJECT_ID");
+                try {
+                        String geeProjectId = geeProjectIdFromEnvFile();
                         String envGeeProjectId = System.getenv("GEE_PROJECT_ID");
 
                         response.put("pythonExecutable", pythonExecutable);
-                        response.put("geeProjectIdFromEnvFile",
-                                        geeProjectId != null && !geeProjectId.isEmpty()
-                                                        ? (geeProjectId.length() > 15
-                                                                        ? geeProjectId.substring(0, 15) + "..."
-                                                                        : geeProjectId)
-                                                        : "NOT SET");
-                        response.put("geeProjectIdFromEnvironment",
-                                        envGeeProjectId != null && !envGeeProjectId.isEmpty()
-                                                        ? (envGeeProjectId.length() > 15
-                                                                        ? envGeeProjectId.substring(0, 15) + "..."
-                                                                        : envGeeProjectId)
-                                                        : "NOT SET");
-                        response.put("geeProjectIdConfigured",
-                                        (geeProjectId != null && !geeProjectId.isEmpty()) ||
-                                                        (envGeeProjectId != null && !envGeeProjectId.isEmpty()));
-
-                        String pythonVenvPath = dotenv.get("PYTHON_VENV_PATH");
-                        response.put("pythonVenvPath",
-                                        pythonVenvPath != null && !pythonVenvPath.isEmpty() ? pythonVenvPath
-                                                        : "NOT SET");
+                        response.put("simulatedBackend", pythonExecutionService.isSimulated());
+                        response.put("geeProjectIdFromEnvFile", abbreviate(geeProjectId));
+                        response.put("geeProjectIdFromEnvironment", abbreviate(envGeeProjectId));
+                        response.put("geeProjectIdConfigured", !isBlank(geeProjectId) || !isBlank(envGeeProjectId));
+
+                        String pythonVenvPath = dotenv().get("PYTHON_VENV_PATH");
+                        response.put("pythonVenvPath", isBlank(pythonVenvPath) ? "NOT SET" : pythonVenvPath);
 
                         response.put("envFileLocation", System.getProperty("user.dir") + "/.env");
+                        response.put("circuitBreaker", circuitBreaker.snapshot());
+                        response.put("geometrySimplification", geometryService.simplificationSnapshot());
+                        response.put("lanes", pythonExecutionService.laneSnapshot());
+                        response.put("scheduler", pythonScheduler.snapshot());
+                        response.put("concurrencyLimit", concurrencyLimiter.snapshot());
+                        response.put("forecastJobs", forecastJobService.snapshot());
+                        response.put("resultStore", resultSegmentStore.snapshot());
+                        response.put("rasters", rasterTileStore.snapshot());
+                        response.put("auth", tokenService.snapshot());
+                        response.put("passwordHashing", passwordHashingService.snapshot());
+                        response.put("loginThrottle", loginThrottle.snapshot());
+                        response.put("entityCache", entityCache.snapshot());
+                        response.put("zoneSeries", zoneSeriesStore.snapshot());
+                        response.put("startupWarmup", startupWarmupService.snapshot());
 
                         return ResponseEntity.ok(response);
                 } catch (Exception e) {
@@ -60,4 +145,44 @@ public class HealthController {
                         return ResponseEntity.status(500).body(response);
                 }
         }
-}
\ No newline at end of file
+
+        private io.github.cdimascio.dotenv.Dotenv dotenv() {
+                return io.github.cdimascio.dotenv.Dotenv.configure()
+                                .directory(".")
+                                .ignoreIfMissing()
+                                .load();
+        }
+
+        private String geeProjectIdFromEnvFile() {
+                String geeProjectId = dotenv().get("GEE_PROJECT_ID");
+                return isBlank(geeProjectId) ? null : geeProjectId;
+        }
+
+        private static boolean isBlank(String value) {
+                return value == null || value.isEmpty();
+        }
+
+        private static String abbreviate(String value) {
+                if (isBlank(value)) {
+                        return "NOT SET";
+                }
+                return value.length() > 15 ? value.substring(0, 15) + "..." : value;
+        }
+
+        @GetMapping("/circuit")
+        public ResponseEntity<Map<String, Object>> getCircuitState(
+                        @RequestAttribute(name = "userId", required = false) Long userId) {
+                Map<String, Object> snapshot = circuitBreaker.snapshot();
+                boolean open = "OPEN".equals(snapshot.get("state"));
+                if (!authorizationService.isAdmin(userId)) {
+                        Map<String, Object> coarse = new HashMap<>();
+                        coarse.put("state", snapshot.get("state"));
+                        coarse.put("open", open);
+                        if (snapshot.containsKey("retryAfterSeconds")) {
+                                coarse.put("retryAfterSeconds", snapshot.get("retryAfterSeconds"));
+                        }
+                        snapshot = coarse;
+                }
+                return ResponseEntity.status(open ? 503 : 200).body(snapshot);
+        }
+}
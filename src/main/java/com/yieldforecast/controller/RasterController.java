@@ -0,0 +1,38 @@
+package com.yieldforecast.controller;
+
+import com.yieldforecast.service.AuthorizationService;
+import com.yieldforecast.service.RasterTileStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestAttribute;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/rasters")
+public class RasterController {
+
+    private static final Logger logger = LoggerFactory.getLogger(RasterController.class);
+
+    @Autowired
+    private RasterTileStore rasterTileStore;
+
+    @Autowired
+    private AuthorizationService authorizationService;
+
+    @PostMapping("/ingest")
+    public ResponseEntity<?> ingest(@RequestAttribute(name = "userId", required = false) Long userId) {
+        authorizationService.requireAdmin(userId);
+        try {
+            return ResponseEntity.ok(rasterTileStore.ingestInbox());
+        } catch (Exception e) {
+            logger.error("Raster ingest failed", e);
+            return ResponseEntity.status(500).body(Map.of("error", "Raster ingest failed: " + e.getMessage()));
+        }
+    }
+}
@@ -1,9 +1,9 @@
 package com.yieldforecast.controller;
 
 import com.yieldforecast.entity.User;
+import com.yieldforecast.service.EntityCache;
 import com.yieldforecast.service.TelegramNotificationService;
 import com.yieldforecast.repository.UserRepository;
-import jakarta.servlet.http.HttpSession;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -26,15 +26,17 @@ public class TelegramController {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private EntityCache entityCache;
+
     @PostMapping("/enable")
     public ResponseEntity<Map<String, Object>> enableTelegramNotifications(
             @RequestBody Map<String, String> request,
-            HttpSession session) {
+            @RequestAttribute(name = "userId", required = false) Long userId) {
 
         Map<String, Object> response = new HashMap<>();
 
         try {
-            Long userId = (Long) session.getAttribute("userId");
             if (userId == null) {
                 response.put("success", false);
                 response.put("message", "Unauthorized");
@@ -77,12 +79,11 @@ public class TelegramController {
 
     @PostMapping("/disable")
     public ResponseEntity<Map<String, Object>> disableTelegramNotifications(
-            HttpSession session) {
+            @RequestAttribute(name = "userId", required = false) Long userId) {
 
         Map<String, Object> response = new HashMap<>();
 
         try {
-            Long userId = (Long) session.getAttribute("userId");
             if (userId == null) {
                 response.put("success", false);
                 response.put("message", "Unauthorized");
@@ -113,19 +114,18 @@ public class TelegramController {
 
     @GetMapping("/settings")
     public ResponseEntity<Map<String, Object>> getTelegramSettings(
-            HttpSession session) {
+            @RequestAttribute(name = "userId", required = false) Long userId) {
 
         Map<String, Object> response = new HashMap<>();
 
         try {
-            Long userId = (Long) session.getAttribute("userId");
             if (userId == null) {
                 response.put("success", false);
                 response.put("message", "Unauthorized");
                 return ResponseEntity.status(401).body(response);
             }
 
-            Optional<User> userOpt = userRepository.findById(userId);
+            Optional<User> userOpt = entityCache.findUser(userId);
             if (!userOpt.isPresent()) {
                 response.put("success", false);
                 response.put("message", "User not found");
@@ -150,19 +150,18 @@ public class TelegramController {
 
     @GetMapping("/test")
     public ResponseEntity<Map<String, Object>> testTelegramConnection(
-            HttpSession session) {
+            @RequestAttribute(name = "userId", required = false) Long userId) {
 
         Map<String, Object> response = new HashMap<>();
 
         try {
-            Long userId = (Long) session.getAttribute("userId");
             if (userId == null) {
                 response.put("success", false);
                 response.put("message", "Unauthorized");
                 return ResponseEntity.status(401).body(response);
             }
 
-            Optional<User> userOpt = userRepository.findById(userId);
+            Optional<User> userOpt = entityCache.findUser(userId);
             if (!userOpt.isPresent()) {
                 response.put("success", false);
                 response.put("message", "User not found");
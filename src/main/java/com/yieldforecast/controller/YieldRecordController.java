@@ -1,17 +1,41 @@
 package com.yieldforecast.controller;
 
+import com.yieldforecast.dto.BulkYieldRequest;
 import com.yieldforecast.entity.YieldRecord;
 import com.yieldforecast.repository.YieldRecordRepository;
+import com.yieldforecast.repository.YieldRecordRow;
 import com.yieldforecast.service.AuthorizationService;
 import com.yieldforecast.service.GeometryService;
+import com.yieldforecast.service.YieldBulkService;
+import com.yieldforecast.service.YieldClusterService;
+import com.yieldforecast.service.YieldExportService;
+import com.yieldforecast.service.YieldImportService;
+import com.yieldforecast.service.YieldRecordJsonWriter;
+import com.yieldforecast.service.YieldRescoringService;
+import com.yieldforecast.service.ZoneSeriesStore;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.json.JSONObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
 import java.util.Map;
+import java.util.Optional;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/api/yields")
@@ -28,61 +52,281 @@ public class YieldRecordController {
     @Autowired
     private AuthorizationService authorizationService;
 
+    @Autowired
+    private YieldExportService exportService;
+
+    @Autowired
+    private YieldImportService importService;
+
+    @Autowired
+    private YieldRescoringService rescoringService;
+
+    @Autowired
+    private YieldRecordJsonWriter jsonWriter;
+
+    @Autowired
+    private YieldClusterService clusterService;
+
+    @Autowired
+    private YieldBulkService bulkService;
+
+    @Autowired
+    private ZoneSeriesStore seriesStore;
+
     @GetMapping
-    public ResponseEntity<?> getAllYields(jakarta.servlet.http.HttpSession session) {
+    public void getAllYields(@RequestParam(required = false) String fields,
+            @RequestAttribute(name = "userId", required = false) Long userId, HttpServletResponse response) throws IOException {
         logger.info("=== GET /api/yields REQUEST RECEIVED ===");
-        Long userId = (Long) session.getAttribute("userId");
 
         if (userId == null) {
-            logger.warn("No userId in session - unauthorized access attempt");
+            logger.warn("No authenticated user - unauthorized access attempt");
+            writeError(response, 401, "Unauthorized");
+            return;
+        }
+
+        YieldRecordJsonWriter.Selection selection;
+        try {
+            selection = jsonWriter.select(fields);
+        } catch (IllegalArgumentException e) {
+            writeError(response, 400, e.getMessage());
+            return;
+        }
+
+        logger.info("Authenticated userId: {} - returning user-specific records", userId);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        long rows = jsonWriter.writeAll(userId, selection, response.getOutputStream());
+
+        logger.info("Found {} yield records", rows);
+    }
+
+    @GetMapping("/export")
+    public void exportYields(@RequestParam(defaultValue = "csv") String format,
+            @RequestParam(required = false) String parameter,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            @RequestAttribute(name = "userId", required = false) Long userId, HttpServletResponse response) throws IOException {
+        if (userId == null) {
+            logger.warn("No authenticated user - unauthorized export attempt");
+            writeError(response, 401, "Unauthorized");
+            return;
+        }
+
+        YieldExportService.Format exportFormat;
+        try {
+            exportFormat = YieldExportService.Format.parse(format);
+        } catch (IllegalArgumentException e) {
+            writeError(response, 400, e.getMessage());
+            return;
+        }
+
+        boolean gzip = acceptEncoding != null && acceptEncoding.contains("gzip");
+        response.setContentType(exportFormat.getContentType() + ";charset=UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                "attachment; filename=\"yields." + exportFormat.getExtension() + "\"");
+        if (gzip) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+
+        OutputStream out = gzip ? new GZIPOutputStream(response.getOutputStream(), 64 * 1024)
+                : response.getOutputStream();
+        exportService.export(userId, exportFormat, parameter, from, to, out);
+        out.close();
+    }
+
+    @GetMapping("/clusters")
+    public ResponseEntity<?> getClusters(@RequestParam String bbox, @RequestParam int zoom,
+            @RequestAttribute(name = "userId", required = false) Long userId) {
+        if (userId == null) {
+            logger.warn("No authenticated user - unauthorized clusters attempt");
             return ResponseEntity.status(401).body(Map.of("error", "Unauthorized"));
         }
 
-        logger.info("userId in session: {} - returning user-specific records", userId);
-        List<YieldRecord> records = repository.findByUserIdOrderByDateDesc(userId);
+        String[] parts = bbox.split(",");
+        double[] bounds = new double[4];
+        try {
+            if (parts.length != 4) {
+                throw new NumberFormatException();
+            }
+            for (int i = 0; i < 4; i++) {
+                bounds[i] = Double.parseDouble(parts[i].trim());
+            }
+        } catch (NumberFormatException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "bbox must be minLng,minLat,maxLng,maxLat"));
+        }
+        if (bounds[0] > bounds[2] || bounds[1] > bounds[3] || bounds[0] < -180 || bounds[2] > 180
+                || bounds[1] < -90 || bounds[3] > 90 || zoom < 0) {
+            return ResponseEntity.badRequest().body(Map.of("error", "bbox or zoom is out of range"));
+        }
 
-        logger.info("Found {} yield records", records.size());
-        return ResponseEntity.ok(records);
+        return ResponseEntity.ok(clusterService.getClusters(userId, bounds[0], bounds[1], bounds[2], bounds[3], zoom));
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<YieldRecord> getYieldById(@PathVariable Long id) {
-        return repository.findById(id)
-                .map(ResponseEntity::ok)
-                .orElse(ResponseEntity.notFound().build());
+    public void getYieldById(@PathVariable Long id, @RequestParam(required = false) String fields,
+            @RequestAttribute(name = "userId", required = false) Long userId, HttpServletResponse response)
+            throws IOException {
+        if (userId == null) {
+            logger.warn("No authenticated user - unauthorized access attempt to record {}", id);
+            writeError(response, 401, "Unauthorized");
+            return;
+        }
+        try {
+            authorizationService.verifyRecordOwnership(id, userId);
+        } catch (org.springframework.web.server.ResponseStatusException e) {
+            writeError(response, e.getStatusCode().value(), e.getReason());
+            return;
+        }
+
+        YieldRecordJsonWriter.Selection selection;
+        try {
+            selection = jsonWriter.select(fields);
+        } catch (IllegalArgumentException e) {
+            writeError(response, 400, e.getMessage());
+            return;
+        }
+
+        Optional<YieldRecordRow> row = jsonWriter.findOne(id, selection);
+        if (row.isEmpty()) {
+            response.setStatus(404);
+            return;
+        }
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        jsonWriter.writeOne(row.get(), selection, response.getOutputStream());
     }
 
     @PostMapping
-    public YieldRecord createYield(@RequestBody YieldRecord yieldRecord) {
+    public YieldRecord createYield(@RequestBody YieldRecord yieldRecord,
+            @RequestAttribute(name = "userId", required = false) Long userId) {
         logger.info("POST /api/yields - createYield called. Payload: {}",
                 yieldRecord != null ? yieldRecord.toString() : "<null>");
+        authorizationService.requireAuthentication(userId);
+        if (yieldRecord == null) {
+            throw new org.springframework.web.server.ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Request body is required");
+        }
+        yieldRecord.setId(null);
+        yieldRecord.setUserId(userId);
+        if (yieldRecord.getGeometryJson() != null) {
+            try {
+                yieldRecord.setGeometryJson(geometryService.parse(yieldRecord.getGeometryJson()).getJson());
+            } catch (IllegalArgumentException e) {
+                throw new org.springframework.web.server.ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        e.getMessage());
+            }
+        }
         return repository.save(yieldRecord);
     }
 
+    @PostMapping("/bulk")
+    public ResponseEntity<?> bulkImport(@RequestParam(required = false) String format, HttpServletRequest request,
+            @RequestAttribute(name = "userId", required = false) Long userId) {
+        if (userId == null) {
+            logger.warn("No authenticated user - unauthorized bulk import attempt");
+            return ResponseEntity.status(401).body(Map.of("error", "Unauthorized"));
+        }
+
+        String contentType = request.getContentType() != null ? request.getContentType() : "";
+        YieldImportService.Format importFormat;
+        if ("csv".equalsIgnoreCase(format) || (format == null && contentType.startsWith("text/csv"))) {
+            importFormat = YieldImportService.Format.CSV;
+        } else if ("ndjson".equalsIgnoreCase(format) || format == null) {
+            importFormat = YieldImportService.Format.NDJSON;
+        } else {
+            return ResponseEntity.badRequest().body(Map.of("error", "Unsupported import format: " + format));
+        }
+
+        try {
+            boolean gzip = "gzip".equalsIgnoreCase(request.getHeader(HttpHeaders.CONTENT_ENCODING));
+            BufferedReader reader = new BufferedReader(new InputStreamReader(
+                    gzip ? new GZIPInputStream(request.getInputStream()) : request.getInputStream(),
+                    StandardCharsets.UTF_8), 64 * 1024);
+            return ResponseEntity.ok(importService.importRecords(userId, importFormat, reader));
+        } catch (IOException e) {
+            logger.error("Bulk import failed for user {}", userId, e);
+            return ResponseEntity.status(400).body(Map.of("error", "Failed to read request body: " + e.getMessage()));
+        }
+    }
+
+    @PostMapping("/rescore")
+    public ResponseEntity<?> rescoreYields(@RequestAttribute(name = "userId", required = false) Long userId) {
+        if (userId == null) {
+            logger.warn("No authenticated user - unauthorized rescore attempt");
+            return ResponseEntity.status(401).body(Map.of("error", "Unauthorized"));
+        }
+
+        try {
+            return ResponseEntity.ok(rescoringService.rescore(userId));
+        } catch (org.springframework.web.server.ResponseStatusException e) {
+            return ResponseEntity.status(e.getStatusCode()).body(Map.of("error", e.getReason()));
+        }
+    }
+
+    @PostMapping("/model/reload")
+    public ResponseEntity<?> reloadModel(@RequestParam(defaultValue = "false") boolean rescore,
+            @RequestAttribute(name = "userId", required = false) Long userId) {
+        authorizationService.requireAdmin(userId);
+        try {
+            return ResponseEntity.ok(rescoringService.reloadModel(rescore));
+        } catch (org.springframework.web.server.ResponseStatusException e) {
+            return ResponseEntity.status(e.getStatusCode()).body(Map.of("error", e.getReason()));
+        }
+    }
+
+    @PostMapping("/bulk-delete")
+    public ResponseEntity<?> bulkDelete(@RequestBody BulkYieldRequest request,
+            @RequestAttribute(name = "userId", required = false) Long userId) {
+        if (userId == null) {
+            logger.warn("No authenticated user - unauthorized bulk delete attempt");
+            return ResponseEntity.status(401).body(Map.of("error", "Unauthorized"));
+        }
+
+        try {
+            return ResponseEntity.ok(bulkService.delete(userId, request));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @PostMapping("/bulk-update")
+    public ResponseEntity<?> bulkUpdate(@RequestBody BulkYieldRequest request,
+            @RequestAttribute(name = "userId", required = false) Long userId) {
+        if (userId == null) {
+            logger.warn("No authenticated user - unauthorized bulk update attempt");
+            return ResponseEntity.status(401).body(Map.of("error", "Unauthorized"));
+        }
+
+        try {
+            return ResponseEntity.ok(bulkService.update(userId, request));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
     @PutMapping("/{id}")
-    public ResponseEntity<YieldRecord> updateYield(@PathVariable Long id, @RequestBody YieldRecord yieldDetails) {
+    public ResponseEntity<YieldRecord> updateYield(@PathVariable Long id, @RequestBody YieldRecord yieldDetails,
+            @RequestAttribute(name = "userId", required = false) Long userId) {
         logger.info("PUT /api/yields/{} - updateYield called. Payload: {}", id,
                 yieldDetails != null ? yieldDetails.toString() : "<null>");
-        return repository.findById(id)
-                .map(record -> {
-                    record.setLocation(yieldDetails.getLocation());
-                    record.setDate(yieldDetails.getDate());
-                    record.setPrediction(yieldDetails.getPrediction());
-                    return ResponseEntity.ok(repository.save(record));
-                })
-                .orElse(ResponseEntity.notFound().build());
+        authorizationService.requireAuthentication(userId);
+        YieldRecord record = authorizationService.getOwnedRecord(id, userId);
+        record.setLocation(yieldDetails.getLocation());
+        record.setDate(yieldDetails.getDate());
+        record.setPrediction(yieldDetails.getPrediction());
+        return ResponseEntity.ok(repository.save(record));
     }
 
     @DeleteMapping("/{id}")
-    public ResponseEntity<?> deleteYield(@PathVariable Long id, jakarta.servlet.http.HttpSession session) {
+    public ResponseEntity<?> deleteYield(@PathVariable Long id, @RequestAttribute(name = "userId", required = false) Long userId) {
         try {
-            Long userId = (Long) session.getAttribute("userId");
 
             authorizationService.requireAuthentication(userId);
 
             authorizationService.verifyRecordOwnership(id, userId);
 
             repository.deleteById(id);
+            seriesStore.deleteZone(id);
             logger.info("Record {} deleted by user {}", id, userId);
 
             return ResponseEntity.ok(Map.of("message", "Record deleted successfully"));
@@ -94,4 +338,10 @@ public class YieldRecordController {
             return ResponseEntity.status(500).body(Map.of("error", "Internal server error"));
         }
     }
-}
\ No newline at end of file
+
+    private void writeError(HttpServletResponse response, int status, String message) throws IOException {
+        response.setStatus(status);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.getWriter().write(new JSONObject().put("error", message).toString());
+    }
+}
@@ -0,0 +1,67 @@
+package com.yieldforecast.controller;
+
+import com.yieldforecast.entity.YieldRecord;
+import com.yieldforecast.service.AuthorizationService;
+import com.yieldforecast.service.ZoneSeriesStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestAttribute;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/zones")
+public class ZoneController {
+
+    private static final Logger logger = LoggerFactory.getLogger(ZoneController.class);
+
+    @Autowired
+    private AuthorizationService authorizationService;
+
+    @Autowired
+    private ZoneSeriesStore seriesStore;
+
+    @GetMapping("/{id}/series")
+    public ResponseEntity<?> getSeries(@PathVariable Long id,
+            @RequestParam(required = false) String parameter,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "0") int bucketDays,
+            @RequestAttribute(name = "userId", required = false) Long userId) {
+        try {
+            authorizationService.requireAuthentication(userId);
+            YieldRecord record = authorizationService.getOwnedRecord(id, userId);
+
+            if (from != null && to != null && from.isAfter(to)) {
+                return ResponseEntity.badRequest().body(Map.of("error", "from must not be after to"));
+            }
+            if (bucketDays < 0) {
+                return ResponseEntity.badRequest().body(Map.of("error", "bucketDays must not be negative"));
+            }
+            String selected = parameter != null ? parameter
+                    : record.getParameter() != null ? record.getParameter() : "NDVI";
+
+            Map<String, Object> series = seriesStore.scan(id, selected, from, to, bucketDays);
+            series.put("parameters", seriesStore.parameters(id));
+            return ResponseEntity.ok(series);
+        } catch (ResponseStatusException e) {
+            logger.warn("Series request failed for zone {}: {}", id, e.getReason());
+            return ResponseEntity.status(e.getStatusCode()).body(Map.of("error", e.getReason()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            logger.error("Unexpected error reading series for zone {}", id, e);
+            return ResponseEntity.status(500).body(Map.of("error", "Internal server error"));
+        }
+    }
+}
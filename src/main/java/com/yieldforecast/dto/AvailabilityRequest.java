@@ -0,0 +1,13 @@
+package com.yieldforecast.dto;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.time.LocalDate;
+
+public record AvailabilityRequest(JsonNode geometry, LocalDate startDate, LocalDate endDate) {
+
+    public AvailabilityRequest {
+        startDate = startDate != null ? startDate : LocalDate.of(2024, 1, 1);
+        endDate = endDate != null ? endDate : LocalDate.of(2024, 12, 31);
+    }
+}
@@ -0,0 +1,23 @@
+package com.yieldforecast.dto;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public record BulkYieldRequest(List<Long> ids, String parameter, LocalDate from, LocalDate to, Changes set) {
+
+    public BulkYieldRequest {
+        ids = ids != null ? ids.stream().filter(id -> id != null).distinct().toList() : List.of();
+        parameter = parameter != null && !parameter.isBlank() ? parameter : null;
+    }
+
+    public boolean hasSelection() {
+        return !ids.isEmpty() || parameter != null || from != null || to != null;
+    }
+
+    public record Changes(String location, LocalDate date, Double prediction) {
+
+        public boolean isEmpty() {
+            return location == null && date == null && prediction == null;
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.yieldforecast.dto;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.time.LocalDate;
+
+public record ForecastRunRequest(Long id, String location, LocalDate date, String parameter, LocalDate startDate,
+        LocalDate endDate, JsonNode geometry) {
+
+    public ForecastRunRequest {
+        location = location != null && !location.isBlank() ? location : "Custom Zone";
+        date = date != null ? date : LocalDate.now();
+        parameter = parameter != null && !parameter.isBlank() ? parameter : "NDVI";
+        startDate = startDate != null ? startDate : LocalDate.of(date.getYear(), 1, 1);
+        endDate = endDate != null ? endDate : LocalDate.of(date.getYear(), 12, 31);
+    }
+}
@@ -0,0 +1,69 @@
+package com.yieldforecast.dto;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+public final class GeoJsonGeometry {
+
+    private final String type;
+    private final String json;
+    private final JsonNode node;
+    private final String hash;
+    private final double centroidLatitude;
+    private final double centroidLongitude;
+    private final double areaHectares;
+
+    public GeoJsonGeometry(String type, String json, JsonNode node, String hash, double centroidLatitude,
+            double centroidLongitude, double areaHectares) {
+        this.type = type;
+        this.json = json;
+        this.node = node;
+        this.hash = hash;
+        this.centroidLatitude = centroidLatitude;
+        this.centroidLongitude = centroidLongitude;
+        this.areaHectares = areaHectares;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public String getJson() {
+        return json;
+    }
+
+    /** A copy of the parsed canonical geometry, so changes made by the caller never reach the cached value. */
+    public JsonNode getNode() {
+        return node.deepCopy();
+    }
+
+    public String getHash() {
+        return hash;
+    }
+
+    public double getCentroidLatitude() {
+        return centroidLatitude;
+    }
+
+    public double getCentroidLongitude() {
+        return centroidLongitude;
+    }
+
+    public double getAreaHectares() {
+        return areaHectares;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof GeoJsonGeometry && ((GeoJsonGeometry) other).hash.equals(hash);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return type + "[" + hash.substring(0, Math.min(12, hash.length())) + "]";
+    }
+}
@@ -0,0 +1,14 @@
+package com.yieldforecast.dto;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.time.LocalDate;
+
+public record VisualizationRequest(JsonNode geometry, LocalDate startDate, LocalDate endDate, String parameter) {
+
+    public VisualizationRequest {
+        startDate = startDate != null ? startDate : LocalDate.of(2024, 1, 1);
+        endDate = endDate != null ? endDate : LocalDate.of(2024, 12, 31);
+        parameter = parameter != null && !parameter.isBlank() ? parameter : "NDVI";
+    }
+}
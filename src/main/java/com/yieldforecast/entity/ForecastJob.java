@@ -0,0 +1,178 @@
+package com.yieldforecast.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDate;
+
+@Entity
+@Table(name = "forecast_jobs", indexes = @Index(name = "idx_forecast_jobs_status", columnList = "status, available_at"))
+public class ForecastJob {
+
+    public enum Status {
+        QUEUED, RUNNING, SUCCEEDED, FAILED
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long userId;
+
+    private Long recordId;
+
+    private String location;
+
+    private LocalDate date;
+
+    private String parameter;
+
+    private LocalDate startDate;
+
+    private LocalDate endDate;
+
+    @Column(columnDefinition = "TEXT", nullable = false)
+    private String geometryJson;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Status status = Status.QUEUED;
+
+    private int attempts;
+
+    private String leaseOwner;
+
+    private String leaseToken;
+
+    private Long leaseExpiresAt;
+
+    private long availableAt;
+
+    private long createdAt;
+
+    private Long startedAt;
+
+    private Long finishedAt;
+
+    @Column(columnDefinition = "TEXT")
+    private String lastError;
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public Long getRecordId() {
+        return recordId;
+    }
+
+    public void setRecordId(Long recordId) {
+        this.recordId = recordId;
+    }
+
+    public String getLocation() {
+        return location;
+    }
+
+    public void setLocation(String location) {
+        this.location = location;
+    }
+
+    public LocalDate getDate() {
+        return date;
+    }
+
+    public void setDate(LocalDate date) {
+        this.date = date;
+    }
+
+    public String getParameter() {
+        return parameter;
+    }
+
+    public void setParameter(String parameter) {
+        this.parameter = parameter;
+    }
+
+    public LocalDate getStartDate() {
+        return startDate;
+    }
+
+    public void setStartDate(LocalDate startDate) {
+        this.startDate = startDate;
+    }
+
+    public LocalDate getEndDate() {
+        return endDate;
+    }
+
+    public void setEndDate(LocalDate endDate) {
+        this.endDate = endDate;
+    }
+
+    public String getGeometryJson() {
+        return geometryJson;
+    }
+
+    public void setGeometryJson(String geometryJson) {
+        this.geometryJson = geometryJson;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public String getLeaseOwner() {
+        return leaseOwner;
+    }
+
+    public String getLeaseToken() {
+        return leaseToken;
+    }
+
+    public Long getLeaseExpiresAt() {
+        return leaseExpiresAt;
+    }
+
+    public long getAvailableAt() {
+        return availableAt;
+    }
+
+    public void setAvailableAt(long availableAt) {
+        this.availableAt = availableAt;
+    }
+
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(long createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public Long getStartedAt() {
+        return startedAt;
+    }
+
+    public Long getFinishedAt() {
+        return finishedAt;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+}
@@ -28,6 +28,8 @@ public class User {
 
     private Boolean telegramNotificationsEnabled = false;
 
+    private Long tokenVersion = 0L;
+
     @Column(nullable = false)
     private LocalDateTime createdAt;
 
@@ -115,4 +117,12 @@ public class User {
     public void setTelegramNotificationsEnabled(Boolean telegramNotificationsEnabled) {
         this.telegramNotificationsEnabled = telegramNotificationsEnabled;
     }
+
+    public long getTokenVersion() {
+        return tokenVersion != null ? tokenVersion : 0L;
+    }
+
+    public void setTokenVersion(Long tokenVersion) {
+        this.tokenVersion = tokenVersion;
+    }
 }
\ No newline at end of file
@@ -1,15 +1,26 @@
 package com.yieldforecast.entity;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.yieldforecast.config.BlockIdGenerator;
 import jakarta.persistence.*;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 import java.time.LocalDate;
 
 @Entity
 @Table(name = "yield_records")
 public class YieldRecord {
 
+    public static final String ID_GENERATOR_TABLE = "id_generators";
+    public static final String ID_GENERATOR_KEY = "yield_records";
+    public static final int ID_ALLOCATION_SIZE = 50;
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(generator = "yield_record_ids")
+    @GenericGenerator(name = "yield_record_ids", type = BlockIdGenerator.class, parameters = {
+            @Parameter(name = BlockIdGenerator.TABLE, value = ID_GENERATOR_TABLE),
+            @Parameter(name = BlockIdGenerator.KEY, value = ID_GENERATOR_KEY),
+            @Parameter(name = BlockIdGenerator.BLOCK_SIZE, value = "" + ID_ALLOCATION_SIZE) })
     private Long id;
 
     private String location;
@@ -25,6 +36,10 @@ public class YieldRecord {
     private Double indexValue;
     private Double yieldPrediction;
 
+    private Double ndviValue;
+    private Double ndmiValue;
+    private Double reciValue;
+
     @Column(columnDefinition = "TEXT")
     private String geometryJson;
 
@@ -70,6 +85,30 @@ public class YieldRecord {
         this.yieldPrediction = yieldPrediction;
     }
 
+    public Double getNdviValue() {
+        return ndviValue;
+    }
+
+    public void setNdviValue(Double ndviValue) {
+        this.ndviValue = ndviValue;
+    }
+
+    public Double getNdmiValue() {
+        return ndmiValue;
+    }
+
+    public void setNdmiValue(Double ndmiValue) {
+        this.ndmiValue = ndmiValue;
+    }
+
+    public Double getReciValue() {
+        return reciValue;
+    }
+
+    public void setReciValue(Double reciValue) {
+        this.reciValue = reciValue;
+    }
+
     public Long getId() {
         return id;
     }
@@ -0,0 +1,10 @@
+package com.yieldforecast.repository;
+
+public interface ClusterPointRow {
+
+    Double getLatitude();
+
+    Double getLongitude();
+
+    Double getYieldPrediction();
+}
@@ -0,0 +1,14 @@
+package com.yieldforecast.repository;
+
+import com.yieldforecast.entity.ForecastJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface ForecastJobRepository extends JpaRepository<ForecastJob, Long> {
+    Optional<ForecastJob> findByLeaseToken(String leaseToken);
+
+    long countByStatus(ForecastJob.Status status);
+}
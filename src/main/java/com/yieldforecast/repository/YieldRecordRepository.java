@@ -1,12 +1,19 @@
 package com.yieldforecast.repository;
 
 import com.yieldforecast.entity.YieldRecord;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface YieldRecordRepository extends JpaRepository<YieldRecord, Long> {
@@ -15,4 +22,70 @@ public interface YieldRecordRepository extends JpaRepository<YieldRecord, Long>
 
     @Query("SELECT y FROM YieldRecord y WHERE y.user.id = :userId ORDER BY y.date DESC")
     List<YieldRecord> findByUserIdOrderByDateDesc(@Param("userId") Long userId);
-}
\ No newline at end of file
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "false")
+    })
+    @Query("SELECT y FROM YieldRecord y WHERE y.user.id = :userId"
+            + " AND (:parameter IS NULL OR y.parameter = :parameter)"
+            + " AND (:fromDate IS NULL OR y.date >= :fromDate)"
+            + " AND (:toDate IS NULL OR y.date <= :toDate)"
+            + " ORDER BY y.date DESC")
+    Stream<YieldRecord> streamForExport(@Param("userId") Long userId, @Param("parameter") String parameter,
+            @Param("fromDate") LocalDate fromDate, @Param("toDate") LocalDate toDate);
+
+    @Query("SELECT y.id AS id, y.indexValue AS indexValue, y.parameter AS parameter,"
+            + " y.geometryJson AS geometryJson, y.startDate AS startDate, y.endDate AS endDate"
+            + " FROM YieldRecord y WHERE y.id > :afterId AND y.indexValue IS NOT NULL"
+            + " AND (:userId IS NULL OR y.user.id = :userId) ORDER BY y.id")
+    List<YieldScoringRow> findScoringPage(@Param("afterId") Long afterId, @Param("userId") Long userId,
+            Pageable pageable);
+
+    String ROW_SELECT = "SELECT new com.yieldforecast.repository.YieldRecordRow(y.id, y.location, y.date,"
+            + " y.parameter, y.indexValue, y.yieldPrediction, y.prediction, y.ndviValue, y.ndmiValue, y.reciValue,"
+            + " y.latitude, y.longitude, y.startDate, y.endDate, y.user.id, y.geometryJson) FROM YieldRecord y";
+
+    String ROW_SELECT_WITHOUT_GEOMETRY = "SELECT new com.yieldforecast.repository.YieldRecordRow(y.id, y.location,"
+            + " y.date, y.parameter, y.indexValue, y.yieldPrediction, y.prediction, y.ndviValue, y.ndmiValue,"
+            + " y.reciValue, y.latitude, y.longitude, y.startDate, y.endDate, y.user.id, CAST(NULL AS String))"
+            + " FROM YieldRecord y";
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query(ROW_SELECT + " WHERE y.user.id = :userId ORDER BY y.date DESC")
+    Stream<YieldRecordRow> streamRowsByUserId(@Param("userId") Long userId);
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query(ROW_SELECT_WITHOUT_GEOMETRY + " WHERE y.user.id = :userId ORDER BY y.date DESC")
+    Stream<YieldRecordRow> streamRowsWithoutGeometryByUserId(@Param("userId") Long userId);
+
+    @Query(ROW_SELECT + " WHERE y.id = :id")
+    Optional<YieldRecordRow> findRowById(@Param("id") Long id);
+
+    @Query(ROW_SELECT_WITHOUT_GEOMETRY + " WHERE y.id = :id")
+    Optional<YieldRecordRow> findRowWithoutGeometryById(@Param("id") Long id);
+
+    @Query("SELECT y.id AS id, y.geometryJson AS geometryJson FROM YieldRecord y"
+            + " WHERE y.user.id = :userId AND y.geometryJson IS NOT NULL")
+    List<ZoneGeometryRow> findZoneGeometries(@Param("userId") Long userId);
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT y.latitude AS latitude, y.longitude AS longitude, y.yieldPrediction AS yieldPrediction"
+            + " FROM YieldRecord y WHERE y.user.id = :userId AND y.latitude IS NOT NULL AND y.longitude IS NOT NULL")
+    List<ClusterPointRow> findClusterPoints(@Param("userId") Long userId);
+
+    String BULK_FILTER = " y.user.id = :userId"
+            + " AND (:parameter IS NULL OR y.parameter = :parameter)"
+            + " AND (:fromDate IS NULL OR y.date >= :fromDate)"
+            + " AND (:toDate IS NULL OR y.date <= :toDate)";
+}
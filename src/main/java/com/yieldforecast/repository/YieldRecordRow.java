@@ -0,0 +1,9 @@
+package com.yieldforecast.repository;
+
+import java.time.LocalDate;
+
+public record YieldRecordRow(Long id, String location, LocalDate date, String parameter, Double indexValue,
+        Double yieldPrediction, Double prediction, Double ndviValue, Double ndmiValue, Double reciValue,
+        Double latitude, Double longitude, LocalDate startDate, LocalDate endDate, Long userId,
+        String geometryJson) {
+}
@@ -0,0 +1,18 @@
+package com.yieldforecast.repository;
+
+import java.time.LocalDate;
+
+public interface YieldScoringRow {
+
+    Long getId();
+
+    Double getIndexValue();
+
+    String getParameter();
+
+    String getGeometryJson();
+
+    LocalDate getStartDate();
+
+    LocalDate getEndDate();
+}
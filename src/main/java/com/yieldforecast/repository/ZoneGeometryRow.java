@@ -0,0 +1,8 @@
+package com.yieldforecast.repository;
+
+public interface ZoneGeometryRow {
+
+    Long getId();
+
+    String getGeometryJson();
+}
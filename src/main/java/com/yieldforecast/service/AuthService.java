@@ -2,46 +2,88 @@ package com.yieldforecast.service;
 
 import com.yieldforecast.entity.User;
 import com.yieldforecast.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Optional;
 
 @Service
 public class AuthService {
 
+    private static final Logger logger = LoggerFactory.getLogger(AuthService.class);
+
     @Autowired
     private UserRepository userRepository;
 
     @Autowired
-    private PasswordEncoder passwordEncoder;
+    private PasswordHashingService passwordHashing;
+
+    @Autowired
+    private LoginThrottle loginThrottle;
+
+    @Autowired
+    private EntityCache entityCache;
 
     public User register(String email, String password, String fullName, String phoneNumber, String organization) {
         if (userRepository.existsByEmail(email)) {
             throw new RuntimeException("Email already exists");
         }
 
-        String hashedPassword = passwordEncoder.encode(password);
+        String hashedPassword = passwordHashing.encode(password);
         User user = new User(email, hashedPassword, fullName, phoneNumber, organization);
         return userRepository.save(user);
     }
 
-    public Optional<User> login(String email, String password) {
+    public Optional<User> login(String email, String password, String clientIp) {
+        loginThrottle.acquire(clientIp, email);
         Optional<User> userOpt = userRepository.findByEmail(email);
         if (userOpt.isPresent()) {
             User user = userOpt.get();
-            if (passwordEncoder.matches(password, user.getPassword())) {
+            if (passwordHashing.matches(password, user.getPassword())) {
+                loginThrottle.recordSuccess(clientIp, email);
+                if (passwordHashing.needsUpgrade(user.getPassword())) {
+                    upgradeHash(user.getId(), user.getPassword(), password);
+                }
                 return Optional.of(user);
             }
         }
+        loginThrottle.recordFailure(clientIp, email);
         return Optional.empty();
     }
 
-    public Optional<User> getUserById(Long id) {
+    /** Only replaces the hash it verified, so a password change that lands while rehashing is kept. */
+    private void upgradeHash(Long userId, String verifiedHash, String password) {
+        boolean submitted = passwordHashing.submitUpgrade(password, hash -> {
+            if (userRepository.replacePassword(userId, verifiedHash, hash) > 0) {
+                entityCache.evictUser(userId);
+                logger.info("Upgraded password hash for user {}", userId);
+            } else {
+                logger.info("Password of user {} changed during the hash upgrade, keeping the new one", userId);
+            }
+        });
+        if (!submitted) {
+            logger.debug("Hashing pool is busy, deferring password hash upgrade for user {}", userId);
+        }
+    }
+
+    public Optional<User> loadUser(Long id) {
         return userRepository.findById(id);
     }
 
+    @Transactional
+    public void revokeTokens(Long userId) {
+        userRepository.incrementTokenVersion(userId);
+        entityCache.evictUser(userId);
+        logger.info("Revoked outstanding refresh tokens of user {}", userId);
+    }
+
+    public Optional<User> getUserById(Long id) {
+        return entityCache.findUser(id);
+    }
+
     public Optional<User> getUserByEmail(String email) {
         return userRepository.findByEmail(email);
     }
@@ -1,12 +1,15 @@
 package com.yieldforecast.service;
 
+import com.yieldforecast.entity.User;
 import com.yieldforecast.entity.YieldRecord;
 import com.yieldforecast.repository.YieldRecordRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.util.List;
 import java.util.Optional;
 
 @Service
@@ -15,27 +18,50 @@ public class AuthorizationService {
     @Autowired
     private YieldRecordRepository yieldRecordRepository;
 
+    @Autowired
+    private EntityCache entityCache;
+
+    @Value("${auth.admin-emails:}")
+    private List<String> adminEmails;
+
     public void verifyRecordOwnership(Long recordId, Long userId) {
-        Optional<YieldRecord> recordOpt = yieldRecordRepository.findById(recordId);
+        checkOwnership(entityCache.findRecord(recordId), userId);
+    }
 
-        if (recordOpt.isEmpty()) {
-            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Record not found");
+    public void requireAuthentication(Long userId) {
+        if (userId == null) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Authentication required");
         }
+    }
 
-        YieldRecord record = recordOpt.get();
-        if (record.getUserId() == null || !record.getUserId().equals(userId)) {
-            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "You do not have permission to access this record");
+    public void requireAdmin(Long userId) {
+        requireAuthentication(userId);
+        if (!isAdmin(userId)) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Administrator access required");
         }
     }
 
-    public void requireAuthentication(Long userId) {
+    public boolean isAdmin(Long userId) {
         if (userId == null) {
-            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Authentication required");
+            return false;
         }
+        String email = entityCache.findUser(userId).map(User::getEmail).orElse("");
+        return adminEmails.stream().anyMatch(admin -> !admin.isBlank() && admin.trim().equalsIgnoreCase(email));
     }
 
     public YieldRecord getOwnedRecord(Long recordId, Long userId) {
-        verifyRecordOwnership(recordId, userId);
-        return yieldRecordRepository.findById(recordId).orElseThrow();
+        return checkOwnership(yieldRecordRepository.findById(recordId), userId);
+    }
+
+    private YieldRecord checkOwnership(Optional<YieldRecord> recordOpt, Long userId) {
+        if (recordOpt.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Record not found");
+        }
+
+        YieldRecord record = recordOpt.get();
+        if (record.getUserId() == null || !record.getUserId().equals(userId)) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "You do not have permission to access this record");
+        }
+        return record;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,19 @@
+package com.yieldforecast.service;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+public class CircuitOpenException extends ResponseStatusException {
+
+    private final long retryAfterSeconds;
+
+    public CircuitOpenException(long retryAfterSeconds) {
+        super(HttpStatus.SERVICE_UNAVAILABLE, "Earth Engine is temporarily unavailable, retry in "
+                + retryAfterSeconds + "s");
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
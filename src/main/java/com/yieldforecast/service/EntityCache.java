@@ -0,0 +1,208 @@
+package com.yieldforecast.service;
+
+import com.yieldforecast.entity.User;
+import com.yieldforecast.entity.YieldRecord;
+import com.yieldforecast.repository.UserRepository;
+import com.yieldforecast.repository.YieldRecordRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+
+/**
+ * Every lookup returns a fresh copy of the cached entity, so callers may change what they get back without
+ * affecting other threads; load from the repository when the entity is going to be saved.
+ */
+@Service
+public class EntityCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(EntityCache.class);
+
+    @Value("${cache.entities.enabled:true}")
+    private boolean enabled;
+
+    @Value("${cache.entities.users.max-entries:10000}")
+    private int maxUsers;
+
+    @Value("${cache.entities.records.max-entries:50000}")
+    private int maxRecords;
+
+    @Value("${cache.entities.ttl-seconds:300}")
+    private long ttlSeconds;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private YieldRecordRepository recordRepository;
+
+    private Region<User> users;
+    private Region<YieldRecord> records;
+
+    @PostConstruct
+    void init() {
+        users = new Region<>(maxUsers, ttlSeconds * 1000, EntityCache::copy);
+        records = new Region<>(maxRecords, ttlSeconds * 1000, EntityCache::copy);
+        logger.info("Entity cache {} (users {}, records {}, ttl {} s)", enabled ? "enabled" : "disabled", maxUsers,
+                maxRecords, ttlSeconds);
+    }
+
+    public Optional<User> findUser(Long id) {
+        if (id == null) {
+            return Optional.empty();
+        }
+        return enabled ? users.get(id, userRepository::findById) : userRepository.findById(id);
+    }
+
+    public Optional<YieldRecord> findRecord(Long id) {
+        if (id == null) {
+            return Optional.empty();
+        }
+        return enabled ? records.get(id, recordRepository::findById) : recordRepository.findById(id);
+    }
+
+    public void evictUser(Long id) {
+        users.evict(id);
+    }
+
+    public void evictRecord(Long id) {
+        records.evict(id);
+    }
+
+    public void evictRecordsOfUser(Long userId) {
+        if (userId == null) {
+            records.evictIf(record -> true);
+        } else {
+            records.evictIf(record -> Objects.equals(record.getUserId(), userId));
+        }
+    }
+
+    private static User copy(User user) {
+        User copy = new User(user.getEmail(), user.getPassword(), user.getFullName(), user.getPhoneNumber(),
+                user.getOrganization());
+        copy.setId(user.getId());
+        copy.setTelegramChatId(user.getTelegramChatId());
+        copy.setTelegramNotificationsEnabled(user.getTelegramNotificationsEnabled());
+        copy.setTokenVersion(user.getTokenVersion());
+        copy.setCreatedAt(user.getCreatedAt());
+        return copy;
+    }
+
+    private static YieldRecord copy(YieldRecord record) {
+        YieldRecord copy = new YieldRecord(record.getLocation(), record.getDate(), record.getPrediction(),
+                record.getLatitude(), record.getLongitude(), record.getGeometryJson(), record.getParameter());
+        copy.setId(record.getId());
+        copy.setUserId(record.getUserId());
+        copy.setIndexValue(record.getIndexValue());
+        copy.setYieldPrediction(record.getYieldPrediction());
+        copy.setNdviValue(record.getNdviValue());
+        copy.setNdmiValue(record.getNdmiValue());
+        copy.setReciValue(record.getReciValue());
+        copy.setStartDate(record.getStartDate());
+        copy.setEndDate(record.getEndDate());
+        return copy;
+    }
+
+    public Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("enabled", enabled);
+        snapshot.put("users", users.snapshot());
+        snapshot.put("records", records.snapshot());
+        return snapshot;
+    }
+
+    private static final class Region<V> {
+        private final int maxEntries;
+        private final long ttlMillis;
+        private final UnaryOperator<V> copier;
+        private final LinkedHashMap<Long, Entry<V>> entries;
+        private long generation;
+
+        private final AtomicLong hits = new AtomicLong();
+        private final AtomicLong misses = new AtomicLong();
+        private final AtomicLong evictions = new AtomicLong();
+        private final AtomicLong invalidations = new AtomicLong();
+
+        private Region(int maxEntries, long ttlMillis, UnaryOperator<V> copier) {
+            this.maxEntries = Math.max(1, maxEntries);
+            this.ttlMillis = ttlMillis;
+            this.copier = copier;
+            this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Long, Entry<V>> eldest) {
+                    if (size() > Region.this.maxEntries) {
+                        evictions.incrementAndGet();
+                        return true;
+                    }
+                    return false;
+                }
+            };
+        }
+
+        private Optional<V> get(Long id, Function<Long, Optional<V>> loader) {
+            long now = System.currentTimeMillis();
+            long loadGeneration;
+            synchronized (this) {
+                Entry<V> entry = entries.get(id);
+                if (entry != null && now - entry.loadedAt < ttlMillis) {
+                    hits.incrementAndGet();
+                    return Optional.of(copier.apply(entry.value));
+                }
+                loadGeneration = generation;
+            }
+
+            misses.incrementAndGet();
+            Optional<V> loaded = loader.apply(id);
+            synchronized (this) {
+                if (loaded.isPresent() && generation == loadGeneration) {
+                    entries.put(id, new Entry<>(loaded.get(), now));
+                }
+            }
+            return loaded.map(copier);
+        }
+
+        private synchronized void evict(Long id) {
+            generation++;
+            if (entries.remove(id) != null) {
+                invalidations.incrementAndGet();
+            }
+        }
+
+        private synchronized void evictIf(Predicate<V> predicate) {
+            generation++;
+            int before = entries.size();
+            entries.values().removeIf(entry -> predicate.test(entry.value));
+            invalidations.addAndGet(before - entries.size());
+        }
+
+        private Map<String, Object> snapshot() {
+            long hitCount = hits.get();
+            long total = hitCount + misses.get();
+            Map<String, Object> snapshot = new LinkedHashMap<>();
+            synchronized (this) {
+                snapshot.put("size", entries.size());
+            }
+            snapshot.put("maxEntries", maxEntries);
+            snapshot.put("hits", hitCount);
+            snapshot.put("misses", total - hitCount);
+            snapshot.put("hitRate", total == 0 ? 0.0 : Math.round(hitCount * 1000.0 / total) / 1000.0);
+            snapshot.put("evictions", evictions.get());
+            snapshot.put("invalidations", invalidations.get());
+            return snapshot;
+        }
+    }
+
+    private record Entry<V>(V value, long loadedAt) {
+    }
+}
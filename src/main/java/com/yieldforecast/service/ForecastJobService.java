@@ -0,0 +1,301 @@
+package com.yieldforecast.service;
+
+import com.yieldforecast.dto.ForecastRunRequest;
+import com.yieldforecast.dto.GeoJsonGeometry;
+import com.yieldforecast.entity.ForecastJob;
+import com.yieldforecast.repository.ForecastJobRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs queued forecast jobs from the {@code forecast_jobs} table on any node that shares the database.
+ * A job is held under a lease that the heartbeat extends; a node that stops heartbeating loses it and another
+ * node re-runs the job. Delivery is at-least-once: a run whose lease is lost is interrupted, but it may already
+ * have saved its record, so the re-run can save it again.
+ */
+@Service
+public class ForecastJobService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ForecastJobService.class);
+
+    private static final String CLAIM_SQL = "UPDATE forecast_jobs SET status = 'RUNNING', lease_owner = ?,"
+            + " lease_token = ?, lease_expires_at = ?, attempts = attempts + 1, started_at = ?"
+            + " WHERE id = (SELECT id FROM forecast_jobs WHERE (status = 'QUEUED' AND available_at <= ?)"
+            + " OR (status = 'RUNNING' AND lease_expires_at < ?) ORDER BY id LIMIT 1)"
+            + " AND (status = 'QUEUED' OR lease_expires_at < ?)";
+
+    private static final String EXPIRE_SQL = "UPDATE forecast_jobs SET status = 'FAILED', lease_owner = NULL,"
+            + " lease_token = NULL, lease_expires_at = NULL, finished_at = ?, last_error = ?"
+            + " WHERE status = 'RUNNING' AND lease_expires_at < ? AND attempts >= ?";
+
+    private static final String HEARTBEAT_SQL = "UPDATE forecast_jobs SET lease_expires_at = ?"
+            + " WHERE id = ? AND lease_token = ? AND status = 'RUNNING'";
+
+    private static final String COMPLETE_SQL = "UPDATE forecast_jobs SET status = ?, last_error = ?,"
+            + " finished_at = ?, lease_owner = NULL, lease_token = NULL, lease_expires_at = NULL"
+            + " WHERE id = ? AND lease_token = ?";
+
+    private static final String REQUEUE_SQL = "UPDATE forecast_jobs SET status = 'QUEUED', attempts = attempts - 1,"
+            + " lease_owner = NULL, lease_token = NULL, lease_expires_at = NULL, available_at = ?"
+            + " WHERE id = ? AND lease_token = ?";
+
+    private static final String PURGE_SQL = "DELETE FROM forecast_jobs WHERE status IN ('SUCCEEDED', 'FAILED')"
+            + " AND finished_at < ?";
+
+    @Value("${forecast.jobs.workers:4}")
+    private int workers;
+
+    @Value("${forecast.jobs.lease-seconds:60}")
+    private long leaseSeconds;
+
+    @Value("${forecast.jobs.heartbeat-seconds:15}")
+    private long heartbeatSeconds;
+
+    @Value("${forecast.jobs.poll-interval-ms:1000}")
+    private long pollIntervalMs;
+
+    @Value("${forecast.jobs.max-attempts:3}")
+    private int maxAttempts;
+
+    @Value("${forecast.jobs.retention-hours:168}")
+    private long retentionHours;
+
+    @Value("${forecast.jobs.node-id:}")
+    private String nodeId;
+
+    @Autowired
+    private ForecastJobRepository repository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ForecastService forecastService;
+
+    @Autowired
+    private GeometryService geometryService;
+
+    private final ConcurrentHashMap<Long, Lease> leases = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService poller;
+    private ExecutorService workerPool;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (nodeId == null || nodeId.isBlank()) {
+            nodeId = ManagementFactory.getRuntimeMXBean().getName();
+        }
+        poller = Executors.newSingleThreadScheduledExecutor(runnable -> daemon(runnable, "forecast-job-poller"));
+        workerPool = Executors.newFixedThreadPool(workers, runnable -> daemon(runnable, "forecast-job-worker"));
+        poller.scheduleWithFixedDelay(this::poll, 0, pollIntervalMs, TimeUnit.MILLISECONDS);
+        poller.scheduleAtFixedRate(this::heartbeat, heartbeatSeconds, heartbeatSeconds, TimeUnit.SECONDS);
+        poller.scheduleWithFixedDelay(this::purge, 1, 60, TimeUnit.MINUTES);
+        logger.info("Forecast job worker {} started with {} workers and {}s leases", nodeId, workers, leaseSeconds);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (poller == null) {
+            return;
+        }
+        poller.shutdownNow();
+        long now = System.currentTimeMillis();
+        for (Map.Entry<Long, Lease> entry : leases.entrySet()) {
+            Lease lease = entry.getValue();
+            if (!leases.remove(entry.getKey(), lease)) {
+                continue;
+            }
+            try {
+                if (jdbcTemplate.update(REQUEUE_SQL, now, entry.getKey(), lease.token) > 0) {
+                    logger.info("Returned forecast job {} to the queue on shutdown", entry.getKey());
+                }
+            } catch (Exception e) {
+                logger.warn("Could not return forecast job {} to the queue: {}", entry.getKey(), e.getMessage());
+            }
+        }
+        workerPool.shutdownNow();
+        try {
+            workerPool.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public ForecastJob enqueue(ForecastRunRequest request, GeoJsonGeometry geometry, Long userId) {
+        long now = System.currentTimeMillis();
+        ForecastJob job = new ForecastJob();
+        job.setUserId(userId);
+        job.setRecordId(request.id());
+        job.setLocation(request.location());
+        job.setDate(request.date());
+        job.setParameter(request.parameter());
+        job.setStartDate(request.startDate());
+        job.setEndDate(request.endDate());
+        job.setGeometryJson(geometry.getJson());
+        job.setAvailableAt(now);
+        job.setCreatedAt(now);
+        job = repository.save(job);
+        logger.info("Queued forecast job {} for user {}", job.getId(), userId);
+
+        if (poller != null) {
+            poller.execute(this::poll);
+        }
+        return job;
+    }
+
+    public Optional<ForecastJob> findJob(Long id) {
+        return repository.findById(id);
+    }
+
+    public Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("node", nodeId);
+        snapshot.put("workers", workers);
+        snapshot.put("runningHere", leases.size());
+        for (ForecastJob.Status status : ForecastJob.Status.values()) {
+            snapshot.put(status.name().toLowerCase(Locale.ROOT), repository.countByStatus(status));
+        }
+        return snapshot;
+    }
+
+    void poll() {
+        try {
+            long now = System.currentTimeMillis();
+            int expired = jdbcTemplate.update(EXPIRE_SQL, now, "Lease expired after " + maxAttempts + " attempts",
+                    now, maxAttempts);
+            if (expired > 0) {
+                logger.warn("Failed {} forecast jobs whose leases expired {} times", expired, maxAttempts);
+            }
+
+            while (leases.size() < workers) {
+                ForecastJob job = claim();
+                if (job == null) {
+                    break;
+                }
+                Lease lease = new Lease(job.getLeaseToken());
+                leases.put(job.getId(), lease);
+                lease.future = workerPool.submit(() -> run(job, lease));
+            }
+        } catch (Exception e) {
+            logger.warn("Forecast job poll failed: {}", e.getMessage());
+        }
+    }
+
+    private ForecastJob claim() {
+        long now = System.currentTimeMillis();
+        String token = UUID.randomUUID().toString();
+        int claimed = jdbcTemplate.update(CLAIM_SQL, nodeId, token, now + leaseSeconds * 1000, now, now, now, now);
+        if (claimed == 0) {
+            return null;
+        }
+        ForecastJob job = repository.findByLeaseToken(token).orElse(null);
+        if (job != null && job.getAttempts() > 1) {
+            logger.info("Reclaimed forecast job {} (attempt {})", job.getId(), job.getAttempts());
+        }
+        return job;
+    }
+
+    void heartbeat() {
+        long expiresAt = System.currentTimeMillis() + leaseSeconds * 1000;
+        for (Map.Entry<Long, Lease> entry : leases.entrySet()) {
+            Lease lease = entry.getValue();
+            try {
+                if (jdbcTemplate.update(HEARTBEAT_SQL, expiresAt, entry.getKey(), lease.token) == 0
+                        && leases.remove(entry.getKey(), lease)) {
+                    logger.warn("Lost the lease on forecast job {}, cancelling the local run", entry.getKey());
+                    lease.cancel();
+                }
+            } catch (Exception e) {
+                logger.warn("Heartbeat for forecast job {} failed: {}", entry.getKey(), e.getMessage());
+            }
+        }
+    }
+
+    void purge() {
+        try {
+            int purged = jdbcTemplate.update(PURGE_SQL, System.currentTimeMillis() - retentionHours * 3_600_000);
+            if (purged > 0) {
+                logger.info("Purged {} finished forecast jobs older than {} hours", purged, retentionHours);
+            }
+        } catch (Exception e) {
+            logger.warn("Forecast job purge failed: {}", e.getMessage());
+        }
+    }
+
+    private void run(ForecastJob job, Lease lease) {
+        long startedAt = System.nanoTime();
+        ForecastJob.Status status = ForecastJob.Status.SUCCEEDED;
+        String error = null;
+        try {
+            GeoJsonGeometry geometry = geometryService.parse(job.getGeometryJson());
+            GeometryCost cost = geometryService.preflight(geometry, job.getStartDate(), job.getEndDate());
+            ForecastRunRequest request = new ForecastRunRequest(job.getRecordId(), job.getLocation(), job.getDate(),
+                    job.getParameter(), job.getStartDate(), job.getEndDate(), null);
+            forecastService.processForecast(request, geometry, cost, job.getUserId());
+        } catch (Exception e) {
+            status = ForecastJob.Status.FAILED;
+            error = e.getMessage();
+        } finally {
+            if (leases.remove(job.getId(), lease)) {
+                complete(job.getId(), lease.token, status, error);
+                logger.info("Forecast job {} {} in {} ms", job.getId(), status,
+                        (System.nanoTime() - startedAt) / 1_000_000);
+            }
+            if (!poller.isShutdown()) {
+                poller.execute(this::poll);
+            }
+        }
+    }
+
+    private void complete(Long id, String token, ForecastJob.Status status, String error) {
+        try {
+            if (jdbcTemplate.update(COMPLETE_SQL, status.name(), error, System.currentTimeMillis(), id, token) == 0) {
+                logger.warn("Forecast job {} finished after its lease was taken over", id);
+            }
+        } catch (Exception e) {
+            logger.error("Could not record completion of forecast job {}", id, e);
+        }
+    }
+
+    private static final class Lease {
+        private final String token;
+        private volatile Future<?> future;
+
+        private Lease(String token) {
+            this.token = token;
+        }
+
+        private void cancel() {
+            Future<?> running = future;
+            if (running != null) {
+                running.cancel(true);
+            }
+        }
+    }
+
+    private static Thread daemon(Runnable runnable, String name) {
+        Thread thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+}
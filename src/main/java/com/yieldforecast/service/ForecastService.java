@@ -1,227 +1,356 @@
 package com.yieldforecast.service;
 
+import com.yieldforecast.dto.AvailabilityRequest;
+import com.yieldforecast.dto.ForecastRunRequest;
+import com.yieldforecast.dto.GeoJsonGeometry;
+import com.yieldforecast.dto.VisualizationRequest;
 import com.yieldforecast.entity.YieldRecord;
 import com.yieldforecast.entity.User;
 import com.yieldforecast.repository.YieldRecordRepository;
-import com.yieldforecast.repository.UserRepository;
+import org.json.JSONArray;
 import org.json.JSONObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.io.InterruptedIOException;
+import java.nio.channels.ClosedByInterruptException;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.function.Supplier;
 
 @Service
 public class ForecastService {
 
     private static final Logger logger = LoggerFactory.getLogger(ForecastService.class);
 
-    private final ConcurrentHashMap<String, String> resultCache = new ConcurrentHashMap<>();
+    private static final List<String> MULTI_INDEX_PARAMETERS = List.of("NDVI", "NDMI", "RECI");
+
+    @Value("${forecast.cache.ttl-minutes:60}")
+    private long cacheTtlMinutes;
+
+    @Value("${forecast.multi-index.enabled:true}")
+    private boolean multiIndexEnabled;
 
     @Autowired
     private PythonExecutionService pythonExecutionService;
 
+    @Autowired
+    private PythonCircuitBreaker circuitBreaker;
+
+    @Autowired
+    private IncrementalForecastService incrementalForecastService;
+
+    @Autowired
+    private LocalZonalStatsService localZonalStatsService;
+
+    @Autowired
+    private YieldModelService yieldModelService;
+
+    @Autowired
+    private GeometryService geometryService;
+
+    @Autowired
+    private TiledAvailabilityService tiledAvailabilityService;
+
+    @Autowired
+    private ResultSegmentStore resultStore;
+
     @Autowired
     private YieldRecordRepository repository;
 
     @Autowired
-    private UserRepository userRepository;
+    private EntityCache entityCache;
+
+    @Autowired
+    private ZoneSeriesStore seriesStore;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
 
     @Autowired
     private TelegramNotificationService telegramService;
 
-    public String checkAvailability(Map<String, Object> payload) throws Exception {
-        Object geometryObj = payload.get("geometry");
-        if (geometryObj == null) {
-            throw new IllegalArgumentException("No geometry provided");
+    public ResultPayload checkAvailability(AvailabilityRequest request) throws Exception {
+        GeoJsonGeometry geometry = geometryService.parse(request.geometry());
+        GeometryCost cost = geometryService.preflight(geometry, request.startDate(), request.endDate());
+        if (tiledAvailabilityService.isEnabled()) {
+            String tiled = tiledAvailabilityService.checkAvailability(cost, request.startDate(), request.endDate());
+            if (tiled != null) {
+                return ResultPayload.of(tiled);
+            }
         }
 
-        String geometryJson = getGeometryJson(geometryObj);
-        String startDate = payload.getOrDefault("startDate", "2024-01-01").toString();
-        String endDate = payload.getOrDefault("endDate", "2024-12-31").toString();
+        String startDate = request.startDate().toString();
+        String endDate = request.endDate().toString();
 
         List<String> args = new ArrayList<>();
-        args.add(geometryJson);
+        args.add("-");
         args.add(startDate);
         args.add(endDate);
 
-        String output = pythonExecutionService.executeScript("src/main/python/check_data_availability.py", args);
+        String cacheKey = "availability_" + startDate + "_" + endDate + "_" + geometry.getHash();
+        return executeCached(cacheKey, "src/main/python/check_data_availability.py", args,
+                () -> geometryService.prepareForDispatch(geometry), cost.lane(),
+                "No JSON returned from availability check");
+    }
 
-        int jsonStart = output.indexOf("{");
-        if (jsonStart == -1) {
-            throw new RuntimeException("No JSON returned from availability check");
+    public boolean canProcessForecast(ForecastRunRequest request, GeoJsonGeometry geometry) {
+        if (circuitBreaker.isCallPermitted()) {
+            return true;
         }
-        return output.substring(jsonStart);
+        return resultStore.contains(
+                forecastCacheKey(request.parameter(), request.startDate(), request.endDate(), geometry));
     }
 
-    public void processForecast(Map<String, Object> payload, Long userId) {
+    public void processForecast(ForecastRunRequest request, GeoJsonGeometry geometry, GeometryCost cost,
+            Long userId) {
         try {
-            logger.info("Processing forecast payload for user {}", userId);
-
-            String location = payload.getOrDefault("location", "Custom Zone").toString();
-            String date = payload.getOrDefault("date", LocalDate.now().toString()).toString();
-            String parameter = payload.getOrDefault("parameter", "NDVI").toString();
-            String startDate = payload.getOrDefault("startDate", null) != null ? payload.get("startDate").toString()
-                    : null;
-            String endDate = payload.getOrDefault("endDate", null) != null ? payload.get("endDate").toString() : null;
-
-            Object geometryObj = payload.get("geometry");
-            if (geometryObj == null) {
-                logger.error("Geometry is null!");
-                notifyForecastError(userId, location, "Geometry is null");
-                return;
-            }
+            logger.info("Processing forecast {} for user {} in {} lane ({} vertices, {} ha, {} pixel-months)",
+                    geometry, userId, cost.lane(), cost.vertexCount(), Math.round(cost.areaHectares()),
+                    Math.round(cost.estimatedPixelMonths()));
 
-            String geometryJson = getGeometryJson(geometryObj);
-            String cacheKey = parameter + "_" + Integer.toString(geometryJson.hashCode());
+            String parameter = request.parameter();
+            String cacheKey = forecastCacheKey(parameter, request.startDate(), request.endDate(), geometry);
+            List<String> parameters = forecastParameters(parameter);
 
-            if (resultCache.containsKey(cacheKey)) {
+            Optional<ResultPayload> cached = resultStore.get(cacheKey);
+            if (cached.isPresent()) {
                 logger.info("Using cached result for key {}", cacheKey);
-                processCachedResult(resultCache.get(cacheKey), geometryJson, location, date, parameter, payload, userId,
-                        startDate, endDate);
+                saveRecord(cached.get().asString(), geometry, request, userId);
                 return;
             }
 
-            LocalDate targetDate = LocalDate.parse(date);
-            if (startDate == null)
-                startDate = targetDate.getYear() + "-01-01";
-            if (endDate == null)
-                endDate = targetDate.getYear() + "-12-31";
+            if (localZonalStatsService.isEnabled()) {
+                String local = localZonalStatsService.computeForecast(geometry, cost, parameters,
+                        request.startDate(), request.endDate());
+                if (local != null) {
+                    cacheForecastResult(parameters, request, geometry, local);
+                    saveRecord(local, geometry, request, userId);
+                    return;
+                }
+                logger.info("No local raster coverage for {}, using Earth Engine", request.location());
+            }
+
+            if (incrementalForecastService.isEnabled()) {
+                String incremental = incrementalForecastService.computeForecast(geometry, parameters,
+                        request.startDate(), request.endDate(), seriesStore.isEnabled(), cost.lane(),
+                        JobPriority.FORECAST);
+                if (incremental != null) {
+                    cacheForecastResult(parameters, request, geometry, incremental);
+                    saveRecord(incremental, geometry, request, userId);
+                    return;
+                }
+                logger.info("No monthly statistics available for {}, falling back to full-season run",
+                        request.location());
+            }
 
             List<String> args = new ArrayList<>();
-            args.add(geometryJson);
-            args.add(parameter);
-            args.add(startDate);
-            args.add(endDate);
+            args.add("-");
+            args.add(String.join(",", parameters));
+            args.add(request.startDate().toString());
+            args.add(request.endDate().toString());
+            if (seriesStore.isEnabled()) {
+                args.add("--series");
+            }
 
-            String output = pythonExecutionService.executeScript("src/main/python/yield_forecast.py", args);
+            String output = pythonExecutionService.executeScript("src/main/python/yield_forecast.py", args,
+                    geometryService.prepareForDispatch(geometry), cost.lane(), JobPriority.FORECAST);
 
             int jsonStart = output.indexOf("{");
             if (jsonStart == -1) {
                 logger.warn("No JSON found in python output");
-                notifyForecastError(userId, location, "No data returned from analysis");
-                return;
+                throw new RuntimeException("No data returned from analysis");
             }
 
             String jsonString = output.substring(jsonStart);
-            resultCache.put(cacheKey, jsonString);
+            cacheForecastResult(parameters, request, geometry, jsonString);
 
-            saveRecord(jsonString, geometryJson, location, date, parameter, payload, userId, startDate, endDate);
+            saveRecord(jsonString, geometry, request, userId);
 
         } catch (Exception e) {
+            if (isInterruption(e)) {
+                logger.info("Forecast for {} was interrupted", request.location());
+                Thread.currentThread().interrupt();
+                throw new CancellationException("Forecast was interrupted");
+            }
             logger.error("Error in processForecast", e);
             logger.error("Exception details: {}", e.getMessage());
-            notifyForecastError(userId, payload.getOrDefault("location", "Unknown").toString(), e.getMessage());
+            notifyForecastError(userId, request.location(), e.getMessage());
+            throw e instanceof RuntimeException ? (RuntimeException) e : new RuntimeException(e.getMessage(), e);
         }
     }
 
-    public String getVisualization(Map<String, Object> payload) throws Exception {
-        Object geometryObj = payload.get("geometry");
-        if (geometryObj == null) {
-            throw new IllegalArgumentException("No geometry provided");
-        }
-
-        String geometryJson = getGeometryJson(geometryObj);
-        String startDate = payload.getOrDefault("startDate", "2024-01-01").toString();
-        String endDate = payload.getOrDefault("endDate", "2024-12-31").toString();
-        String parameter = payload.getOrDefault("parameter", "NDVI").toString();
+    public ResultPayload getVisualization(VisualizationRequest request) throws Exception {
+        GeoJsonGeometry geometry = geometryService.parse(request.geometry());
+        GeometryCost cost = geometryService.preflight(geometry, request.startDate(), request.endDate());
+        String startDate = request.startDate().toString();
+        String endDate = request.endDate().toString();
+        String parameter = request.parameter();
 
         List<String> args = new ArrayList<>();
-        args.add(geometryJson);
+        args.add("-");
         args.add(startDate);
         args.add(endDate);
         args.add(parameter);
 
-        String output = pythonExecutionService.executeScript("src/main/python/get_visualization.py", args);
+        String cacheKey = "visualization_" + parameter + "_" + startDate + "_" + endDate + "_" + geometry.getHash();
+        return executeCached(cacheKey, "src/main/python/get_visualization.py", args,
+                () -> geometryService.prepareForDispatch(geometry), cost.lane(), "No JSON returned from visualization");
+    }
+
+    private ResultPayload executeCached(String cacheKey, String scriptPath, List<String> args,
+            Supplier<String> input, JobLane lane, String noJsonMessage) throws Exception {
+        ResultPayload cached = resultStore.get(cacheKey).orElse(null);
+        if (cached != null && !cached.isOlderThan(Duration.ofMinutes(cacheTtlMinutes))) {
+            logger.info("Using cached result for key {}", cacheKey);
+            return cached;
+        }
+
+        String output;
+        try {
+            output = pythonExecutionService.executeScript(scriptPath, args, input.get(), lane);
+        } catch (CircuitOpenException | PythonScriptException e) {
+            boolean upstream = e instanceof CircuitOpenException || ((PythonScriptException) e).isUpstreamFailure();
+            if (cached != null && upstream) {
+                logger.warn("Earth Engine unavailable, serving stale result for key {}: {}", cacheKey,
+                        e.getMessage());
+                return cached;
+            }
+            throw e;
+        }
 
         int jsonStart = output.indexOf("{");
         if (jsonStart == -1) {
-            throw new RuntimeException("No JSON returned from visualization");
+            throw new RuntimeException(noJsonMessage);
         }
 
-        return output.substring(jsonStart);
+        return resultStore.put(cacheKey, output.substring(jsonStart));
+    }
+
+    private String forecastCacheKey(String parameter, LocalDate startDate, LocalDate endDate,
+            GeoJsonGeometry geometry) {
+        return parameter + "_" + startDate + "_" + endDate + "_" + geometry.getHash();
     }
 
-    private String getGeometryJson(Object geometryObj) {
-        if (geometryObj instanceof String) {
-            return (String) geometryObj;
-        } else if (geometryObj instanceof Map) {
-            return new JSONObject((Map<?, ?>) geometryObj).toString();
-        } else {
-            return new JSONObject(geometryObj).toString();
+    private List<String> forecastParameters(String parameter) {
+        if (!multiIndexEnabled || !MULTI_INDEX_PARAMETERS.contains(parameter)) {
+            return List.of(parameter);
         }
+        List<String> parameters = new ArrayList<>();
+        parameters.add(parameter);
+        for (String other : MULTI_INDEX_PARAMETERS) {
+            if (!other.equals(parameter)) {
+                parameters.add(other);
+            }
+        }
+        return parameters;
     }
 
-    private void processCachedResult(String jsonString, String geometryJson, String location, String date,
-            String parameter, Map<String, Object> payload, Long userId, String startDate, String endDate) {
-        saveRecord(jsonString, geometryJson, location, date, parameter, payload, userId, startDate, endDate);
+    private void cacheForecastResult(List<String> parameters, ForecastRunRequest request, GeoJsonGeometry geometry,
+            String jsonString) {
+        if (new JSONObject(jsonString).has("fallbackBands")) {
+            logger.info("Not caching result for {} with fallback values", geometry);
+            return;
+        }
+        for (String parameter : parameters) {
+            resultStore.put(forecastCacheKey(parameter, request.startDate(), request.endDate(), geometry), jsonString);
+        }
     }
 
-    private void saveRecord(String jsonString, String geometryJson, String location, String date, String parameter,
-            Map<String, Object> payload, Long userId, String startDate, String endDate) {
+    private void saveRecord(String jsonString, GeoJsonGeometry geometry, ForecastRunRequest request, Long userId) {
         JSONObject geeData = new JSONObject(jsonString);
         if (geeData.has("error")) {
             logger.warn("GEE returned error: {}", geeData.toString());
             return;
         }
 
+        String parameter = request.parameter();
         double indexValue = geeData.optDouble(parameter, 0.0);
-        double predictedYield = 15.0 + (indexValue * 10);
-
-        JSONObject geomObj = new JSONObject(geometryJson);
-        double latitude = 0.0;
-        double longitude = 0.0;
-
-        if (geomObj.getString("type").equals("Point")) {
-            org.json.JSONArray coords = geomObj.getJSONArray("coordinates");
-            longitude = coords.getDouble(0);
-            latitude = coords.getDouble(1);
-        } else if (geomObj.getString("type").equals("Polygon")) {
-            org.json.JSONArray coords = geomObj.getJSONArray("coordinates").getJSONArray(0).getJSONArray(0);
-            longitude = coords.getDouble(0);
-            latitude = coords.getDouble(1);
-        }
-
-        YieldRecord record;
-        if (payload.containsKey("id") && payload.get("id") != null) {
-            try {
-                Long id = Long.valueOf(payload.get("id").toString());
-                record = repository.findById(id).orElse(new YieldRecord());
-            } catch (NumberFormatException e) {
-                record = new YieldRecord();
+        double predictedYield = yieldModelService.predict(indexValue, parameter, geometry.getAreaHectares(),
+                request.startDate(), request.endDate());
+
+        Long recordId = new TransactionTemplate(transactionManager).execute(status -> {
+            YieldRecord record = new YieldRecord();
+            Optional<YieldRecord> existing = request.id() != null ? repository.findById(request.id())
+                    : Optional.empty();
+            if (existing.isPresent() && userId.equals(existing.get().getUserId())) {
+                record = existing.get();
+            } else if (existing.isPresent()) {
+                logger.warn("Record {} is not owned by user {}, saving the forecast as a new record",
+                        request.id(), userId);
             }
-        } else {
-            record = new YieldRecord();
-        }
-
-        record.setLocation(location);
-        record.setDate(LocalDate.parse(date));
-        record.setIndexValue(indexValue);
-        record.setYieldPrediction(predictedYield);
-        record.setPrediction(predictedYield);
-        record.setLatitude(latitude);
-        record.setLongitude(longitude);
-        record.setGeometryJson(geometryJson);
-        record.setParameter(parameter);
-        record.setUserId(userId);
-        record.setStartDate(startDate != null ? LocalDate.parse(startDate) : null);
-        record.setEndDate(endDate != null ? LocalDate.parse(endDate) : null);
-
-        repository.save(record);
+
+            record.setLocation(request.location());
+            record.setDate(request.date());
+            record.setIndexValue(indexValue);
+            record.setNdviValue(geeData.has("NDVI") ? geeData.optDouble("NDVI") : null);
+            record.setNdmiValue(geeData.has("NDMI") ? geeData.optDouble("NDMI") : null);
+            record.setReciValue(geeData.has("RECI") ? geeData.optDouble("RECI") : null);
+            record.setYieldPrediction(predictedYield);
+            record.setPrediction(predictedYield);
+            record.setLatitude(geometry.getCentroidLatitude());
+            record.setLongitude(geometry.getCentroidLongitude());
+            record.setGeometryJson(geometry.getJson());
+            record.setParameter(parameter);
+            record.setUserId(userId);
+            record.setStartDate(request.startDate());
+            record.setEndDate(request.endDate());
+
+            return repository.save(record).getId();
+        });
         logger.info("Record saved successfully");
+        appendSeries(recordId, geeData.optJSONObject("series"));
+
+        notifyForecastCompletion(userId, request.location(), predictedYield);
+    }
 
-        notifyForecastCompletion(userId, location, predictedYield);
+    private void appendSeries(Long recordId, JSONObject series) {
+        if (recordId == null || series == null) {
+            return;
+        }
+        try {
+            for (String parameter : series.keySet()) {
+                JSONArray values = series.getJSONArray(parameter);
+                List<ZoneSeriesStore.Point> points = new ArrayList<>();
+                for (int i = 0; i < values.length(); i++) {
+                    JSONObject point = values.getJSONObject(i);
+                    points.add(new ZoneSeriesStore.Point(LocalDate.parse(point.getString("date")),
+                            point.getDouble("value")));
+                }
+                int added = seriesStore.append(recordId, parameter, points);
+                logger.info("Appended {} of {} {} scene values to zone {}", added, points.size(), parameter,
+                        recordId);
+            }
+        } catch (RuntimeException e) {
+            logger.error("Failed to append index series for zone {}: {}", recordId, e.getMessage());
+        }
+    }
+
+    private static boolean isInterruption(Throwable e) {
+        if (Thread.currentThread().isInterrupted()) {
+            return true;
+        }
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof InterruptedException || cause instanceof InterruptedIOException
+                    || cause instanceof ClosedByInterruptException) {
+                return true;
+            }
+        }
+        return false;
     }
 
     private void notifyForecastCompletion(Long userId, String location, double yield) {
         try {
-            Optional<User> user = userRepository.findById(userId);
+            Optional<User> user = entityCache.findUser(userId);
             if (user.isPresent() && user.get().getTelegramNotificationsEnabled()
                     && user.get().getTelegramChatId() != null) {
                 String yieldFormatted = String.format("%.2f", yield);
@@ -237,7 +366,7 @@ public class ForecastService {
 
     private void notifyForecastError(Long userId, String location, String errorMessage) {
         try {
-            Optional<User> user = userRepository.findById(userId);
+            Optional<User> user = entityCache.findUser(userId);
             if (user.isPresent() && user.get().getTelegramNotificationsEnabled()
                     && user.get().getTelegramChatId() != null) {
                 telegramService.sendForecastErrorNotification(
@@ -249,4 +378,4 @@ public class ForecastService {
             logger.error("Failed to send forecast error notification: {}", e.getMessage());
         }
     }
-}
\ No newline at end of file
+}
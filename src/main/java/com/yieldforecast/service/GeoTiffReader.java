@@ -0,0 +1,470 @@
+package com.yieldforecast.service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+public final class GeoTiffReader implements Closeable {
+
+    private static final int TAG_IMAGE_WIDTH = 256;
+    private static final int TAG_IMAGE_LENGTH = 257;
+    private static final int TAG_BITS_PER_SAMPLE = 258;
+    private static final int TAG_COMPRESSION = 259;
+    private static final int TAG_STRIP_OFFSETS = 273;
+    private static final int TAG_SAMPLES_PER_PIXEL = 277;
+    private static final int TAG_ROWS_PER_STRIP = 278;
+    private static final int TAG_STRIP_BYTE_COUNTS = 279;
+    private static final int TAG_PREDICTOR = 317;
+    private static final int TAG_TILE_WIDTH = 322;
+    private static final int TAG_TILE_LENGTH = 323;
+    private static final int TAG_TILE_OFFSETS = 324;
+    private static final int TAG_TILE_BYTE_COUNTS = 325;
+    private static final int TAG_SAMPLE_FORMAT = 339;
+    private static final int TAG_MODEL_PIXEL_SCALE = 33550;
+    private static final int TAG_MODEL_TIEPOINT = 33922;
+    private static final int TAG_MODEL_TRANSFORMATION = 34264;
+    private static final int TAG_GEO_KEY_DIRECTORY = 34735;
+    private static final int TAG_GDAL_NODATA = 42113;
+
+    private static final int KEY_MODEL_TYPE = 1024;
+    private static final int KEY_RASTER_TYPE = 1025;
+    private static final int KEY_GEOGRAPHIC_TYPE = 2048;
+    private static final int KEY_PROJECTED_TYPE = 3072;
+
+    private static final int[] TYPE_SIZES = { 0, 1, 1, 2, 4, 8, 1, 1, 2, 4, 8, 4, 8 };
+
+    private final Path file;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final Map<Integer, Entry> tags = new HashMap<>();
+
+    private final int width;
+    private final int height;
+    private final int bitsPerSample;
+    private final int sampleFormat;
+    private final int compression;
+    private final int predictor;
+    private final int blockWidth;
+    private final int blockHeight;
+    private final int blocksAcross;
+    private final long[] blockOffsets;
+    private final long[] blockByteCounts;
+    private final double noData;
+
+    private final double originLongitude;
+    private final double originLatitude;
+    private final double pixelWidth;
+    private final double pixelHeight;
+
+    private final Map<Integer, float[]> blockCache;
+
+    public GeoTiffReader(Path file, int cachedBlocks) throws IOException {
+        this.file = file;
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        if (channel.size() > Integer.MAX_VALUE) {
+            channel.close();
+            throw new IllegalArgumentException(file + " is larger than 2 GB, split it before ingesting");
+        }
+        this.buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+        try {
+            byte b0 = buffer.get(0);
+            byte b1 = buffer.get(1);
+            if (b0 == 'I' && b1 == 'I') {
+                buffer.order(ByteOrder.LITTLE_ENDIAN);
+            } else if (b0 == 'M' && b1 == 'M') {
+                buffer.order(ByteOrder.BIG_ENDIAN);
+            } else {
+                throw new IllegalArgumentException(file + " is not a TIFF file");
+            }
+            int version = Short.toUnsignedInt(buffer.getShort(2));
+            if (version == 43) {
+                throw new IllegalArgumentException(file + " is a BigTIFF, which is not supported");
+            }
+            if (version != 42) {
+                throw new IllegalArgumentException(file + " is not a TIFF file");
+            }
+            readDirectory(Integer.toUnsignedLong(buffer.getInt(4)));
+
+            this.width = (int) required(TAG_IMAGE_WIDTH)[0];
+            this.height = (int) required(TAG_IMAGE_LENGTH)[0];
+            this.bitsPerSample = (int) longs(TAG_BITS_PER_SAMPLE, 1)[0];
+            this.sampleFormat = (int) longs(TAG_SAMPLE_FORMAT, 1)[0];
+            this.compression = (int) longs(TAG_COMPRESSION, 1)[0];
+            this.predictor = (int) longs(TAG_PREDICTOR, 1)[0];
+
+            if (longs(TAG_SAMPLES_PER_PIXEL, 1)[0] != 1) {
+                throw new IllegalArgumentException(file + " must hold a single band");
+            }
+            if (compression != 1 && compression != 5 && compression != 8 && compression != 32946) {
+                throw new IllegalArgumentException(file + " uses unsupported compression " + compression);
+            }
+            if (predictor != 1 && !(predictor == 2 && sampleFormat != 3)) {
+                throw new IllegalArgumentException(file + " uses unsupported predictor " + predictor);
+            }
+            if (bitsPerSample != 8 && bitsPerSample != 16 && bitsPerSample != 32) {
+                throw new IllegalArgumentException(file + " has unsupported sample size " + bitsPerSample);
+            }
+
+            if (tags.containsKey(TAG_TILE_WIDTH)) {
+                this.blockWidth = (int) required(TAG_TILE_WIDTH)[0];
+                this.blockHeight = (int) required(TAG_TILE_LENGTH)[0];
+                this.blockOffsets = required(TAG_TILE_OFFSETS);
+                this.blockByteCounts = required(TAG_TILE_BYTE_COUNTS);
+            } else {
+                this.blockWidth = width;
+                this.blockHeight = (int) Math.min(longs(TAG_ROWS_PER_STRIP, height)[0], height);
+                this.blockOffsets = required(TAG_STRIP_OFFSETS);
+                this.blockByteCounts = required(TAG_STRIP_BYTE_COUNTS);
+            }
+            this.blocksAcross = (width + blockWidth - 1) / blockWidth;
+
+            String noDataText = ascii(TAG_GDAL_NODATA);
+            this.noData = noDataText != null && !noDataText.isBlank() ? Double.parseDouble(noDataText.trim())
+                    : Double.NaN;
+
+            Map<Integer, Integer> geoKeys = geoKeys();
+            Integer projected = geoKeys.get(KEY_PROJECTED_TYPE);
+            Integer geographic = geoKeys.get(KEY_GEOGRAPHIC_TYPE);
+            if (projected != null || Integer.valueOf(1).equals(geoKeys.get(KEY_MODEL_TYPE))) {
+                throw new IllegalArgumentException(file + " is in a projected CRS (EPSG:" + projected
+                        + "), reproject it to EPSG:4326 before ingesting");
+            }
+            if (geographic != null && geographic != 4326 && geographic != 32767) {
+                throw new IllegalArgumentException(file + " uses EPSG:" + geographic + ", expected EPSG:4326");
+            }
+
+            double[] transform = doubles(TAG_MODEL_TRANSFORMATION);
+            double scaleX;
+            double scaleY;
+            double originX;
+            double originY;
+            if (transform != null && transform.length >= 8) {
+                if (transform[1] != 0 || transform[4] != 0) {
+                    throw new IllegalArgumentException(file + " has a rotated raster, which is not supported");
+                }
+                scaleX = transform[0];
+                scaleY = -transform[5];
+                originX = transform[3];
+                originY = transform[7];
+            } else {
+                double[] scale = doubles(TAG_MODEL_PIXEL_SCALE);
+                double[] tiepoint = doubles(TAG_MODEL_TIEPOINT);
+                if (scale == null || tiepoint == null || tiepoint.length < 6) {
+                    throw new IllegalArgumentException(file + " has no georeferencing tags");
+                }
+                scaleX = scale[0];
+                scaleY = scale[1];
+                originX = tiepoint[3] - tiepoint[0] * scaleX;
+                originY = tiepoint[4] + tiepoint[1] * scaleY;
+            }
+            if (Integer.valueOf(2).equals(geoKeys.get(KEY_RASTER_TYPE))) {
+                originX -= scaleX / 2;
+                originY += scaleY / 2;
+            }
+            this.pixelWidth = scaleX;
+            this.pixelHeight = scaleY;
+            this.originLongitude = originX;
+            this.originLatitude = originY;
+        } catch (RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+
+        int capacity = Math.max(1, cachedBlocks);
+        this.blockCache = new LinkedHashMap<>(capacity * 2, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, float[]> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public double getMinLongitude() {
+        return originLongitude;
+    }
+
+    public double getMaxLatitude() {
+        return originLatitude;
+    }
+
+    public double getMaxLongitude() {
+        return originLongitude + width * pixelWidth;
+    }
+
+    public double getMinLatitude() {
+        return originLatitude - height * pixelHeight;
+    }
+
+    public double getPixelWidth() {
+        return pixelWidth;
+    }
+
+    public double getPixelHeight() {
+        return pixelHeight;
+    }
+
+    public float sample(double longitude, double latitude) {
+        int col = (int) Math.floor((longitude - originLongitude) / pixelWidth);
+        int row = (int) Math.floor((originLatitude - latitude) / pixelHeight);
+        if (col < 0 || row < 0 || col >= width || row >= height) {
+            return Float.NaN;
+        }
+        int block = (row / blockHeight) * blocksAcross + col / blockWidth;
+        float[] values = blockCache.get(block);
+        if (values == null) {
+            values = decodeBlock(block);
+            blockCache.put(block, values);
+        }
+        return values[(row % blockHeight) * blockWidth + col % blockWidth];
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private float[] decodeBlock(int block) {
+        int rows = blockHeight;
+        if (blockWidth == width) {
+            rows = Math.min(blockHeight, height - (block / blocksAcross) * blockHeight);
+        }
+        int bytesPerSample = bitsPerSample / 8;
+        int expected = blockWidth * rows * bytesPerSample;
+
+        byte[] raw = new byte[(int) blockByteCounts[block]];
+        buffer.get((int) blockOffsets[block], raw);
+        byte[] data;
+        try {
+            data = switch (compression) {
+                case 1 -> raw;
+                case 5 -> lzw(raw, expected);
+                default -> inflate(raw, expected);
+            };
+        } catch (DataFormatException e) {
+            throw new IllegalArgumentException(file + " block " + block + " is corrupt: " + e.getMessage());
+        }
+
+        ByteBuffer samples = ByteBuffer.wrap(data).order(buffer.order());
+        float[] values = new float[blockWidth * blockHeight];
+        Arrays.fill(values, Float.NaN);
+        int count = Math.min(blockWidth * rows, data.length / bytesPerSample);
+        long[] accumulator = predictor == 2 ? new long[1] : null;
+        for (int i = 0; i < count; i++) {
+            double value;
+            if (bitsPerSample == 8) {
+                int raw8 = sampleFormat == 2 ? samples.get(i) : Byte.toUnsignedInt(samples.get(i));
+                value = raw8;
+            } else if (bitsPerSample == 16) {
+                int raw16 = sampleFormat == 2 ? samples.getShort(i * 2) : Short.toUnsignedInt(samples.getShort(i * 2));
+                value = raw16;
+            } else if (sampleFormat == 3) {
+                value = samples.getFloat(i * 4);
+            } else {
+                value = sampleFormat == 2 ? samples.getInt(i * 4) : Integer.toUnsignedLong(samples.getInt(i * 4));
+            }
+            if (accumulator != null) {
+                if (i % blockWidth == 0) {
+                    accumulator[0] = 0;
+                }
+                accumulator[0] = wrap(accumulator[0] + (long) value);
+                value = accumulator[0];
+            }
+            values[i] = value == noData ? Float.NaN : (float) value;
+        }
+        return values;
+    }
+
+    private long wrap(long value) {
+        return switch (bitsPerSample) {
+            case 8 -> sampleFormat == 2 ? (byte) value : value & 0xff;
+            case 16 -> sampleFormat == 2 ? (short) value : value & 0xffff;
+            default -> sampleFormat == 2 ? (int) value : value & 0xffffffffL;
+        };
+    }
+
+    private static byte[] inflate(byte[] raw, int expected) throws DataFormatException {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(raw);
+            byte[] out = new byte[expected];
+            int n = 0;
+            while (n < expected && !inflater.finished()) {
+                int read = inflater.inflate(out, n, expected - n);
+                if (read == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                n += read;
+            }
+            return out;
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static byte[] lzw(byte[] raw, int expected) throws DataFormatException {
+        byte[][] table = new byte[4096][];
+        for (int i = 0; i < 256; i++) {
+            table[i] = new byte[] { (byte) i };
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream(expected);
+        int next = 258;
+        int codeLength = 9;
+        long bitBuffer = 0;
+        int bits = 0;
+        int position = 0;
+        byte[] previous = null;
+
+        while (true) {
+            while (bits < codeLength && position < raw.length) {
+                bitBuffer = (bitBuffer << 8) | (raw[position++] & 0xff);
+                bits += 8;
+            }
+            if (bits < codeLength) {
+                break;
+            }
+            int code = (int) ((bitBuffer >>> (bits - codeLength)) & ((1 << codeLength) - 1));
+            bits -= codeLength;
+
+            if (code == 257) {
+                break;
+            }
+            if (code == 256) {
+                next = 258;
+                codeLength = 9;
+                previous = null;
+                continue;
+            }
+
+            byte[] entry;
+            if (code < next && table[code] != null) {
+                entry = table[code];
+                if (previous != null) {
+                    table[next++] = concat(previous, entry[0]);
+                }
+            } else if (previous != null && code == next) {
+                entry = concat(previous, previous[0]);
+                table[next++] = entry;
+            } else {
+                throw new DataFormatException("invalid LZW code " + code);
+            }
+            out.write(entry, 0, entry.length);
+            previous = entry;
+
+            if (next >= (1 << codeLength) - 1 && codeLength < 12) {
+                codeLength++;
+            }
+            if (next >= 4096) {
+                throw new DataFormatException("LZW table overflow");
+            }
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] concat(byte[] prefix, byte last) {
+        byte[] result = Arrays.copyOf(prefix, prefix.length + 1);
+        result[prefix.length] = last;
+        return result;
+    }
+
+    private void readDirectory(long offset) {
+        int entries = Short.toUnsignedInt(buffer.getShort((int) offset));
+        for (int i = 0; i < entries; i++) {
+            int position = (int) offset + 2 + i * 12;
+            int tag = Short.toUnsignedInt(buffer.getShort(position));
+            int type = Short.toUnsignedInt(buffer.getShort(position + 2));
+            long count = Integer.toUnsignedLong(buffer.getInt(position + 4));
+            if (type <= 0 || type >= TYPE_SIZES.length) {
+                continue;
+            }
+            long size = count * TYPE_SIZES[type];
+            int valueOffset = size <= 4 ? position + 8 : buffer.getInt(position + 8);
+            tags.put(tag, new Entry(type, (int) count, valueOffset));
+        }
+    }
+
+    private long[] required(int tag) {
+        if (!tags.containsKey(tag)) {
+            throw new IllegalArgumentException(file + " is missing TIFF tag " + tag);
+        }
+        return longs(tag, 0);
+    }
+
+    private long[] longs(int tag, long defaultValue) {
+        Entry entry = tags.get(tag);
+        if (entry == null) {
+            return new long[] { defaultValue };
+        }
+        long[] values = new long[entry.count];
+        for (int i = 0; i < entry.count; i++) {
+            values[i] = switch (entry.type) {
+                case 1, 7 -> Byte.toUnsignedLong(buffer.get(entry.offset + i));
+                case 3 -> Short.toUnsignedLong(buffer.getShort(entry.offset + i * 2));
+                case 4 -> Integer.toUnsignedLong(buffer.getInt(entry.offset + i * 4));
+                default -> throw new IllegalArgumentException(file + " has tag " + tag + " with unexpected type "
+                        + entry.type);
+            };
+        }
+        return values;
+    }
+
+    private double[] doubles(int tag) {
+        Entry entry = tags.get(tag);
+        if (entry == null || entry.type != 12) {
+            return null;
+        }
+        double[] values = new double[entry.count];
+        for (int i = 0; i < entry.count; i++) {
+            values[i] = buffer.getDouble(entry.offset + i * 8);
+        }
+        return values;
+    }
+
+    private String ascii(int tag) {
+        Entry entry = tags.get(tag);
+        if (entry == null || entry.type != 2) {
+            return null;
+        }
+        byte[] text = new byte[entry.count];
+        buffer.get(entry.offset, text);
+        return new String(text, StandardCharsets.US_ASCII).replace("\0", "");
+    }
+
+    private Map<Integer, Integer> geoKeys() {
+        Map<Integer, Integer> keys = new HashMap<>();
+        if (!tags.containsKey(TAG_GEO_KEY_DIRECTORY)) {
+            return keys;
+        }
+        long[] directory = longs(TAG_GEO_KEY_DIRECTORY, 0);
+        for (int i = 4; i + 3 < directory.length; i += 4) {
+            if (directory[i + 1] == 0) {
+                keys.put((int) directory[i], (int) directory[i + 3]);
+            }
+        }
+        return keys;
+    }
+
+    private record Entry(int type, int count, int offset) {
+    }
+}
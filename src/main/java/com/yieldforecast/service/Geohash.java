@@ -0,0 +1,120 @@
+package com.yieldforecast.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public final class Geohash {
+
+    private static final char[] BASE32 = "0123456789bcdefghjkmnpqrstuvwxyz".toCharArray();
+
+    private Geohash() {
+    }
+
+    public static String encode(double latitude, double longitude, int precision) {
+        double minLat = -90.0;
+        double maxLat = 90.0;
+        double minLng = -180.0;
+        double maxLng = 180.0;
+        char[] hash = new char[precision];
+        boolean even = true;
+        int bit = 0;
+        int ch = 0;
+        int length = 0;
+
+        while (length < precision) {
+            if (even) {
+                double mid = (minLng + maxLng) / 2;
+                if (longitude >= mid) {
+                    ch |= 1 << (4 - bit);
+                    minLng = mid;
+                } else {
+                    maxLng = mid;
+                }
+            } else {
+                double mid = (minLat + maxLat) / 2;
+                if (latitude >= mid) {
+                    ch |= 1 << (4 - bit);
+                    minLat = mid;
+                } else {
+                    maxLat = mid;
+                }
+            }
+            even = !even;
+            if (++bit == 5) {
+                hash[length++] = BASE32[ch];
+                bit = 0;
+                ch = 0;
+            }
+        }
+        return new String(hash);
+    }
+
+    public static double[] bounds(String hash) {
+        double minLat = -90.0;
+        double maxLat = 90.0;
+        double minLng = -180.0;
+        double maxLng = 180.0;
+        boolean even = true;
+
+        for (int i = 0; i < hash.length(); i++) {
+            int value = indexOf(hash.charAt(i));
+            for (int bit = 4; bit >= 0; bit--) {
+                boolean set = ((value >> bit) & 1) == 1;
+                if (even) {
+                    double mid = (minLng + maxLng) / 2;
+                    if (set) {
+                        minLng = mid;
+                    } else {
+                        maxLng = mid;
+                    }
+                } else {
+                    double mid = (minLat + maxLat) / 2;
+                    if (set) {
+                        minLat = mid;
+                    } else {
+                        maxLat = mid;
+                    }
+                }
+                even = !even;
+            }
+        }
+        return new double[] { minLng, minLat, maxLng, maxLat };
+    }
+
+    public static double cellWidth(int precision) {
+        return 360.0 / Math.pow(2, Math.ceil(precision * 5 / 2.0));
+    }
+
+    public static double cellHeight(int precision) {
+        return 180.0 / Math.pow(2, Math.floor(precision * 5 / 2.0));
+    }
+
+    public static List<String> cover(double minLng, double minLat, double maxLng, double maxLat, int precision,
+            int maxCells) {
+        double width = cellWidth(precision);
+        double height = cellHeight(precision);
+        double startLng = Math.floor((minLng + 180.0) / width) * width - 180.0;
+        double startLat = Math.floor((minLat + 90.0) / height) * height - 90.0;
+
+        List<String> cells = new ArrayList<>();
+        for (double lat = startLat; lat <= maxLat; lat += height) {
+            for (double lng = startLng; lng <= maxLng; lng += width) {
+                if (cells.size() >= maxCells) {
+                    return null;
+                }
+                cells.add(encode(Math.min(89.999999, lat + height / 2), Math.min(179.999999, lng + width / 2),
+                        precision));
+            }
+        }
+        return cells;
+    }
+
+    private static int indexOf(char c) {
+        for (int i = 0; i < BASE32.length; i++) {
+            if (BASE32[i] == c) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Invalid geohash character: " + c);
+    }
+}
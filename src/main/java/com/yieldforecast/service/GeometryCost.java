@@ -0,0 +1,5 @@
+package com.yieldforecast.service;
+
+public record GeometryCost(int vertexCount, double areaHectares, double minLongitude, double minLatitude,
+        double maxLongitude, double maxLatitude, long seasonMonths, double estimatedPixelMonths, JobLane lane) {
+}
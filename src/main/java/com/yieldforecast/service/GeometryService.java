@@ -1,14 +1,675 @@
 package com.yieldforecast.service;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.yieldforecast.dto.GeoJsonGeometry;
+import com.yieldforecast.repository.ZoneGeometryRow;
 import org.json.JSONArray;
 import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Service
 public class GeometryService {
 
+    static final double EARTH_RADIUS_METERS = 6371008.8;
+    private static final double DEFAULT_POINT_RADIUS_METERS = 5000.0;
+
+    private static final Logger logger = LoggerFactory.getLogger(GeometryService.class);
+
+    private static final ObjectMapper CANONICAL_MAPPER = JsonMapper.builder()
+            .configure(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS, true)
+            .build();
+
+    @Value("${geometry.simplify.enabled:true}")
+    private boolean simplifyEnabled;
+
+    @Value("${geometry.simplify.scale-meters:100}")
+    private double analysisScaleMeters;
+
+    @Value("${geometry.simplify.tolerance-fraction:0.5}")
+    private double toleranceFraction;
+
+    @Value("${geometry.preflight.max-vertices:50000}")
+    private int maxVertices;
+
+    @Value("${geometry.preflight.max-area-hectares:5000000}")
+    private double maxAreaHectares;
+
+    @Value("${geometry.preflight.max-span-degrees:10}")
+    private double maxSpanDegrees;
+
+    @Value("${geometry.preflight.max-intersection-checks:20000000}")
+    private long maxIntersectionChecks;
+
+    @Value("${geometry.preflight.large-job-pixel-months:1000000}")
+    private double largeJobPixelMonths;
+
+    private final AtomicLong simplifiedGeometries = new AtomicLong();
+    private final AtomicLong verticesBefore = new AtomicLong();
+    private final AtomicLong verticesAfter = new AtomicLong();
+    private final AtomicLong simplificationNanos = new AtomicLong();
+    private final AtomicLong simplificationFallbacks = new AtomicLong();
+
+    public GeoJsonGeometry parse(String geometryJson) {
+        if (geometryJson == null || geometryJson.isBlank()) {
+            throw new IllegalArgumentException("No geometry provided");
+        }
+        try {
+            return parse(CANONICAL_MAPPER.readTree(geometryJson));
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Invalid geometry JSON: " + e.getOriginalMessage());
+        }
+    }
+
+    public GeoJsonGeometry parse(JsonNode node) {
+        if (node == null || node.isNull() || node.isMissingNode()) {
+            throw new IllegalArgumentException("No geometry provided");
+        }
+        if (node.isTextual()) {
+            return parse(node.asText());
+        }
+
+        String type = node.path("type").asText("");
+        JsonNode coordinates = node.path("coordinates");
+        if (type.isEmpty() || !coordinates.isArray()) {
+            throw new IllegalArgumentException("Geometry must have a type and coordinates");
+        }
+
+        JsonNode canonical = canonicalize(node);
+        String json;
+        try {
+            json = CANONICAL_MAPPER.writeValueAsString(canonical);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Invalid geometry JSON: " + e.getOriginalMessage());
+        }
+
+        double[] centroid = centroid(type, coordinates);
+        return new GeoJsonGeometry(type, json, canonical, sha256(json), centroid[1], centroid[0],
+                calculateAreaHectares(node));
+    }
+
+    /** Copies the tree once with object keys in sorted order. Value nodes are immutable and shared. */
+    private static JsonNode canonicalize(JsonNode node) {
+        if (node.isObject()) {
+            List<String> names = new ArrayList<>(node.size());
+            node.fieldNames().forEachRemaining(names::add);
+            Collections.sort(names);
+            ObjectNode sorted = CANONICAL_MAPPER.createObjectNode();
+            for (String name : names) {
+                sorted.set(name, canonicalize(node.get(name)));
+            }
+            return sorted;
+        }
+        if (node.isArray()) {
+            ArrayNode copy = CANONICAL_MAPPER.createArrayNode();
+            for (JsonNode child : node) {
+                copy.add(canonicalize(child));
+            }
+            return copy;
+        }
+        return node;
+    }
+
+    public GeometryCost preflight(GeoJsonGeometry geometry, LocalDate startDate, LocalDate endDate) {
+        JsonNode node = geometry.getNode();
+        JsonNode coordinates = node.path("coordinates");
+
+        double[] bbox = { Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY,
+                Double.NEGATIVE_INFINITY };
+        List<JsonNode> polygons = new ArrayList<>();
+        switch (geometry.getType()) {
+            case "Point":
+                double[] center = readPosition(coordinates, "Point");
+                double latDelta = Math.toDegrees(pointRadius(node) / EARTH_RADIUS_METERS);
+                double lngDelta = latDelta / Math.max(0.01, Math.cos(Math.toRadians(center[1])));
+                expand(bbox, new double[] { center[0] - lngDelta, center[1] - latDelta });
+                expand(bbox, new double[] { center[0] + lngDelta, center[1] + latDelta });
+                break;
+            case "Polygon":
+                polygons.add(coordinates);
+                break;
+            case "MultiPolygon":
+                if (coordinates.size() == 0) {
+                    throw new IllegalArgumentException("MultiPolygon has no polygons");
+                }
+                coordinates.forEach(polygons::add);
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported geometry type: " + geometry.getType());
+        }
+
+        int vertices = polygons.isEmpty() ? 1 : 0;
+        for (int i = 0; i < polygons.size(); i++) {
+            vertices += countVertices(polygons.get(i), polygonLabel(geometry, i));
+        }
+        if (vertices > maxVertices) {
+            throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY,
+                    "Geometry has " + vertices + " vertices, the limit is " + maxVertices);
+        }
+        if (geometry.getAreaHectares() > maxAreaHectares) {
+            throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY, String.format(Locale.ROOT,
+                    "Geometry covers %.0f ha, the limit is %.0f ha", geometry.getAreaHectares(), maxAreaHectares));
+        }
+
+        List<List<double[][]>> positions = new ArrayList<>();
+        for (int i = 0; i < polygons.size(); i++) {
+            positions.add(readRings(polygons.get(i), bbox, polygonLabel(geometry, i)));
+        }
+        if (bbox[2] - bbox[0] > maxSpanDegrees || bbox[3] - bbox[1] > maxSpanDegrees) {
+            throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY,
+                    "Geometry spans more than " + maxSpanDegrees + " degrees");
+        }
+
+        for (int i = 0; i < polygons.size(); i++) {
+            validatePolygon(positions.get(i), polygons.get(i), polygonLabel(geometry, i));
+        }
+
+        long days = Math.max(1, ChronoUnit.DAYS.between(startDate, endDate));
+        long months = Math.max(1, Math.round(days / 30.44));
+        double pixelArea = analysisScaleMeters * analysisScaleMeters;
+        double pixels = Math.max(1.0, geometry.getAreaHectares() * 10000.0 / pixelArea);
+        double pixelMonths = pixels * months;
+        JobLane lane = pixelMonths > largeJobPixelMonths ? JobLane.LARGE : JobLane.INTERACTIVE;
+
+        return new GeometryCost(vertices, geometry.getAreaHectares(), bbox[0], bbox[1], bbox[2], bbox[3], months,
+                pixelMonths, lane);
+    }
+
+    private String polygonLabel(GeoJsonGeometry geometry, int index) {
+        return "MultiPolygon".equals(geometry.getType()) ? "Polygon " + index : "Polygon";
+    }
+
+    private int countVertices(JsonNode rings, String label) {
+        if (!rings.isArray() || rings.size() == 0) {
+            throw new IllegalArgumentException(label + " has no rings");
+        }
+        int vertices = 0;
+        for (int r = 0; r < rings.size(); r++) {
+            JsonNode ring = rings.get(r);
+            if (!ring.isArray() || ring.size() < 4) {
+                throw new IllegalArgumentException(label + " ring " + r + " needs at least 4 positions");
+            }
+            vertices += ring.size() - 1;
+        }
+        return vertices;
+    }
+
+    private List<double[][]> readRings(JsonNode rings, double[] bbox, String label) {
+        List<double[][]> parsed = new ArrayList<>();
+        for (int r = 0; r < rings.size(); r++) {
+            JsonNode ring = rings.get(r);
+            double[][] positions = new double[ring.size()][];
+            for (int i = 0; i < positions.length; i++) {
+                positions[i] = readPosition(ring.get(i), label + " ring " + r);
+                expand(bbox, positions[i]);
+            }
+            parsed.add(positions);
+        }
+        return parsed;
+    }
+
+    private void validatePolygon(List<double[][]> rings, JsonNode ringNodes, String label) {
+        List<double[][]> distinctRings = new ArrayList<>();
+        for (int r = 0; r < rings.size(); r++) {
+            double[][] positions = rings.get(r);
+            String ringLabel = label + " ring " + r;
+            double[] first = positions[0];
+            double[] last = positions[positions.length - 1];
+            if (first[0] != last[0] || first[1] != last[1]) {
+                throw new IllegalArgumentException(ringLabel + " is not closed");
+            }
+            List<double[]> distinct = new ArrayList<>();
+            for (double[] position : positions) {
+                double[] previous = distinct.isEmpty() ? null : distinct.get(distinct.size() - 1);
+                if (previous == null || previous[0] != position[0] || previous[1] != position[1]) {
+                    distinct.add(position);
+                }
+            }
+            if (distinct.size() < 4) {
+                throw new IllegalArgumentException(ringLabel + " needs at least 3 distinct vertices");
+            }
+            distinctRings.add(distinct.toArray(new double[0][]));
+        }
+
+        if (selfIntersects(distinctRings)) {
+            throw new IllegalArgumentException(label + " is self-intersecting");
+        }
+        for (int r = 0; r < ringNodes.size(); r++) {
+            if (Math.abs(ringAreaSquareMeters(ringNodes.get(r))) < 1.0) {
+                throw new IllegalArgumentException(label + " ring " + r + " has no area");
+            }
+        }
+    }
+
+    private double[] readPosition(JsonNode position, String label) {
+        if (!position.isArray() || position.size() < 2 || !position.get(0).isNumber()
+                || !position.get(1).isNumber()) {
+            throw new IllegalArgumentException(label + " has an invalid position");
+        }
+        double lng = position.get(0).asDouble();
+        double lat = position.get(1).asDouble();
+        if (!Double.isFinite(lng) || !Double.isFinite(lat) || lng < -180 || lng > 180 || lat < -90 || lat > 90) {
+            throw new IllegalArgumentException(label + " has a position out of range: [" + lng + ", " + lat + "]");
+        }
+        return new double[] { lng, lat };
+    }
+
+    private void expand(double[] bbox, double[] position) {
+        bbox[0] = Math.min(bbox[0], position[0]);
+        bbox[1] = Math.min(bbox[1], position[1]);
+        bbox[2] = Math.max(bbox[2], position[0]);
+        bbox[3] = Math.max(bbox[3], position[1]);
+    }
+
+    private boolean selfIntersects(List<double[][]> rings) {
+        List<double[]> segments = new ArrayList<>();
+        for (int r = 0; r < rings.size(); r++) {
+            double[][] ring = rings.get(r);
+            for (int i = 0; i < ring.length - 1; i++) {
+                segments.add(new double[] { ring[i][0], ring[i][1], ring[i + 1][0], ring[i + 1][1], r, i,
+                        ring.length - 1 });
+            }
+        }
+        segments.sort((a, b) -> Double.compare(Math.min(a[0], a[2]), Math.min(b[0], b[2])));
+
+        long checks = 0;
+        for (int i = 0; i < segments.size(); i++) {
+            double[] a = segments.get(i);
+            double aMaxX = Math.max(a[0], a[2]);
+            for (int j = i + 1; j < segments.size(); j++) {
+                double[] b = segments.get(j);
+                if (Math.min(b[0], b[2]) > aMaxX) {
+                    break;
+                }
+                if (++checks > maxIntersectionChecks) {
+                    throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY,
+                            "Geometry is too complex to validate, simplify it before submitting");
+                }
+                if (adjacent(a, b)) {
+                    continue;
+                }
+                if (segmentsIntersect(a, b)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private boolean adjacent(double[] a, double[] b) {
+        if (a[4] != b[4]) {
+            return false;
+        }
+        long edges = (long) a[6];
+        long diff = Math.abs((long) a[5] - (long) b[5]);
+        return diff == 1 || diff == edges - 1;
+    }
+
+    private boolean segmentsIntersect(double[] a, double[] b) {
+        double d1 = orientation(b[0], b[1], b[2], b[3], a[0], a[1]);
+        double d2 = orientation(b[0], b[1], b[2], b[3], a[2], a[3]);
+        double d3 = orientation(a[0], a[1], a[2], a[3], b[0], b[1]);
+        double d4 = orientation(a[0], a[1], a[2], a[3], b[2], b[3]);
+        if (((d1 > 0 && d2 < 0) || (d1 < 0 && d2 > 0)) && ((d3 > 0 && d4 < 0) || (d3 < 0 && d4 > 0))) {
+            return true;
+        }
+        return (d1 == 0 && onSegment(b, a[0], a[1])) || (d2 == 0 && onSegment(b, a[2], a[3]))
+                || (d3 == 0 && onSegment(a, b[0], b[1])) || (d4 == 0 && onSegment(a, b[2], b[3]));
+    }
+
+    private double orientation(double ax, double ay, double bx, double by, double px, double py) {
+        return (bx - ax) * (py - ay) - (by - ay) * (px - ax);
+    }
+
+    private boolean onSegment(double[] segment, double px, double py) {
+        return px >= Math.min(segment[0], segment[2]) && px <= Math.max(segment[0], segment[2])
+                && py >= Math.min(segment[1], segment[3]) && py <= Math.max(segment[1], segment[3]);
+    }
+
+    public String prepareForDispatch(GeoJsonGeometry geometry) {
+        if (!simplifyEnabled || !("Polygon".equals(geometry.getType()) || "MultiPolygon".equals(geometry.getType()))) {
+            return geometry.getJson();
+        }
+
+        long startedAt = System.nanoTime();
+        double tolerance = analysisScaleMeters * toleranceFraction;
+        ObjectNode node = (ObjectNode) geometry.getNode();
+
+        int[] counts = new int[2];
+        ArrayNode coordinates = (ArrayNode) node.get("coordinates");
+        if ("Polygon".equals(geometry.getType())) {
+            simplifyPolygon(coordinates, tolerance, counts);
+        } else {
+            for (JsonNode polygon : coordinates) {
+                simplifyPolygon((ArrayNode) polygon, tolerance, counts);
+            }
+        }
+
+        long elapsed = System.nanoTime() - startedAt;
+        simplifiedGeometries.incrementAndGet();
+        verticesBefore.addAndGet(counts[0]);
+        verticesAfter.addAndGet(counts[1]);
+        simplificationNanos.addAndGet(elapsed);
+        logger.info("Simplified {} from {} to {} vertices (tolerance {} m) in {} us", geometry, counts[0], counts[1],
+                tolerance, elapsed / 1000);
+
+        if (counts[0] == counts[1]) {
+            return geometry.getJson();
+        }
+        try {
+            return CANONICAL_MAPPER.writeValueAsString(node);
+        } catch (JsonProcessingException e) {
+            return geometry.getJson();
+        }
+    }
+
+    public Map<String, Object> simplificationSnapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("enabled", simplifyEnabled);
+        snapshot.put("toleranceMeters", analysisScaleMeters * toleranceFraction);
+        snapshot.put("geometries", simplifiedGeometries.get());
+        snapshot.put("verticesBefore", verticesBefore.get());
+        snapshot.put("verticesAfter", verticesAfter.get());
+        snapshot.put("totalMillis", simplificationNanos.get() / 1_000_000.0);
+        snapshot.put("fallbacks", simplificationFallbacks.get());
+        return snapshot;
+    }
+
+    /**
+     * Simplifies each ring on its own, so a simplified ring can cross itself or a hole. Such polygons are
+     * validated again and keep their original rings when the check fails.
+     */
+    private void simplifyPolygon(ArrayNode rings, double tolerance, int[] counts) {
+        List<JsonNode> original = new ArrayList<>(rings.size());
+        rings.forEach(original::add);
+        int before = 0;
+        int after = 0;
+        for (int r = 0; r < rings.size(); r++) {
+            JsonNode ring = rings.get(r);
+            int n = ring.size();
+            before += n;
+            if (n <= 4) {
+                after += n;
+                continue;
+            }
+
+            double originLat = Math.toRadians(ring.get(0).path(1).asDouble());
+            double metersPerDegree = Math.toRadians(1.0) * EARTH_RADIUS_METERS;
+            double[] xs = new double[n];
+            double[] ys = new double[n];
+            for (int i = 0; i < n; i++) {
+                xs[i] = ring.get(i).path(0).asDouble() * metersPerDegree * Math.cos(originLat);
+                ys[i] = ring.get(i).path(1).asDouble() * metersPerDegree;
+            }
+
+            boolean[] keep = douglasPeucker(xs, ys, tolerance);
+            ArrayNode simplified = CANONICAL_MAPPER.createArrayNode();
+            for (int i = 0; i < n; i++) {
+                if (keep[i]) {
+                    simplified.add(ring.get(i));
+                }
+            }
+            if (simplified.size() < 4) {
+                after += n;
+                continue;
+            }
+            rings.set(r, simplified);
+            after += simplified.size();
+        }
+
+        if (after < before && !isValidPolygon(rings)) {
+            for (int r = 0; r < original.size(); r++) {
+                rings.set(r, original.get(r));
+            }
+            simplificationFallbacks.incrementAndGet();
+            after = before;
+        }
+        counts[0] += before;
+        counts[1] += after;
+    }
+
+    private boolean isValidPolygon(ArrayNode rings) {
+        try {
+            validatePolygon(readRings(rings, new double[4], "Simplified polygon"), rings, "Simplified polygon");
+            return true;
+        } catch (IllegalArgumentException | ResponseStatusException e) {
+            logger.debug("Keeping the original rings: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    private boolean[] douglasPeucker(double[] xs, double[] ys, double tolerance) {
+        int n = xs.length;
+        boolean[] keep = new boolean[n];
+        keep[0] = true;
+        keep[n - 1] = true;
+
+        Deque<int[]> stack = new ArrayDeque<>();
+        stack.push(new int[] { 0, n - 1 });
+        while (!stack.isEmpty()) {
+            int[] range = stack.pop();
+            int first = range[0];
+            int last = range[1];
+            double maxDistance = -1.0;
+            int farthest = -1;
+            for (int i = first + 1; i < last; i++) {
+                double distance = segmentDistance(xs[i], ys[i], xs[first], ys[first], xs[last], ys[last]);
+                if (distance > maxDistance) {
+                    maxDistance = distance;
+                    farthest = i;
+                }
+            }
+            if (farthest != -1 && maxDistance > tolerance) {
+                keep[farthest] = true;
+                stack.push(new int[] { first, farthest });
+                stack.push(new int[] { farthest, last });
+            }
+        }
+        return keep;
+    }
+
+    private double segmentDistance(double px, double py, double ax, double ay, double bx, double by) {
+        double dx = bx - ax;
+        double dy = by - ay;
+        double lengthSquared = dx * dx + dy * dy;
+        double t = lengthSquared == 0 ? 0 : Math.max(0, Math.min(1, ((px - ax) * dx + (py - ay) * dy) / lengthSquared));
+        double cx = ax + t * dx - px;
+        double cy = ay + t * dy - py;
+        return Math.sqrt(cx * cx + cy * cy);
+    }
+
+    public ZoneIndex buildZoneIndex(List<ZoneGeometryRow> rows) {
+        ZoneIndex.Builder builder = new ZoneIndex.Builder();
+        for (ZoneGeometryRow row : rows) {
+            try {
+                addToIndex(builder, row.getId(), CANONICAL_MAPPER.readTree(row.getGeometryJson()));
+            } catch (JsonProcessingException e) {
+                continue;
+            }
+        }
+        return builder.build();
+    }
+
+    public ZoneIndex buildZoneIndex(GeoJsonGeometry geometry) {
+        ZoneIndex.Builder builder = new ZoneIndex.Builder();
+        addToIndex(builder, 0L, geometry.getNode());
+        return builder.build();
+    }
+
+    private void addToIndex(ZoneIndex.Builder builder, long id, JsonNode geometry) {
+        String type = geometry.path("type").asText("");
+        JsonNode coordinates = geometry.path("coordinates");
+        if ("Polygon".equals(type)) {
+            builder.addPolygon(id, toRings(coordinates));
+        } else if ("MultiPolygon".equals(type)) {
+            for (JsonNode polygon : coordinates) {
+                builder.addPolygon(id, toRings(polygon));
+            }
+        } else if ("Point".equals(type) && coordinates.size() >= 2) {
+            builder.addCircle(id, coordinates.path(1).asDouble(), coordinates.path(0).asDouble(),
+                    pointRadius(geometry));
+        }
+    }
+
+    private List<double[][]> toRings(JsonNode polygon) {
+        List<double[][]> rings = new ArrayList<>();
+        for (JsonNode ring : polygon) {
+            double[][] vertices = new double[ring.size()][];
+            for (int i = 0; i < vertices.length; i++) {
+                vertices[i] = new double[] { ring.get(i).path(0).asDouble(), ring.get(i).path(1).asDouble() };
+            }
+            rings.add(vertices);
+        }
+        return rings;
+    }
+
+    public double calculateAreaHectares(JsonNode geometry) {
+        if (geometry == null) {
+            return 0.0;
+        }
+
+        String type = geometry.path("type").asText("");
+        JsonNode coordinates = geometry.path("coordinates");
+
+        if ("Polygon".equals(type)) {
+            return polygonAreaSquareMeters(coordinates) / 10000.0;
+        } else if ("MultiPolygon".equals(type)) {
+            double area = 0.0;
+            for (JsonNode polygon : coordinates) {
+                area += polygonAreaSquareMeters(polygon);
+            }
+            return area / 10000.0;
+        } else if ("Point".equals(type)) {
+            double radius = pointRadius(geometry);
+            return Math.PI * radius * radius / 10000.0;
+        }
+
+        return 0.0;
+    }
+
+    private double pointRadius(JsonNode geometry) {
+        if (geometry.path("radius").isNumber()) {
+            return geometry.path("radius").asDouble();
+        }
+        if (geometry.path("properties").path("radius").isNumber()) {
+            return geometry.path("properties").path("radius").asDouble();
+        }
+        return DEFAULT_POINT_RADIUS_METERS;
+    }
+
+    private double[] centroid(String type, JsonNode coordinates) {
+        if ("Point".equals(type)) {
+            return new double[] { coordinates.path(0).asDouble(), coordinates.path(1).asDouble() };
+        }
+
+        List<JsonNode> outerRings = new ArrayList<>();
+        if ("Polygon".equals(type)) {
+            outerRings.add(coordinates.path(0));
+        } else if ("MultiPolygon".equals(type)) {
+            for (JsonNode polygon : coordinates) {
+                outerRings.add(polygon.path(0));
+            }
+        } else {
+            throw new IllegalArgumentException("Unsupported geometry type: " + type);
+        }
+
+        double weightedX = 0.0;
+        double weightedY = 0.0;
+        double totalArea = 0.0;
+        double sumX = 0.0;
+        double sumY = 0.0;
+        int vertices = 0;
+
+        for (JsonNode ring : outerRings) {
+            int n = ring.size();
+            for (int i = 0; i < n; i++) {
+                double x1 = ring.get(i).path(0).asDouble();
+                double y1 = ring.get(i).path(1).asDouble();
+                double x2 = ring.get((i + 1) % n).path(0).asDouble();
+                double y2 = ring.get((i + 1) % n).path(1).asDouble();
+                double cross = x1 * y2 - x2 * y1;
+                totalArea += cross;
+                weightedX += (x1 + x2) * cross;
+                weightedY += (y1 + y2) * cross;
+                sumX += x1;
+                sumY += y1;
+                vertices++;
+            }
+        }
+
+        if (vertices == 0) {
+            throw new IllegalArgumentException("Geometry has no coordinates");
+        }
+        if (Math.abs(totalArea) < 1e-15) {
+            return new double[] { sumX / vertices, sumY / vertices };
+        }
+        return new double[] { weightedX / (3.0 * totalArea), weightedY / (3.0 * totalArea) };
+    }
+
+    private double polygonAreaSquareMeters(JsonNode rings) {
+        double area = 0.0;
+        for (int i = 0; i < rings.size(); i++) {
+            double ringArea = Math.abs(ringAreaSquareMeters(rings.get(i)));
+            area += i == 0 ? ringArea : -ringArea;
+        }
+        return Math.max(0.0, area);
+    }
+
+    private double ringAreaSquareMeters(JsonNode ring) {
+        int n = ring.size();
+        if (n < 3) {
+            return 0.0;
+        }
+
+        double total = 0.0;
+        for (int i = 0; i < n; i++) {
+            JsonNode p1 = ring.get(i);
+            JsonNode p2 = ring.get((i + 1) % n);
+            double lng1 = Math.toRadians(p1.path(0).asDouble());
+            double lng2 = Math.toRadians(p2.path(0).asDouble());
+            double lat1 = Math.toRadians(p1.path(1).asDouble());
+            double lat2 = Math.toRadians(p2.path(1).asDouble());
+            total += (lng2 - lng1) * (2 + Math.sin(lat1) + Math.sin(lat2));
+        }
+
+        return total * EARTH_RADIUS_METERS * EARTH_RADIUS_METERS / 2.0;
+    }
+
+    private String sha256(String value) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
     public boolean isPointInPolygon(double latitude, double longitude, JSONObject geometry) {
         if (geometry == null) {
             return false;
@@ -56,7 +717,7 @@ public class GeometryService {
         return inside;
     }
 
-    private double haversineDistance(double lat1, double lng1, double lat2, double lng2) {
+    static double haversineDistance(double lat1, double lng1, double lat2, double lng2) {
         final int R = 6371;
 
         double dLat = Math.toRadians(lat2 - lat1);
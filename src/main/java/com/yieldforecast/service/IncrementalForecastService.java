@@ -0,0 +1,262 @@
+package com.yieldforecast.service;
+
+import com.yieldforecast.dto.GeoJsonGeometry;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Computes a season's statistics from per-month median composites whose sums, counts and histograms are kept
+ * in the result store once the month has settled. The pooled mean of monthly medians is not the mean of the
+ * season's median composite that the full-season path reports, so this is off by default.
+ */
+@Service
+public class IncrementalForecastService {
+
+    private static final Logger logger = LoggerFactory.getLogger(IncrementalForecastService.class);
+
+    @Value("${forecast.incremental.enabled:false}")
+    private boolean enabled;
+
+    @Value("${forecast.incremental.settle-days:5}")
+    private int settleDays;
+
+    @Autowired
+    private PythonExecutionService pythonExecutionService;
+
+    @Autowired
+    private GeometryService geometryService;
+
+    @Autowired
+    private ResultSegmentStore resultStore;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public String computeForecast(GeoJsonGeometry geometry, List<String> parameters, LocalDate start,
+            LocalDate end, boolean withSeries, JobLane lane, JobPriority priority) throws Exception {
+        if (!end.isAfter(start)) {
+            end = start.plusDays(1);
+        }
+
+        Map<String, LocalDate[]> segments = splitByMonth(start, end);
+        Map<String, List<SegmentStats>> resolved = new LinkedHashMap<>();
+        for (String parameter : parameters) {
+            resolved.put(parameter, new ArrayList<>());
+        }
+        JSONArray missing = new JSONArray();
+
+        for (LocalDate[] range : segments.values()) {
+            List<SegmentStats> cached = new ArrayList<>();
+            for (String parameter : parameters) {
+                Optional<ResultPayload> stats = resultStore.get(segmentKey(parameter, geometry, range));
+                if (stats.isPresent()) {
+                    SegmentStats parsed = SegmentStats.fromJson(new JSONObject(stats.get().asString()));
+                    if (!withSeries || parsed.series != null) {
+                        cached.add(parsed);
+                    }
+                }
+            }
+            if (cached.size() == parameters.size()) {
+                for (int i = 0; i < parameters.size(); i++) {
+                    resolved.get(parameters.get(i)).add(cached.get(i));
+                }
+            } else {
+                missing.put(new JSONArray().put(range[0].toString()).put(range[1].toString()));
+            }
+        }
+
+        int reused = segments.size() - missing.length();
+        if (!missing.isEmpty()) {
+            List<String> args = new ArrayList<>();
+            args.add("-");
+            args.add(String.join(",", parameters));
+            args.add(start.toString());
+            args.add(end.toString());
+            args.add("--segments");
+            args.add(missing.toString());
+            if (withSeries) {
+                args.add("--series");
+            }
+
+            String output = pythonExecutionService.executeScript("src/main/python/yield_forecast.py", args,
+                    geometryService.prepareForDispatch(geometry), lane, priority);
+            int jsonStart = output.indexOf("{");
+            if (jsonStart == -1) {
+                throw new RuntimeException("No JSON returned from segment statistics");
+            }
+
+            JSONArray computed = new JSONObject(output.substring(jsonStart)).getJSONArray("segments");
+            LocalDate settledBefore = LocalDate.now().minusDays(settleDays);
+            for (int i = 0; i < computed.length(); i++) {
+                JSONObject segment = computed.getJSONObject(i);
+                LocalDate[] range = { LocalDate.parse(segment.getString("start")),
+                        LocalDate.parse(segment.getString("end")) };
+                JSONObject bandStats = segment.getJSONObject("stats");
+                for (String parameter : parameters) {
+                    JSONObject stats = bandStats.optJSONObject(parameter);
+                    if (stats == null) {
+                        continue;
+                    }
+                    SegmentStats parsed = SegmentStats.fromJson(stats);
+                    resolved.get(parameter).add(parsed);
+                    if (!range[1].isAfter(settledBefore)) {
+                        resultStore.put(segmentKey(parameter, geometry, range), stats.toString());
+                    }
+                }
+            }
+        }
+
+        logger.info("Incremental forecast for {}: {} segments reused, {} computed", parameters, reused,
+                missing.length());
+
+        JSONObject result = new JSONObject();
+        JSONObject series = new JSONObject();
+        for (String parameter : parameters) {
+            if (withSeries) {
+                JSONArray points = new JSONArray();
+                for (SegmentStats segment : resolved.get(parameter)) {
+                    if (segment.series != null) {
+                        segment.series.forEach(points::put);
+                    }
+                }
+                series.put(parameter, points);
+            }
+            SegmentStats merged = SegmentStats.merge(resolved.get(parameter));
+            if (merged.count == 0) {
+                if (parameter.equals(parameters.get(0))) {
+                    return null;
+                }
+                continue;
+            }
+            result.put(parameter, merged.sum / merged.count);
+            Double median = merged.estimateMedian();
+            if (median != null) {
+                result.put(parameter + "_median", median);
+            }
+            if (parameter.equals(parameters.get(0))) {
+                result.put("pixelCount", merged.count);
+            }
+        }
+        if (withSeries) {
+            result.put("series", series);
+        }
+        result.put("segmentsReused", reused);
+        result.put("segmentsComputed", missing.length());
+        return result.toString();
+    }
+
+    private Map<String, LocalDate[]> splitByMonth(LocalDate start, LocalDate end) {
+        Map<String, LocalDate[]> segments = new LinkedHashMap<>();
+        LocalDate cursor = start;
+        while (cursor.isBefore(end)) {
+            LocalDate nextMonth = cursor.withDayOfMonth(1).plusMonths(1);
+            LocalDate segmentEnd = nextMonth.isBefore(end) ? nextMonth : end;
+            segments.put(cursor.toString(), new LocalDate[] { cursor, segmentEnd });
+            cursor = segmentEnd;
+        }
+        return segments;
+    }
+
+    private String segmentKey(String parameter, GeoJsonGeometry geometry, LocalDate[] range) {
+        return "segment_" + parameter + "_" + geometry.getHash() + "_" + range[0] + "_" + range[1];
+    }
+
+    private static final class SegmentStats {
+        private final double sum;
+        private final long count;
+        private final double histogramStart;
+        private final double binWidth;
+        private final long[] histogram;
+        private final JSONArray series;
+
+        private SegmentStats(double sum, long count, double histogramStart, double binWidth, long[] histogram,
+                JSONArray series) {
+            this.sum = sum;
+            this.count = count;
+            this.histogramStart = histogramStart;
+            this.binWidth = binWidth;
+            this.histogram = histogram;
+            this.series = series;
+        }
+
+        private static SegmentStats fromJson(JSONObject segment) {
+            JSONArray bins = segment.optJSONArray("histogram");
+            long[] histogram = new long[bins != null ? bins.length() : 0];
+            double histogramStart = 0.0;
+            double binWidth = 0.0;
+            for (int i = 0; i < histogram.length; i++) {
+                JSONArray bin = bins.getJSONArray(i);
+                histogram[i] = Math.round(bin.getDouble(1));
+                if (i == 0) {
+                    histogramStart = bin.getDouble(0);
+                } else if (i == 1) {
+                    binWidth = bin.getDouble(0) - histogramStart;
+                }
+            }
+            return new SegmentStats(segment.optDouble("sum", 0.0), segment.optLong("count", 0), histogramStart,
+                    binWidth, histogram, segment.optJSONArray("series"));
+        }
+
+        private static SegmentStats merge(Iterable<SegmentStats> parts) {
+            double sum = 0.0;
+            long count = 0;
+            double histogramStart = 0.0;
+            double binWidth = 0.0;
+            long[] histogram = null;
+
+            for (SegmentStats part : parts) {
+                sum += part.sum;
+                count += part.count;
+                if (part.histogram.length == 0) {
+                    continue;
+                }
+                if (histogram == null) {
+                    histogram = part.histogram.clone();
+                    histogramStart = part.histogramStart;
+                    binWidth = part.binWidth;
+                } else if (histogram.length == part.histogram.length) {
+                    for (int i = 0; i < histogram.length; i++) {
+                        histogram[i] += part.histogram[i];
+                    }
+                }
+            }
+
+            return new SegmentStats(sum, count, histogramStart, binWidth, histogram != null ? histogram : new long[0],
+                    null);
+        }
+
+        private Double estimateMedian() {
+            long total = 0;
+            for (long binCount : histogram) {
+                total += binCount;
+            }
+            if (total == 0 || binWidth <= 0) {
+                return null;
+            }
+
+            double half = total / 2.0;
+            long seen = 0;
+            for (int i = 0; i < histogram.length; i++) {
+                if (seen + histogram[i] >= half) {
+                    double fraction = histogram[i] == 0 ? 0.0 : (half - seen) / histogram[i];
+                    return histogramStart + (i + fraction) * binWidth;
+                }
+                seen += histogram[i];
+            }
+            return histogramStart + histogram.length * binWidth;
+        }
+    }
+}
@@ -0,0 +1,5 @@
+package com.yieldforecast.service;
+
+public enum JobLane {
+    INTERACTIVE, LARGE
+}
@@ -0,0 +1,67 @@
+package com.yieldforecast.service;
+
+import org.json.JSONObject;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.Map;
+
+public class LinearYieldModel implements YieldModel {
+
+    private final String name;
+    private final double defaultIntercept;
+    private final double defaultSlope;
+    private final Map<String, double[]> parameterCoefficients;
+    private final double areaCoefficient;
+    private final double seasonDaysCoefficient;
+
+    public LinearYieldModel(String name, double defaultIntercept, double defaultSlope,
+            Map<String, double[]> parameterCoefficients, double areaCoefficient, double seasonDaysCoefficient) {
+        this.name = name;
+        this.defaultIntercept = defaultIntercept;
+        this.defaultSlope = defaultSlope;
+        this.parameterCoefficients = Map.copyOf(parameterCoefficients);
+        this.areaCoefficient = areaCoefficient;
+        this.seasonDaysCoefficient = seasonDaysCoefficient;
+    }
+
+    public static LinearYieldModel fromJson(JSONObject json, double defaultIntercept, double defaultSlope) {
+        JSONObject defaults = json.optJSONObject("default");
+        double intercept = defaults != null ? defaults.optDouble("intercept", defaultIntercept) : defaultIntercept;
+        double slope = defaults != null ? defaults.optDouble("slope", defaultSlope) : defaultSlope;
+
+        Map<String, double[]> coefficients = new HashMap<>();
+        JSONObject parameters = json.optJSONObject("parameters");
+        if (parameters != null) {
+            for (String parameter : parameters.keySet()) {
+                JSONObject entry = parameters.getJSONObject(parameter);
+                coefficients.put(parameter, new double[] {
+                        entry.optDouble("intercept", intercept),
+                        entry.optDouble("slope", slope) });
+            }
+        }
+
+        return new LinearYieldModel(json.optString("name", "linear"), intercept, slope, coefficients,
+                json.optDouble("areaCoefficient", 0.0), json.optDouble("seasonDaysCoefficient", 0.0));
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public double predict(double indexValue, String parameter, double areaHectares, LocalDate seasonStart,
+            LocalDate seasonEnd) {
+        double[] coefficients = parameter != null ? parameterCoefficients.get(parameter) : null;
+        double intercept = coefficients != null ? coefficients[0] : defaultIntercept;
+        double slope = coefficients != null ? coefficients[1] : defaultSlope;
+
+        double prediction = intercept + slope * indexValue + areaCoefficient * areaHectares;
+        if (seasonDaysCoefficient != 0.0 && seasonStart != null && seasonEnd != null) {
+            prediction += seasonDaysCoefficient * ChronoUnit.DAYS.between(seasonStart, seasonEnd);
+        }
+        return prediction;
+    }
+}
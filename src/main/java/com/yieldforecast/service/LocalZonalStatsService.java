@@ -0,0 +1,323 @@
+package com.yieldforecast.service;
+
+import com.yieldforecast.dto.GeoJsonGeometry;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.FloatBuffer;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+@Service
+public class LocalZonalStatsService {
+
+    private static final Logger logger = LoggerFactory.getLogger(LocalZonalStatsService.class);
+
+    private static final double METERS_PER_DEGREE = 111_320.0;
+
+    @Value("${raster.local.enabled:false}")
+    private boolean enabled;
+
+    @Value("${raster.local.scale-meters:100}")
+    private double scaleMeters;
+
+    @Value("${raster.local.max-points:250000}")
+    private int maxPoints;
+
+    @Value("${raster.local.max-gap-days:10}")
+    private int maxGapDays;
+
+    @Value("${raster.local.max-cloud-percentage:20}")
+    private double maxCloudPercentage;
+
+    @Autowired
+    private RasterTileStore tileStore;
+
+    @Autowired
+    private GeometryService geometryService;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public String computeForecast(GeoJsonGeometry geometry, GeometryCost cost, List<String> parameters,
+            LocalDate startDate, LocalDate endDate) {
+        long startedAt = System.nanoTime();
+        Set<RasterTileStore.Band> needed = EnumSet.of(RasterTileStore.Band.B8);
+        for (String parameter : parameters) {
+            switch (parameter) {
+                case "NDVI" -> needed.add(RasterTileStore.Band.B4);
+                case "NDMI" -> needed.add(RasterTileStore.Band.B11);
+                case "RECI" -> needed.add(RasterTileStore.Band.B5);
+                default -> {
+                    return null;
+                }
+            }
+        }
+
+        List<RasterTileStore.Scene> acquisitions = new ArrayList<>();
+        for (RasterTileStore.Scene scene : tileStore.scenesCovering(cost.minLongitude(), cost.minLatitude(),
+                cost.maxLongitude(), cost.maxLatitude(), startDate, endDate)) {
+            if (needed.stream().allMatch(scene::hasBand) && !Double.isNaN(scene.getCloudCover())) {
+                acquisitions.add(scene);
+            }
+        }
+        int gap = longestGapDays(acquisitions, startDate, endDate);
+        if (gap > maxGapDays) {
+            logger.info("Local rasters leave a {} day gap between {} and {} (max {}), using Earth Engine", gap,
+                    startDate, endDate, maxGapDays);
+            return null;
+        }
+        List<RasterTileStore.Scene> scenes = acquisitions.stream()
+                .filter(scene -> scene.getCloudCover() < maxCloudPercentage).toList();
+        if (scenes.isEmpty()) {
+            logger.info("Every local raster between {} and {} is {}% cloudy or more, using Earth Engine", startDate,
+                    endDate, maxCloudPercentage);
+            return null;
+        }
+
+        double[][] points = samplePoints(geometry, cost);
+        double[] latitudes = points[0];
+        double[] longitudes = points[1];
+        int n = latitudes.length;
+
+        float[][] composite = new float[RasterTileStore.Band.values().length][];
+        for (RasterTileStore.Band band : needed) {
+            composite[band.ordinal()] = new float[n];
+        }
+
+        List<LocalDate> dates = scenes.stream().map(RasterTileStore.Scene::getDate).distinct().sorted().toList();
+        int[] dateOf = scenes.stream().mapToInt(scene -> dates.indexOf(scene.getDate())).toArray();
+        RasterTileStore.Band[] bands = needed.toArray(RasterTileStore.Band[]::new);
+
+        int[][] groups = groupByTile(scenes.get(0), latitudes, longitudes);
+        double[][] sceneSums = new double[groups.length][];
+        long[][] sceneCounts = new long[groups.length][];
+        IntStream.range(0, groups.length).parallel().forEach(g -> {
+            float[][] scratch = new float[bands.length][scenes.size()];
+            int[] counts = new int[bands.length];
+            float[] pixel = new float[RasterTileStore.Band.values().length];
+            double[] sums = new double[dates.size() * parameters.size()];
+            long[] pixels = new long[sums.length];
+            for (int i : groups[g]) {
+                Arrays.fill(counts, 0);
+                for (int s = 0; s < scenes.size(); s++) {
+                    RasterTileStore.Scene scene = scenes.get(s);
+                    int tile = scene.tileOf(longitudes[i], latitudes[i]);
+                    if (tile < 0) {
+                        continue;
+                    }
+                    FloatBuffer values = scene.tile(tile);
+                    int offset = scene.offsetInTile(longitudes[i], latitudes[i]);
+                    for (int b = 0; b < bands.length; b++) {
+                        float value = values.get(RasterTileStore.Scene.bandOffset(bands[b]) + offset);
+                        pixel[bands[b].ordinal()] = value;
+                        if (!Float.isNaN(value)) {
+                            scratch[b][counts[b]++] = value;
+                        }
+                    }
+                    for (int p = 0; p < parameters.size(); p++) {
+                        float index = index(parameters.get(p), pixel);
+                        if (Float.isFinite(index)) {
+                            sums[dateOf[s] * parameters.size() + p] += index;
+                            pixels[dateOf[s] * parameters.size() + p]++;
+                        }
+                    }
+                }
+                for (int b = 0; b < bands.length; b++) {
+                    composite[bands[b].ordinal()][i] = median(scratch[b], counts[b]);
+                }
+            }
+            sceneSums[g] = sums;
+            sceneCounts[g] = pixels;
+        });
+
+        float[] b8 = composite[RasterTileStore.Band.B8.ordinal()];
+        JSONObject result = new JSONObject();
+        JSONObject medians = new JSONObject();
+        for (String parameter : parameters) {
+            float[] index = new float[n];
+            switch (parameter) {
+                case "NDVI" -> normalizedDifference(b8, composite[RasterTileStore.Band.B4.ordinal()], index);
+                case "NDMI" -> normalizedDifference(b8, composite[RasterTileStore.Band.B11.ordinal()], index);
+                default -> ratioMinusOne(b8, composite[RasterTileStore.Band.B5.ordinal()], index);
+            }
+            float[] valid = finite(index);
+            if (valid.length == 0) {
+                logger.info("Local rasters have no clear pixels for {} over {}, using Earth Engine", parameter,
+                        geometry);
+                return null;
+            }
+            result.put(parameter, mean(valid));
+            Arrays.sort(valid);
+            medians.put(parameter, median(valid, valid.length));
+        }
+
+        result.put("medians", medians);
+        result.put("series", series(parameters, dates, sceneSums, sceneCounts));
+        result.put("totalImages", scenes.size());
+        result.put("pixels", n);
+        result.put("source", "local");
+        logger.info("Computed {} locally from {} scenes over {} points ({} tiles) in {} ms", parameters,
+                scenes.size(), n, groups.length, (System.nanoTime() - startedAt) / 1_000_000);
+        return result.toString();
+    }
+
+    static int longestGapDays(List<RasterTileStore.Scene> scenes, LocalDate startDate, LocalDate endDate) {
+        LocalDate last = endDate.isAfter(LocalDate.now()) ? LocalDate.now() : endDate;
+        List<LocalDate> dates = scenes.stream().map(RasterTileStore.Scene::getDate).distinct().sorted().toList();
+        LocalDate previous = startDate.minusDays(1);
+        long longest = 0;
+        for (LocalDate date : dates) {
+            longest = Math.max(longest, ChronoUnit.DAYS.between(previous, date));
+            previous = date;
+        }
+        longest = Math.max(longest, ChronoUnit.DAYS.between(previous, last.plusDays(1)));
+        return (int) Math.min(Integer.MAX_VALUE, longest);
+    }
+
+    private double[][] samplePoints(GeoJsonGeometry geometry, GeometryCost cost) {
+        double centerLat = (cost.minLatitude() + cost.maxLatitude()) / 2;
+        double stepLat = scaleMeters / METERS_PER_DEGREE;
+        double stepLng = stepLat / Math.max(0.01, Math.cos(Math.toRadians(centerLat)));
+        double cells = ((cost.maxLatitude() - cost.minLatitude()) / stepLat + 1)
+                * ((cost.maxLongitude() - cost.minLongitude()) / stepLng + 1);
+        if (cells > maxPoints) {
+            double factor = Math.sqrt(cells / maxPoints);
+            stepLat *= factor;
+            stepLng *= factor;
+        }
+
+        ZoneIndex zone = geometryService.buildZoneIndex(geometry);
+        List<double[]> inside = new ArrayList<>();
+        for (double lat = cost.minLatitude() + stepLat / 2; lat < cost.maxLatitude(); lat += stepLat) {
+            for (double lng = cost.minLongitude() + stepLng / 2; lng < cost.maxLongitude(); lng += stepLng) {
+                if (zone.classify(lat, lng).length > 0) {
+                    inside.add(new double[] { lat, lng });
+                }
+            }
+        }
+        if (inside.isEmpty()) {
+            inside.add(new double[] { geometry.getCentroidLatitude(), geometry.getCentroidLongitude() });
+        }
+
+        double[] latitudes = new double[inside.size()];
+        double[] longitudes = new double[inside.size()];
+        for (int i = 0; i < latitudes.length; i++) {
+            latitudes[i] = inside.get(i)[0];
+            longitudes[i] = inside.get(i)[1];
+        }
+        return new double[][] { latitudes, longitudes };
+    }
+
+    private int[][] groupByTile(RasterTileStore.Scene scene, double[] latitudes, double[] longitudes) {
+        Map<Integer, List<Integer>> byTile = new HashMap<>();
+        for (int i = 0; i < latitudes.length; i++) {
+            byTile.computeIfAbsent(scene.tileOf(longitudes[i], latitudes[i]), k -> new ArrayList<>()).add(i);
+        }
+        int[][] groups = new int[byTile.size()][];
+        int g = 0;
+        for (List<Integer> group : byTile.values()) {
+            groups[g++] = group.stream().mapToInt(Integer::intValue).toArray();
+        }
+        return groups;
+    }
+
+    private static JSONObject series(List<String> parameters, List<LocalDate> dates, double[][] sums,
+            long[][] counts) {
+        JSONObject series = new JSONObject();
+        for (int p = 0; p < parameters.size(); p++) {
+            JSONArray points = new JSONArray();
+            for (int d = 0; d < dates.size(); d++) {
+                int slot = d * parameters.size() + p;
+                double sum = 0;
+                long count = 0;
+                for (int g = 0; g < sums.length; g++) {
+                    sum += sums[g][slot];
+                    count += counts[g][slot];
+                }
+                if (count > 0) {
+                    points.put(new JSONObject().put("date", dates.get(d).toString()).put("value", sum / count));
+                }
+            }
+            series.put(parameters.get(p), points);
+        }
+        return series;
+    }
+
+    private static float index(String parameter, float[] pixel) {
+        float b8 = pixel[RasterTileStore.Band.B8.ordinal()];
+        return switch (parameter) {
+            case "NDVI" -> normalizedDifference(b8, pixel[RasterTileStore.Band.B4.ordinal()]);
+            case "NDMI" -> normalizedDifference(b8, pixel[RasterTileStore.Band.B11.ordinal()]);
+            default -> b8 / pixel[RasterTileStore.Band.B5.ordinal()] - 1f;
+        };
+    }
+
+    private static float normalizedDifference(float a, float b) {
+        return (a - b) / (a + b);
+    }
+
+    private static void normalizedDifference(float[] a, float[] b, float[] out) {
+        for (int i = 0; i < out.length; i++) {
+            out[i] = (a[i] - b[i]) / (a[i] + b[i]);
+        }
+    }
+
+    private static void ratioMinusOne(float[] a, float[] b, float[] out) {
+        for (int i = 0; i < out.length; i++) {
+            out[i] = a[i] / b[i] - 1f;
+        }
+    }
+
+    private static float[] finite(float[] values) {
+        float[] valid = new float[values.length];
+        int count = 0;
+        for (float value : values) {
+            if (Float.isFinite(value)) {
+                valid[count++] = value;
+            }
+        }
+        return Arrays.copyOf(valid, count);
+    }
+
+    private static double mean(float[] values) {
+        double sum = 0;
+        for (float value : values) {
+            sum += value;
+        }
+        return sum / values.length;
+    }
+
+    private static float median(float[] values, int count) {
+        if (count == 0) {
+            return Float.NaN;
+        }
+        if (count < values.length || !isSorted(values)) {
+            Arrays.sort(values, 0, count);
+        }
+        return count % 2 == 1 ? values[count / 2] : (values[count / 2 - 1] + values[count / 2]) / 2f;
+    }
+
+    private static boolean isSorted(float[] values) {
+        for (int i = 1; i < values.length; i++) {
+            if (values[i - 1] > values[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,18 @@
+package com.yieldforecast.service;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+public class LoginRejectedException extends ResponseStatusException {
+
+    private final long retryAfterSeconds;
+
+    public LoginRejectedException(HttpStatus status, String reason, long retryAfterSeconds) {
+        super(status, reason);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,260 @@
+package com.yieldforecast.service;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+@Service
+public class LoginThrottle {
+
+    private static final Pattern IPV4 = Pattern.compile("\\d{1,3}(?:\\.\\d{1,3}){3}");
+    private static final Pattern IPV6 = Pattern.compile("[0-9A-Fa-f:.]*:[0-9A-Fa-f:.]*");
+
+    @Value("${auth.throttle.ip-attempts:20}")
+    private int ipAttempts;
+
+    @Value("${auth.throttle.ip-window-seconds:60}")
+    private long ipWindowSeconds;
+
+    @Value("${auth.throttle.account-failures:5}")
+    private int accountFailures;
+
+    @Value("${auth.throttle.account-window-seconds:900}")
+    private long accountWindowSeconds;
+
+    @Value("${auth.throttle.max-tracked-keys:100000}")
+    private int maxTrackedKeys;
+
+    @Value("${auth.throttle.trusted-proxies:}")
+    private List<String> trustedProxies;
+
+    private final List<byte[][]> trustedNetworks = new ArrayList<>();
+
+    private final ConcurrentHashMap<String, Window> byIp = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Window> byAccountAndIp = new ConcurrentHashMap<>();
+
+    private final AtomicLong ipRejections = new AtomicLong();
+    private final AtomicLong accountRejections = new AtomicLong();
+
+    @PostConstruct
+    void init() {
+        for (String proxy : trustedProxies) {
+            if (proxy.isBlank()) {
+                continue;
+            }
+            String[] parts = proxy.trim().split("/", 2);
+            byte[] address = parse(parts[0]);
+            if (address == null) {
+                throw new IllegalArgumentException("auth.throttle.trusted-proxies entry " + proxy
+                        + " is not an IP address or CIDR range");
+            }
+            int prefix = parts.length > 1 ? Integer.parseInt(parts[1]) : address.length * 8;
+            byte[] mask = new byte[address.length];
+            for (int bit = 0; bit < prefix && bit < mask.length * 8; bit++) {
+                mask[bit / 8] |= (byte) (0x80 >>> (bit % 8));
+            }
+            trustedNetworks.add(new byte[][] { address, mask });
+        }
+    }
+
+    /**
+     * Returns the address of the client that connected to the first trusted proxy. {@code X-Forwarded-For} is
+     * read right to left and only while each hop is one of {@code auth.throttle.trusted-proxies}, so clients
+     * cannot spoof their address by sending the header themselves.
+     */
+    public String clientIp(String remoteAddr, String forwardedFor) {
+        if (forwardedFor == null || !isTrusted(remoteAddr)) {
+            return remoteAddr;
+        }
+        String client = remoteAddr;
+        String[] hops = forwardedFor.split(",");
+        for (int i = hops.length - 1; i >= 0; i--) {
+            String hop = hops[i].trim();
+            if (parse(hop) == null) {
+                break;
+            }
+            client = hop;
+            if (!isTrusted(hop)) {
+                break;
+            }
+        }
+        return client;
+    }
+
+    /**
+     * Failed sign-ins lock an account only for the address they came from, so nobody can lock another user out
+     * by guessing from elsewhere; spraying one account from many addresses still runs into the per-IP limit.
+     */
+    public void acquire(String clientIp, String email) {
+        long now = System.currentTimeMillis();
+        Window account = byAccountAndIp.get(accountKey(clientIp, email));
+        if (account != null) {
+            long retryAfter = account.retryAfterSeconds(now, accountFailures, accountWindowSeconds);
+            if (retryAfter > 0) {
+                accountRejections.incrementAndGet();
+                throw new LoginRejectedException(HttpStatus.TOO_MANY_REQUESTS,
+                        "Too many failed sign-in attempts for this account from this address, retry in "
+                                + retryAfter + "s",
+                        retryAfter);
+            }
+        }
+
+        Window ip = window(byIp, clientIp, now, ipWindowSeconds);
+        long retryAfter = ip.record(now, ipAttempts, ipWindowSeconds);
+        if (retryAfter > 0) {
+            ipRejections.incrementAndGet();
+            throw new LoginRejectedException(HttpStatus.TOO_MANY_REQUESTS,
+                    "Too many sign-in attempts, retry in " + retryAfter + "s", retryAfter);
+        }
+    }
+
+    public void recordFailure(String clientIp, String email) {
+        long now = System.currentTimeMillis();
+        window(byAccountAndIp, accountKey(clientIp, email), now, accountWindowSeconds).record(now, Integer.MAX_VALUE,
+                accountWindowSeconds);
+    }
+
+    public void recordSuccess(String clientIp, String email) {
+        byAccountAndIp.remove(accountKey(clientIp, email));
+    }
+
+    public Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("trackedIps", byIp.size());
+        snapshot.put("trackedAccountAddresses", byAccountAndIp.size());
+        snapshot.put("ipRejections", ipRejections.get());
+        snapshot.put("accountRejections", accountRejections.get());
+        return snapshot;
+    }
+
+    private Window window(ConcurrentHashMap<String, Window> windows, String key, long now, long windowSeconds) {
+        Window window = windows.get(key);
+        if (window != null) {
+            return window;
+        }
+        if (windows.size() >= maxTrackedKeys) {
+            synchronized (windows) {
+                if (windows.size() >= maxTrackedKeys) {
+                    windows.values().removeIf(w -> w.isExpired(now, windowSeconds));
+                }
+                int excess = windows.size() - maxTrackedKeys * 9 / 10;
+                if (excess > 0) {
+                    windows.entrySet().stream()
+                            .sorted(Comparator.comparingLong(entry -> entry.getValue().startedAt()))
+                            .limit(excess)
+                            .map(Map.Entry::getKey)
+                            .toList()
+                            .forEach(windows::remove);
+                }
+            }
+        }
+        return windows.computeIfAbsent(key, k -> new Window(now));
+    }
+
+    private boolean isTrusted(String address) {
+        byte[] bytes = parse(address);
+        if (bytes == null) {
+            return false;
+        }
+        for (byte[][] network : trustedNetworks) {
+            if (network[0].length == bytes.length && matches(bytes, network[0], network[1])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean matches(byte[] address, byte[] network, byte[] mask) {
+        for (int i = 0; i < address.length; i++) {
+            if ((address[i] & mask[i]) != (network[i] & mask[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static byte[] parse(String address) {
+        if (address == null) {
+            return null;
+        }
+        if (IPV4.matcher(address).matches()) {
+            String[] octets = address.split("\\.");
+            byte[] bytes = new byte[4];
+            for (int i = 0; i < 4; i++) {
+                int octet = Integer.parseInt(octets[i]);
+                if (octet > 255) {
+                    return null;
+                }
+                bytes[i] = (byte) octet;
+            }
+            return bytes;
+        }
+        if (!IPV6.matcher(address).matches()) {
+            return null;
+        }
+        try {
+            return InetAddress.getByName(address).getAddress();
+        } catch (UnknownHostException e) {
+            return null;
+        }
+    }
+
+    private String accountKey(String clientIp, String email) {
+        return email.trim().toLowerCase(Locale.ROOT) + "|" + clientIp;
+    }
+
+    private static final class Window {
+        private long startedAt;
+        private int count;
+
+        private Window(long startedAt) {
+            this.startedAt = startedAt;
+        }
+
+        private synchronized long record(long now, int limit, long windowSeconds) {
+            roll(now, windowSeconds);
+            if (count >= limit) {
+                return remainingSeconds(now, windowSeconds);
+            }
+            count++;
+            return 0;
+        }
+
+        private synchronized long retryAfterSeconds(long now, int limit, long windowSeconds) {
+            roll(now, windowSeconds);
+            return count >= limit ? remainingSeconds(now, windowSeconds) : 0;
+        }
+
+        private synchronized long startedAt() {
+            return startedAt;
+        }
+
+        private synchronized boolean isExpired(long now, long windowSeconds) {
+            return now - startedAt >= windowSeconds * 1000;
+        }
+
+        private void roll(long now, long windowSeconds) {
+            if (now - startedAt >= windowSeconds * 1000) {
+                startedAt = now;
+                count = 0;
+            }
+        }
+
+        private long remainingSeconds(long now, long windowSeconds) {
+            return Math.max(1, (startedAt + windowSeconds * 1000 - now + 999) / 1000);
+        }
+    }
+}
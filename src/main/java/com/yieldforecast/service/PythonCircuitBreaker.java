@@ -0,0 +1,201 @@
+package com.yieldforecast.service;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Service
+public class PythonCircuitBreaker {
+
+    private static final Logger logger = LoggerFactory.getLogger(PythonCircuitBreaker.class);
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    @Value("${python.circuit.window-size:20}")
+    private int windowSize;
+
+    @Value("${python.circuit.minimum-calls:5}")
+    private int minimumCalls;
+
+    @Value("${python.circuit.failure-rate-threshold:0.5}")
+    private double failureRateThreshold;
+
+    @Value("${python.circuit.open-duration-seconds:60}")
+    private long openDurationSeconds;
+
+    @Value("${python.circuit.half-open-probes:2}")
+    private int halfOpenProbes;
+
+    private State state = State.CLOSED;
+    private boolean[] window;
+    private int windowIndex;
+    private int windowCount;
+    private int windowFailures;
+
+    private Instant openedAt;
+    private Instant lastStateChange = Instant.now();
+    private int probesInFlight;
+    private int probeSuccesses;
+
+    private long rejectedCalls;
+    private String lastFailure;
+
+    @PostConstruct
+    public void init() {
+        window = new boolean[Math.max(1, windowSize)];
+    }
+
+    /**
+     * Returns true when the granted call is a half-open probe. Throws
+     * {@link CircuitOpenException} when the call must fail fast.
+     */
+    public synchronized boolean acquirePermission() {
+        if (state == State.OPEN) {
+            Duration remaining = remainingOpenTime();
+            if (!remaining.isZero()) {
+                rejectedCalls++;
+                throw new CircuitOpenException(remaining.toSeconds() + 1);
+            }
+            transitionTo(State.HALF_OPEN);
+        }
+
+        if (state == State.HALF_OPEN) {
+            if (probesInFlight >= halfOpenProbes) {
+                rejectedCalls++;
+                throw new CircuitOpenException(1);
+            }
+            probesInFlight++;
+            return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Throws {@link CircuitOpenException} when {@link #acquirePermission()} would, without taking a half-open
+     * probe, so callers can fail fast before queueing for a lane.
+     */
+    public synchronized void checkPermission() {
+        if (state == State.OPEN) {
+            Duration remaining = remainingOpenTime();
+            if (!remaining.isZero()) {
+                rejectedCalls++;
+                throw new CircuitOpenException(remaining.toSeconds() + 1);
+            }
+        } else if (state == State.HALF_OPEN && probesInFlight >= halfOpenProbes) {
+            rejectedCalls++;
+            throw new CircuitOpenException(1);
+        }
+    }
+
+    public synchronized void onSuccess(boolean probe) {
+        if (probe) {
+            if (state != State.HALF_OPEN) {
+                return;
+            }
+            probesInFlight--;
+            probeSuccesses++;
+            if (probeSuccesses >= halfOpenProbes) {
+                transitionTo(State.CLOSED);
+            }
+            return;
+        }
+        record(false);
+    }
+
+    public synchronized void onFailure(boolean probe, String reason) {
+        lastFailure = reason;
+        if (probe) {
+            if (state == State.HALF_OPEN) {
+                probesInFlight--;
+                transitionTo(State.OPEN);
+            }
+            return;
+        }
+        record(true);
+        if (state == State.CLOSED && windowCount >= minimumCalls
+                && (double) windowFailures / windowCount >= failureRateThreshold) {
+            transitionTo(State.OPEN);
+        }
+    }
+
+    public synchronized void onIgnored(boolean probe) {
+        if (probe && state == State.HALF_OPEN) {
+            probesInFlight--;
+        }
+    }
+
+    public synchronized boolean isCallPermitted() {
+        return state != State.OPEN || remainingOpenTime().isZero();
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    public synchronized Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("state", state.name());
+        snapshot.put("since", lastStateChange.toString());
+        snapshot.put("windowCalls", windowCount);
+        snapshot.put("windowFailures", windowFailures);
+        snapshot.put("failureRate", windowCount == 0 ? 0.0 : (double) windowFailures / windowCount);
+        snapshot.put("failureRateThreshold", failureRateThreshold);
+        snapshot.put("rejectedCalls", rejectedCalls);
+        snapshot.put("lastFailure", lastFailure);
+        if (state == State.OPEN) {
+            snapshot.put("retryAfterSeconds", remainingOpenTime().toSeconds());
+        }
+        if (state == State.HALF_OPEN) {
+            snapshot.put("probesInFlight", probesInFlight);
+            snapshot.put("probeSuccesses", probeSuccesses);
+        }
+        return snapshot;
+    }
+
+    private void record(boolean failure) {
+        if (windowCount == window.length) {
+            if (window[windowIndex]) {
+                windowFailures--;
+            }
+        } else {
+            windowCount++;
+        }
+        window[windowIndex] = failure;
+        if (failure) {
+            windowFailures++;
+        }
+        windowIndex = (windowIndex + 1) % window.length;
+    }
+
+    private Duration remainingOpenTime() {
+        Duration elapsed = Duration.between(openedAt, Instant.now());
+        Duration remaining = Duration.ofSeconds(openDurationSeconds).minus(elapsed);
+        return remaining.isNegative() ? Duration.ZERO : remaining;
+    }
+
+    private void transitionTo(State newState) {
+        logger.warn("Python circuit breaker {} -> {} (last failure: {})", state, newState, lastFailure);
+        state = newState;
+        lastStateChange = Instant.now();
+        probesInFlight = 0;
+        probeSuccesses = 0;
+        if (newState == State.OPEN) {
+            openedAt = lastStateChange;
+        }
+        if (newState == State.CLOSED) {
+            windowIndex = 0;
+            windowCount = 0;
+            windowFailures = 0;
+        }
+    }
+}
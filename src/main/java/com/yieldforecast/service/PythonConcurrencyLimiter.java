@@ -0,0 +1,179 @@
+package com.yieldforecast.service;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Sets how many Earth Engine scripts may run at once. The limit grows by one per limit's worth of completions
+ * while per-script latency stays within {@code tolerance} of its long-term baseline, shrinks in proportion
+ * when latency rises, and is cut multiplicatively when Earth Engine reports quota, throttling or
+ * availability errors.
+ */
+@Service
+public class PythonConcurrencyLimiter {
+
+    private static final Logger logger = LoggerFactory.getLogger(PythonConcurrencyLimiter.class);
+
+    @Value("${python.limiter.enabled:true}")
+    private boolean enabled;
+
+    @Value("${python.limiter.initial-limit:4}")
+    private int initialLimit;
+
+    @Value("${python.limiter.min-limit:1}")
+    private int minLimit;
+
+    @Value("${python.limiter.max-limit:${python.scheduler.capacity:8}}")
+    private int maxLimit;
+
+    @Value("${python.limiter.tolerance:1.5}")
+    private double tolerance;
+
+    @Value("${python.limiter.smoothing:0.2}")
+    private double smoothing;
+
+    @Value("${python.limiter.backoff-ratio:0.5}")
+    private double backoffRatio;
+
+    @Value("${python.limiter.backoff-interval-ms:5000}")
+    private long backoffIntervalMs;
+
+    @Value("${python.limiter.short-window:10}")
+    private int shortWindow;
+
+    @Value("${python.limiter.long-window:300}")
+    private int longWindow;
+
+    private final Map<String, Latency> latencies = new HashMap<>();
+
+    private volatile int limit;
+    private double estimate;
+    private int inFlight;
+    private long lastBackoffAt;
+
+    private long successes;
+    private long drops;
+    private long increases;
+    private long decreases;
+
+    @PostConstruct
+    void init() {
+        minLimit = Math.max(1, minLimit);
+        maxLimit = Math.max(minLimit, maxLimit);
+        estimate = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+        limit = (int) estimate;
+        if (enabled) {
+            logger.info("Adaptive Earth Engine concurrency limit starts at {} (range {}-{})", limit, minLimit,
+                    maxLimit);
+        }
+    }
+
+    public int limit() {
+        return enabled ? limit : Integer.MAX_VALUE;
+    }
+
+    public synchronized long onStart() {
+        inFlight++;
+        return System.nanoTime();
+    }
+
+    public synchronized void onSuccess(String script, JobLane lane, long startedAt) {
+        int running = inFlight--;
+        successes++;
+        if (!enabled || lane == JobLane.LARGE) {
+            return;
+        }
+
+        Latency latency = latencies.computeIfAbsent(script, k -> new Latency());
+        latency.add(System.nanoTime() - startedAt, shortWindow, longWindow);
+        if (latency.samples < shortWindow) {
+            return;
+        }
+
+        double gradient = Math.max(0.5, Math.min(1.0, tolerance * latency.longTerm / latency.shortTerm));
+        if (gradient < 1.0) {
+            double target = estimate * gradient;
+            update(estimate * (1 - smoothing) + target * smoothing, "latency");
+        } else if (running >= estimate / 2) {
+            update(estimate + 1.0 / estimate, "growth");
+        }
+    }
+
+    public synchronized void onDropped() {
+        inFlight--;
+        drops++;
+        long now = System.nanoTime();
+        if (!enabled || (lastBackoffAt != 0 && now - lastBackoffAt < backoffIntervalMs * 1_000_000L)) {
+            return;
+        }
+        lastBackoffAt = now;
+        update(estimate * backoffRatio, "upstream error");
+    }
+
+    public synchronized void onIgnored() {
+        inFlight--;
+    }
+
+    public synchronized Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("enabled", enabled);
+        snapshot.put("limit", limit);
+        snapshot.put("estimate", Math.round(estimate * 100) / 100.0);
+        snapshot.put("minLimit", minLimit);
+        snapshot.put("maxLimit", maxLimit);
+        snapshot.put("inFlight", inFlight);
+        snapshot.put("successes", successes);
+        snapshot.put("drops", drops);
+        snapshot.put("increases", increases);
+        snapshot.put("decreases", decreases);
+        Map<String, Object> scripts = new LinkedHashMap<>();
+        latencies.forEach((script, latency) -> {
+            Map<String, Object> state = new LinkedHashMap<>();
+            state.put("samples", latency.samples);
+            state.put("shortTermMs", Math.round(latency.shortTerm / 1_000_000.0));
+            state.put("baselineMs", Math.round(latency.longTerm / 1_000_000.0));
+            scripts.put(script, state);
+        });
+        snapshot.put("latency", scripts);
+        return snapshot;
+    }
+
+    private void update(double next, String reason) {
+        estimate = Math.max(minLimit, Math.min(maxLimit, next));
+        int previous = limit;
+        limit = (int) estimate;
+        if (limit > previous) {
+            increases++;
+            logger.info("Earth Engine concurrency limit raised {} -> {}", previous, limit);
+        } else if (limit < previous) {
+            decreases++;
+            logger.warn("Earth Engine concurrency limit lowered {} -> {} ({})", previous, limit, reason);
+        }
+    }
+
+    private static final class Latency {
+        private long samples;
+        private double shortTerm;
+        private double longTerm;
+
+        private void add(long nanos, int shortWindow, int longWindow) {
+            if (samples++ == 0) {
+                shortTerm = nanos;
+                longTerm = nanos;
+                return;
+            }
+            shortTerm += (nanos - shortTerm) * 2.0 / (Math.max(1, shortWindow) + 1);
+            longTerm += (nanos - longTerm) * 2.0 / (Math.max(1, longWindow) + 1);
+            if (longTerm > shortTerm) {
+                longTerm = shortTerm + (longTerm - shortTerm) * 0.9;
+            }
+        }
+    }
+}
@@ -1,20 +1,30 @@
 package com.yieldforecast.service;
 
+import jakarta.annotation.PostConstruct;
+import org.json.JSONObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.io.BufferedReader;
+import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
@@ -23,10 +33,167 @@ public class PythonExecutionService {
 
     private static final Logger logger = LoggerFactory.getLogger(PythonExecutionService.class);
 
+    private static final List<String> UPSTREAM_ERROR_MARKERS = List.of(
+            "failed to initialize gee", "gee_project_id not set", "quota", "too many requests",
+            "rate limit", "capacity exceeded", "service unavailable", "deadline", "timed out",
+            "connection", "internal error", "429", "503");
+
     @Value("${python.executable}")
     private String pythonExecutable;
 
+    @Value("${python.lane.interactive.timeout-seconds:300}")
+    private long interactiveTimeoutSeconds;
+
+    @Value("${python.lane.large.max-concurrent:1}")
+    private int largeConcurrency;
+
+    @Value("${python.lane.large.timeout-seconds:1800}")
+    private long largeTimeoutSeconds;
+
+    @Value("${python.lane.queue-timeout-seconds:30}")
+    private long queueTimeoutSeconds;
+
+    @Value("${python.simulator.script:}")
+    private String simulatorScript;
+
+    @Value("${python.simulator.latency-scale:1.0}")
+    private double simulatorLatencyScale;
+
+    @Value("${python.simulator.latency-sigma:0.5}")
+    private double simulatorLatencySigma;
+
+    @Value("${python.simulator.error-rate:0.0}")
+    private double simulatorErrorRate;
+
+    @Value("${python.simulator.timeout-rate:0.0}")
+    private double simulatorTimeoutRate;
+
+    @Value("${python.simulator.capacity:0}")
+    private int simulatorCapacity;
+
+    @Autowired
+    private PythonCircuitBreaker circuitBreaker;
+
+    @Autowired
+    private PythonScheduler scheduler;
+
+    @Autowired
+    private PythonConcurrencyLimiter limiter;
+
+    private Semaphore largeLane;
+
+    @PostConstruct
+    void initLanes() {
+        largeLane = new Semaphore(largeConcurrency, true);
+        if (isSimulated()) {
+            logger.warn("Earth Engine is simulated by {}: results are synthetic", simulatorScript);
+        }
+    }
+
+    public boolean isSimulated() {
+        return !simulatorScript.isBlank();
+    }
+
     public String executeScript(String scriptPath, List<String> args) throws Exception {
+        return executeScript(scriptPath, args, null);
+    }
+
+    public String executeScript(String scriptPath, List<String> args, String input) throws Exception {
+        return executeScript(scriptPath, args, input, JobLane.INTERACTIVE);
+    }
+
+    public String executeScript(String scriptPath, List<String> args, String input, JobLane lane) throws Exception {
+        return executeScript(scriptPath, args, input, lane, JobPriority.INTERACTIVE);
+    }
+
+    public String executeScript(String scriptPath, List<String> args, String input, JobLane lane,
+            JobPriority priority) throws Exception {
+        circuitBreaker.checkPermission();
+        if (lane == JobLane.LARGE && !largeLane.tryAcquire(queueTimeoutSeconds, TimeUnit.SECONDS)) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                    "The large job lane is busy, retry later");
+        }
+        try (PythonScheduler.Permit ignored = scheduler.acquire(priority)) {
+            boolean probe = circuitBreaker.acquirePermission();
+            long startedAt = limiter.onStart();
+            try {
+                String output = runScript(scriptPath, args, input,
+                        lane == JobLane.LARGE ? largeTimeoutSeconds : interactiveTimeoutSeconds);
+                circuitBreaker.onSuccess(probe);
+                limiter.onSuccess(Path.of(scriptPath).getFileName().toString(), lane, startedAt);
+                return output;
+            } catch (PythonScriptException e) {
+                if (e.isUpstreamFailure()) {
+                    circuitBreaker.onFailure(probe, e.getMessage());
+                    limiter.onDropped();
+                } else {
+                    circuitBreaker.onIgnored(probe);
+                    limiter.onIgnored();
+                }
+                throw e;
+            } catch (InterruptedException e) {
+                circuitBreaker.onIgnored(probe);
+                limiter.onIgnored();
+                throw e;
+            } catch (Exception e) {
+                circuitBreaker.onFailure(probe, e.getMessage());
+                limiter.onDropped();
+                throw e;
+            }
+        } finally {
+            if (lane == JobLane.LARGE) {
+                largeLane.release();
+            }
+        }
+    }
+
+    public Map<String, Object> laneSnapshot() {
+        Map<String, Object> interactive = new LinkedHashMap<>();
+        interactive.put("timeoutSeconds", interactiveTimeoutSeconds);
+
+        Map<String, Object> large = new LinkedHashMap<>();
+        large.put("capacity", largeConcurrency);
+        large.put("running", largeConcurrency - largeLane.availablePermits());
+        large.put("waiting", largeLane.getQueueLength());
+        large.put("timeoutSeconds", largeTimeoutSeconds);
+
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("interactive", interactive);
+        snapshot.put("large", large);
+        return snapshot;
+    }
+
+    public boolean warmUp() {
+        try {
+            ProcessBuilder pb = isSimulated()
+                    ? new ProcessBuilder(pythonExecutable, simulatorScript, "--warmup")
+                    : new ProcessBuilder(pythonExecutable, "-c", "import json, ee");
+            Process process = pb.redirectErrorStream(true)
+                    .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                    .start();
+            process.getOutputStream().close();
+            if (!process.waitFor(interactiveTimeoutSeconds, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+                logger.warn("Python warmup timed out");
+                return false;
+            }
+            if (process.exitValue() != 0) {
+                logger.warn("Python warmup exited with code {}", process.exitValue());
+                return false;
+            }
+            logger.info("Python interpreter and Earth Engine client warmed up");
+            return true;
+        } catch (IOException e) {
+            logger.warn("Python warmup failed: {}", e.getMessage());
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private String runScript(String scriptPath, List<String> args, String input, long timeoutSeconds)
+            throws Exception {
         io.github.cdimascio.dotenv.Dotenv dotenv = io.github.cdimascio.dotenv.Dotenv.configure()
                 .directory(".")
                 .ignoreIfMissing()
@@ -34,10 +201,20 @@ public class PythonExecutionService {
 
         List<String> command = new ArrayList<>();
         command.add(pythonExecutable);
+        if (isSimulated()) {
+            command.add(simulatorScript);
+        }
         command.add(scriptPath);
         command.addAll(args);
 
         ProcessBuilder pb = new ProcessBuilder(command);
+        if (isSimulated()) {
+            pb.environment().put("SIMULATOR_LATENCY_SCALE", String.valueOf(simulatorLatencyScale));
+            pb.environment().put("SIMULATOR_LATENCY_SIGMA", String.valueOf(simulatorLatencySigma));
+            pb.environment().put("SIMULATOR_ERROR_RATE", String.valueOf(simulatorErrorRate));
+            pb.environment().put("SIMULATOR_TIMEOUT_RATE", String.valueOf(simulatorTimeoutRate));
+            pb.environment().put("SIMULATOR_CAPACITY", String.valueOf(simulatorCapacity));
+        }
 
         String geeProjectId = dotenv.get("GEE_PROJECT_ID");
         if (geeProjectId != null && !geeProjectId.isEmpty()) {
@@ -89,36 +266,83 @@ public class PythonExecutionService {
         });
         stderrThread.start();
 
-        boolean finished = process.waitFor(300, TimeUnit.SECONDS);
+        if (input != null) {
+            try (OutputStream stdin = process.getOutputStream()) {
+                stdin.write(input.getBytes(StandardCharsets.UTF_8));
+            } catch (IOException e) {
+                logger.warn("Python script closed stdin early: {}", e.getMessage());
+            }
+        } else {
+            process.getOutputStream().close();
+        }
+
+        boolean finished;
+        try {
+            finished = process.waitFor(timeoutSeconds, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            process.destroyForcibly();
+            stdoutThread.interrupt();
+            stderrThread.interrupt();
+            throw e;
+        }
 
         if (!finished) {
             process.destroyForcibly();
             stdoutThread.interrupt();
             stderrThread.interrupt();
-            throw new RuntimeException("Python script timed out");
+            throw new PythonScriptException("Python script timed out", -1, true);
         }
 
         stdoutThread.join(5000);
         stderrThread.join(5000);
 
         int exitCode = process.exitValue();
-        logPythonExecution(pb.command(), pb.environment(), exitCode, output.toString(), errorOutput.toString());
+        logPythonExecution(pb.command(), input, pb.environment(), exitCode, output.toString(),
+                errorOutput.toString());
 
         if (exitCode != 0) {
             logger.error("Python exited with code {}. stderr:\n{}", exitCode, errorOutput.toString());
-            throw new RuntimeException("Python script failed with code " + exitCode + ": " + errorOutput.toString());
+            throw new PythonScriptException(
+                    "Python script failed with code " + exitCode + ": " + errorOutput.toString(),
+                    exitCode, isUpstreamFailure(exitCode, output.toString(), errorOutput.toString()));
         }
 
         return output.toString();
     }
 
-    private void logPythonExecution(List<String> command, Map<String, String> env, int exitCode,
+    private boolean isUpstreamFailure(int exitCode, String stdout, String stderr) {
+        if (exitCode != 1) {
+            return true;
+        }
+
+        String errorMessage = null;
+        int jsonStart = stdout.indexOf("{");
+        if (jsonStart != -1) {
+            try {
+                errorMessage = new JSONObject(stdout.substring(jsonStart)).optString("error", null);
+            } catch (Exception e) {
+                logger.debug("Could not parse python error JSON: {}", e.getMessage());
+            }
+        }
+
+        if (errorMessage == null) {
+            return true;
+        }
+
+        String haystack = (errorMessage + "\n" + stderr).toLowerCase(Locale.ROOT);
+        return UPSTREAM_ERROR_MARKERS.stream().anyMatch(haystack::contains);
+    }
+
+    private void logPythonExecution(List<String> command, String input, Map<String, String> env, int exitCode,
             String stdout, String stderr) {
         try {
             StringBuilder rawLog = new StringBuilder();
             rawLog.append("=== PYTHON INVOCATION ===\n");
             rawLog.append("timestamp: ").append(Instant.now().toString()).append('\n');
             rawLog.append("command: ").append(String.join(" ", command)).append('\n');
+            if (input != null) {
+                rawLog.append("stdin: ").append(input.getBytes(StandardCharsets.UTF_8).length).append(" bytes\n");
+            }
             rawLog.append("env.GEE_PROJECT_ID: ").append(env.get("GEE_PROJECT_ID")).append('\n');
             rawLog.append("exitCode: ").append(exitCode).append('\n');
             rawLog.append("--- STDOUT ---\n");
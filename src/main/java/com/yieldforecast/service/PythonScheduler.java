@@ -0,0 +1,232 @@
+package com.yieldforecast.service;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+@Service
+public class PythonScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(PythonScheduler.class);
+
+    private static final int WAIT_SAMPLES = 256;
+    private static final long CIRCUIT_CHECK_MS = 1000;
+
+    @Value("${python.scheduler.capacity:8}")
+    private int capacity;
+
+    @Value("${python.scheduler.interactive.reserved:3}")
+    private int interactiveReserved;
+
+    @Value("${python.scheduler.interactive.max-concurrent:8}")
+    private int interactiveMax;
+
+    @Value("${python.scheduler.interactive.queue-timeout-seconds:30}")
+    private long interactiveQueueTimeoutSeconds;
+
+    @Value("${python.scheduler.forecast.reserved:1}")
+    private int forecastReserved;
+
+    @Value("${python.scheduler.forecast.max-concurrent:6}")
+    private int forecastMax;
+
+    @Value("${python.scheduler.forecast.queue-timeout-seconds:600}")
+    private long forecastQueueTimeoutSeconds;
+
+    @Value("${python.scheduler.batch.reserved:1}")
+    private int batchReserved;
+
+    @Value("${python.scheduler.batch.max-concurrent:4}")
+    private int batchMax;
+
+    @Value("${python.scheduler.batch.queue-timeout-seconds:1800}")
+    private long batchQueueTimeoutSeconds;
+
+    @Autowired
+    private PythonConcurrencyLimiter limiter;
+
+    @Autowired
+    private PythonCircuitBreaker circuitBreaker;
+
+    private final Lane[] lanes = new Lane[JobPriority.values().length];
+
+    @PostConstruct
+    void initLanes() {
+        lanes[JobPriority.INTERACTIVE.ordinal()] = new Lane(interactiveReserved, interactiveMax,
+                interactiveQueueTimeoutSeconds);
+        lanes[JobPriority.FORECAST.ordinal()] = new Lane(forecastReserved, forecastMax, forecastQueueTimeoutSeconds);
+        lanes[JobPriority.BATCH.ordinal()] = new Lane(batchReserved, batchMax, batchQueueTimeoutSeconds);
+
+        int reserved = Arrays.stream(lanes).mapToInt(lane -> lane.reserved).sum();
+        if (reserved > capacity) {
+            throw new IllegalStateException("Reserved scheduler capacity (" + reserved
+                    + ") exceeds python.scheduler.capacity (" + capacity + ")");
+        }
+        logger.info("Python scheduler capacity {} ({} reserved, {} borrowable)", capacity, reserved,
+                capacity - reserved);
+    }
+
+    public Permit acquire(JobPriority priority) throws InterruptedException {
+        Lane lane = lanes[priority.ordinal()];
+        long startedAt = System.nanoTime();
+        long deadline = startedAt + lane.queueTimeoutSeconds * 1_000_000_000L;
+        Object ticket = new Object();
+
+        synchronized (this) {
+            lane.queue.addLast(ticket);
+            try {
+                while (lane.queue.peekFirst() != ticket || !canStart(priority)) {
+                    circuitBreaker.checkPermission();
+                    long remainingMs = (deadline - System.nanoTime()) / 1_000_000;
+                    if (remainingMs <= 0) {
+                        lane.rejected++;
+                        throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                                "The " + name(priority) + " scheduler lane is busy, retry later");
+                    }
+                    wait(Math.min(remainingMs, CIRCUIT_CHECK_MS));
+                }
+                lane.running++;
+                lane.recordWait(System.nanoTime() - startedAt);
+            } finally {
+                lane.queue.remove(ticket);
+                notifyAll();
+            }
+        }
+        return new Permit(priority);
+    }
+
+    public synchronized Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("capacity", capacity);
+        snapshot.put("limit", Math.min(capacity, limiter.limit()));
+        snapshot.put("inUse", used());
+        for (JobPriority priority : JobPriority.values()) {
+            Lane lane = lanes[priority.ordinal()];
+            Map<String, Object> state = new LinkedHashMap<>();
+            state.put("reserved", lane.reserved);
+            state.put("maxConcurrent", lane.max);
+            state.put("running", lane.running);
+            state.put("waiting", lane.queue.size());
+            state.put("granted", lane.granted);
+            state.put("rejected", lane.rejected);
+            state.put("queueWaitMs", lane.waitSnapshot());
+            snapshot.put(name(priority), state);
+        }
+        return snapshot;
+    }
+
+    /**
+     * A lane below its reserved slots can always start. The adaptive limit only caps borrowing beyond them, so
+     * interactive work is never starved by forecast or batch jobs however far the limit drops.
+     */
+    private boolean canStart(JobPriority priority) {
+        Lane lane = lanes[priority.ordinal()];
+        if (lane.running >= lane.max) {
+            return false;
+        }
+        if (lane.running < lane.reserved) {
+            return true;
+        }
+        if (used() >= capacity || running() >= limiter.limit()) {
+            return false;
+        }
+        for (int i = 0; i < priority.ordinal(); i++) {
+            Lane higher = lanes[i];
+            if (!higher.queue.isEmpty() && higher.running >= higher.reserved && higher.running < higher.max) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int running() {
+        int running = 0;
+        for (Lane lane : lanes) {
+            running += lane.running;
+        }
+        return running;
+    }
+
+    private int used() {
+        int used = 0;
+        for (Lane lane : lanes) {
+            used += Math.max(lane.running, lane.reserved);
+        }
+        return used;
+    }
+
+    private synchronized void release(JobPriority priority) {
+        lanes[priority.ordinal()].running--;
+        notifyAll();
+    }
+
+    private static String name(JobPriority priority) {
+        return priority.name().toLowerCase(Locale.ROOT);
+    }
+
+    public final class Permit implements AutoCloseable {
+        private final JobPriority priority;
+        private boolean released;
+
+        private Permit(JobPriority priority) {
+            this.priority = priority;
+        }
+
+        @Override
+        public void close() {
+            if (!released) {
+                released = true;
+                release(priority);
+            }
+        }
+    }
+
+    private static final class Lane {
+        private final int reserved;
+        private final int max;
+        private final long queueTimeoutSeconds;
+        private final ArrayDeque<Object> queue = new ArrayDeque<>();
+        private final long[] waits = new long[WAIT_SAMPLES];
+        private int running;
+        private long granted;
+        private long rejected;
+        private long totalWaitNanos;
+        private long maxWaitNanos;
+
+        private Lane(int reserved, int max, long queueTimeoutSeconds) {
+            this.reserved = reserved;
+            this.max = Math.max(max, reserved);
+            this.queueTimeoutSeconds = queueTimeoutSeconds;
+        }
+
+        private void recordWait(long nanos) {
+            waits[(int) (granted % WAIT_SAMPLES)] = nanos;
+            granted++;
+            totalWaitNanos += nanos;
+            maxWaitNanos = Math.max(maxWaitNanos, nanos);
+        }
+
+        private Map<String, Object> waitSnapshot() {
+            int samples = (int) Math.min(granted, WAIT_SAMPLES);
+            long[] recent = Arrays.copyOf(waits, samples);
+            Arrays.sort(recent);
+            Map<String, Object> snapshot = new LinkedHashMap<>();
+            snapshot.put("mean", granted > 0 ? totalWaitNanos / granted / 1_000_000.0 : 0.0);
+            snapshot.put("p50", samples > 0 ? recent[(samples - 1) / 2] / 1_000_000.0 : 0.0);
+            snapshot.put("p95", samples > 0 ? recent[(int) Math.ceil(samples * 0.95) - 1] / 1_000_000.0 : 0.0);
+            snapshot.put("max", maxWaitNanos / 1_000_000.0);
+            return snapshot;
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.yieldforecast.service;
+
+public class PythonScriptException extends RuntimeException {
+
+    private final int exitCode;
+    private final boolean upstreamFailure;
+
+    public PythonScriptException(String message, int exitCode, boolean upstreamFailure) {
+        super(message);
+        this.exitCode = exitCode;
+        this.upstreamFailure = upstreamFailure;
+    }
+
+    public int getExitCode() {
+        return exitCode;
+    }
+
+    public boolean isUpstreamFailure() {
+        return upstreamFailure;
+    }
+}
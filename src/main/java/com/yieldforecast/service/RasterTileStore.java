@@ -0,0 +1,357 @@
+package com.yieldforecast.service;
+
+import jakarta.annotation.PostConstruct;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+@Service
+public class RasterTileStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(RasterTileStore.class);
+
+    public static final int TILE_SIZE = 256;
+
+    private static final int TILE_FLOATS = TILE_SIZE * TILE_SIZE;
+    private static final Pattern SCENE_DATE = Pattern.compile("(\\d{4})-?(\\d{2})-?(\\d{2})");
+    private static final Pattern BAND_NAME = Pattern.compile("(?i)(?:^|[^a-z0-9])B0?(4|5|8|11)(?:[^0-9a]|$)");
+    private static final Pattern CLOUD_COVER = Pattern.compile(
+            "<(?:Cloud_Coverage_Assessment|CLOUDY_PIXEL_PERCENTAGE)>\\s*([0-9.eE+-]+)\\s*<");
+    private static final String INGESTED_SUFFIX = ".ingested";
+
+    public enum Band {
+        B4, B5, B8, B11
+    }
+
+    @Value("${raster.store.directory:raster-store}")
+    private String directory;
+
+    @Value("${raster.store.cached-source-blocks:64}")
+    private int cachedSourceBlocks;
+
+    private final List<Scene> scenes = new CopyOnWriteArrayList<>();
+
+    private Path scenesRoot;
+    private Path inbox;
+
+    @PostConstruct
+    void open() throws IOException {
+        Path root = Path.of(directory);
+        scenesRoot = root.resolve("scenes");
+        inbox = root.resolve("inbox");
+        Files.createDirectories(scenesRoot);
+        Files.createDirectories(inbox);
+
+        try (Stream<Path> listing = Files.list(scenesRoot)) {
+            for (Path sceneDir : listing.filter(Files::isDirectory).sorted().toList()) {
+                Path metadata = sceneDir.resolve("scene.json");
+                if (Files.exists(metadata)) {
+                    scenes.add(Scene.load(sceneDir, new JSONObject(Files.readString(metadata))));
+                }
+            }
+        }
+        logger.info("Opened raster tile store at {} with {} scenes", root.toAbsolutePath(), scenes.size());
+    }
+
+    public List<Scene> scenesCovering(double minLng, double minLat, double maxLng, double maxLat,
+            LocalDate startDate, LocalDate endDate) {
+        List<Scene> covering = new ArrayList<>();
+        for (Scene scene : scenes) {
+            if (!scene.date.isBefore(startDate) && !scene.date.isAfter(endDate) && scene.minLng <= minLng
+                    && scene.maxLng >= maxLng && scene.minLat <= minLat && scene.maxLat >= maxLat) {
+                covering.add(scene);
+            }
+        }
+        return covering;
+    }
+
+    public synchronized Map<String, Object> ingestInbox() throws IOException {
+        List<String> ingested = new ArrayList<>();
+        Map<String, String> failed = new LinkedHashMap<>();
+        List<Path> candidates;
+        try (Stream<Path> listing = Files.list(inbox)) {
+            candidates = listing.filter(Files::isDirectory)
+                    .filter(p -> !p.getFileName().toString().endsWith(INGESTED_SUFFIX)).sorted().toList();
+        }
+
+        for (Path sceneDir : candidates) {
+            String name = sceneDir.getFileName().toString();
+            try {
+                Scene scene = ingest(sceneDir);
+                scenes.removeIf(existing -> existing.id.equals(scene.id));
+                scenes.add(scene);
+                Files.move(sceneDir, sceneDir.resolveSibling(name + INGESTED_SUFFIX),
+                        StandardCopyOption.REPLACE_EXISTING);
+                ingested.add(scene.id);
+            } catch (IllegalArgumentException | IOException e) {
+                logger.warn("Could not ingest raster scene {}: {}", name, e.getMessage());
+                failed.put(name, e.getMessage());
+            }
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("ingested", ingested);
+        result.put("failed", failed);
+        result.put("scenes", scenes.size());
+        return result;
+    }
+
+    public Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("scenes", scenes.size());
+        snapshot.put("inbox", inbox.toAbsolutePath().toString());
+        LocalDate first = null;
+        LocalDate last = null;
+        for (Scene scene : scenes) {
+            first = first == null || scene.date.isBefore(first) ? scene.date : first;
+            last = last == null || scene.date.isAfter(last) ? scene.date : last;
+        }
+        snapshot.put("firstDate", first != null ? first.toString() : null);
+        snapshot.put("lastDate", last != null ? last.toString() : null);
+        return snapshot;
+    }
+
+    private Scene ingest(Path sceneDir) throws IOException {
+        String name = sceneDir.getFileName().toString();
+        Matcher dateMatch = SCENE_DATE.matcher(name);
+        if (!dateMatch.find()) {
+            throw new IllegalArgumentException("scene directory name must contain its acquisition date");
+        }
+        LocalDate date = LocalDate.of(Integer.parseInt(dateMatch.group(1)), Integer.parseInt(dateMatch.group(2)),
+                Integer.parseInt(dateMatch.group(3)));
+
+        Map<Band, Path> files = new EnumMap<>(Band.class);
+        try (Stream<Path> listing = Files.list(sceneDir)) {
+            for (Path file : listing.toList()) {
+                String fileName = file.getFileName().toString();
+                String lower = fileName.toLowerCase(Locale.ROOT);
+                if (!lower.endsWith(".tif") && !lower.endsWith(".tiff")) {
+                    continue;
+                }
+                Matcher band = BAND_NAME.matcher(fileName.substring(0, fileName.lastIndexOf('.')));
+                if (band.find()) {
+                    files.put(Band.valueOf("B" + band.group(1)), file);
+                }
+            }
+        }
+        if (!files.containsKey(Band.B4) || !files.containsKey(Band.B8)) {
+            throw new IllegalArgumentException("scene needs at least B4 and B8 rasters");
+        }
+        double cloudCover = cloudCover(sceneDir);
+
+        long startedAt = System.nanoTime();
+        Map<Band, GeoTiffReader> readers = new EnumMap<>(Band.class);
+        try {
+            for (Map.Entry<Band, Path> file : files.entrySet()) {
+                readers.put(file.getKey(), new GeoTiffReader(file.getValue(), cachedSourceBlocks));
+            }
+            GeoTiffReader grid = readers.get(Band.B8);
+            String id = date.format(DateTimeFormatter.BASIC_ISO_DATE) + "_"
+                    + name.replaceAll("[^A-Za-z0-9_-]", "_");
+            Path target = scenesRoot.resolve(id);
+            Files.createDirectories(target);
+
+            int width = grid.getWidth();
+            int height = grid.getHeight();
+            int tilesX = (width + TILE_SIZE - 1) / TILE_SIZE;
+            int tilesY = (height + TILE_SIZE - 1) / TILE_SIZE;
+            long tileBytes = (long) Band.values().length * TILE_FLOATS * Float.BYTES;
+
+            try (FileChannel channel = FileChannel.open(target.resolve("bands.dat"), StandardOpenOption.CREATE,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                for (int ty = 0; ty < tilesY; ty++) {
+                    for (int tx = 0; tx < tilesX; tx++) {
+                        MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_WRITE,
+                                (ty * (long) tilesX + tx) * tileBytes, tileBytes);
+                        FloatBuffer tile = mapped.order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer();
+                        for (Band band : Band.values()) {
+                            GeoTiffReader reader = readers.get(band);
+                            int base = band.ordinal() * TILE_FLOATS;
+                            for (int y = 0; y < TILE_SIZE; y++) {
+                                int row = ty * TILE_SIZE + y;
+                                double latitude = grid.getMaxLatitude() - (row + 0.5) * grid.getPixelHeight();
+                                for (int x = 0; x < TILE_SIZE; x++) {
+                                    int col = tx * TILE_SIZE + x;
+                                    float value = Float.NaN;
+                                    if (reader != null && row < height && col < width) {
+                                        value = reader.sample(
+                                                grid.getMinLongitude() + (col + 0.5) * grid.getPixelWidth(), latitude);
+                                        if (value == 0) {
+                                            value = Float.NaN;
+                                        }
+                                    }
+                                    tile.put(base + y * TILE_SIZE + x, value);
+                                }
+                            }
+                        }
+                        mapped.force();
+                    }
+                }
+            }
+
+            JSONArray bands = new JSONArray();
+            readers.keySet().forEach(band -> bands.put(band.name()));
+            JSONObject metadata = new JSONObject()
+                    .put("id", id)
+                    .put("date", date.toString())
+                    .put("cloudCover", cloudCover)
+                    .put("minLng", grid.getMinLongitude())
+                    .put("minLat", grid.getMinLatitude())
+                    .put("maxLng", grid.getMaxLongitude())
+                    .put("maxLat", grid.getMaxLatitude())
+                    .put("width", width)
+                    .put("height", height)
+                    .put("tilesX", tilesX)
+                    .put("tilesY", tilesY)
+                    .put("bands", bands);
+            Files.writeString(target.resolve("scene.json"), metadata.toString(), StandardCharsets.UTF_8);
+
+            logger.info("Ingested raster scene {} ({}x{} px, {} tiles, bands {}, {}% cloudy) in {} ms", id, width,
+                    height, tilesX * tilesY, readers.keySet(), cloudCover, (System.nanoTime() - startedAt) / 1_000_000);
+            return Scene.load(target, metadata);
+        } finally {
+            for (GeoTiffReader reader : readers.values()) {
+                reader.close();
+            }
+        }
+    }
+
+    private static double cloudCover(Path sceneDir) throws IOException {
+        Path metadata = sceneDir.resolve("metadata.json");
+        if (Files.exists(metadata)) {
+            JSONObject json = new JSONObject(Files.readString(metadata));
+            JSONObject properties = json.optJSONObject("properties", json);
+            if (properties.has("CLOUDY_PIXEL_PERCENTAGE")) {
+                return properties.getDouble("CLOUDY_PIXEL_PERCENTAGE");
+            }
+        }
+        try (Stream<Path> listing = Files.list(sceneDir)) {
+            for (Path file : listing.filter(p -> p.getFileName().toString().matches("(?i)MTD_.*\\.xml")).toList()) {
+                Matcher match = CLOUD_COVER.matcher(Files.readString(file));
+                if (match.find()) {
+                    return Double.parseDouble(match.group(1));
+                }
+            }
+        }
+        throw new IllegalArgumentException("scene needs its CLOUDY_PIXEL_PERCENTAGE in metadata.json"
+                + " or its MTD_*.xml product metadata");
+    }
+
+    public static final class Scene {
+        private final String id;
+        private final LocalDate date;
+        private final double cloudCover;
+        private final double minLng;
+        private final double minLat;
+        private final double maxLng;
+        private final double maxLat;
+        private final int width;
+        private final int height;
+        private final int tilesX;
+        private final double pixelWidth;
+        private final double pixelHeight;
+        private final boolean[] bands = new boolean[Band.values().length];
+        private final Path data;
+        private final ConcurrentHashMap<Integer, FloatBuffer> tiles = new ConcurrentHashMap<>();
+
+        private Scene(Path directory, JSONObject metadata) {
+            this.id = metadata.getString("id");
+            this.date = LocalDate.parse(metadata.getString("date"));
+            this.cloudCover = metadata.optDouble("cloudCover", Double.NaN);
+            this.minLng = metadata.getDouble("minLng");
+            this.minLat = metadata.getDouble("minLat");
+            this.maxLng = metadata.getDouble("maxLng");
+            this.maxLat = metadata.getDouble("maxLat");
+            this.width = metadata.getInt("width");
+            this.height = metadata.getInt("height");
+            this.tilesX = metadata.getInt("tilesX");
+            this.pixelWidth = (maxLng - minLng) / width;
+            this.pixelHeight = (maxLat - minLat) / height;
+            JSONArray present = metadata.getJSONArray("bands");
+            for (int i = 0; i < present.length(); i++) {
+                bands[Band.valueOf(present.getString(i)).ordinal()] = true;
+            }
+            this.data = directory.resolve("bands.dat");
+        }
+
+        private static Scene load(Path directory, JSONObject metadata) {
+            return new Scene(directory, metadata);
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public LocalDate getDate() {
+            return date;
+        }
+
+        public double getCloudCover() {
+            return cloudCover;
+        }
+
+        public boolean hasBand(Band band) {
+            return bands[band.ordinal()];
+        }
+
+        public int tileOf(double longitude, double latitude) {
+            int col = (int) Math.floor((longitude - minLng) / pixelWidth);
+            int row = (int) Math.floor((maxLat - latitude) / pixelHeight);
+            if (col < 0 || row < 0 || col >= width || row >= height) {
+                return -1;
+            }
+            return (row / TILE_SIZE) * tilesX + col / TILE_SIZE;
+        }
+
+        public int offsetInTile(double longitude, double latitude) {
+            int col = (int) Math.floor((longitude - minLng) / pixelWidth);
+            int row = (int) Math.floor((maxLat - latitude) / pixelHeight);
+            return (row % TILE_SIZE) * TILE_SIZE + col % TILE_SIZE;
+        }
+
+        public FloatBuffer tile(int index) {
+            return tiles.computeIfAbsent(index, this::mapTile);
+        }
+
+        private FloatBuffer mapTile(int index) {
+            long tileBytes = (long) Band.values().length * TILE_FLOATS * Float.BYTES;
+            try (FileChannel channel = FileChannel.open(data, StandardOpenOption.READ)) {
+                return channel.map(FileChannel.MapMode.READ_ONLY, index * tileBytes, tileBytes)
+                        .order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer();
+            } catch (IOException e) {
+                throw new IllegalStateException("Could not map tile " + index + " of raster scene " + id, e);
+            }
+        }
+
+        public static int bandOffset(Band band) {
+            return band.ordinal() * TILE_FLOATS;
+        }
+    }
+}
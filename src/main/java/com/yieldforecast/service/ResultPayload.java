@@ -0,0 +1,98 @@
+package com.yieldforecast.service;
+
+import org.springframework.core.io.AbstractResource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+
+public final class ResultPayload extends AbstractResource {
+
+    private static final int TRANSFER_CHUNK = 64 * 1024;
+
+    private final ByteBuffer bytes;
+    private final Instant storedAt;
+
+    ResultPayload(ByteBuffer bytes, Instant storedAt) {
+        this.bytes = bytes.asReadOnlyBuffer();
+        this.storedAt = storedAt;
+    }
+
+    public static ResultPayload of(String json) {
+        return new ResultPayload(ByteBuffer.wrap(json.getBytes(StandardCharsets.UTF_8)), Instant.now());
+    }
+
+    public Instant getStoredAt() {
+        return storedAt;
+    }
+
+    public boolean isOlderThan(Duration ttl) {
+        return storedAt.plus(ttl).isBefore(Instant.now());
+    }
+
+    public String asString() {
+        return StandardCharsets.UTF_8.decode(bytes.duplicate()).toString();
+    }
+
+    @Override
+    public long contentLength() {
+        return bytes.remaining();
+    }
+
+    @Override
+    public String getDescription() {
+        return "cached result payload (" + bytes.remaining() + " bytes)";
+    }
+
+    @Override
+    public InputStream getInputStream() {
+        ByteBuffer source = bytes.duplicate();
+        return new InputStream() {
+            @Override
+            public int read() {
+                return source.hasRemaining() ? source.get() & 0xff : -1;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) {
+                if (!source.hasRemaining()) {
+                    return -1;
+                }
+                int n = Math.min(len, source.remaining());
+                source.get(b, off, n);
+                return n;
+            }
+
+            @Override
+            public int available() {
+                return source.remaining();
+            }
+
+            @Override
+            public long transferTo(OutputStream out) throws IOException {
+                long total = source.remaining();
+                byte[] chunk = new byte[(int) Math.min(TRANSFER_CHUNK, total)];
+                while (source.hasRemaining()) {
+                    int n = Math.min(chunk.length, source.remaining());
+                    source.get(chunk, 0, n);
+                    out.write(chunk, 0, n);
+                }
+                return total;
+            }
+        };
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return this == other;
+    }
+
+    @Override
+    public int hashCode() {
+        return System.identityHashCode(this);
+    }
+}
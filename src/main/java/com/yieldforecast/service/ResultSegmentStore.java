@@ -0,0 +1,309 @@
+package com.yieldforecast.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+@Service
+public class ResultSegmentStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(ResultSegmentStore.class);
+
+    private static final int MAGIC = 0x59465253;
+    private static final int HEADER_BYTES = 24;
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".dat";
+
+    @Value("${forecast.result-store.directory:result-store}")
+    private String directory;
+
+    @Value("${forecast.result-store.segment-size-mb:64}")
+    private int segmentSizeMb;
+
+    @Value("${forecast.result-store.retention-hours:168}")
+    private long retentionHours;
+
+    @Value("${forecast.result-store.compaction-live-ratio:0.5}")
+    private double compactionLiveRatio;
+
+    @Value("${forecast.result-store.compaction-interval-minutes:30}")
+    private long compactionIntervalMinutes;
+
+    private final ConcurrentHashMap<String, Location> index = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListMap<Integer, Segment> segments = new ConcurrentSkipListMap<>();
+
+    private Path root;
+    private Segment active;
+    private ScheduledExecutorService compactor;
+
+    private long compactions;
+    private long reclaimedBytes;
+
+    @PostConstruct
+    void open() throws IOException {
+        root = Path.of(directory);
+        Files.createDirectories(root);
+
+        long startedAt = System.nanoTime();
+        List<Path> files;
+        try (Stream<Path> listing = Files.list(root)) {
+            files = listing.filter(p -> p.getFileName().toString().startsWith(SEGMENT_PREFIX)
+                    && p.getFileName().toString().endsWith(SEGMENT_SUFFIX)).sorted().toList();
+        }
+        for (Path file : files) {
+            String name = file.getFileName().toString();
+            int id = Integer.parseInt(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+            Segment segment = Segment.map(id, file, Math.max(Files.size(file), segmentBytes()));
+            segments.put(id, segment);
+            recover(segment);
+        }
+        active = segments.isEmpty() ? newSegment(1) : segments.lastEntry().getValue();
+        logger.info("Opened result store at {} with {} segments and {} entries in {} ms", root.toAbsolutePath(),
+                segments.size(), index.size(), (System.nanoTime() - startedAt) / 1_000_000);
+
+        compact();
+        compactor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "result-store-compactor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        compactor.scheduleWithFixedDelay(this::compact, compactionIntervalMinutes, compactionIntervalMinutes,
+                TimeUnit.MINUTES);
+    }
+
+    @PreDestroy
+    void close() {
+        if (compactor != null) {
+            compactor.shutdownNow();
+        }
+        synchronized (this) {
+            for (Segment segment : segments.values()) {
+                segment.buffer.force();
+            }
+        }
+    }
+
+    public Optional<ResultPayload> get(String key) {
+        Location location = index.get(key);
+        if (location == null) {
+            return Optional.empty();
+        }
+        Segment segment = segments.get(location.segment);
+        if (segment == null) {
+            return Optional.empty();
+        }
+        ByteBuffer value = segment.buffer.duplicate();
+        value.position(location.valueOffset).limit(location.valueOffset + location.valueLength);
+        return Optional.of(new ResultPayload(value.slice(), Instant.ofEpochMilli(location.storedAt)));
+    }
+
+    public boolean contains(String key) {
+        return index.containsKey(key);
+    }
+
+    public ResultPayload put(String key, String json) {
+        byte[] value = json.getBytes(StandardCharsets.UTF_8);
+        long storedAt = System.currentTimeMillis();
+        if (!append(key, value, storedAt)) {
+            logger.warn("Result for key {} ({} bytes) does not fit in a segment, not storing it", key, value.length);
+        }
+        return new ResultPayload(ByteBuffer.wrap(value), Instant.ofEpochMilli(storedAt));
+    }
+
+    public synchronized Map<String, Object> snapshot() {
+        long written = 0;
+        long live = 0;
+        for (Segment segment : segments.values()) {
+            written += segment.position;
+        }
+        for (Location location : index.values()) {
+            live += location.recordLength();
+        }
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("directory", root.toAbsolutePath().toString());
+        snapshot.put("segments", segments.size());
+        snapshot.put("entries", index.size());
+        snapshot.put("bytesWritten", written);
+        snapshot.put("liveBytes", live);
+        snapshot.put("compactions", compactions);
+        snapshot.put("reclaimedBytes", reclaimedBytes);
+        return snapshot;
+    }
+
+    private synchronized boolean append(String key, byte[] value, long storedAt) {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        int length = HEADER_BYTES + keyBytes.length + value.length;
+        if (length > segmentBytes()) {
+            return false;
+        }
+        if (active.position + length > active.buffer.capacity()) {
+            try {
+                active = newSegment(active.id + 1);
+            } catch (IOException e) {
+                logger.error("Could not open a new result store segment", e);
+                return false;
+            }
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(keyBytes);
+        crc.update(value);
+
+        int offset = active.position;
+        MappedByteBuffer buffer = active.buffer;
+        buffer.putInt(offset + 4, keyBytes.length);
+        buffer.putInt(offset + 8, value.length);
+        buffer.putLong(offset + 12, storedAt);
+        buffer.putInt(offset + 20, (int) crc.getValue());
+        buffer.put(offset + HEADER_BYTES, keyBytes);
+        buffer.put(offset + HEADER_BYTES + keyBytes.length, value);
+        buffer.putInt(offset, MAGIC);
+        active.position += length;
+
+        index.put(key, new Location(active.id, offset, keyBytes.length, offset + HEADER_BYTES + keyBytes.length,
+                value.length, storedAt));
+        return true;
+    }
+
+    private void recover(Segment segment) {
+        MappedByteBuffer buffer = segment.buffer;
+        int offset = 0;
+        while (offset + HEADER_BYTES <= buffer.capacity() && buffer.getInt(offset) == MAGIC) {
+            int keyLength = buffer.getInt(offset + 4);
+            int valueLength = buffer.getInt(offset + 8);
+            long storedAt = buffer.getLong(offset + 12);
+            int checksum = buffer.getInt(offset + 20);
+            int end = offset + HEADER_BYTES + keyLength + valueLength;
+            if (keyLength < 0 || valueLength < 0 || end > buffer.capacity() || end < offset) {
+                break;
+            }
+
+            byte[] keyBytes = new byte[keyLength];
+            byte[] value = new byte[valueLength];
+            buffer.get(offset + HEADER_BYTES, keyBytes);
+            buffer.get(offset + HEADER_BYTES + keyLength, value);
+            CRC32 crc = new CRC32();
+            crc.update(keyBytes);
+            crc.update(value);
+            if ((int) crc.getValue() != checksum) {
+                logger.warn("Truncating result store segment {} at offset {} after a torn write", segment.id, offset);
+                break;
+            }
+
+            index.put(new String(keyBytes, StandardCharsets.UTF_8), new Location(segment.id, offset, keyLength,
+                    offset + HEADER_BYTES + keyLength, valueLength, storedAt));
+            offset = end;
+        }
+        segment.position = offset;
+    }
+
+    private synchronized void compact() {
+        try {
+            long expiredBefore = System.currentTimeMillis() - Duration.ofHours(retentionHours).toMillis();
+            index.entrySet().removeIf(entry -> entry.getValue().storedAt < expiredBefore);
+
+            Map<Integer, Long> liveBytes = new LinkedHashMap<>();
+            for (Location location : index.values()) {
+                liveBytes.merge(location.segment, (long) location.recordLength(), Long::sum);
+            }
+
+            for (Segment segment : new ArrayList<>(segments.values())) {
+                if (segment == active) {
+                    continue;
+                }
+                long live = liveBytes.getOrDefault(segment.id, 0L);
+                if (segment.position > 0 && live >= segment.position * compactionLiveRatio) {
+                    continue;
+                }
+
+                int moved = 0;
+                for (Map.Entry<String, Location> entry : index.entrySet()) {
+                    Location location = entry.getValue();
+                    if (location.segment != segment.id) {
+                        continue;
+                    }
+                    byte[] value = new byte[location.valueLength];
+                    segment.buffer.get(location.valueOffset, value);
+                    if (!append(entry.getKey(), value, location.storedAt)) {
+                        index.remove(entry.getKey(), location);
+                    }
+                    moved++;
+                }
+
+                segments.remove(segment.id);
+                Files.deleteIfExists(segment.file);
+                compactions++;
+                reclaimedBytes += segment.position - live;
+                logger.info("Compacted result store segment {}: kept {} entries, reclaimed {} bytes", segment.id,
+                        moved, segment.position - live);
+            }
+        } catch (Exception e) {
+            logger.warn("Result store compaction failed: {}", e.getMessage());
+        }
+    }
+
+    private Segment newSegment(int id) throws IOException {
+        Path file = root.resolve(String.format("%s%06d%s", SEGMENT_PREFIX, id, SEGMENT_SUFFIX));
+        Segment segment = Segment.map(id, file, segmentBytes());
+        segments.put(id, segment);
+        return segment;
+    }
+
+    private long segmentBytes() {
+        return (long) segmentSizeMb * 1024 * 1024;
+    }
+
+    private record Location(int segment, int offset, int keyLength, int valueOffset, int valueLength,
+            long storedAt) {
+
+        private int recordLength() {
+            return HEADER_BYTES + keyLength + valueLength;
+        }
+    }
+
+    private static final class Segment {
+        private final int id;
+        private final Path file;
+        private final MappedByteBuffer buffer;
+        private int position;
+
+        private Segment(int id, Path file, MappedByteBuffer buffer) {
+            this.id = id;
+            this.file = file;
+            this.buffer = buffer;
+        }
+
+        private static Segment map(int id, Path file, long size) throws IOException {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE)) {
+                return new Segment(id, file, channel.map(FileChannel.MapMode.READ_WRITE, 0, size));
+            }
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.yieldforecast.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Service
+public class StartupWarmupService {
+
+    private static final Logger logger = LoggerFactory.getLogger(StartupWarmupService.class);
+
+    @Value("${startup.warmup.enabled:true}")
+    private boolean enabled;
+
+    @Value("${startup.warmup.python:true}")
+    private boolean warmPython;
+
+    @Autowired
+    private ConfigurableListableBeanFactory beanFactory;
+
+    @Autowired
+    private PythonExecutionService pythonExecutionService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    private final Map<String, Object> status = new LinkedHashMap<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUpInBackground() {
+        if (!enabled) {
+            return;
+        }
+        Thread thread = new Thread(this::warmUp, "startup-warmup");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        thread.start();
+    }
+
+    public synchronized Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>(status);
+        snapshot.put("enabled", enabled);
+        return snapshot;
+    }
+
+    private void warmUp() {
+        long startedAt = System.nanoTime();
+        int created = 0;
+        List<String> failures = new ArrayList<>();
+        for (String name : beanFactory.getBeanDefinitionNames()) {
+            BeanDefinition definition = beanFactory.getBeanDefinition(name);
+            if (definition.isSingleton() && definition.isLazyInit() && !definition.isAbstract()
+                    && !beanFactory.containsSingleton(name)) {
+                try {
+                    beanFactory.getBean(name);
+                    created++;
+                } catch (Exception e) {
+                    logger.warn("Deferred initialization of bean {} failed: {}", name, e.getMessage());
+                    failures.add(name);
+                }
+            }
+        }
+        long beansMs = (System.nanoTime() - startedAt) / 1_000_000;
+        synchronized (this) {
+            status.put("lazyBeansInitialized", created);
+            status.put("beansMs", beansMs);
+        }
+        logger.info("Initialized {} deferred beans in {} ms", created, beansMs);
+
+        if (warmPython) {
+            long pythonStartedAt = System.nanoTime();
+            boolean ready = pythonExecutionService.warmUp();
+            long pythonMs = (System.nanoTime() - pythonStartedAt) / 1_000_000;
+            synchronized (this) {
+                status.put("pythonReady", ready);
+                status.put("pythonMs", pythonMs);
+            }
+            if (!ready) {
+                failures.add("python");
+            }
+        }
+        synchronized (this) {
+            status.put("failures", failures);
+            status.put("completedMs", (System.nanoTime() - startedAt) / 1_000_000);
+        }
+        if (!failures.isEmpty()) {
+            logger.error("Startup warmup failed for {}, refusing traffic", failures);
+            AvailabilityChangeEvent.publish(eventPublisher, this, ReadinessState.REFUSING_TRAFFIC);
+        }
+    }
+}
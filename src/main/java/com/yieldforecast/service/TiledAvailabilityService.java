@@ -0,0 +1,188 @@
+package com.yieldforecast.service;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+@Service
+public class TiledAvailabilityService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TiledAvailabilityService.class);
+
+    private static final int MAX_AVAILABLE_DATES = 10;
+
+    @Value("${forecast.availability.tiles.enabled:true}")
+    private boolean enabled;
+
+    @Value("${forecast.availability.tiles.precision:4}")
+    private int precision;
+
+    @Value("${forecast.availability.tiles.max-tiles:64}")
+    private int maxTiles;
+
+    @Value("${forecast.availability.tiles.ttl-hours:24}")
+    private long ttlHours;
+
+    @Autowired
+    private PythonExecutionService pythonExecutionService;
+
+    @Autowired
+    private ResultSegmentStore resultStore;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public String checkAvailability(GeometryCost cost, LocalDate startDate, LocalDate endDate) throws Exception {
+        List<String> tiles = Geohash.cover(cost.minLongitude(), cost.minLatitude(), cost.maxLongitude(),
+                cost.maxLatitude(), precision, maxTiles);
+        if (tiles == null) {
+            logger.info("Geometry needs more than {} availability tiles, checking it directly", maxTiles);
+            return null;
+        }
+
+        Duration ttl = Duration.ofHours(ttlHours);
+        Map<String, TileScenes> resolved = new LinkedHashMap<>();
+        Map<String, TileScenes> stale = new HashMap<>();
+        JSONObject missing = new JSONObject();
+        for (String tile : tiles) {
+            Optional<ResultPayload> stored = resultStore.get(tileKey(tile, startDate, endDate));
+            TileScenes cached = stored.map(p -> TileScenes.fromJson(new JSONObject(p.asString()))).orElse(null);
+            if (cached != null && !stored.get().isOlderThan(ttl)) {
+                resolved.put(tile, cached);
+            } else {
+                if (cached != null) {
+                    stale.put(tile, cached);
+                }
+                double[] bounds = Geohash.bounds(tile);
+                missing.put(tile, new JSONArray().put(bounds[0]).put(bounds[1]).put(bounds[2]).put(bounds[3]));
+            }
+        }
+
+        int reused = resolved.size();
+        if (!missing.isEmpty()) {
+            List<String> args = List.of("--tiles", startDate.toString(), endDate.toString());
+            String input = new JSONObject().put("tiles", missing).toString();
+            try {
+                String output = pythonExecutionService.executeScript("src/main/python/check_data_availability.py",
+                        args, input, cost.lane());
+                int jsonStart = output.indexOf("{");
+                if (jsonStart == -1) {
+                    throw new RuntimeException("No JSON returned from availability check");
+                }
+                JSONObject fetched = new JSONObject(output.substring(jsonStart)).getJSONObject("tiles");
+                for (String tile : missing.keySet()) {
+                    JSONObject scenes = fetched.optJSONObject(tile);
+                    scenes = scenes != null ? scenes : new JSONObject();
+                    resultStore.put(tileKey(tile, startDate, endDate), scenes.toString());
+                    resolved.put(tile, TileScenes.fromJson(scenes));
+                }
+            } catch (CircuitOpenException | PythonScriptException e) {
+                boolean upstream = e instanceof CircuitOpenException
+                        || ((PythonScriptException) e).isUpstreamFailure();
+                if (!upstream || stale.size() != missing.length()) {
+                    throw e;
+                }
+                logger.warn("Earth Engine unavailable, serving stale availability for {} tiles: {}", stale.size(),
+                        e.getMessage());
+                resolved.putAll(stale);
+            }
+        }
+
+        logger.info("Availability for {} tiles (precision {}): {} cached, {} fetched", tiles.size(), precision,
+                reused, tiles.size() - reused);
+        return merge(resolved.values(), startDate, endDate, tiles.size(), reused).toString();
+    }
+
+    private JSONObject merge(Iterable<TileScenes> tiles, LocalDate startDate, LocalDate endDate, int tileCount,
+            int reused) {
+        Map<String, double[]> scenes = new HashMap<>();
+        for (TileScenes tile : tiles) {
+            for (int i = 0; i < tile.ids.length; i++) {
+                scenes.putIfAbsent(tile.ids[i], new double[] { tile.times[i], tile.clouds[i] });
+            }
+        }
+
+        List<double[]> ordered = new ArrayList<>(scenes.values());
+        ordered.sort((a, b) -> Double.compare(b[0], a[0]));
+
+        Set<String> seenDates = new LinkedHashSet<>();
+        JSONArray availableDates = new JSONArray();
+        for (double[] scene : ordered) {
+            if (availableDates.length() >= MAX_AVAILABLE_DATES) {
+                break;
+            }
+            if (scene[0] <= 0) {
+                continue;
+            }
+            String date = Instant.ofEpochMilli((long) scene[0]).atZone(ZoneOffset.UTC).toLocalDate().toString();
+            if (!seenDates.add(date)) {
+                continue;
+            }
+            double cloudCover = scene[1];
+            availableDates.put(new JSONObject()
+                    .put("date", date)
+                    .put("cloudCoverage", Math.round(cloudCover * 100.0) / 100.0)
+                    .put("quality", cloudCover < 20 ? "good" : cloudCover < 50 ? "medium" : "poor"));
+        }
+
+        return new JSONObject()
+                .put("totalImages", scenes.size())
+                .put("availableDates", availableDates)
+                .put("dateRange", new JSONObject().put("start", startDate.toString()).put("end", endDate.toString()))
+                .put("tiles", new JSONObject()
+                        .put("precision", precision)
+                        .put("count", tileCount)
+                        .put("cached", reused)
+                        .put("fetched", tileCount - reused));
+    }
+
+    private String tileKey(String tile, LocalDate startDate, LocalDate endDate) {
+        return "tile_" + tile + "_" + startDate + "_" + endDate;
+    }
+
+    private static final class TileScenes {
+        private final String[] ids;
+        private final double[] times;
+        private final double[] clouds;
+
+        private TileScenes(String[] ids, double[] times, double[] clouds) {
+            this.ids = ids;
+            this.times = times;
+            this.clouds = clouds;
+        }
+
+        private static TileScenes fromJson(JSONObject tile) {
+            JSONArray ids = tile != null ? tile.optJSONArray("ids") : null;
+            JSONArray times = tile != null ? tile.optJSONArray("times") : null;
+            JSONArray clouds = tile != null ? tile.optJSONArray("clouds") : null;
+            int n = ids != null ? ids.length() : 0;
+            String[] sceneIds = new String[n];
+            double[] sceneTimes = new double[n];
+            double[] sceneClouds = new double[n];
+            for (int i = 0; i < n; i++) {
+                sceneIds[i] = ids.optString(i);
+                sceneTimes[i] = times != null ? times.optDouble(i, 0.0) : 0.0;
+                sceneClouds[i] = clouds != null ? clouds.optDouble(i, 0.0) : 0.0;
+            }
+            return new TileScenes(sceneIds, sceneTimes, sceneClouds);
+        }
+    }
+}
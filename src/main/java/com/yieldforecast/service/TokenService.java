@@ -0,0 +1,202 @@
+package com.yieldforecast.service;
+
+import com.yieldforecast.entity.User;
+import jakarta.annotation.PostConstruct;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Service
+public class TokenService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenService.class);
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final String HEADER = base64(new JSONObject().put("alg", "HS256").put("typ", "JWT").toString()
+            .getBytes(StandardCharsets.UTF_8));
+
+    public enum TokenType {
+        ACCESS, REFRESH
+    }
+
+    public record Claims(long userId, String email, TokenType type, long version, long issuedAt, long expiresAt) {
+    }
+
+    @Value("${auth.mode:session}")
+    private String mode;
+
+    @Value("${auth.token.secret:}")
+    private String secret;
+
+    @Value("${auth.token.previous-secret:}")
+    private String previousSecret;
+
+    @Value("${auth.token.access-ttl-seconds:900}")
+    private long accessTtlSeconds;
+
+    @Value("${auth.token.refresh-ttl-seconds:1209600}")
+    private long refreshTtlSeconds;
+
+    @Value("${auth.token.issuer:yield-forecast}")
+    private String issuer;
+
+    private final List<SecretKeySpec> verificationKeys = new ArrayList<>();
+    private SecretKeySpec signingKey;
+    private ThreadLocal<Mac[]> macs;
+
+    private final AtomicLong issued = new AtomicLong();
+    private final AtomicLong verified = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+
+    @PostConstruct
+    void init() {
+        if (!isEnabled()) {
+            return;
+        }
+        byte[] key;
+        if (secret == null || secret.isBlank()) {
+            key = new byte[32];
+            new SecureRandom().nextBytes(key);
+            logger.warn("auth.token.secret is not set, using a random key: tokens will not survive a restart "
+                    + "or be accepted by other nodes");
+        } else {
+            key = secret.getBytes(StandardCharsets.UTF_8);
+            if (key.length < 32) {
+                throw new IllegalStateException("auth.token.secret must be at least 32 bytes");
+            }
+        }
+        signingKey = new SecretKeySpec(key, ALGORITHM);
+        verificationKeys.add(signingKey);
+        if (previousSecret != null && !previousSecret.isBlank()) {
+            byte[] previous = previousSecret.getBytes(StandardCharsets.UTF_8);
+            if (previous.length < 32) {
+                throw new IllegalStateException("auth.token.previous-secret must be at least 32 bytes");
+            }
+            verificationKeys.add(new SecretKeySpec(previous, ALGORITHM));
+        }
+        macs = ThreadLocal.withInitial(() -> {
+            Mac[] perKey = new Mac[verificationKeys.size()];
+            try {
+                for (int i = 0; i < perKey.length; i++) {
+                    perKey[i] = Mac.getInstance(ALGORITHM);
+                    perKey[i].init(verificationKeys.get(i));
+                }
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("HMAC-SHA256 is not available", e);
+            }
+            return perKey;
+        });
+        logger.info("Stateless token authentication enabled (access {} s, refresh {} s)", accessTtlSeconds,
+                refreshTtlSeconds);
+    }
+
+    public boolean isEnabled() {
+        return "token".equals(mode.trim().toLowerCase(Locale.ROOT));
+    }
+
+    public Map<String, Object> issueTokens(User user) {
+        long now = System.currentTimeMillis() / 1000;
+        Map<String, Object> tokens = new LinkedHashMap<>();
+        tokens.put("tokenType", "Bearer");
+        tokens.put("accessToken", sign(user, TokenType.ACCESS, now, now + accessTtlSeconds));
+        tokens.put("expiresIn", accessTtlSeconds);
+        tokens.put("refreshToken", sign(user, TokenType.REFRESH, now, now + refreshTtlSeconds));
+        tokens.put("refreshExpiresIn", refreshTtlSeconds);
+        return tokens;
+    }
+
+    public Optional<Claims> verify(String token, TokenType expectedType) {
+        Optional<Claims> claims = parse(token, expectedType);
+        (claims.isPresent() ? verified : rejected).incrementAndGet();
+        return claims;
+    }
+
+    public Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("mode", isEnabled() ? "token" : "session");
+        snapshot.put("issued", issued.get());
+        snapshot.put("verified", verified.get());
+        snapshot.put("rejected", rejected.get());
+        return snapshot;
+    }
+
+    private String sign(User user, TokenType type, long issuedAt, long expiresAt) {
+        JSONObject payload = new JSONObject()
+                .put("iss", issuer)
+                .put("sub", String.valueOf(user.getId()))
+                .put("email", user.getEmail())
+                .put("typ", type.name().toLowerCase(Locale.ROOT))
+                .put("ver", user.getTokenVersion())
+                .put("iat", issuedAt)
+                .put("exp", expiresAt);
+        String unsigned = HEADER + "." + base64(payload.toString().getBytes(StandardCharsets.UTF_8));
+        issued.incrementAndGet();
+        return unsigned + "." + base64(macs.get()[0].doFinal(unsigned.getBytes(StandardCharsets.US_ASCII)));
+    }
+
+    private Optional<Claims> parse(String token, TokenType expectedType) {
+        if (!isEnabled() || token == null) {
+            return Optional.empty();
+        }
+        int first = token.indexOf('.');
+        int last = token.lastIndexOf('.');
+        if (first <= 0 || last <= first || !token.startsWith(HEADER + ".")) {
+            return Optional.empty();
+        }
+
+        byte[] signature;
+        try {
+            signature = Base64.getUrlDecoder().decode(token.substring(last + 1));
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+        byte[] unsigned = token.substring(0, last).getBytes(StandardCharsets.US_ASCII);
+        boolean valid = false;
+        for (Mac mac : macs.get()) {
+            if (MessageDigest.isEqual(mac.doFinal(unsigned), signature)) {
+                valid = true;
+                break;
+            }
+        }
+        if (!valid) {
+            return Optional.empty();
+        }
+
+        try {
+            JSONObject payload = new JSONObject(new String(Base64.getUrlDecoder().decode(
+                    token.substring(first + 1, last)), StandardCharsets.UTF_8));
+            TokenType type = TokenType.valueOf(payload.getString("typ").toUpperCase(Locale.ROOT));
+            long expiresAt = payload.getLong("exp");
+            if (type != expectedType || !issuer.equals(payload.optString("iss"))
+                    || expiresAt <= System.currentTimeMillis() / 1000) {
+                return Optional.empty();
+            }
+            return Optional.of(new Claims(Long.parseLong(payload.getString("sub")), payload.optString("email"),
+                    type, payload.optLong("ver", 0), payload.getLong("iat"), expiresAt));
+        } catch (JSONException | IllegalArgumentException e) {
+            return Optional.empty();
+        }
+    }
+
+    private static String base64(byte[] bytes) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+}
@@ -0,0 +1,200 @@
+package com.yieldforecast.service;
+
+import com.yieldforecast.dto.BulkYieldRequest;
+import com.yieldforecast.repository.YieldRecordRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+@Service
+public class YieldBulkService {
+
+    private static final Logger logger = LoggerFactory.getLogger(YieldBulkService.class);
+
+    /** Native twin of {@link YieldRecordRepository#BULK_FILTER}, so a delete can return the ids it removed. */
+    private static final String NATIVE_FILTER = " user_id = :userId"
+            + " AND (:parameter IS NULL OR parameter = :parameter)"
+            + " AND (:fromDate IS NULL OR date >= :fromDate)"
+            + " AND (:toDate IS NULL OR date <= :toDate)";
+
+    @Value("${yields.bulk.batch-size:500}")
+    private int batchSize;
+
+    @Value("${yields.bulk.max-ids:100000}")
+    private int maxIds;
+
+    @Autowired
+    private YieldRecordRepository repository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private YieldClusterService clusterService;
+
+    @Autowired
+    private EntityCache entityCache;
+
+    @Autowired
+    private ZoneSeriesStore seriesStore;
+
+    public Map<String, Object> delete(Long userId, BulkYieldRequest request) {
+        validate(request);
+        long startedAt = System.nanoTime();
+        int[] batches = new int[1];
+        List<Long> deletedIds = new ArrayList<>();
+        int deleted = apply(request, batches,
+                ids -> collect(deletedIds, deleteQuery(userId, request, ids).getResultList()),
+                () -> collect(deletedIds, deleteQuery(userId, request, null).getResultList()));
+        afterChange(userId, deletedIds);
+
+        long elapsedMs = (System.nanoTime() - startedAt) / 1_000_000;
+        logger.info("Bulk-deleted {} records for user {} in {} batches ({} ms)", deleted, userId, batches[0],
+                elapsedMs);
+        return result("deleted", deleted, request, batches[0], elapsedMs);
+    }
+
+    public Map<String, Object> update(Long userId, BulkYieldRequest request) {
+        validate(request);
+        BulkYieldRequest.Changes set = request.set();
+        if (set == null || set.isEmpty()) {
+            throw new IllegalArgumentException("Nothing to update: set at least one of location, date, prediction");
+        }
+
+        long startedAt = System.nanoTime();
+        int[] batches = new int[1];
+        int updated = apply(request, batches,
+                ids -> updateQuery(userId, request, ids).executeUpdate(),
+                () -> updateQuery(userId, request, null).executeUpdate());
+        afterChange(userId, List.of());
+
+        long elapsedMs = (System.nanoTime() - startedAt) / 1_000_000;
+        logger.info("Bulk-updated {} records for user {} in {} batches ({} ms)", updated, userId, batches[0],
+                elapsedMs);
+        return result("updated", updated, request, batches[0], elapsedMs);
+    }
+
+    private void validate(BulkYieldRequest request) {
+        if (request == null || !request.hasSelection()) {
+            throw new IllegalArgumentException("Specify ids or at least one filter (parameter, from, to)");
+        }
+        if (request.ids().size() > maxIds) {
+            throw new IllegalArgumentException("At most " + maxIds + " ids per request");
+        }
+        if (request.from() != null && request.to() != null && request.from().isAfter(request.to())) {
+            throw new IllegalArgumentException("from must not be after to");
+        }
+    }
+
+    private int apply(BulkYieldRequest request, int[] batches, Function<List<Long>, Integer> byIds,
+            Supplier<Integer> byFilter) {
+        Integer affected = new TransactionTemplate(transactionManager).execute(status -> {
+            if (request.ids().isEmpty()) {
+                batches[0] = 1;
+                return byFilter.get();
+            }
+            int total = 0;
+            int size = Math.max(1, batchSize);
+            for (int from = 0; from < request.ids().size(); from += size) {
+                total += byIds.apply(request.ids().subList(from, Math.min(from + size, request.ids().size())));
+                batches[0]++;
+            }
+            return total;
+        });
+        return affected != null ? affected : 0;
+    }
+
+    private Query deleteQuery(Long userId, BulkYieldRequest request, List<Long> ids) {
+        Query query = entityManager.createNativeQuery("DELETE FROM yield_records WHERE"
+                + (ids != null ? " id IN :ids AND" : "") + NATIVE_FILTER + " RETURNING id", Long.class);
+        if (ids != null) {
+            query.setParameter("ids", ids);
+        }
+        return filter(query, userId, request);
+    }
+
+    private static int collect(List<Long> deletedIds, List<?> returned) {
+        for (Object id : returned) {
+            deletedIds.add(((Number) id).longValue());
+        }
+        return returned.size();
+    }
+
+    private Query updateQuery(Long userId, BulkYieldRequest request, List<Long> ids) {
+        BulkYieldRequest.Changes set = request.set();
+        List<String> assignments = new ArrayList<>();
+        if (set.location() != null) {
+            assignments.add("y.location = :location");
+        }
+        if (set.date() != null) {
+            assignments.add("y.date = :date");
+        }
+        if (set.prediction() != null) {
+            assignments.add("y.prediction = :prediction");
+        }
+
+        Query query = entityManager.createQuery("UPDATE YieldRecord y SET " + String.join(", ", assignments)
+                + " WHERE" + (ids != null ? " y.id IN :ids AND" : "") + YieldRecordRepository.BULK_FILTER);
+        if (set.location() != null) {
+            query.setParameter("location", set.location());
+        }
+        if (set.date() != null) {
+            query.setParameter("date", set.date());
+        }
+        if (set.prediction() != null) {
+            query.setParameter("prediction", set.prediction());
+        }
+        if (ids != null) {
+            query.setParameter("ids", ids);
+        }
+        return filter(query, userId, request);
+    }
+
+    private static Query filter(Query query, Long userId, BulkYieldRequest request) {
+        return query.setParameter("userId", userId)
+                .setParameter("parameter", request.parameter())
+                .setParameter("fromDate", request.from())
+                .setParameter("toDate", request.to());
+    }
+
+    private void afterChange(Long userId, List<Long> deletedIds) {
+        clusterService.invalidate(userId);
+        entityCache.evictRecordsOfUser(userId);
+        try {
+            seriesStore.deleteZones(deletedIds);
+        } catch (RuntimeException e) {
+            logger.warn("Could not delete scene series of {} removed records: {}", deletedIds.size(),
+                    e.getMessage());
+        }
+    }
+
+    private Map<String, Object> result(String key, int affected, BulkYieldRequest request, int batches,
+            long elapsedMs) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put(key, affected);
+        if (!request.ids().isEmpty()) {
+            result.put("requested", request.ids().size());
+            result.put("skipped", request.ids().size() - affected);
+        }
+        result.put("batches", batches);
+        result.put("elapsedMs", elapsedMs);
+        return result;
+    }
+}
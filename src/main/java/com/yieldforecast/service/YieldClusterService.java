@@ -0,0 +1,238 @@
+package com.yieldforecast.service;
+
+import com.yieldforecast.repository.ClusterPointRow;
+import com.yieldforecast.repository.YieldRecordRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Service
+public class YieldClusterService {
+
+    private static final Logger logger = LoggerFactory.getLogger(YieldClusterService.class);
+
+    private final ConcurrentHashMap<Long, UserClusters> clusters = new ConcurrentHashMap<>();
+
+    @Value("${yields.clusters.max-precision:7}")
+    private int maxPrecision;
+
+    @Autowired
+    private YieldRecordRepository repository;
+
+    public Map<String, Object> getClusters(Long userId, double minLng, double minLat, double maxLng, double maxLat,
+            int zoom) {
+        int precision = precisionForZoom(zoom);
+        UserClusters user = clustersFor(userId);
+
+        List<Map<String, Object>> result = new ArrayList<>();
+        synchronized (user) {
+            Map<String, Cell> level = user.levels.get(precision - 1);
+            List<String> viewport = Geohash.cover(minLng, minLat, maxLng, maxLat, precision, level.size() + 1);
+            if (viewport != null) {
+                for (String hash : viewport) {
+                    Cell cell = level.get(hash);
+                    if (cell != null && cell.count > 0) {
+                        result.add(cell.toMap(hash));
+                    }
+                }
+            } else {
+                for (Map.Entry<String, Cell> entry : level.entrySet()) {
+                    Cell cell = entry.getValue();
+                    if (cell.count > 0 && cell.intersects(entry.getKey(), minLng, minLat, maxLng, maxLat)) {
+                        result.add(cell.toMap(entry.getKey()));
+                    }
+                }
+            }
+        }
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("zoom", zoom);
+        response.put("precision", precision);
+        response.put("clusters", result);
+        return response;
+    }
+
+    public void recordAdded(Long userId, Double latitude, Double longitude, Double yieldPrediction) {
+        apply(userId, latitude, longitude, yieldPrediction, 1);
+    }
+
+    public void recordRemoved(Long userId, Double latitude, Double longitude, Double yieldPrediction) {
+        apply(userId, latitude, longitude, yieldPrediction, -1);
+    }
+
+    public void invalidate(Long userId) {
+        if (userId == null) {
+            clusters.clear();
+        } else {
+            clusters.remove(userId);
+        }
+    }
+
+    private void apply(Long userId, Double latitude, Double longitude, Double yieldPrediction, int sign) {
+        if (userId == null || latitude == null || longitude == null) {
+            return;
+        }
+        UserClusters user = clusters.get(userId);
+        if (user == null) {
+            return;
+        }
+        synchronized (user) {
+            if (user.building) {
+                user.stale = true;
+                return;
+            }
+            user.add(latitude, longitude, yieldPrediction, sign, maxPrecision);
+        }
+    }
+
+    /**
+     * Returns the user's aggregates, building them from the database on first use. The aggregates are published
+     * before the scan so that concurrent record events mark them stale instead of being counted twice; readers
+     * that find a build in progress wait for it, and a stale or failed build is discarded and retried.
+     */
+    private UserClusters clustersFor(Long userId) {
+        while (true) {
+            UserClusters existing = clusters.get(userId);
+            if (existing != null) {
+                if (awaitBuilt(existing)) {
+                    return existing;
+                }
+                continue;
+            }
+
+            UserClusters user = new UserClusters(maxPrecision);
+            if (clusters.putIfAbsent(userId, user) != null) {
+                continue;
+            }
+            long startedAt = System.nanoTime();
+            boolean built = false;
+            int records = 0;
+            try {
+                List<ClusterPointRow> points = repository.findClusterPoints(userId);
+                records = points.size();
+                synchronized (user) {
+                    for (ClusterPointRow point : points) {
+                        user.add(point.getLatitude(), point.getLongitude(), point.getYieldPrediction(), 1,
+                                maxPrecision);
+                    }
+                    built = !user.stale;
+                }
+            } finally {
+                synchronized (user) {
+                    user.building = false;
+                    if (!built) {
+                        user.stale = true;
+                        clusters.remove(userId, user);
+                    }
+                    user.notifyAll();
+                }
+            }
+            if (built) {
+                logger.info("Built cluster aggregates for user {} from {} records in {} ms", userId, records,
+                        (System.nanoTime() - startedAt) / 1_000_000);
+                return user;
+            }
+        }
+    }
+
+    private boolean awaitBuilt(UserClusters user) {
+        synchronized (user) {
+            while (user.building) {
+                try {
+                    user.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while waiting for cluster aggregates", e);
+                }
+            }
+            return !user.stale;
+        }
+    }
+
+    private int precisionForZoom(int zoom) {
+        int precision;
+        if (zoom <= 2) {
+            precision = 1;
+        } else if (zoom <= 4) {
+            precision = 2;
+        } else if (zoom <= 7) {
+            precision = 3;
+        } else if (zoom <= 10) {
+            precision = 4;
+        } else if (zoom <= 12) {
+            precision = 5;
+        } else if (zoom <= 15) {
+            precision = 6;
+        } else {
+            precision = 7;
+        }
+        return Math.min(precision, maxPrecision);
+    }
+
+    private static final class UserClusters {
+        private final List<Map<String, Cell>> levels = new ArrayList<>();
+        private boolean building = true;
+        private boolean stale;
+
+        private UserClusters(int maxPrecision) {
+            for (int i = 0; i < maxPrecision; i++) {
+                levels.add(new HashMap<>());
+            }
+        }
+
+        private void add(double latitude, double longitude, Double yieldPrediction, int sign, int maxPrecision) {
+            String hash = Geohash.encode(latitude, longitude, maxPrecision);
+            for (int precision = 1; precision <= maxPrecision; precision++) {
+                Map<String, Cell> level = levels.get(precision - 1);
+                String key = hash.substring(0, precision);
+                Cell cell = level.computeIfAbsent(key, k -> new Cell());
+                cell.add(latitude, longitude, yieldPrediction, sign);
+                if (cell.count <= 0) {
+                    level.remove(key);
+                }
+            }
+        }
+    }
+
+    private static final class Cell {
+        private long count;
+        private long yieldCount;
+        private double yieldSum;
+        private double latitudeSum;
+        private double longitudeSum;
+
+        private void add(double latitude, double longitude, Double yieldPrediction, int sign) {
+            count += sign;
+            latitudeSum += sign * latitude;
+            longitudeSum += sign * longitude;
+            if (yieldPrediction != null) {
+                yieldCount += sign;
+                yieldSum += sign * yieldPrediction;
+            }
+        }
+
+        private boolean intersects(String hash, double minLng, double minLat, double maxLng, double maxLat) {
+            double[] bounds = Geohash.bounds(hash);
+            return bounds[0] <= maxLng && bounds[2] >= minLng && bounds[1] <= maxLat && bounds[3] >= minLat;
+        }
+
+        private Map<String, Object> toMap(String hash) {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("cell", hash);
+            map.put("count", count);
+            map.put("latitude", latitudeSum / count);
+            map.put("longitude", longitudeSum / count);
+            map.put("meanYieldPrediction", yieldCount > 0 ? yieldSum / yieldCount : null);
+            return map;
+        }
+    }
+}
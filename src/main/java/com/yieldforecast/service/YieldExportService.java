@@ -0,0 +1,265 @@
+package com.yieldforecast.service;
+
+import com.yieldforecast.entity.YieldRecord;
+import com.yieldforecast.repository.YieldRecordRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Iterator;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+@Service
+public class YieldExportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(YieldExportService.class);
+
+    private static final String CSV_HEADER = "id,location,date,parameter,indexValue,yieldPrediction,"
+            + "ndviValue,ndmiValue,reciValue,latitude,longitude,startDate,endDate";
+
+    public enum Format {
+        CSV("text/csv", "csv"),
+        GEOJSON("application/geo+json", "geojson"),
+        NDJSON("application/x-ndjson", "ndjson");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        public static Format parse(String value) {
+            for (Format format : values()) {
+                if (format.extension.equalsIgnoreCase(value)) {
+                    return format;
+                }
+            }
+            throw new IllegalArgumentException("Unsupported export format: " + value);
+        }
+    }
+
+    @Value("${yields.export.max-concurrent:2}")
+    private int maxConcurrent;
+
+    @Value("${yields.export.queue-timeout-seconds:5}")
+    private long queueTimeoutSeconds;
+
+    @Value("${yields.export.max-duration-seconds:300}")
+    private long maxDurationSeconds;
+
+    @Autowired
+    private YieldRecordRepository repository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private Semaphore permits;
+
+    @PostConstruct
+    void init() {
+        permits = new Semaphore(Math.max(1, maxConcurrent), true);
+    }
+
+    /**
+     * Streams the records from one read transaction, which keeps a connection for the whole download. At most
+     * {@code yields.export.max-concurrent} exports run at once and each is cut off after
+     * {@code yields.export.max-duration-seconds}, so slow clients cannot hold every connection.
+     */
+    public long export(Long userId, Format format, String parameter, LocalDate fromDate, LocalDate toDate,
+            OutputStream out) throws IOException {
+        try {
+            if (!permits.tryAcquire(queueTimeoutSeconds, TimeUnit.SECONDS)) {
+                throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                        "Too many exports in progress, try again later");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Export was interrupted");
+        }
+
+        try {
+            TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+            transaction.setReadOnly(true);
+            return transaction.execute(status -> {
+                try {
+                    return write(userId, format, parameter, fromDate, toDate, out);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            permits.release();
+        }
+    }
+
+    private long write(Long userId, Format format, String parameter, LocalDate fromDate, LocalDate toDate,
+            OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(maxDurationSeconds);
+        long rows = 0;
+
+        try (Stream<YieldRecord> records = repository.streamForExport(userId, parameter, fromDate, toDate)) {
+            writeHeader(format, writer);
+            Iterator<YieldRecord> iterator = records.iterator();
+            while (iterator.hasNext()) {
+                if (System.nanoTime() - deadline > 0) {
+                    logger.warn("Aborting export for user {} after {} records: exceeded {} s", userId, rows,
+                            maxDurationSeconds);
+                    throw new IOException("Export exceeded " + maxDurationSeconds + " seconds");
+                }
+                YieldRecord record = iterator.next();
+                writeRow(format, record, rows == 0, writer);
+                entityManager.detach(record);
+                rows++;
+            }
+            writeFooter(format, writer);
+        }
+
+        writer.flush();
+        logger.info("Exported {} records as {} for user {}", rows, format, userId);
+        return rows;
+    }
+
+    private void writeHeader(Format format, Writer writer) throws IOException {
+        if (format == Format.CSV) {
+            writer.write(CSV_HEADER);
+            writer.write('\n');
+        } else if (format == Format.GEOJSON) {
+            writer.write("{\"type\":\"FeatureCollection\",\"features\":[");
+        }
+    }
+
+    private void writeFooter(Format format, Writer writer) throws IOException {
+        if (format == Format.GEOJSON) {
+            writer.write("]}\n");
+        }
+    }
+
+    private void writeRow(Format format, YieldRecord record, boolean first, Writer writer) throws IOException {
+        switch (format) {
+            case CSV:
+                writeCsvRow(record, writer);
+                break;
+            case GEOJSON:
+                if (!first) {
+                    writer.write(',');
+                }
+                writer.write(toFeature(record).toString());
+                break;
+            case NDJSON:
+                writer.write(toProperties(record).put("geometry", geometryOf(record)).toString());
+                writer.write('\n');
+                break;
+        }
+    }
+
+    private void writeCsvRow(YieldRecord record, Writer writer) throws IOException {
+        Object[] values = {
+                record.getId(), record.getLocation(), record.getDate(), record.getParameter(),
+                record.getIndexValue(), record.getYieldPrediction(), record.getNdviValue(), record.getNdmiValue(),
+                record.getReciValue(), record.getLatitude(), record.getLongitude(), record.getStartDate(),
+                record.getEndDate()
+        };
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writer.write(csvValue(values[i]));
+        }
+        writer.write('\n');
+    }
+
+    private String csvValue(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = value.toString();
+        if (value instanceof String && !text.isEmpty() && "=+-@\t\r".indexOf(text.charAt(0)) != -1) {
+            text = "'" + text;
+        }
+        if (text.indexOf(',') == -1 && text.indexOf('"') == -1 && text.indexOf('\n') == -1
+                && text.indexOf('\r') == -1) {
+            return text;
+        }
+        return '"' + text.replace("\"", "\"\"") + '"';
+    }
+
+    private JSONObject toFeature(YieldRecord record) {
+        JSONObject feature = new JSONObject();
+        feature.put("type", "Feature");
+        feature.put("id", record.getId());
+        feature.put("geometry", geometryOf(record));
+        feature.put("properties", toProperties(record));
+        return feature;
+    }
+
+    private JSONObject toProperties(YieldRecord record) {
+        JSONObject properties = new JSONObject();
+        properties.put("id", record.getId());
+        properties.put("location", record.getLocation());
+        properties.put("date", record.getDate() != null ? record.getDate().toString() : null);
+        properties.put("parameter", record.getParameter());
+        properties.put("indexValue", record.getIndexValue());
+        properties.put("yieldPrediction", record.getYieldPrediction());
+        properties.put("ndviValue", record.getNdviValue());
+        properties.put("ndmiValue", record.getNdmiValue());
+        properties.put("reciValue", record.getReciValue());
+        properties.put("latitude", record.getLatitude());
+        properties.put("longitude", record.getLongitude());
+        properties.put("startDate", record.getStartDate() != null ? record.getStartDate().toString() : null);
+        properties.put("endDate", record.getEndDate() != null ? record.getEndDate().toString() : null);
+        return properties;
+    }
+
+    private Object geometryOf(YieldRecord record) {
+        if (record.getGeometryJson() != null && !record.getGeometryJson().isBlank()) {
+            try {
+                return new JSONObject(record.getGeometryJson());
+            } catch (Exception e) {
+                logger.debug("Record {} has unparseable geometry: {}", record.getId(), e.getMessage());
+            }
+        }
+        if (record.getLatitude() == null || record.getLongitude() == null) {
+            return JSONObject.NULL;
+        }
+        JSONObject point = new JSONObject();
+        point.put("type", "Point");
+        point.put("coordinates", new double[] { record.getLongitude(), record.getLatitude() });
+        return point;
+    }
+}
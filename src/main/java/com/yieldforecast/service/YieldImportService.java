@@ -0,0 +1,269 @@
+package com.yieldforecast.service;
+
+import com.yieldforecast.entity.YieldRecord;
+import com.yieldforecast.repository.YieldRecordRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Service
+public class YieldImportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(YieldImportService.class);
+
+    public enum Format {
+        CSV, NDJSON
+    }
+
+    @Value("${yields.import.batch-size:500}")
+    private int batchSize;
+
+    @Value("${yields.import.max-reported-errors:1000}")
+    private int maxReportedErrors;
+
+    @Autowired
+    private YieldRecordRepository repository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public Map<String, Object> importRecords(Long userId, Format format, BufferedReader reader) throws IOException {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        ImportResult result = new ImportResult();
+        List<YieldRecord> chunk = new ArrayList<>(batchSize);
+        List<Long> chunkLines = new ArrayList<>(batchSize);
+
+        String[] csvHeader = null;
+        String line;
+        long lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            if (format == Format.CSV && csvHeader == null) {
+                csvHeader = parseCsvLine(line);
+                continue;
+            }
+
+            try {
+                YieldRecord record = format == Format.CSV ? fromCsv(csvHeader, parseCsvLine(line)) : fromJson(line);
+                record.setUserId(userId);
+                chunk.add(record);
+                chunkLines.add(lineNumber);
+            } catch (Exception e) {
+                result.fail(lineNumber, e.getMessage());
+            }
+
+            if (chunk.size() >= batchSize) {
+                flushChunk(transactionTemplate, chunk, chunkLines, result);
+            }
+        }
+        flushChunk(transactionTemplate, chunk, chunkLines, result);
+
+        logger.info("Bulk import for user {}: {} imported, {} failed", userId, result.imported, result.failed);
+        return result.toMap();
+    }
+
+    private void flushChunk(TransactionTemplate transactionTemplate, List<YieldRecord> chunk, List<Long> chunkLines,
+            ImportResult result) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                repository.saveAll(chunk);
+                entityManager.flush();
+                entityManager.clear();
+            });
+            result.imported += chunk.size();
+        } catch (Exception chunkError) {
+            logger.warn("Batch of {} rows failed ({}), retrying row by row", chunk.size(), chunkError.getMessage());
+            for (int i = 0; i < chunk.size(); i++) {
+                YieldRecord record = chunk.get(i);
+                record.setId(null);
+                try {
+                    transactionTemplate.executeWithoutResult(status -> {
+                        repository.save(record);
+                        entityManager.flush();
+                        entityManager.clear();
+                    });
+                    result.imported++;
+                } catch (Exception rowError) {
+                    result.fail(chunkLines.get(i), rowError.getMessage());
+                }
+            }
+        }
+
+        chunk.clear();
+        chunkLines.clear();
+    }
+
+    private YieldRecord fromJson(String line) {
+        JSONObject row = new JSONObject(line);
+        Map<String, String> values = new HashMap<>();
+        for (String key : row.keySet()) {
+            Object value = row.get(key);
+            if (value != JSONObject.NULL) {
+                values.put(key, value.toString());
+            }
+        }
+        return toRecord(values);
+    }
+
+    private YieldRecord fromCsv(String[] header, String[] columns) {
+        if (columns.length > header.length) {
+            throw new IllegalArgumentException("Expected at most " + header.length + " columns but found "
+                    + columns.length);
+        }
+        Map<String, String> values = new HashMap<>();
+        for (int i = 0; i < columns.length; i++) {
+            if (!columns[i].isEmpty()) {
+                values.put(header[i].trim(), columns[i]);
+            }
+        }
+        return toRecord(values);
+    }
+
+    private YieldRecord toRecord(Map<String, String> values) {
+        String location = values.get("location");
+        if (location == null || location.isBlank()) {
+            throw new IllegalArgumentException("location is required");
+        }
+
+        YieldRecord record = new YieldRecord();
+        record.setLocation(location);
+        record.setDate(parseDate(values, "date", true));
+        record.setParameter(values.getOrDefault("parameter", "NDVI"));
+        record.setIndexValue(parseDouble(values, "indexValue"));
+        record.setYieldPrediction(parseDouble(values, "yieldPrediction"));
+        Double prediction = parseDouble(values, "prediction");
+        record.setPrediction(prediction != null ? prediction : record.getYieldPrediction());
+        record.setNdviValue(parseDouble(values, "ndviValue"));
+        record.setNdmiValue(parseDouble(values, "ndmiValue"));
+        record.setReciValue(parseDouble(values, "reciValue"));
+        record.setLatitude(parseDouble(values, "latitude"));
+        record.setLongitude(parseDouble(values, "longitude"));
+        record.setStartDate(parseDate(values, "startDate", false));
+        record.setEndDate(parseDate(values, "endDate", false));
+
+        String geometry = values.containsKey("geometry") ? values.get("geometry") : values.get("geometryJson");
+        if (geometry != null) {
+            JSONObject geometryObj = new JSONObject(geometry);
+            if (!geometryObj.has("type") || !geometryObj.has("coordinates")) {
+                throw new IllegalArgumentException("geometry must have type and coordinates");
+            }
+            record.setGeometryJson(geometryObj.toString());
+        }
+
+        if (record.getLatitude() != null && (record.getLatitude() < -90 || record.getLatitude() > 90)) {
+            throw new IllegalArgumentException("latitude out of range: " + record.getLatitude());
+        }
+        if (record.getLongitude() != null && (record.getLongitude() < -180 || record.getLongitude() > 180)) {
+            throw new IllegalArgumentException("longitude out of range: " + record.getLongitude());
+        }
+        return record;
+    }
+
+    private LocalDate parseDate(Map<String, String> values, String key, boolean required) {
+        String value = values.get(key);
+        if (value == null || value.isBlank()) {
+            if (required) {
+                throw new IllegalArgumentException(key + " is required");
+            }
+            return null;
+        }
+        try {
+            return LocalDate.parse(value.trim());
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException(key + " is not a valid yyyy-MM-dd date: " + value);
+        }
+    }
+
+    private Double parseDouble(Map<String, String> values, String key) {
+        String value = values.get(key);
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return Double.valueOf(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(key + " is not a number: " + value);
+        }
+    }
+
+    private String[] parseCsvLine(String line) {
+        List<String> columns = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                columns.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        columns.add(current.toString());
+        return columns.toArray(new String[0]);
+    }
+
+    private final class ImportResult {
+        private long imported;
+        private long failed;
+        private final List<Map<String, Object>> errors = new ArrayList<>();
+
+        private void fail(long lineNumber, String message) {
+            failed++;
+            if (errors.size() < maxReportedErrors) {
+                Map<String, Object> error = new LinkedHashMap<>();
+                error.put("line", lineNumber);
+                error.put("error", message);
+                errors.add(error);
+            }
+        }
+
+        private Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("imported", imported);
+            map.put("failed", failed);
+            map.put("errors", errors);
+            map.put("errorsTruncated", failed > errors.size());
+            return map;
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.yieldforecast.service;
+
+import java.time.LocalDate;
+
+public interface YieldModel {
+
+    String getName();
+
+    double predict(double indexValue, String parameter, double areaHectares, LocalDate seasonStart,
+            LocalDate seasonEnd);
+}
@@ -0,0 +1,84 @@
+package com.yieldforecast.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Map;
+
+@Service
+public class YieldModelService {
+
+    private static final Logger logger = LoggerFactory.getLogger(YieldModelService.class);
+
+    @Value("${yield.model.intercept:15.0}")
+    private double intercept;
+
+    @Value("${yield.model.slope:10.0}")
+    private double slope;
+
+    @Value("${yield.model.coefficients-file:}")
+    private String coefficientsFile;
+
+    @Autowired
+    private GeometryService geometryService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private volatile YieldModel model;
+
+    @PostConstruct
+    public void init() {
+        reload();
+    }
+
+    public synchronized YieldModel reload() {
+        YieldModel loaded = new LinearYieldModel("linear-default", intercept, slope, Map.of(), 0.0, 0.0);
+        if (coefficientsFile != null && !coefficientsFile.isBlank()) {
+            try {
+                String json = Files.readString(Path.of(coefficientsFile), StandardCharsets.UTF_8);
+                loaded = LinearYieldModel.fromJson(new JSONObject(json), intercept, slope);
+            } catch (Exception e) {
+                logger.error("Failed to load yield model from {}, keeping {}: {}", coefficientsFile,
+                        model != null ? model.getName() : loaded.getName(), e.getMessage());
+                if (model != null) {
+                    return model;
+                }
+            }
+        }
+        model = loaded;
+        logger.info("Yield model '{}' active", loaded.getName());
+        return loaded;
+    }
+
+    public YieldModel getModel() {
+        return model;
+    }
+
+    public double predict(double indexValue, String parameter, double areaHectares, LocalDate seasonStart,
+            LocalDate seasonEnd) {
+        return model.predict(indexValue, parameter, areaHectares, seasonStart, seasonEnd);
+    }
+
+    public double areaHectares(String geometryJson) {
+        if (geometryJson == null || geometryJson.isBlank()) {
+            return 0.0;
+        }
+        try {
+            return geometryService.calculateAreaHectares(objectMapper.readTree(geometryJson));
+        } catch (Exception e) {
+            logger.debug("Could not compute area for geometry: {}", e.getMessage());
+            return 0.0;
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.yieldforecast.service;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.yieldforecast.repository.YieldRecordRepository;
+import com.yieldforecast.repository.YieldRecordRow;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+@Service
+public class YieldRecordJsonWriter {
+
+    private static final String DEFAULT_FIELDS = "id,location,date,parameter,indexValue,yieldPrediction,"
+            + "ndviValue,ndmiValue,reciValue,latitude,longitude,startDate,endDate,userId,geometry";
+
+    private static final Map<String, FieldWriter> FIELDS = new LinkedHashMap<>();
+
+    static {
+        FIELDS.put("id", (g, row) -> writeNumber(g, "id", row.id()));
+        FIELDS.put("location", (g, row) -> g.writeStringField("location", row.location()));
+        FIELDS.put("date", (g, row) -> writeDate(g, "date", row.date()));
+        FIELDS.put("parameter", (g, row) -> g.writeStringField("parameter", row.parameter()));
+        FIELDS.put("indexValue", (g, row) -> writeNumber(g, "indexValue", row.indexValue()));
+        FIELDS.put("yieldPrediction", (g, row) -> writeNumber(g, "yieldPrediction", row.yieldPrediction()));
+        FIELDS.put("prediction", (g, row) -> writeNumber(g, "prediction", row.prediction()));
+        FIELDS.put("ndviValue", (g, row) -> writeNumber(g, "ndviValue", row.ndviValue()));
+        FIELDS.put("ndmiValue", (g, row) -> writeNumber(g, "ndmiValue", row.ndmiValue()));
+        FIELDS.put("reciValue", (g, row) -> writeNumber(g, "reciValue", row.reciValue()));
+        FIELDS.put("latitude", (g, row) -> writeNumber(g, "latitude", row.latitude()));
+        FIELDS.put("longitude", (g, row) -> writeNumber(g, "longitude", row.longitude()));
+        FIELDS.put("startDate", (g, row) -> writeDate(g, "startDate", row.startDate()));
+        FIELDS.put("endDate", (g, row) -> writeDate(g, "endDate", row.endDate()));
+        FIELDS.put("userId", (g, row) -> writeNumber(g, "userId", row.userId()));
+        FIELDS.put("geometryJson", (g, row) -> g.writeStringField("geometryJson", row.geometryJson()));
+    }
+
+    @Autowired
+    private YieldRecordRepository repository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    public Selection select(String fields) {
+        String requested = fields == null || fields.isBlank() ? DEFAULT_FIELDS : fields;
+        List<String> names = new ArrayList<>();
+        List<FieldWriter> writers = new ArrayList<>();
+        for (String name : requested.split(",")) {
+            name = name.trim();
+            if (name.isEmpty() || names.contains(name)) {
+                continue;
+            }
+            FieldWriter writer = "geometry".equals(name) ? this::writeGeometry : FIELDS.get(name);
+            if (writer == null) {
+                throw new IllegalArgumentException("Unknown field: " + name);
+            }
+            names.add(name);
+            writers.add(writer);
+        }
+        return new Selection(names, writers, names.contains("geometry") || names.contains("geometryJson"));
+    }
+
+    public Optional<YieldRecordRow> findOne(Long id, Selection selection) {
+        return selection.includesGeometry ? repository.findRowById(id) : repository.findRowWithoutGeometryById(id);
+    }
+
+    @Transactional(readOnly = true)
+    public long writeAll(Long userId, Selection selection, OutputStream out) throws IOException {
+        long rows = 0;
+        try (Stream<YieldRecordRow> records = selection.includesGeometry ? repository.streamRowsByUserId(userId)
+                : repository.streamRowsWithoutGeometryByUserId(userId);
+                JsonGenerator generator = createGenerator(out)) {
+            generator.writeStartArray();
+            for (YieldRecordRow row : (Iterable<YieldRecordRow>) records::iterator) {
+                writeRow(generator, selection, row);
+                rows++;
+            }
+            generator.writeEndArray();
+        }
+        return rows;
+    }
+
+    public void writeOne(YieldRecordRow row, Selection selection, OutputStream out) throws IOException {
+        try (JsonGenerator generator = createGenerator(out)) {
+            writeRow(generator, selection, row);
+        }
+    }
+
+    private JsonGenerator createGenerator(OutputStream out) throws IOException {
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(out, JsonEncoding.UTF8);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        return generator;
+    }
+
+    private void writeRow(JsonGenerator generator, Selection selection, YieldRecordRow row) throws IOException {
+        generator.writeStartObject();
+        for (FieldWriter writer : selection.writers) {
+            writer.write(generator, row);
+        }
+        generator.writeEndObject();
+    }
+
+    /**
+     * Writes the stored geometry without parsing it again. Geometries are validated and canonicalized when a
+     * record is saved, so only the outer braces are checked here.
+     */
+    private void writeGeometry(JsonGenerator generator, YieldRecordRow row) throws IOException {
+        generator.writeFieldName("geometry");
+        String json = row.geometryJson() != null ? row.geometryJson().strip() : "";
+        if (json.startsWith("{") && json.endsWith("}")) {
+            generator.writeRawValue(json);
+        } else {
+            generator.writeNull();
+        }
+    }
+
+    private static void writeNumber(JsonGenerator generator, String name, Double value) throws IOException {
+        generator.writeFieldName(name);
+        if (value != null) {
+            generator.writeNumber(value);
+        } else {
+            generator.writeNull();
+        }
+    }
+
+    private static void writeNumber(JsonGenerator generator, String name, Long value) throws IOException {
+        generator.writeFieldName(name);
+        if (value != null) {
+            generator.writeNumber(value);
+        } else {
+            generator.writeNull();
+        }
+    }
+
+    private static void writeDate(JsonGenerator generator, String name, LocalDate value) throws IOException {
+        generator.writeStringField(name, value != null ? value.toString() : null);
+    }
+
+    @FunctionalInterface
+    private interface FieldWriter {
+        void write(JsonGenerator generator, YieldRecordRow row) throws IOException;
+    }
+
+    public static final class Selection {
+        private final List<String> names;
+        private final List<FieldWriter> writers;
+        private final boolean includesGeometry;
+
+        private Selection(List<String> names, List<FieldWriter> writers, boolean includesGeometry) {
+            this.names = names;
+            this.writers = writers;
+            this.includesGeometry = includesGeometry;
+        }
+
+        public List<String> getNames() {
+            return names;
+        }
+    }
+}
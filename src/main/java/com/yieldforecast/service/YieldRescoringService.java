@@ -0,0 +1,197 @@
+package com.yieldforecast.service;
+
+import com.yieldforecast.repository.YieldRecordRepository;
+import com.yieldforecast.repository.YieldScoringRow;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+@Service
+public class YieldRescoringService {
+
+    private static final Logger logger = LoggerFactory.getLogger(YieldRescoringService.class);
+
+    private static final String UPDATE_SQL = "UPDATE yield_records SET yield_prediction = ?, prediction = ? WHERE id = ?";
+
+    private static final long ALL_USERS = -1L;
+
+    @Value("${yield.rescore.page-size:2000}")
+    private int pageSize;
+
+    @Value("${yield.rescore.fork-threshold:256}")
+    private int forkThreshold;
+
+    @Value("${yield.rescore.parallelism:0}")
+    private int parallelism;
+
+    @Value("${yield.rescore.on-startup:false}")
+    private boolean rescoreOnStartup;
+
+    @Autowired
+    private YieldRecordRepository repository;
+
+    @Autowired
+    private YieldModelService yieldModelService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private YieldClusterService clusterService;
+
+    @Autowired
+    private EntityCache entityCache;
+
+    private final Set<Long> running = ConcurrentHashMap.newKeySet();
+
+    private ForkJoinPool pool;
+
+    @PostConstruct
+    void init() {
+        pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+
+    @PreDestroy
+    void shutdown() {
+        pool.shutdown();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rescoreOnStartup() {
+        if (rescoreOnStartup) {
+            CompletableFuture.runAsync(() -> {
+                try {
+                    rescore(null);
+                } catch (Exception e) {
+                    logger.error("Startup re-scoring failed", e);
+                }
+            });
+        }
+    }
+
+    /**
+     * Recomputes the predictions of one user's records, or of every record when {@code userId} is null, with the
+     * model that is currently loaded. Only a second run for the same user is refused; the model itself is
+     * reloaded by administrators through {@link #reloadModel}.
+     */
+    public Map<String, Object> rescore(Long userId) {
+        Long key = userId != null ? userId : ALL_USERS;
+        if (!running.add(key)) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, userId != null
+                    ? "Your records are already being re-scored" : "A re-scoring job is already running");
+        }
+
+        long startedAt = System.nanoTime();
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        long processed = 0;
+        int pages = 0;
+
+        try {
+            YieldModel model = yieldModelService.getModel();
+            long afterId = 0;
+
+            while (true) {
+                List<YieldScoringRow> page = repository.findScoringPage(afterId, userId, PageRequest.of(0, pageSize));
+                if (page.isEmpty()) {
+                    break;
+                }
+
+                YieldScoringRow[] rows = page.toArray(new YieldScoringRow[0]);
+                double[] predictions = new double[rows.length];
+                pool.invoke(new ScoreTask(model, rows, predictions, 0, rows.length));
+
+                List<Object[]> batch = new ArrayList<>(rows.length);
+                for (int i = 0; i < rows.length; i++) {
+                    batch.add(new Object[] { predictions[i], predictions[i], rows[i].getId() });
+                }
+                transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(UPDATE_SQL, batch));
+
+                processed += rows.length;
+                pages++;
+                afterId = rows[rows.length - 1].getId();
+            }
+
+            long elapsedMs = (System.nanoTime() - startedAt) / 1_000_000;
+            logger.info("Re-scored {} records in {} pages with model '{}' in {} ms", processed, pages,
+                    model.getName(), elapsedMs);
+
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("model", model.getName());
+            result.put("recordsUpdated", processed);
+            result.put("pages", pages);
+            result.put("elapsedMs", elapsedMs);
+            return result;
+        } finally {
+            clusterService.invalidate(userId);
+            entityCache.evictRecordsOfUser(userId);
+            running.remove(key);
+        }
+    }
+
+    public Map<String, Object> reloadModel(boolean rescoreAll) {
+        YieldModel model = yieldModelService.reload();
+        if (rescoreAll) {
+            return rescore(null);
+        }
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("model", model.getName());
+        return result;
+    }
+
+    private final class ScoreTask extends RecursiveAction {
+        private final YieldModel model;
+        private final YieldScoringRow[] rows;
+        private final double[] predictions;
+        private final int from;
+        private final int to;
+
+        private ScoreTask(YieldModel model, YieldScoringRow[] rows, double[] predictions, int from, int to) {
+            this.model = model;
+            this.rows = rows;
+            this.predictions = predictions;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= forkThreshold) {
+                for (int i = from; i < to; i++) {
+                    YieldScoringRow row = rows[i];
+                    predictions[i] = model.predict(row.getIndexValue(), row.getParameter(),
+                            yieldModelService.areaHectares(row.getGeometryJson()), row.getStartDate(),
+                            row.getEndDate());
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new ScoreTask(model, rows, predictions, from, mid),
+                    new ScoreTask(model, rows, predictions, mid, to));
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package com.yieldforecast.service;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.io.JsonEOFException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.yieldforecast.repository.YieldRecordRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.stream.IntStream;
+
+@Service
+public class ZoneClassificationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ZoneClassificationService.class);
+
+    @Value("${geometry.classify.chunk-size:16384}")
+    private int chunkSize;
+
+    @Autowired
+    private YieldRecordRepository repository;
+
+    @Autowired
+    private GeometryService geometryService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * Streams {@code {"results":[...],"status":..,"count":..}}. Once results have been written the HTTP status is
+     * committed, so a point that fails to parse later ends the stream with {@code "status":"error"} and the
+     * message instead; a body without the trailer was cut off in transit.
+     */
+    public long classify(Long userId, InputStream in, OutputStream out) throws IOException {
+        long startedAt = System.nanoTime();
+        ZoneIndex index = geometryService.buildZoneIndex(repository.findZoneGeometries(userId));
+
+        JsonParser parser = objectMapper.getFactory().createParser(in);
+        if (parser.nextToken() != JsonToken.START_ARRAY) {
+            throw new IllegalArgumentException("Expected a JSON array of points");
+        }
+
+        PointChunk chunk = new PointChunk(chunkSize);
+        boolean more = readChunk(parser, chunk, 0);
+        if (chunk.error != null) {
+            throw new IllegalArgumentException(chunk.error);
+        }
+
+        long total = 0;
+        long matched = 0;
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out, JsonEncoding.UTF8)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_JSON_CONTENT);
+            generator.writeStartObject();
+            generator.writeArrayFieldStart("results");
+            while (true) {
+                long[][] zones = classifyChunk(index, chunk);
+                for (int i = 0; i < chunk.size; i++) {
+                    generator.writeStartObject();
+                    generator.writeNumberField("index", total + i);
+                    if (chunk.ids[i] != null) {
+                        generator.writeStringField("id", chunk.ids[i]);
+                    }
+                    generator.writeArrayFieldStart("zones");
+                    for (long zoneId : zones[i]) {
+                        generator.writeNumber(zoneId);
+                    }
+                    generator.writeEndArray();
+                    generator.writeEndObject();
+                    if (zones[i].length > 0) {
+                        matched++;
+                    }
+                }
+                total += chunk.size;
+                if (chunk.error != null || !more) {
+                    break;
+                }
+                more = readChunk(parser, chunk, total);
+            }
+            generator.writeEndArray();
+            if (chunk.error != null) {
+                logger.warn("Classification for user {} stopped after {} points: {}", userId, total, chunk.error);
+                generator.writeStringField("status", "error");
+                generator.writeStringField("error", chunk.error);
+            } else {
+                generator.writeStringField("status", "complete");
+            }
+            generator.writeNumberField("count", total);
+            generator.writeEndObject();
+        }
+
+        logger.info("Classified {} points against {} zones for user {} ({} inside a zone) in {} ms", total,
+                index.size(), userId, matched, (System.nanoTime() - startedAt) / 1_000_000);
+        return total;
+    }
+
+    private long[][] classifyChunk(ZoneIndex index, PointChunk chunk) {
+        long[][] zones = new long[chunk.size][];
+        IntStream.range(0, chunk.size).parallel()
+                .forEach(i -> zones[i] = index.classify(chunk.latitudes[i], chunk.longitudes[i]));
+        return zones;
+    }
+
+    private boolean readChunk(JsonParser parser, PointChunk chunk, long offset) throws IOException {
+        chunk.size = 0;
+        chunk.error = null;
+        try {
+            while (chunk.size < chunk.latitudes.length) {
+                JsonToken token = parser.nextToken();
+                if (token == null) {
+                    throw truncated(offset + chunk.size);
+                }
+                if (token == JsonToken.END_ARRAY) {
+                    if (parser.nextToken() != null) {
+                        throw new IllegalArgumentException("Unexpected content after the array of points");
+                    }
+                    return false;
+                }
+                readPoint(parser, token, chunk, offset + chunk.size);
+                chunk.size++;
+            }
+            return true;
+        } catch (JsonEOFException | EOFException e) {
+            chunk.error = truncated(offset + chunk.size).getMessage();
+            return false;
+        } catch (IllegalArgumentException | JsonProcessingException e) {
+            chunk.error = e.getMessage();
+            return false;
+        }
+    }
+
+    private static IllegalArgumentException truncated(long position) {
+        return new IllegalArgumentException("Input ended at point " + position + " before the array was closed");
+    }
+
+    private void readPoint(JsonParser parser, JsonToken token, PointChunk chunk, long position) throws IOException {
+        double latitude = Double.NaN;
+        double longitude = Double.NaN;
+        String id = null;
+
+        if (token == JsonToken.START_ARRAY) {
+            int i = 0;
+            while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                if (token == null) {
+                    throw truncated(position);
+                }
+                if (i == 0 && token.isNumeric()) {
+                    longitude = parser.getDoubleValue();
+                } else if (i == 1 && token.isNumeric()) {
+                    latitude = parser.getDoubleValue();
+                }
+                parser.skipChildren();
+                i++;
+            }
+        } else if (token == JsonToken.START_OBJECT) {
+            while ((token = parser.nextToken()) == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if (value == null) {
+                    throw truncated(position);
+                }
+                switch (field) {
+                    case "lat":
+                    case "latitude":
+                        latitude = value.isNumeric() ? parser.getDoubleValue() : Double.NaN;
+                        break;
+                    case "lng":
+                    case "lon":
+                    case "longitude":
+                        longitude = value.isNumeric() ? parser.getDoubleValue() : Double.NaN;
+                        break;
+                    case "id":
+                        id = value.isScalarValue() && value != JsonToken.VALUE_NULL ? parser.getText() : null;
+                        break;
+                    default:
+                        parser.skipChildren();
+                }
+            }
+            if (token == null) {
+                throw truncated(position);
+            }
+        }
+
+        if (Double.isNaN(latitude) || Double.isNaN(longitude) || latitude < -90 || latitude > 90
+                || longitude < -180 || longitude > 180) {
+            throw new IllegalArgumentException("Point " + position
+                    + " must be [lng, lat] or {\"lat\":..,\"lng\":..} within valid ranges");
+        }
+
+        chunk.latitudes[chunk.size] = latitude;
+        chunk.longitudes[chunk.size] = longitude;
+        chunk.ids[chunk.size] = id;
+    }
+
+    private static final class PointChunk {
+        private final double[] latitudes;
+        private final double[] longitudes;
+        private final String[] ids;
+        private int size;
+        private String error;
+
+        private PointChunk(int capacity) {
+            this.latitudes = new double[capacity];
+            this.longitudes = new double[capacity];
+            this.ids = new String[capacity];
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package com.yieldforecast.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public final class ZoneIndex {
+
+    private static final long[] NO_ZONES = new long[0];
+    private static final int MAX_CELLS_PER_ZONE = 4096;
+    private static final double MIN_CELL_SIZE = 1e-4;
+
+    private final List<Zone> zones;
+    private final double cellSize;
+    private final Map<Long, int[]> cells;
+    private final int[] oversized;
+
+    private ZoneIndex(List<Zone> zones) {
+        this.zones = zones;
+        this.cellSize = chooseCellSize(zones);
+
+        Map<Long, List<Integer>> buckets = new HashMap<>();
+        List<Integer> large = new ArrayList<>();
+        for (int z = 0; z < zones.size(); z++) {
+            Zone zone = zones.get(z);
+            long minX = cell(zone.minLng);
+            long maxX = cell(zone.maxLng);
+            long minY = cell(zone.minLat);
+            long maxY = cell(zone.maxLat);
+            if ((maxX - minX + 1) * (maxY - minY + 1) > MAX_CELLS_PER_ZONE) {
+                large.add(z);
+                continue;
+            }
+            for (long x = minX; x <= maxX; x++) {
+                for (long y = minY; y <= maxY; y++) {
+                    buckets.computeIfAbsent(key(x, y), k -> new ArrayList<>()).add(z);
+                }
+            }
+        }
+
+        this.cells = new HashMap<>(buckets.size() * 2);
+        for (Map.Entry<Long, List<Integer>> bucket : buckets.entrySet()) {
+            cells.put(bucket.getKey(), bucket.getValue().stream().mapToInt(Integer::intValue).toArray());
+        }
+        this.oversized = large.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    public int size() {
+        return zones.size();
+    }
+
+    public long[] classify(double latitude, double longitude) {
+        int[] candidates = cells.get(key(cell(longitude), cell(latitude)));
+        if (candidates == null && oversized.length == 0) {
+            return NO_ZONES;
+        }
+
+        long[] matches = null;
+        int count = 0;
+        for (int[] group : new int[][] { candidates, oversized }) {
+            if (group == null) {
+                continue;
+            }
+            for (int z : group) {
+                Zone zone = zones.get(z);
+                if (zone.contains(latitude, longitude)) {
+                    if (matches == null) {
+                        matches = new long[2];
+                    } else if (count == matches.length) {
+                        matches = Arrays.copyOf(matches, count * 2);
+                    }
+                    matches[count++] = zone.id;
+                }
+            }
+        }
+        return count == 0 ? NO_ZONES : Arrays.copyOf(matches, count);
+    }
+
+    private long cell(double coordinate) {
+        return (long) Math.floor(coordinate / cellSize);
+    }
+
+    private static long key(long x, long y) {
+        return (x << 32) ^ (y & 0xffffffffL);
+    }
+
+    private static double chooseCellSize(List<Zone> zones) {
+        if (zones.isEmpty()) {
+            return 1.0;
+        }
+        double[] extents = new double[zones.size()];
+        for (int i = 0; i < extents.length; i++) {
+            Zone zone = zones.get(i);
+            extents[i] = Math.max(zone.maxLng - zone.minLng, zone.maxLat - zone.minLat);
+        }
+        Arrays.sort(extents);
+        return Math.max(MIN_CELL_SIZE, extents[extents.length / 2]);
+    }
+
+    public static final class Builder {
+        private final List<Zone> zones = new ArrayList<>();
+
+        public Builder addPolygon(long id, List<double[][]> rings) {
+            if (rings.isEmpty() || rings.get(0).length < 3) {
+                return this;
+            }
+            double[][] outer = rings.get(0);
+            double minLng = Double.POSITIVE_INFINITY;
+            double maxLng = Double.NEGATIVE_INFINITY;
+            double minLat = Double.POSITIVE_INFINITY;
+            double maxLat = Double.NEGATIVE_INFINITY;
+            for (double[] vertex : outer) {
+                minLng = Math.min(minLng, vertex[0]);
+                maxLng = Math.max(maxLng, vertex[0]);
+                minLat = Math.min(minLat, vertex[1]);
+                maxLat = Math.max(maxLat, vertex[1]);
+            }
+            zones.add(new Zone(id, minLng, maxLng, minLat, maxLat, rings.toArray(new double[0][][]), 0, 0, 0));
+            return this;
+        }
+
+        public Builder addCircle(long id, double latitude, double longitude, double radiusMeters) {
+            double latDelta = Math.toDegrees(radiusMeters / GeometryService.EARTH_RADIUS_METERS);
+            double cosLat = Math.max(0.01, Math.cos(Math.toRadians(latitude)));
+            double lngDelta = Math.min(180.0, latDelta / cosLat);
+            zones.add(new Zone(id, longitude - lngDelta, longitude + lngDelta, latitude - latDelta,
+                    latitude + latDelta, null, latitude, longitude, radiusMeters));
+            return this;
+        }
+
+        public ZoneIndex build() {
+            return new ZoneIndex(new ArrayList<>(zones));
+        }
+    }
+
+    private static final class Zone {
+        private final long id;
+        private final double minLng;
+        private final double maxLng;
+        private final double minLat;
+        private final double maxLat;
+        private final double[][][] rings;
+        private final double centerLat;
+        private final double centerLng;
+        private final double radiusMeters;
+
+        private Zone(long id, double minLng, double maxLng, double minLat, double maxLat, double[][][] rings,
+                double centerLat, double centerLng, double radiusMeters) {
+            this.id = id;
+            this.minLng = minLng;
+            this.maxLng = maxLng;
+            this.minLat = minLat;
+            this.maxLat = maxLat;
+            this.rings = rings;
+            this.centerLat = centerLat;
+            this.centerLng = centerLng;
+            this.radiusMeters = radiusMeters;
+        }
+
+        private boolean contains(double lat, double lng) {
+            if (lng < minLng || lng > maxLng || lat < minLat || lat > maxLat) {
+                return false;
+            }
+            if (rings == null) {
+                return GeometryService.haversineDistance(lat, lng, centerLat, centerLng) * 1000.0 < radiusMeters;
+            }
+            if (!inRing(rings[0], lat, lng)) {
+                return false;
+            }
+            for (int h = 1; h < rings.length; h++) {
+                if (inRing(rings[h], lat, lng)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static boolean inRing(double[][] ring, double lat, double lng) {
+            boolean inside = false;
+            int n = ring.length;
+            for (int i = 0, j = n - 1; i < n; j = i++) {
+                double latI = ring[i][1];
+                double lngI = ring[i][0];
+                double latJ = ring[j][1];
+                double lngJ = ring[j][0];
+                if (((latI > lat) != (latJ > lat)) && (lng < (lngJ - lngI) * (lat - latI) / (latJ - latI) + lngI)) {
+                    inside = !inside;
+                }
+            }
+            return inside;
+        }
+    }
+}
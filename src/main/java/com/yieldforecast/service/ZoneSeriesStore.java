@@ -0,0 +1,680 @@
+package com.yieldforecast.service;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Append-only per-zone index history. Each (zone, parameter) series is a file of fixed-size blocks;
+ * timestamps (epoch days) are delta-of-delta encoded and values XOR encoded as in Facebook's Gorilla.
+ * Only the open tail block is ever written to, and reads decode just the blocks that overlap the range.
+ */
+@Service
+public class ZoneSeriesStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(ZoneSeriesStore.class);
+
+    private static final int MAGIC = 0x59465453;
+    private static final int HEADER_BYTES = 64;
+    private static final int MAX_POINT_BITS = 4 + 64 + 2 + 5 + 6 + 64;
+    private static final String SUFFIX = ".series";
+    private static final Pattern PARAMETER = Pattern.compile("[A-Z0-9_]{1,32}");
+
+    public record Point(LocalDate date, double value) {
+    }
+
+    @Value("${series.store.enabled:true}")
+    private boolean enabled;
+
+    @Value("${series.store.directory:series-store}")
+    private String directory;
+
+    @Value("${series.store.block-bytes:512}")
+    private int blockBytes;
+
+    @Value("${series.store.max-open-series:10000}")
+    private int maxOpenSeries;
+
+    @Value("${series.store.max-scan-points:100000}")
+    private int maxScanPoints;
+
+    private Path root;
+    private LinkedHashMap<String, Series> open;
+
+    private final AtomicLong appended = new AtomicLong();
+    private final AtomicLong skipped = new AtomicLong();
+    private final AtomicLong blocksWritten = new AtomicLong();
+    private final AtomicLong blocksDecoded = new AtomicLong();
+    private final AtomicLong blocksSummarized = new AtomicLong();
+
+    @PostConstruct
+    void init() throws IOException {
+        blockBytes = Math.max(HEADER_BYTES + 64, blockBytes);
+        root = Path.of(directory);
+        if (enabled) {
+            Files.createDirectories(root);
+        }
+        open = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Series> eldest) {
+                if (size() > Math.max(1, maxOpenSeries)) {
+                    synchronized (eldest.getValue()) {
+                        eldest.getValue().evicted = true;
+                    }
+                    return true;
+                }
+                return false;
+            }
+        };
+        logger.info("Zone series store {} at {} ({} byte blocks)", enabled ? "enabled" : "disabled",
+                root.toAbsolutePath(), blockBytes);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int append(long zoneId, String parameter, List<Point> points) {
+        if (!enabled || points.isEmpty()) {
+            return 0;
+        }
+        TreeMap<Long, double[]> byDay = new TreeMap<>();
+        for (Point point : points) {
+            if (point.date() != null && Double.isFinite(point.value())) {
+                double[] sum = byDay.computeIfAbsent(point.date().toEpochDay(), k -> new double[2]);
+                sum[0] += point.value();
+                sum[1]++;
+            }
+        }
+        return withSeries(zoneId, parameter, series -> {
+            int added = 0;
+            for (Map.Entry<Long, double[]> entry : byDay.entrySet()) {
+                if (series.append(entry.getKey(), entry.getValue()[0] / entry.getValue()[1])) {
+                    added++;
+                }
+            }
+            series.flush();
+            appended.addAndGet(added);
+            skipped.addAndGet(byDay.size() - added);
+            return added;
+        });
+    }
+
+    public Map<String, Object> scan(long zoneId, String parameter, LocalDate from, LocalDate to, int bucketDays) {
+        long fromDay = from != null ? from.toEpochDay() : Long.MIN_VALUE;
+        long toDay = to != null ? to.toEpochDay() : Long.MAX_VALUE;
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("zoneId", zoneId);
+        result.put("parameter", parameter);
+        if (!enabled || !Files.exists(root.resolve(seriesKey(zoneId, parameter) + SUFFIX))) {
+            result.put(bucketDays > 0 ? "buckets" : "points", List.of());
+            return result;
+        }
+        return withSeries(zoneId, parameter, series -> {
+            if (bucketDays > 0) {
+                series.downsample(fromDay, toDay, bucketDays, result);
+            } else {
+                series.points(fromDay, toDay, result);
+            }
+            return result;
+        });
+    }
+
+    public List<String> parameters(long zoneId) {
+        if (!enabled) {
+            return List.of();
+        }
+        String prefix = zoneId + "-";
+        try (Stream<Path> listing = Files.list(root)) {
+            return listing.map(p -> p.getFileName().toString())
+                    .filter(name -> name.startsWith(prefix) && name.endsWith(SUFFIX))
+                    .map(name -> name.substring(prefix.length(), name.length() - SUFFIX.length()))
+                    .sorted().toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public void deleteZone(long zoneId) {
+        if (!enabled) {
+            return;
+        }
+        for (String parameter : parameters(zoneId)) {
+            delete(zoneId, parameter);
+        }
+    }
+
+    public int deleteZones(Collection<Long> zoneIds) {
+        if (!enabled || zoneIds.isEmpty()) {
+            return 0;
+        }
+        Set<Long> zones = new HashSet<>(zoneIds);
+        List<String> names;
+        try (Stream<Path> listing = Files.list(root)) {
+            names = listing.map(p -> p.getFileName().toString()).filter(name -> name.endsWith(SUFFIX)).toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        int deleted = 0;
+        for (String name : names) {
+            int dash = name.indexOf('-');
+            if (dash <= 0) {
+                continue;
+            }
+            try {
+                long zoneId = Long.parseLong(name.substring(0, dash));
+                if (zones.contains(zoneId)) {
+                    delete(zoneId, name.substring(dash + 1, name.length() - SUFFIX.length()));
+                    deleted++;
+                }
+            } catch (NumberFormatException e) {
+                logger.debug("Ignoring unexpected file {} in the series store", name);
+            }
+        }
+        return deleted;
+    }
+
+    private void delete(long zoneId, String parameter) {
+        withSeries(zoneId, parameter, series -> {
+            Files.deleteIfExists(series.path);
+            series.evicted = true;
+            return null;
+        });
+    }
+
+    public Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("enabled", enabled);
+        snapshot.put("blockBytes", blockBytes);
+        synchronized (this) {
+            snapshot.put("openSeries", open.size());
+        }
+        snapshot.put("pointsAppended", appended.get());
+        snapshot.put("pointsSkipped", skipped.get());
+        snapshot.put("blocksWritten", blocksWritten.get());
+        snapshot.put("blocksDecoded", blocksDecoded.get());
+        snapshot.put("blocksSummarized", blocksSummarized.get());
+        return snapshot;
+    }
+
+    private interface SeriesAction<T> {
+        T apply(Series series) throws IOException;
+    }
+
+    private static String seriesKey(long zoneId, String parameter) {
+        String name = parameter.toUpperCase(Locale.ROOT);
+        if (!PARAMETER.matcher(name).matches()) {
+            throw new IllegalArgumentException("Unsupported parameter: " + parameter);
+        }
+        return zoneId + "-" + name;
+    }
+
+    private <T> T withSeries(long zoneId, String parameter, SeriesAction<T> action) {
+        String key = seriesKey(zoneId, parameter);
+        while (true) {
+            Series series;
+            synchronized (this) {
+                series = open.computeIfAbsent(key, k -> new Series(root.resolve(k + SUFFIX)));
+            }
+            IOException failure;
+            synchronized (series) {
+                if (series.evicted) {
+                    continue;
+                }
+                try {
+                    series.load();
+                    T result = action.apply(series);
+                    if (!series.evicted) {
+                        return result;
+                    }
+                    failure = null;
+                } catch (IOException e) {
+                    series.evicted = true;
+                    failure = e;
+                }
+            }
+            synchronized (this) {
+                open.remove(key, series);
+            }
+            if (failure != null) {
+                throw new UncheckedIOException("Series " + key + " is unreadable", failure);
+            }
+            return null;
+        }
+    }
+
+    private final class Series {
+        private final Path path;
+        private final List<BlockHeader> blocks = new ArrayList<>();
+        private boolean loaded;
+        private boolean evicted;
+
+        private byte[] tail;
+        private BlockHeader tailHeader;
+        private int dirtyFrom = Integer.MAX_VALUE;
+        private long previousDay;
+        private long previousDelta;
+        private long previousBits;
+        private int previousLeading;
+        private int previousTrailing;
+
+        private Series(Path path) {
+            this.path = path;
+        }
+
+        private void load() throws IOException {
+            if (loaded) {
+                return;
+            }
+            if (Files.exists(path)) {
+                try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                    long size = channel.size();
+                    ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+                    for (long offset = 0; offset + blockBytes <= size; offset += blockBytes) {
+                        header.clear();
+                        readFully(channel, header, offset);
+                        BlockHeader parsed = BlockHeader.read(header.flip(), offset);
+                        if (parsed == null) {
+                            break;
+                        }
+                        blocks.add(parsed);
+                    }
+                }
+                if (!blocks.isEmpty()) {
+                    tailHeader = blocks.get(blocks.size() - 1);
+                    tail = readBlock(tailHeader);
+                    BlockDecoder decoder = new BlockDecoder(tail, tailHeader);
+                    while (decoder.next()) {
+                        // replays the tail block to restore the encoder state
+                    }
+                    previousDay = decoder.day;
+                    previousDelta = decoder.delta;
+                    previousBits = decoder.bits;
+                    previousLeading = decoder.leading;
+                    previousTrailing = decoder.trailing;
+                }
+            }
+            loaded = true;
+        }
+
+        private boolean append(long day, double value) throws IOException {
+            if (tailHeader != null && day <= tailHeader.lastDay) {
+                return false;
+            }
+            if (tailHeader == null || tailHeader.bitLength + MAX_POINT_BITS > (blockBytes - HEADER_BYTES) * 8) {
+                flush();
+                tail = new byte[blockBytes];
+                tailHeader = new BlockHeader((long) blocks.size() * blockBytes);
+                blocks.add(tailHeader);
+                dirtyFrom = 0;
+            }
+
+            BitWriter writer = new BitWriter(tail, tailHeader.bitLength);
+            dirtyFrom = Math.min(dirtyFrom, HEADER_BYTES + tailHeader.bitLength / 8);
+            long bits = Double.doubleToRawLongBits(value);
+            if (tailHeader.count == 0) {
+                writer.write(bits, 64);
+                tailHeader.firstDay = day;
+                previousDelta = 0;
+                previousLeading = -1;
+            } else {
+                long delta = day - previousDay;
+                writeDeltaOfDelta(writer, delta - previousDelta);
+                previousDelta = delta;
+                writeXor(writer, bits ^ previousBits);
+            }
+            previousDay = day;
+            previousBits = bits;
+            tailHeader.add(day, value, writer.position);
+            return true;
+        }
+
+        private void writeDeltaOfDelta(BitWriter writer, long dod) {
+            if (dod == 0) {
+                writer.write(0, 1);
+            } else if (dod >= -64 && dod < 64) {
+                writer.write(0b10, 2);
+                writer.write(dod, 7);
+            } else if (dod >= -256 && dod < 256) {
+                writer.write(0b110, 3);
+                writer.write(dod, 9);
+            } else if (dod >= -2048 && dod < 2048) {
+                writer.write(0b1110, 4);
+                writer.write(dod, 12);
+            } else {
+                writer.write(0b1111, 4);
+                writer.write(dod, 64);
+            }
+        }
+
+        private void writeXor(BitWriter writer, long xor) {
+            if (xor == 0) {
+                writer.write(0, 1);
+                return;
+            }
+            int leading = Math.min(31, Long.numberOfLeadingZeros(xor));
+            int trailing = Long.numberOfTrailingZeros(xor);
+            if (previousLeading >= 0 && leading >= previousLeading && trailing >= previousTrailing) {
+                writer.write(0b10, 2);
+                writer.write(xor >>> previousTrailing, 64 - previousLeading - previousTrailing);
+            } else {
+                int meaningful = 64 - leading - trailing;
+                writer.write(0b11, 2);
+                writer.write(leading, 5);
+                writer.write(meaningful - 1, 6);
+                writer.write(xor >>> trailing, meaningful);
+                previousLeading = leading;
+                previousTrailing = trailing;
+            }
+        }
+
+        private void flush() throws IOException {
+            if (tailHeader == null || dirtyFrom == Integer.MAX_VALUE) {
+                return;
+            }
+            int end = HEADER_BYTES + (tailHeader.bitLength + 7) / 8;
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+                if (channel.size() < tailHeader.offset + blockBytes) {
+                    channel.write(ByteBuffer.wrap(new byte[blockBytes]), tailHeader.offset);
+                    blocksWritten.incrementAndGet();
+                }
+                int from = Math.max(HEADER_BYTES, dirtyFrom);
+                if (from < end) {
+                    writeFully(channel, ByteBuffer.wrap(tail, from, end - from), tailHeader.offset + from);
+                }
+                ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+                tailHeader.write(header);
+                writeFully(channel, header.flip(), tailHeader.offset);
+            }
+            dirtyFrom = Integer.MAX_VALUE;
+        }
+
+        private void points(long fromDay, long toDay, Map<String, Object> result) throws IOException {
+            List<Map<String, Object>> points = new ArrayList<>();
+            int decoded = 0;
+            boolean truncated = false;
+            for (BlockHeader block : blocks) {
+                if (!block.overlaps(fromDay, toDay)) {
+                    continue;
+                }
+                BlockDecoder decoder = new BlockDecoder(block == tailHeader ? tail : readBlock(block), block);
+                decoded++;
+                while (decoder.next() && decoder.day <= toDay) {
+                    if (decoder.day < fromDay) {
+                        continue;
+                    }
+                    if (points.size() >= maxScanPoints) {
+                        truncated = true;
+                        break;
+                    }
+                    Map<String, Object> point = new LinkedHashMap<>();
+                    point.put("date", LocalDate.ofEpochDay(decoder.day));
+                    point.put("value", Double.longBitsToDouble(decoder.bits));
+                    points.add(point);
+                }
+                if (truncated) {
+                    break;
+                }
+            }
+            blocksDecoded.addAndGet(decoded);
+            result.put("points", points);
+            if (truncated) {
+                result.put("truncated", true);
+            }
+            result.put("blocks", blocks.size());
+            result.put("blocksDecoded", decoded);
+        }
+
+        private void downsample(long fromDay, long toDay, int bucketDays, Map<String, Object> result)
+                throws IOException {
+            TreeMap<Long, double[]> buckets = new TreeMap<>();
+            int decoded = 0;
+            int summarized = 0;
+            for (BlockHeader block : blocks) {
+                if (!block.overlaps(fromDay, toDay)) {
+                    continue;
+                }
+                long firstBucket = Math.floorDiv(block.firstDay, bucketDays);
+                if (block.firstDay >= fromDay && block.lastDay <= toDay
+                        && firstBucket == Math.floorDiv(block.lastDay, bucketDays)) {
+                    accumulate(buckets, firstBucket, block.count, block.sum, block.min, block.max);
+                    summarized++;
+                    continue;
+                }
+                BlockDecoder decoder = new BlockDecoder(block == tailHeader ? tail : readBlock(block), block);
+                decoded++;
+                while (decoder.next() && decoder.day <= toDay) {
+                    if (decoder.day >= fromDay) {
+                        double value = Double.longBitsToDouble(decoder.bits);
+                        accumulate(buckets, Math.floorDiv(decoder.day, bucketDays), 1, value, value, value);
+                    }
+                }
+            }
+            blocksDecoded.addAndGet(decoded);
+            blocksSummarized.addAndGet(summarized);
+
+            List<Map<String, Object>> out = new ArrayList<>();
+            for (Map.Entry<Long, double[]> entry : buckets.entrySet()) {
+                double[] bucket = entry.getValue();
+                Map<String, Object> row = new LinkedHashMap<>();
+                row.put("start", LocalDate.ofEpochDay(entry.getKey() * bucketDays));
+                row.put("count", (long) bucket[0]);
+                row.put("mean", bucket[1] / bucket[0]);
+                row.put("min", bucket[2]);
+                row.put("max", bucket[3]);
+                out.add(row);
+            }
+            result.put("bucketDays", bucketDays);
+            result.put("buckets", out);
+            result.put("blocks", blocks.size());
+            result.put("blocksDecoded", decoded);
+            result.put("blocksSummarized", summarized);
+        }
+
+        private void accumulate(TreeMap<Long, double[]> buckets, long bucket, long count, double sum, double min,
+                double max) {
+            double[] stats = buckets.computeIfAbsent(bucket,
+                    k -> new double[] { 0, 0, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY });
+            stats[0] += count;
+            stats[1] += sum;
+            stats[2] = Math.min(stats[2], min);
+            stats[3] = Math.max(stats[3], max);
+        }
+
+        private byte[] readBlock(BlockHeader block) throws IOException {
+            byte[] bytes = new byte[blockBytes];
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                readFully(channel, ByteBuffer.wrap(bytes), block.offset);
+            }
+            return bytes;
+        }
+    }
+
+    private static final class BlockHeader {
+        private final long offset;
+        private int count;
+        private int bitLength;
+        private long firstDay;
+        private long lastDay;
+        private double min = Double.POSITIVE_INFINITY;
+        private double max = Double.NEGATIVE_INFINITY;
+        private double sum;
+
+        private BlockHeader(long offset) {
+            this.offset = offset;
+        }
+
+        private static BlockHeader read(ByteBuffer buffer, long offset) {
+            if (buffer.getInt(0) != MAGIC || buffer.getInt(4) <= 0) {
+                return null;
+            }
+            BlockHeader header = new BlockHeader(offset);
+            header.count = buffer.getInt(4);
+            header.bitLength = buffer.getInt(8);
+            header.firstDay = buffer.getLong(16);
+            header.lastDay = buffer.getLong(24);
+            header.min = buffer.getDouble(32);
+            header.max = buffer.getDouble(40);
+            header.sum = buffer.getDouble(48);
+            return header;
+        }
+
+        private void write(ByteBuffer buffer) {
+            buffer.putInt(MAGIC).putInt(count).putInt(bitLength).putInt(0)
+                    .putLong(firstDay).putLong(lastDay)
+                    .putDouble(min).putDouble(max).putDouble(sum).putLong(0);
+        }
+
+        private void add(long day, double value, int bitLength) {
+            this.count++;
+            this.bitLength = bitLength;
+            this.lastDay = day;
+            this.min = Math.min(min, value);
+            this.max = Math.max(max, value);
+            this.sum += value;
+        }
+
+        private boolean overlaps(long fromDay, long toDay) {
+            return firstDay <= toDay && lastDay >= fromDay;
+        }
+    }
+
+    private static final class BlockDecoder {
+        private final BitReader reader;
+        private final BlockHeader header;
+        private int index;
+        private long day;
+        private long delta;
+        private long bits;
+        private int leading = -1;
+        private int trailing;
+
+        private BlockDecoder(byte[] block, BlockHeader header) {
+            this.reader = new BitReader(block);
+            this.header = header;
+        }
+
+        private boolean next() {
+            if (index >= header.count) {
+                return false;
+            }
+            if (index == 0) {
+                day = header.firstDay;
+                bits = reader.read(64);
+            } else {
+                delta += readDeltaOfDelta();
+                day += delta;
+                if (reader.read(1) == 1) {
+                    if (reader.read(1) == 1) {
+                        leading = (int) reader.read(5);
+                        int meaningful = (int) reader.read(6) + 1;
+                        trailing = 64 - leading - meaningful;
+                    }
+                    bits ^= reader.read(64 - leading - trailing) << trailing;
+                }
+            }
+            index++;
+            return true;
+        }
+
+        private long readDeltaOfDelta() {
+            if (reader.read(1) == 0) {
+                return 0;
+            }
+            if (reader.read(1) == 0) {
+                return reader.readSigned(7);
+            }
+            if (reader.read(1) == 0) {
+                return reader.readSigned(9);
+            }
+            if (reader.read(1) == 0) {
+                return reader.readSigned(12);
+            }
+            return reader.read(64);
+        }
+    }
+
+    private static final class BitWriter {
+        private final byte[] bytes;
+        private int position;
+
+        private BitWriter(byte[] bytes, int position) {
+            this.bytes = bytes;
+            this.position = position;
+        }
+
+        private void write(long value, int count) {
+            for (int i = count - 1; i >= 0; i--) {
+                int index = HEADER_BYTES + (position >>> 3);
+                if (((value >>> i) & 1) != 0) {
+                    bytes[index] |= (byte) (0x80 >>> (position & 7));
+                } else {
+                    bytes[index] &= (byte) ~(0x80 >>> (position & 7));
+                }
+                position++;
+            }
+        }
+    }
+
+    private static final class BitReader {
+        private final byte[] bytes;
+        private int position;
+
+        private BitReader(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        private long read(int count) {
+            long value = 0;
+            for (int i = 0; i < count; i++) {
+                int bit = (bytes[HEADER_BYTES + (position >>> 3)] >>> (7 - (position & 7))) & 1;
+                value = (value << 1) | bit;
+                position++;
+            }
+            return value;
+        }
+
+        private long readSigned(int count) {
+            long value = read(count);
+            return (value << (64 - count)) >> (64 - count);
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of series file");
+            }
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        long offset = position - buffer.position();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, offset + buffer.position());
+        }
+    }
+}
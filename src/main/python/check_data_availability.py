@@ -7,6 +7,19 @@ from datetime import datetime
 
 warnings.filterwarnings("ignore")
 
+def fetch_tile_scenes(tiles, start_date, end_date):
+    per_tile = {}
+    for name, bounds in tiles.items():
+        collection = ee.ImageCollection('COPERNICUS/S2_SR_HARMONIZED') \
+                      .filterBounds(ee.Geometry.Rectangle(bounds, None, False)) \
+                      .filterDate(ee.Date(start_date), ee.Date(end_date))
+        per_tile[name] = ee.Dictionary({
+            'ids': collection.aggregate_array('system:index'),
+            'times': collection.aggregate_array('system:time_start'),
+            'clouds': collection.aggregate_array('CLOUDY_PIXEL_PERCENTAGE')
+        })
+    return {'tiles': ee.Dictionary(per_tile).getInfo()}
+
 def main():
     try:
         if len(sys.argv) < 2:
@@ -14,7 +27,11 @@ def main():
             print(json.dumps({"error": error_msg}))
             sys.exit(1)
         
-        geometry_json = sys.argv[1]
+        tiles_mode = sys.argv[1] == '--tiles'
+        if tiles_mode:
+            tiles = json.loads(sys.stdin.read())['tiles']
+        else:
+            geometry_json = sys.stdin.read() if sys.argv[1] == '-' else sys.argv[1]
         start_date = sys.argv[2] if len(sys.argv) > 2 else '2024-01-01'
         end_date = sys.argv[3] if len(sys.argv) > 3 else '2024-12-31'
 
@@ -38,6 +55,10 @@ def main():
             print(json.dumps({"error": error_msg}))
             sys.exit(1)
 
+        if tiles_mode:
+            print(json.dumps(fetch_tile_scenes(tiles, start_date, end_date)))
+            return
+
         geometry_dict = json.loads(geometry_json)
         
         geom_type = geometry_dict.get('type')
@@ -98,7 +98,7 @@ if __name__ == '__main__':
         print(json.dumps({'error': 'Usage: get_visualization.py <geometry_json> <start_date> <end_date> <parameter>'}))
         sys.exit(1)
     
-    geometry_json = sys.argv[1]
+    geometry_json = sys.stdin.read() if sys.argv[1] == '-' else sys.argv[1]
     start_date = sys.argv[2]
     end_date = sys.argv[3]
     parameter = sys.argv[4]
@@ -0,0 +1,335 @@
+"""Stand-in for the Earth Engine scripts, used for load tests without quota or network access.
+
+Invoked as `simulated_backend.py <script path> <script args...>` with the same stdin the real script would
+read. It prints result JSON shaped like the real script's (values are derived from the geometry, so the same
+zone always gets the same answer) after a log-normal delay, and fails the way Earth Engine does.
+
+Configured through environment variables, all optional:
+  SIMULATOR_LATENCY_SCALE   multiplier on each script's median latency (default 1.0)
+  SIMULATOR_LATENCY_SIGMA   log-normal shape; larger means a longer tail (default 0.5)
+  SIMULATOR_ERROR_RATE      fraction of calls failing with a quota/capacity/unavailable error (default 0)
+  SIMULATOR_TIMEOUT_RATE    fraction of calls that hang until the caller's timeout kills them (default 0)
+  SIMULATOR_CAPACITY        concurrent calls before latency grows; above twice this calls are throttled
+                            (default 0, unlimited)
+  SIMULATOR_STATE_DIR       where concurrent calls are counted (default <tmp>/yield-forecast-simulator)
+  SIMULATOR_SEED            makes delays and failures reproducible
+"""
+import hashlib
+import json
+import math
+import os
+import random
+import sys
+import tempfile
+import time
+from datetime import datetime, timedelta, timezone
+
+SUPPORTED_INDICES = ['NDVI', 'NDMI', 'RECI']
+HISTOGRAM_MIN = -1.0
+HISTOGRAM_MAX = 9.0
+HISTOGRAM_BINS = 500
+MAX_SERIES_SCENES = 200
+REVISIT_DAYS = 5
+
+# Median seconds per call, close to what the real scripts take for a field-sized zone.
+MEDIAN_SECONDS = {
+    'availability': 1.5,
+    'tiles': 1.2,
+    'visualization': 2.5,
+    'forecast': 4.0,
+    'series': 6.0,
+    'segments': 2.5,
+}
+
+UPSTREAM_ERRORS = [
+    'Quota exceeded: Too many concurrent requests.',
+    'User memory limit exceeded. Earth Engine capacity exceeded.',
+    'Computation timed out.',
+    '503 Service Unavailable: The service is currently unavailable.',
+]
+
+VIS_PARAMS = {
+    'NDVI': {'min': -1, 'max': 1, 'palette': ['red', 'yellow', 'green']},
+    'NDMI': {'min': -1, 'max': 1, 'palette': ['blue', 'cyan', 'green']},
+    'RECI': {'min': 0, 'max': 10, 'palette': ['yellow', 'orange', 'red']},
+}
+
+
+def env_float(name, default):
+    try:
+        return float(os.environ.get(name, default))
+    except ValueError:
+        return default
+
+
+def parse_date(value):
+    return datetime.strptime(value, '%Y-%m-%d').replace(tzinfo=timezone.utc)
+
+
+def date_range(start_date, end_date):
+    start_dt = parse_date(start_date)
+    end_dt = parse_date(end_date)
+    if start_dt >= end_dt:
+        end_dt = start_dt + timedelta(days=1)
+    return start_dt, end_dt
+
+
+def zone_random(*parts):
+    digest = hashlib.sha256('|'.join(str(p) for p in parts).encode('utf-8')).digest()
+    return random.Random(int.from_bytes(digest[:8], 'big'))
+
+
+def revisits(seed, start_dt, end_dt):
+    rng = zone_random(seed, 'orbit')
+    day = start_dt + timedelta(days=rng.randrange(REVISIT_DAYS), hours=2, minutes=rng.randrange(60))
+    scenes = []
+    while day < end_dt:
+        scenes.append((day, round(min(100.0, rng.expovariate(1 / 25.0)), 2)))
+        day += timedelta(days=REVISIT_DAYS)
+    return scenes
+
+
+def index_value(seed, parameter, day):
+    rng = zone_random(seed, parameter)
+    season = math.sin(math.pi * (day.timetuple().tm_yday - 80) / 365.0)
+    if parameter == 'NDMI':
+        value = rng.uniform(0.05, 0.3) + 0.15 * season
+    elif parameter == 'RECI':
+        value = rng.uniform(1.0, 2.5) + 1.5 * season
+    else:
+        value = rng.uniform(0.35, 0.6) + 0.25 * season
+    return value + zone_random(seed, parameter, day.date()).gauss(0, 0.02)
+
+
+def index_bands(parameters):
+    return [p for p in parameters if p in SUPPORTED_INDICES] or ['NDVI']
+
+
+def clear_scenes(seed, start_date, end_date):
+    return [day for day, cloud in revisits(seed, *date_range(start_date, end_date)) if cloud < 20]
+
+
+def forecast(seed, parameters, start_date, end_date, with_series):
+    days = clear_scenes(seed, start_date, end_date)
+    bands = index_bands(parameters) if days else []
+    values = {band: [index_value(seed, band, day) for day in days] for band in bands}
+    result = {band: sorted(series)[len(series) // 2] for band, series in values.items()}
+    missing = [p for p in parameters if p not in result]
+    if missing:
+        for p in missing:
+            result[p] = 0.0
+        result['fallbackBands'] = missing
+        result['note'] = f"No data available for {', '.join(missing)} in date range {start_date} to {end_date}. " \
+                         f"Used fallback value 0.0."
+    if with_series and days:
+        result['series'] = {
+            band: [{'date': day.strftime('%Y-%m-%d'), 'value': value}
+                   for day, value in list(zip(days, values[band]))[:MAX_SERIES_SCENES]]
+            for band in bands
+        }
+    return result
+
+
+def segment_stats(seed, parameters, segments, with_series=False):
+    bands = index_bands(parameters)
+    width = (HISTOGRAM_MAX - HISTOGRAM_MIN) / HISTOGRAM_BINS
+    pixels = 200 + zone_random(seed, 'area').randrange(5000)
+    result_segments = []
+    for start, end in segments:
+        days = clear_scenes(seed, start, end)
+        day = next(iter(days), None)
+        stats = {}
+        for band in bands:
+            if day is None:
+                stats[band] = {'sum': 0.0, 'count': 0, 'histogram': []}
+                if with_series:
+                    stats[band]['series'] = []
+                continue
+            rng = zone_random(seed, band, start, end)
+            mean = index_value(seed, band, day)
+            counts = [0] * HISTOGRAM_BINS
+            total = 0.0
+            for _ in range(pixels):
+                value = min(HISTOGRAM_MAX - width, max(HISTOGRAM_MIN, rng.gauss(mean, 0.05)))
+                counts[int((value - HISTOGRAM_MIN) / width)] += 1
+                total += value
+            stats[band] = {
+                'sum': total,
+                'count': pixels,
+                'histogram': [[HISTOGRAM_MIN + i * width, count] for i, count in enumerate(counts)],
+            }
+            if with_series:
+                stats[band]['series'] = [{'date': scene.strftime('%Y-%m-%d'), 'value': index_value(seed, band, scene)}
+                                         for scene in days[:MAX_SERIES_SCENES]]
+        result_segments.append({'start': start, 'end': end, 'stats': stats})
+    return {'parameters': bands, 'segments': result_segments}
+
+
+def availability(seed, start_date, end_date):
+    scenes = sorted(revisits(seed, *date_range(start_date, end_date)), reverse=True)
+    available_dates = [{
+        'date': day.strftime('%Y-%m-%d'),
+        'cloudCoverage': cloud,
+        'quality': 'good' if cloud < 20 else 'medium' if cloud < 50 else 'poor'
+    } for day, cloud in scenes[:10]]
+    return {
+        'totalImages': len(scenes) * 2,
+        'availableDates': available_dates,
+        'dateRange': {'start': start_date, 'end': end_date}
+    }
+
+
+def tile_scenes(tiles, start_date, end_date):
+    start_dt, end_dt = date_range(start_date, end_date)
+    per_tile = {}
+    for name in tiles:
+        scenes = revisits(name[:3], start_dt, end_dt)
+        per_tile[name] = {
+            'ids': [day.strftime('%Y%m%dT%H%M%S') + '_' + day.strftime('%Y%m%dT%H%M%S') + '_T' + name[:3].upper()
+                    for day, _ in scenes],
+            'times': [int(day.timestamp() * 1000) for day, _ in scenes],
+            'clouds': [cloud for _, cloud in scenes],
+        }
+    return {'tiles': per_tile}
+
+
+def visualization(seed, start_date, end_date, parameter):
+    if parameter not in VIS_PARAMS:
+        raise ValueError(f"Unknown parameter: {parameter}")
+    if start_date == end_date:
+        end_date = (parse_date(end_date) + timedelta(days=1)).strftime('%Y-%m-%d')
+    map_id = hashlib.sha1(f'{seed}|{start_date}|{end_date}|{parameter}'.encode('utf-8')).hexdigest()
+    return {
+        'tile_url': 'https://earthengine.googleapis.com/v1/projects/simulated/maps/'
+                    f'{map_id}/tiles/{{z}}/{{x}}/{{y}}',
+        'parameter': parameter,
+        'vis_params': VIS_PARAMS[parameter],
+        'date_range': {'start': start_date, 'end': end_date}
+    }
+
+
+def arg(args, index, default):
+    return args[index] if len(args) > index else default
+
+
+def dispatch(script, args):
+    """Returns (kind, seconds multiplier, function producing the result)."""
+    if script == 'check_data_availability.py':
+        start_date = arg(args, 1, '2024-01-01')
+        end_date = arg(args, 2, '2024-12-31')
+        if args and args[0] == '--tiles':
+            tiles = json.loads(sys.stdin.read())['tiles']
+            return 'tiles', 1 + len(tiles) / 10, lambda: tile_scenes(tiles, start_date, end_date)
+        geometry = sys.stdin.read() if arg(args, 0, '-') == '-' else args[0]
+        return 'availability', 1, lambda: availability(geometry, start_date, end_date)
+
+    if script == 'get_visualization.py':
+        if len(args) != 4:
+            raise ValueError('Usage: get_visualization.py <geometry_json> <start_date> <end_date> <parameter>')
+        geometry = sys.stdin.read() if args[0] == '-' else args[0]
+        return 'visualization', 1, lambda: visualization(geometry, args[1], args[2], args[3])
+
+    if script == 'yield_forecast.py':
+        geometry = sys.stdin.read() if arg(args, 0, '-') == '-' else args[0]
+        parameters = [p for p in arg(args, 1, 'NDVI').split(',') if p]
+        start_date = arg(args, 2, '2024-01-01')
+        end_date = arg(args, 3, '2024-12-31')
+        if len(args) > 5 and args[4] == '--segments':
+            segments = json.loads(args[5])
+            segments_with_series = len(args) > 6 and args[6] == '--series'
+            return 'segments', 1 + len(segments) / 4, \
+                lambda: segment_stats(geometry, parameters, segments, segments_with_series)
+        with_series = len(args) > 4 and args[4] == '--series'
+        return ('series' if with_series else 'forecast'), 1, \
+            lambda: forecast(geometry, parameters, start_date, end_date, with_series)
+
+    raise ValueError(f"Unknown script: {script}")
+
+
+class Slot:
+    """Counts concurrent simulator processes with one marker file each, like a shared Earth Engine quota."""
+
+    def __init__(self, directory):
+        self.directory = directory
+        self.path = None
+
+    def __enter__(self):
+        os.makedirs(self.directory, exist_ok=True)
+        self.path = os.path.join(self.directory, str(os.getpid()))
+        open(self.path, 'w').close()
+        return self
+
+    def __exit__(self, *exc):
+        try:
+            os.remove(self.path)
+        except OSError:
+            pass
+
+    def running(self):
+        count = 0
+        for name in os.listdir(self.directory):
+            try:
+                os.kill(int(name), 0)
+                count += 1
+            except (ValueError, ProcessLookupError):
+                try:
+                    os.remove(os.path.join(self.directory, name))
+                except OSError:
+                    pass
+            except PermissionError:
+                count += 1
+        return count
+
+
+def main():
+    if len(sys.argv) > 1 and sys.argv[1] == '--warmup':
+        return 0
+    if len(sys.argv) < 2:
+        print(json.dumps({"error": "Usage: simulated_backend.py <script> [args...]"}))
+        return 1
+
+    script = os.path.basename(sys.argv[1])
+    try:
+        kind, weight, produce = dispatch(script, sys.argv[2:])
+    except (ValueError, KeyError, json.JSONDecodeError) as e:
+        print(json.dumps({"error": str(e)}))
+        return 1
+
+    seed = os.environ.get('SIMULATOR_SEED')
+    rng = random.Random(f'{seed}|{os.getpid()}|{time.time_ns()}' if seed is None else f'{seed}|{os.getpid()}')
+    capacity = int(env_float('SIMULATOR_CAPACITY', 0))
+    state_dir = os.environ.get('SIMULATOR_STATE_DIR') or os.path.join(tempfile.gettempdir(),
+                                                                      'yield-forecast-simulator')
+
+    with Slot(state_dir) as slot:
+        running = slot.running() if capacity > 0 else 1
+        if capacity > 0 and running > 2 * capacity:
+            time.sleep(0.2)
+            print(json.dumps({"error": UPSTREAM_ERRORS[0]}))
+            return 1
+
+        median = MEDIAN_SECONDS[kind] * weight * env_float('SIMULATOR_LATENCY_SCALE', 1.0)
+        delay = median * math.exp(rng.gauss(0, env_float('SIMULATOR_LATENCY_SIGMA', 0.5)))
+        if capacity > 0:
+            delay *= max(1.0, running / capacity)
+
+        roll = rng.random()
+        timeout_rate = env_float('SIMULATOR_TIMEOUT_RATE', 0.0)
+        if roll < timeout_rate:
+            while True:
+                time.sleep(60)
+        time.sleep(delay)
+        if roll < timeout_rate + env_float('SIMULATOR_ERROR_RATE', 0.0):
+            print(json.dumps({"error": rng.choice(UPSTREAM_ERRORS)}))
+            return 1
+
+        try:
+            print(json.dumps(produce()))
+        except (ValueError, KeyError, json.JSONDecodeError) as e:
+            print(json.dumps({"error": str(e)}))
+            return 1
+    return 0
+
+
+if __name__ == '__main__':
+    sys.exit(main())
@@ -6,6 +6,12 @@ import warnings
 
 warnings.filterwarnings("ignore")
 
+SUPPORTED_INDICES = ['NDVI', 'NDMI', 'RECI']
+HISTOGRAM_MIN = -1.0
+HISTOGRAM_MAX = 9.0
+HISTOGRAM_BINS = 500
+MAX_SERIES_SCENES = 200
+
 def main():
     try:
         if len(sys.argv) < 2:
@@ -13,8 +19,9 @@ def main():
             print(json.dumps({"error": error_msg}))
             sys.exit(1)
         
-        geometry_json = sys.argv[1]
+        geometry_json = sys.stdin.read() if sys.argv[1] == '-' else sys.argv[1]
         parameter = sys.argv[2] if len(sys.argv) > 2 else 'NDVI'
+        parameters = [p for p in parameter.split(',') if p]
         start_date = sys.argv[3] if len(sys.argv) > 3 else '2024-01-01'
         end_date = sys.argv[4] if len(sys.argv) > 4 else '2024-12-31'
 
@@ -58,26 +65,49 @@ def main():
             end_dt = end_dt + timedelta(days=1)
             end_date = end_dt.strftime('%Y-%m-%d')
 
-        def fetch_index_data(start_date_str, end_date_str, parameter_str):
+        def compute_index(image, parameter_str):
+            if parameter_str == 'NDVI':
+                return image.normalizedDifference(['B8', 'B4']).rename(parameter_str)
+            elif parameter_str == 'NDMI':
+                return image.normalizedDifference(['B8', 'B11']).rename(parameter_str)
+            elif parameter_str == 'RECI':
+                return image.expression('(B8 / B5) - 1', {
+                    'B8': image.select('B8'), 
+                    'B5': image.select('B5')
+                }).rename(parameter_str)
+            return image.normalizedDifference(['B8', 'B4']).rename('NDVI')
+
+        def index_bands(parameter_list):
+            return [p for p in parameter_list if p in SUPPORTED_INDICES] or ['NDVI']
+
+        def compute_indices(image, parameter_list):
+            return ee.Image.cat([compute_index(image, p) for p in index_bands(parameter_list)])
+
+        def scene_series(collection, parameter_list):
+            bands = index_bands(parameter_list)
+
+            def scene_means(image):
+                means = compute_indices(image, bands).reduceRegion(
+                    reducer=ee.Reducer.mean(),
+                    geometry=ee_geom,
+                    scale=100,
+                    maxPixels=1e10,
+                    bestEffort=True
+                )
+                return ee.Feature(None, means).set('date', image.date().format('YYYY-MM-dd'))
+
+            return collection.limit(MAX_SERIES_SCENES, 'system:time_start').map(scene_means) \
+                .toList(MAX_SERIES_SCENES).map(lambda feature: ee.Feature(feature).toDictionary())
+
+        def fetch_index_data(start_date_str, end_date_str, parameter_list, with_series=False):
             try:
-                dataset = ee.ImageCollection('COPERNICUS/S2_SR_HARMONIZED') \
+                collection = ee.ImageCollection('COPERNICUS/S2_SR_HARMONIZED') \
                           .filterBounds(ee_geom) \
                           .filterDate(ee.Date(start_date_str), ee.Date(end_date_str)) \
-                          .filter(ee.Filter.lt('CLOUDY_PIXEL_PERCENTAGE', 20)) \
-                          .median() \
-                          .clip(ee_geom)
-
-                if parameter_str == 'NDVI':
-                    index = dataset.normalizedDifference(['B8', 'B4']).rename(parameter_str)
-                elif parameter_str == 'NDMI':
-                    index = dataset.normalizedDifference(['B8', 'B11']).rename(parameter_str)
-                elif parameter_str == 'RECI':
-                    index = dataset.expression('(B8 / B5) - 1', {
-                        'B8': dataset.select('B8'), 
-                        'B5': dataset.select('B5')
-                    }).rename(parameter_str)
-                else:
-                    index = dataset.normalizedDifference(['B8', 'B4']).rename('NDVI')
+                          .filter(ee.Filter.lt('CLOUDY_PIXEL_PERCENTAGE', 20))
+                dataset = collection.median().clip(ee_geom)
+
+                index = compute_indices(dataset, parameter_list)
                 
                 stats = index.reduceRegion(
                     reducer=ee.Reducer.mean(),
@@ -87,25 +117,104 @@ def main():
                     bestEffort=True
                 )
                 
-                result = stats.getInfo()
-                return result if result and parameter_str in result else None
+                if with_series:
+                    info = ee.Dictionary({'stats': stats, 'series': scene_series(collection, parameter_list)}) \
+                        .getInfo()
+                    result = info.get('stats')
+                else:
+                    result = stats.getInfo()
+                result = {key: value for key, value in (result or {}).items() if value is not None}
+                if not any(p in result for p in parameter_list):
+                    return None
+                if with_series:
+                    result['series'] = {
+                        band: [{'date': scene['date'], 'value': scene[band]}
+                               for scene in info.get('series') or [] if scene.get(band) is not None]
+                        for band in index_bands(parameter_list)
+                    }
+                return result
             except Exception as e:
                 return None
+
+        def fetch_segment_stats(segments, parameter_list, with_series=False):
+            reducer = ee.Reducer.sum().unweighted() \
+                .combine(ee.Reducer.count(), sharedInputs=True) \
+                .combine(ee.Reducer.fixedHistogram(HISTOGRAM_MIN, HISTOGRAM_MAX, HISTOGRAM_BINS).unweighted(),
+                         sharedInputs=True)
+            bands = index_bands(parameter_list)
+
+            def segment_stats(segment):
+                segment = ee.List(segment)
+                collection = ee.ImageCollection('COPERNICUS/S2_SR_HARMONIZED') \
+                    .filterBounds(ee_geom) \
+                    .filterDate(ee.Date(segment.get(0)), ee.Date(segment.get(1))) \
+                    .filter(ee.Filter.lt('CLOUDY_PIXEL_PERCENTAGE', 20))
+                stats = compute_indices(collection.median().clip(ee_geom), bands).reduceRegion(
+                    reducer=reducer,
+                    geometry=ee_geom,
+                    scale=100,
+                    maxPixels=1e10,
+                    bestEffort=True
+                )
+                result = ee.Dictionary({'stats': stats})
+                if with_series:
+                    result = result.set('series', scene_series(collection, bands))
+                return ee.Algorithms.If(collection.size().gt(0), result, ee.Dictionary({}))
+
+            stats_list = ee.List(segments).map(segment_stats).getInfo()
+
+            result_segments = []
+            for segment, computed in zip(segments, stats_list):
+                stats = (computed or {}).get('stats') or {}
+                series = (computed or {}).get('series') or []
+                band_stats = {}
+                for band in bands:
+                    band_stats[band] = {
+                        'sum': stats.get(band + '_sum') or 0.0,
+                        'count': stats.get(band + '_count') or 0,
+                        'histogram': stats.get(band + '_histogram') or []
+                    }
+                    if with_series:
+                        band_stats[band]['series'] = [{'date': scene['date'], 'value': scene[band]}
+                                                      for scene in series if scene.get(band) is not None]
+                result_segments.append({
+                    'start': segment[0],
+                    'end': segment[1],
+                    'stats': band_stats
+                })
+            return {'parameters': bands, 'segments': result_segments}
+
+        if len(sys.argv) > 6 and sys.argv[5] == '--segments':
+            segments_with_series = len(sys.argv) > 7 and sys.argv[7] == '--series'
+            print(json.dumps(fetch_segment_stats(json.loads(sys.argv[6]), parameters, segments_with_series)))
+            return
         
-        result = fetch_index_data(start_date, end_date, parameter)
-        
-        if not result:
+        with_series = len(sys.argv) > 5 and sys.argv[5] == '--series'
+        result = fetch_index_data(start_date, end_date, parameters, with_series) or {}
+
+        missing = [p for p in parameters if p not in result]
+        if missing:
             start_dt = datetime.strptime(start_date, '%Y-%m-%d')
             end_dt = datetime.strptime(end_date, '%Y-%m-%d')
             start_dt = start_dt.replace(year=start_dt.year - 1)
             end_dt = end_dt.replace(year=end_dt.year - 1)
             start_date_prev = start_dt.strftime('%Y-%m-%d')
             end_date_prev = end_dt.strftime('%Y-%m-%d')
-            result = fetch_index_data(start_date_prev, end_date_prev, parameter)
+            previous = fetch_index_data(start_date_prev, end_date_prev, missing) or {}
+            filled = [p for p in missing if p in previous]
+            for p in filled:
+                result[p] = previous[p]
+            if filled:
+                result['previousYearBands'] = filled
+
+        missing = [p for p in parameters if p not in result]
+        if missing:
+            for p in missing:
+                result[p] = 0.0
+            result['fallbackBands'] = missing
+            result['note'] = f"No data available for {', '.join(missing)} in date range {start_date} to {end_date}. " \
+                             f"Used fallback value 0.0."
 
-        if not result:
-            result = {parameter: 0.0, "note": f"No data available for date range {start_date} to {end_date}. Used fallback value 0.0."}
-        
         print(json.dumps(result))
 
     except json.JSONDecodeError as e:
@@ -0,0 +1,134 @@
+package com.yieldforecast.config;
+
+import com.yieldforecast.entity.YieldRecord;
+import com.yieldforecast.repository.YieldRecordRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(IdGeneratorInitializer.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class BlockIdGeneratorTest {
+
+    private static final int THREADS = 8;
+    private static final int INSERTS_PER_THREAD = 150;
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) throws Exception {
+        Path dir = Files.createTempDirectory("block-id-generator");
+        registry.add("spring.datasource.url",
+                () -> "jdbc:sqlite:" + dir.resolve("test.db") + "?journal_mode=WAL&busy_timeout=10000");
+        registry.add("spring.jpa.show-sql", () -> "false");
+    }
+
+    @Autowired
+    private YieldRecordRepository repository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private IdGeneratorInitializer initializer;
+
+    @Test
+    void concurrentSingleInsertsGetDistinctIds() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            futures.add(pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < INSERTS_PER_THREAD; i++) {
+                    YieldRecord record = new YieldRecord();
+                    record.setLocation("concurrent");
+                    ids.add(repository.save(record).getId());
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(2, TimeUnit.MINUTES);
+        }
+        pool.shutdown();
+
+        assertEquals(THREADS * INSERTS_PER_THREAD, ids.size());
+        assertEquals(THREADS * INSERTS_PER_THREAD, repository.count());
+        Long counter = jdbcTemplate.queryForObject("SELECT next_value FROM " + YieldRecord.ID_GENERATOR_TABLE
+                + " WHERE generator = ?", Long.class, YieldRecord.ID_GENERATOR_KEY);
+        assertTrue(ids.stream().allMatch(id -> id < counter), "ids are below the reserved counter");
+    }
+
+    @Test
+    void initializerMovesCounterPastExistingRows() {
+        long max = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM yield_records", Long.class);
+        jdbcTemplate.update("INSERT INTO yield_records (id, location) VALUES (?, 'imported')", max + 1000);
+        initializer.alignYieldRecordIds();
+
+        Long counter = jdbcTemplate.queryForObject("SELECT next_value FROM " + YieldRecord.ID_GENERATOR_TABLE
+                + " WHERE generator = ?", Long.class, YieldRecord.ID_GENERATOR_KEY);
+        assertTrue(counter > max + 1000);
+    }
+
+    @Test
+    void initializerNeverMovesTheCounterBackwards() throws Exception {
+        jdbcTemplate.update("UPDATE " + YieldRecord.ID_GENERATOR_TABLE + " SET next_value = next_value + 100000"
+                + " WHERE generator = ?", YieldRecord.ID_GENERATOR_KEY);
+        Long reserved = jdbcTemplate.queryForObject("SELECT next_value FROM " + YieldRecord.ID_GENERATOR_TABLE
+                + " WHERE generator = ?", Long.class, YieldRecord.ID_GENERATOR_KEY);
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        for (int t = 0; t < THREADS; t++) {
+            boolean initializing = t % 2 == 0;
+            futures.add(pool.submit(() -> {
+                for (int i = 0; i < 50; i++) {
+                    if (initializing) {
+                        initializer.alignYieldRecordIds();
+                    } else {
+                        YieldRecord record = new YieldRecord();
+                        record.setLocation("racing startup");
+                        ids.add(repository.save(record).getId());
+                    }
+                }
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(2, TimeUnit.MINUTES);
+        }
+        pool.shutdown();
+
+        assertEquals(THREADS / 2 * 50, ids.size());
+        Long counter = jdbcTemplate.queryForObject("SELECT next_value FROM " + YieldRecord.ID_GENERATOR_TABLE
+                + " WHERE generator = ?", Long.class, YieldRecord.ID_GENERATOR_KEY);
+        assertTrue(counter > reserved);
+        jdbcTemplate.update("DELETE FROM yield_records WHERE location = 'racing startup'");
+    }
+}
@@ -0,0 +1,63 @@
+package com.yieldforecast.config;
+
+import com.yieldforecast.entity.User;
+import com.yieldforecast.repository.UserRepository;
+import com.yieldforecast.service.EntityCache;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({ IdGeneratorInitializer.class, EntityCache.class, EntityCacheListener.class })
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class EntityCacheListenerTest {
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) throws Exception {
+        Path dir = Files.createTempDirectory("entity-cache-listener");
+        registry.add("spring.datasource.url",
+                () -> "jdbc:sqlite:" + dir.resolve("test.db") + "?journal_mode=WAL&busy_timeout=10000");
+        registry.add("spring.jpa.show-sql", () -> "false");
+    }
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityCache entityCache;
+
+    @SuppressWarnings("unchecked")
+    private long invalidations() {
+        return (Long) ((Map<String, Object>) entityCache.snapshot().get("users")).get("invalidations");
+    }
+
+    @Test
+    void committedUpdatesAndDeletesEvictTheCachedUser() {
+        User saved = userRepository.save(new User("listener@example.com", "hash", "Before", null, null));
+        assertEquals("Before", entityCache.findUser(saved.getId()).orElseThrow().getFullName());
+
+        User loaded = userRepository.findById(saved.getId()).orElseThrow();
+        loaded.setFullName("After");
+        userRepository.save(loaded);
+        assertEquals(1, invalidations());
+        assertEquals("After", entityCache.findUser(saved.getId()).orElseThrow().getFullName());
+
+        userRepository.deleteById(saved.getId());
+        assertEquals(2, invalidations());
+        assertEquals(Optional.empty(), entityCache.findUser(saved.getId()));
+    }
+}
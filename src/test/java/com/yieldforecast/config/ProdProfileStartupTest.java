@@ -0,0 +1,102 @@
+package com.yieldforecast.config;
+
+import com.yieldforecast.YieldForecastApplication;
+import com.yieldforecast.service.StartupWarmupService;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.availability.ApplicationAvailability;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ProdProfileStartupTest {
+
+    @TempDir
+    static Path directory;
+
+    /** The prod profile only validates the schema, so a default-profile run creates it first. */
+    @BeforeAll
+    static void migrate() {
+        start(Map.of("startup.warmup.enabled", false)).close();
+    }
+
+    private static ConfigurableApplicationContext start(Map<String, Object> overrides, String... profiles) {
+        Map<String, Object> properties = new LinkedHashMap<>();
+        properties.put("spring.datasource.url",
+                "jdbc:sqlite:" + directory.resolve("prod.db") + "?journal_mode=WAL&busy_timeout=10000");
+        properties.put("spring.jpa.show-sql", false);
+        properties.put("server.port", 0);
+        properties.put("forecast.result-store.directory", directory.resolve("result-store"));
+        properties.put("raster.store.directory", directory.resolve("raster-store"));
+        properties.put("series.store.directory", directory.resolve("series-store"));
+        properties.put("python.executable", "python3");
+        properties.put("python.simulator.script", "src/main/python/simulated_backend.py");
+        properties.putAll(overrides);
+        String[] args = properties.entrySet().stream().map(e -> "--" + e.getKey() + "=" + e.getValue())
+                .toArray(String[]::new);
+        return new SpringApplicationBuilder(YieldForecastApplication.class)
+                .profiles(profiles)
+                .run(args);
+    }
+
+    private static Map<String, Object> awaitWarmup(ConfigurableApplicationContext context) throws Exception {
+        StartupWarmupService warmup = context.getBean(StartupWarmupService.class);
+        long deadline = System.currentTimeMillis() + 60_000;
+        while (!warmup.snapshot().containsKey("completedMs")) {
+            assertTrue(System.currentTimeMillis() < deadline, "warmup did not finish");
+            Thread.sleep(50);
+        }
+        return warmup.snapshot();
+    }
+
+    @Test
+    void prodProfileStartsValidatesTheSchemaAndWarmsUp() throws Exception {
+        try (ConfigurableApplicationContext context = start(Map.of(), "prod")) {
+            var beanFactory = context.getBeanFactory();
+            assertFalse(beanFactory.getBeanDefinition("tokenService").isLazyInit());
+            assertFalse(beanFactory.getBeanDefinition("loginThrottle").isLazyInit());
+            assertTrue(beanFactory.getBeanDefinition("yieldBulkService").isLazyInit());
+
+            Map<String, Object> status = awaitWarmup(context);
+            assertEquals(List.of(), status.get("failures"));
+            assertEquals(true, status.get("pythonReady"));
+            assertTrue((Integer) status.get("lazyBeansInitialized") > 0);
+            assertTrue(beanFactory.containsSingleton("yieldBulkService"));
+            assertEquals(ReadinessState.ACCEPTING_TRAFFIC,
+                    context.getBean(ApplicationAvailability.class).getReadinessState());
+        }
+    }
+
+    @Test
+    void aFailedWarmupRefusesTraffic() throws Exception {
+        try (ConfigurableApplicationContext context = start(Map.of("python.executable", "/nonexistent/python3"),
+                "prod")) {
+            Map<String, Object> status = awaitWarmup(context);
+            assertEquals(List.of("python"), status.get("failures"));
+            assertEquals(ReadinessState.REFUSING_TRAFFIC,
+                    context.getBean(ApplicationAvailability.class).getReadinessState());
+        }
+    }
+
+    @Test
+    void invalidSettingsOfEagerBeansFailTheStart() {
+        Exception e = assertThrows(Exception.class,
+                () -> start(Map.of("auth.mode", "token", "auth.token.secret", "too-short"), "prod").close());
+        Throwable cause = e;
+        while (cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        assertEquals("auth.token.secret must be at least 32 bytes", cause.getMessage());
+    }
+}
@@ -0,0 +1,67 @@
+package com.yieldforecast.controller;
+
+import com.yieldforecast.entity.User;
+import com.yieldforecast.service.AuthService;
+import com.yieldforecast.service.TokenService;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AuthControllerTest {
+
+    private final AuthService authService = mock(AuthService.class);
+    private final TokenService tokenService = new TokenService();
+    private final AuthController controller = new AuthController();
+
+    AuthControllerTest() {
+        ReflectionTestUtils.setField(tokenService, "mode", "token");
+        ReflectionTestUtils.setField(tokenService, "secret", "current-secret-with-at-least-32-bytes");
+        ReflectionTestUtils.setField(tokenService, "previousSecret", "");
+        ReflectionTestUtils.setField(tokenService, "accessTtlSeconds", 900L);
+        ReflectionTestUtils.setField(tokenService, "refreshTtlSeconds", 3600L);
+        ReflectionTestUtils.setField(tokenService, "issuer", "yield-forecast");
+        ReflectionTestUtils.invokeMethod(tokenService, "init");
+        ReflectionTestUtils.setField(controller, "authService", authService);
+        ReflectionTestUtils.setField(controller, "tokenService", tokenService);
+    }
+
+    private static User user(long tokenVersion) {
+        User user = new User("farmer@example.com", "x", "Farmer", null, null);
+        user.setId(7L);
+        user.setTokenVersion(tokenVersion);
+        return user;
+    }
+
+    private String refreshToken(long tokenVersion) {
+        return (String) tokenService.issueTokens(user(tokenVersion)).get("refreshToken");
+    }
+
+    @Test
+    void refreshTokensIssuedBeforeALogoutAreRevoked() {
+        String token = refreshToken(0);
+        when(authService.loadUser(7L)).thenReturn(Optional.of(user(0)));
+        assertEquals(200, controller.refresh(Map.of("refreshToken", token)).getStatusCode().value());
+
+        controller.logout(new MockHttpServletRequest(), 7L);
+        verify(authService).revokeTokens(7L);
+        when(authService.loadUser(7L)).thenReturn(Optional.of(user(1)));
+
+        assertEquals(401, controller.refresh(Map.of("refreshToken", token)).getStatusCode().value());
+        assertEquals(200, controller.refresh(Map.of("refreshToken", refreshToken(1))).getStatusCode().value());
+    }
+
+    @Test
+    void logoutWithoutAnAccessTokenRevokesNothing() {
+        controller.logout(new MockHttpServletRequest(), null);
+        verify(authService, never()).revokeTokens(null);
+    }
+}
@@ -0,0 +1,70 @@
+package com.yieldforecast.controller;
+
+import com.yieldforecast.entity.User;
+import com.yieldforecast.service.AuthorizationService;
+import com.yieldforecast.service.EntityCache;
+import com.yieldforecast.service.PythonCircuitBreaker;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class HealthControllerTest {
+
+    private static final String FAILURE = "Python script failed with code 1: Traceback (most recent call last):"
+            + " File \"/srv/app/.venv/lib/ee/data.py\"";
+
+    private final HealthController controller = new HealthController();
+
+    HealthControllerTest() {
+        PythonCircuitBreaker breaker = new PythonCircuitBreaker();
+        ReflectionTestUtils.setField(breaker, "windowSize", 20);
+        ReflectionTestUtils.setField(breaker, "minimumCalls", 5);
+        ReflectionTestUtils.setField(breaker, "failureRateThreshold", 0.5);
+        ReflectionTestUtils.setField(breaker, "openDurationSeconds", 60L);
+        ReflectionTestUtils.setField(breaker, "halfOpenProbes", 2);
+        breaker.init();
+        for (int i = 0; i < 5; i++) {
+            breaker.onFailure(false, FAILURE);
+        }
+
+        EntityCache entityCache = mock(EntityCache.class);
+        when(entityCache.findUser(1L)).thenReturn(Optional.of(new User("admin@example.com", "x", "Admin", null, null)));
+        when(entityCache.findUser(2L)).thenReturn(Optional.of(new User("user@example.com", "x", "User", null, null)));
+        AuthorizationService authorizationService = new AuthorizationService();
+        ReflectionTestUtils.setField(authorizationService, "entityCache", entityCache);
+        ReflectionTestUtils.setField(authorizationService, "adminEmails", List.of("admin@example.com"));
+
+        ReflectionTestUtils.setField(controller, "circuitBreaker", breaker);
+        ReflectionTestUtils.setField(controller, "authorizationService", authorizationService);
+    }
+
+    @Test
+    void circuitStateHidesFailureDetailsFromNonAdmins() {
+        for (Long userId : new Long[] { null, 2L }) {
+            ResponseEntity<Map<String, Object>> response = controller.getCircuitState(userId);
+            assertEquals(503, response.getStatusCode().value());
+            assertEquals("OPEN", response.getBody().get("state"));
+            assertEquals(true, response.getBody().get("open"));
+            assertFalse(response.getBody().containsKey("lastFailure"));
+            assertFalse(response.getBody().toString().contains("Traceback"));
+        }
+    }
+
+    @Test
+    void circuitStateShowsTheSnapshotToAdmins() {
+        ResponseEntity<Map<String, Object>> response = controller.getCircuitState(1L);
+        assertEquals(503, response.getStatusCode().value());
+        assertEquals(FAILURE, response.getBody().get("lastFailure"));
+        assertTrue(response.getBody().containsKey("windowFailures"));
+    }
+}
@@ -0,0 +1,101 @@
+package com.yieldforecast.controller;
+
+import com.yieldforecast.entity.YieldRecord;
+import com.yieldforecast.repository.YieldRecordRepository;
+import com.yieldforecast.service.AuthorizationService;
+import com.yieldforecast.service.EntityCache;
+import com.yieldforecast.service.YieldRecordJsonWriter;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDate;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class YieldRecordControllerTest {
+
+    private final YieldRecordRepository repository = mock(YieldRecordRepository.class);
+    private final YieldRecordJsonWriter jsonWriter = mock(YieldRecordJsonWriter.class);
+    private final YieldRecordController controller = new YieldRecordController();
+
+    YieldRecordControllerTest() {
+        EntityCache entityCache = mock(EntityCache.class);
+        when(entityCache.findRecord(anyLong())).thenAnswer(call -> repository.findById(call.getArgument(0)));
+        AuthorizationService authorizationService = new AuthorizationService();
+        ReflectionTestUtils.setField(authorizationService, "yieldRecordRepository", repository);
+        ReflectionTestUtils.setField(authorizationService, "entityCache", entityCache);
+
+        when(repository.findById(5L)).thenAnswer(call -> Optional.of(record(5L, 1L)));
+        when(repository.save(any(YieldRecord.class))).thenAnswer(call -> call.getArgument(0));
+
+        ReflectionTestUtils.setField(controller, "repository", repository);
+        ReflectionTestUtils.setField(controller, "authorizationService", authorizationService);
+        ReflectionTestUtils.setField(controller, "jsonWriter", jsonWriter);
+    }
+
+    private static YieldRecord record(Long id, Long userId) {
+        YieldRecord record = new YieldRecord("Field", LocalDate.of(2024, 6, 1), 3.0, 36.0, 127.0, null, "NDVI");
+        record.setId(id);
+        record.setUserId(userId);
+        return record;
+    }
+
+    @Test
+    void recordsAreOnlyReadByTheirOwner() throws Exception {
+        MockHttpServletResponse anonymous = new MockHttpServletResponse();
+        controller.getYieldById(5L, null, null, anonymous);
+        assertEquals(401, anonymous.getStatus());
+
+        MockHttpServletResponse other = new MockHttpServletResponse();
+        controller.getYieldById(5L, null, 2L, other);
+        assertEquals(403, other.getStatus());
+
+        MockHttpServletResponse missing = new MockHttpServletResponse();
+        when(repository.findById(6L)).thenReturn(Optional.empty());
+        controller.getYieldById(6L, null, 1L, missing);
+        assertEquals(404, missing.getStatus());
+        verify(jsonWriter, never()).findOne(any(), any());
+
+        controller.getYieldById(5L, null, 1L, new MockHttpServletResponse());
+        verify(jsonWriter).findOne(any(), any());
+    }
+
+    @Test
+    void recordsAreOnlyUpdatedByTheirOwner() {
+        YieldRecord changes = record(null, 2L);
+        changes.setLocation("Renamed");
+
+        assertEquals(401, assertThrows(ResponseStatusException.class,
+                () -> controller.updateYield(5L, changes, null)).getStatusCode().value());
+        assertEquals(403, assertThrows(ResponseStatusException.class,
+                () -> controller.updateYield(5L, changes, 2L)).getStatusCode().value());
+        verify(repository, never()).save(any());
+
+        YieldRecord updated = controller.updateYield(5L, changes, 1L).getBody();
+        assertEquals("Renamed", updated.getLocation());
+        assertEquals(1L, updated.getUserId());
+    }
+
+    @Test
+    void createdRecordsBelongToTheCaller() {
+        YieldRecord takeover = record(5L, 2L);
+
+        assertEquals(401, assertThrows(ResponseStatusException.class,
+                () -> controller.createYield(takeover, null)).getStatusCode().value());
+
+        YieldRecord created = controller.createYield(takeover, 3L);
+        assertNull(created.getId());
+        assertEquals(3L, created.getUserId());
+    }
+}
@@ -0,0 +1,45 @@
+package com.yieldforecast.repository;
+
+import com.yieldforecast.config.IdGeneratorInitializer;
+import com.yieldforecast.entity.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(IdGeneratorInitializer.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class UserRepositoryTest {
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) throws Exception {
+        Path dir = Files.createTempDirectory("user-repository");
+        registry.add("spring.datasource.url", () -> "jdbc:sqlite:" + dir.resolve("test.db"));
+        registry.add("spring.jpa.show-sql", () -> "false");
+    }
+
+    @Autowired
+    private UserRepository repository;
+
+    @Test
+    void passwordsAreOnlyReplacedWhileTheExpectedHashIsStored() {
+        Long id = repository.save(new User("upgrade@example.com", "legacy-hash", "User", null, null)).getId();
+
+        // the user changed the password while the legacy hash was being re-encoded
+        assertEquals(1, repository.replacePassword(id, "legacy-hash", "changed-hash"));
+        assertEquals(0, repository.replacePassword(id, "legacy-hash", "upgraded-hash"));
+        assertEquals("changed-hash", repository.findById(id).orElseThrow().getPassword());
+    }
+}
@@ -0,0 +1,61 @@
+package com.yieldforecast.repository;
+
+import com.yieldforecast.config.IdGeneratorInitializer;
+import com.yieldforecast.entity.YieldRecord;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(IdGeneratorInitializer.class)
+class YieldRecordRepositoryTest {
+
+    private static final String GEOMETRY = "{\"coordinates\":[127.0,36.0],\"type\":\"Point\"}";
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) throws Exception {
+        Path dir = Files.createTempDirectory("yield-record-repository");
+        registry.add("spring.datasource.url", () -> "jdbc:sqlite:" + dir.resolve("test.db"));
+        registry.add("spring.jpa.show-sql", () -> "false");
+    }
+
+    @Autowired
+    private YieldRecordRepository repository;
+
+    private YieldRecord save(Long userId) {
+        YieldRecord record = new YieldRecord();
+        record.setUserId(userId);
+        record.setLocation("Field");
+        record.setParameter("NDVI");
+        record.setGeometryJson(GEOMETRY);
+        return repository.save(record);
+    }
+
+    @Test
+    void rowsWithoutGeometryLeaveTheColumnOut() {
+        Long id = save(7L).getId();
+        save(8L);
+
+        try (Stream<YieldRecordRow> rows = repository.streamRowsWithoutGeometryByUserId(7L)) {
+            List<YieldRecordRow> list = rows.toList();
+            assertEquals(1, list.size());
+            assertEquals("Field", list.get(0).location());
+            assertNull(list.get(0).geometryJson());
+        }
+        assertNull(repository.findRowWithoutGeometryById(id).orElseThrow().geometryJson());
+        assertEquals(GEOMETRY, repository.findRowById(id).orElseThrow().geometryJson());
+    }
+}
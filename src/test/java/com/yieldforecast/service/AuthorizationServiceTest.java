@@ -0,0 +1,52 @@
+package com.yieldforecast.service;
+
+import com.yieldforecast.entity.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class AuthorizationServiceTest {
+
+    static AuthorizationService authorizationService(String... adminEmails) {
+        EntityCache entityCache = mock(EntityCache.class);
+        when(entityCache.findUser(1L)).thenReturn(Optional.of(new User("Admin@Example.com", "x", "Admin", null, null)));
+        when(entityCache.findUser(2L)).thenReturn(Optional.of(new User("user@example.com", "x", "User", null, null)));
+
+        AuthorizationService service = new AuthorizationService();
+        ReflectionTestUtils.setField(service, "entityCache", entityCache);
+        ReflectionTestUtils.setField(service, "adminEmails", List.of(adminEmails));
+        return service;
+    }
+
+    @Test
+    void requireAdminAcceptsConfiguredEmailsIgnoringCase() {
+        assertDoesNotThrow(() -> authorizationService(" admin@example.com").requireAdmin(1L));
+    }
+
+    @Test
+    void requireAdminRejectsOtherUsers() {
+        AuthorizationService service = authorizationService("admin@example.com");
+
+        assertEquals(HttpStatus.UNAUTHORIZED,
+                assertThrows(ResponseStatusException.class, () -> service.requireAdmin(null)).getStatusCode());
+        assertEquals(HttpStatus.FORBIDDEN,
+                assertThrows(ResponseStatusException.class, () -> service.requireAdmin(2L)).getStatusCode());
+        assertEquals(HttpStatus.FORBIDDEN,
+                assertThrows(ResponseStatusException.class, () -> service.requireAdmin(3L)).getStatusCode());
+    }
+
+    @Test
+    void requireAdminRejectsEveryoneWhenNoAdminIsConfigured() {
+        assertThrows(ResponseStatusException.class, () -> authorizationService("").requireAdmin(1L));
+    }
+}
@@ -0,0 +1,125 @@
+package com.yieldforecast.service;
+
+import com.yieldforecast.entity.User;
+import com.yieldforecast.entity.YieldRecord;
+import com.yieldforecast.repository.UserRepository;
+import com.yieldforecast.repository.YieldRecordRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class EntityCacheTest {
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final YieldRecordRepository recordRepository = mock(YieldRecordRepository.class);
+
+    private EntityCache entityCache(int maxEntries, long ttlSeconds) {
+        EntityCache cache = new EntityCache();
+        ReflectionTestUtils.setField(cache, "enabled", true);
+        ReflectionTestUtils.setField(cache, "maxUsers", maxEntries);
+        ReflectionTestUtils.setField(cache, "maxRecords", maxEntries);
+        ReflectionTestUtils.setField(cache, "ttlSeconds", ttlSeconds);
+        ReflectionTestUtils.setField(cache, "userRepository", userRepository);
+        ReflectionTestUtils.setField(cache, "recordRepository", recordRepository);
+        cache.init();
+        return cache;
+    }
+
+    private static User user(long id) {
+        User user = new User("user" + id + "@example.com", "hash", "User " + id, null, null);
+        user.setId(id);
+        return user;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> users(EntityCache cache) {
+        return (Map<String, Object>) cache.snapshot().get("users");
+    }
+
+    @Test
+    void entriesAreServedUntilTheirTtlRunsOut() {
+        when(userRepository.findById(anyLong())).thenAnswer(call -> Optional.of(user(call.getArgument(0))));
+
+        EntityCache cached = entityCache(10, 300);
+        cached.findUser(1L);
+        cached.findUser(1L);
+        verify(userRepository, times(1)).findById(1L);
+        assertEquals(1L, users(cached).get("hits"));
+
+        EntityCache expired = entityCache(10, 0);
+        expired.findUser(2L);
+        expired.findUser(2L);
+        verify(userRepository, times(2)).findById(2L);
+        assertEquals(0L, users(expired).get("hits"));
+    }
+
+    @Test
+    void theLeastRecentlyUsedEntryIsEvictedPastTheBound() {
+        when(userRepository.findById(anyLong())).thenAnswer(call -> Optional.of(user(call.getArgument(0))));
+        EntityCache cache = entityCache(2, 300);
+
+        cache.findUser(1L);
+        cache.findUser(2L);
+        cache.findUser(1L);
+        cache.findUser(3L);
+        cache.findUser(1L);
+        cache.findUser(2L);
+
+        verify(userRepository, times(1)).findById(1L);
+        verify(userRepository, times(2)).findById(2L);
+        assertEquals(2, users(cache).get("size"));
+        assertEquals(2L, users(cache).get("evictions"));
+    }
+
+    @Test
+    void aLoadThatRacesAnEvictionIsNotCached() {
+        EntityCache cache = entityCache(10, 300);
+        when(userRepository.findById(1L)).thenAnswer(call -> {
+            // another thread commits a change to the user while this load is in flight
+            cache.evictUser(1L);
+            return Optional.of(user(1));
+        });
+
+        cache.findUser(1L);
+        cache.findUser(1L);
+
+        verify(userRepository, times(2)).findById(1L);
+        assertEquals(0, users(cache).get("size"));
+    }
+
+    @Test
+    void callersGetCopiesTheyCannotUseToChangeTheCache() {
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user(1)));
+        YieldRecord record = new YieldRecord("Field", null, 1.5, 36.0, 127.0, "{}", "NDVI");
+        record.setId(5L);
+        record.setUserId(1L);
+        when(recordRepository.findById(5L)).thenReturn(Optional.of(record));
+        EntityCache cache = entityCache(10, 300);
+
+        User first = cache.findUser(1L).orElseThrow();
+        first.setTelegramChatId("123456");
+        first.setTokenVersion(9L);
+        User second = cache.findUser(1L).orElseThrow();
+        assertNotSame(first, second);
+        assertEquals(null, second.getTelegramChatId());
+        assertEquals(0, second.getTokenVersion());
+        assertEquals("user1@example.com", second.getEmail());
+
+        cache.findRecord(5L).orElseThrow().setUserId(2L);
+        YieldRecord cachedRecord = cache.findRecord(5L).orElseThrow();
+        assertEquals(1L, cachedRecord.getUserId());
+        assertEquals(1.5, cachedRecord.getPrediction());
+        assertEquals("NDVI", cachedRecord.getParameter());
+        verify(recordRepository, times(1)).findById(5L);
+    }
+}
@@ -0,0 +1,228 @@
+package com.yieldforecast.service;
+
+import com.yieldforecast.config.IdGeneratorInitializer;
+import com.yieldforecast.dto.ForecastRunRequest;
+import com.yieldforecast.entity.ForecastJob;
+import com.yieldforecast.repository.ForecastJobRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(IdGeneratorInitializer.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ForecastJobServiceTest {
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) throws Exception {
+        Path dir = Files.createTempDirectory("forecast-jobs");
+        registry.add("spring.datasource.url",
+                () -> "jdbc:sqlite:" + dir.resolve("test.db") + "?journal_mode=WAL&busy_timeout=10000");
+        registry.add("spring.jpa.show-sql", () -> "false");
+    }
+
+    @Autowired
+    private ForecastJobRepository repository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final ForecastService forecastService = mock(ForecastService.class);
+    private final List<ForecastJobService> nodes = new ArrayList<>();
+
+    @BeforeEach
+    void clearJobs() {
+        jdbcTemplate.update("DELETE FROM forecast_jobs");
+    }
+
+    @AfterEach
+    void stopNodes() {
+        nodes.forEach(ForecastJobService::stop);
+    }
+
+    private ForecastJobService node(String nodeId) {
+        ForecastJobService service = new ForecastJobService();
+        ReflectionTestUtils.setField(service, "workers", 4);
+        ReflectionTestUtils.setField(service, "leaseSeconds", 60L);
+        ReflectionTestUtils.setField(service, "heartbeatSeconds", 3600L);
+        ReflectionTestUtils.setField(service, "pollIntervalMs", 50L);
+        ReflectionTestUtils.setField(service, "maxAttempts", 3);
+        ReflectionTestUtils.setField(service, "retentionHours", 24L);
+        ReflectionTestUtils.setField(service, "nodeId", nodeId);
+        ReflectionTestUtils.setField(service, "repository", repository);
+        ReflectionTestUtils.setField(service, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(service, "forecastService", forecastService);
+        ReflectionTestUtils.setField(service, "geometryService", mock(GeometryService.class));
+        nodes.add(service);
+        return service;
+    }
+
+    private Long queue(long recordId) {
+        long now = System.currentTimeMillis();
+        ForecastJob job = new ForecastJob();
+        job.setUserId(1L);
+        job.setRecordId(recordId);
+        job.setLocation("Field " + recordId);
+        job.setParameter("NDVI");
+        job.setStartDate(LocalDate.of(2024, 3, 1));
+        job.setEndDate(LocalDate.of(2024, 5, 31));
+        job.setGeometryJson("{}");
+        job.setAvailableAt(now);
+        job.setCreatedAt(now);
+        return repository.save(job).getId();
+    }
+
+    private Map<String, Object> row(Long id) {
+        return jdbcTemplate.queryForMap("SELECT * FROM forecast_jobs WHERE id = ?", id);
+    }
+
+    private void awaitStatus(Long id, ForecastJob.Status status) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!status.name().equals(row(id).get("status")) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertEquals(status.name(), row(id).get("status"));
+    }
+
+    private void blockUntilInterrupted(CountDownLatch started, CountDownLatch interrupted) {
+        doAnswer(invocation -> {
+            started.countDown();
+            try {
+                new CountDownLatch(1).await();
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+                throw new CancellationException("Forecast was interrupted");
+            }
+            return null;
+        }).when(forecastService).processForecast(any(), any(), any(), any());
+    }
+
+    @Test
+    void eachQueuedJobRunsOnceAcrossNodes() throws Exception {
+        Map<Long, AtomicInteger> runs = new ConcurrentHashMap<>();
+        doAnswer(invocation -> {
+            runs.computeIfAbsent(invocation.<ForecastRunRequest>getArgument(0).id(),
+                    id -> new AtomicInteger()).incrementAndGet();
+            Thread.sleep(5);
+            return null;
+        }).when(forecastService).processForecast(any(), any(), any(), any());
+        List<Long> ids = new ArrayList<>();
+        for (long recordId = 1; recordId <= 40; recordId++) {
+            ids.add(queue(recordId));
+        }
+
+        node("node-a").start();
+        node("node-b").start();
+        for (Long id : ids) {
+            awaitStatus(id, ForecastJob.Status.SUCCEEDED);
+        }
+
+        assertEquals(40, runs.size());
+        assertTrue(runs.values().stream().allMatch(count -> count.get() == 1), runs.toString());
+        assertEquals(40, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM forecast_jobs WHERE attempts = 1 AND lease_token IS NULL", Integer.class));
+    }
+
+    @Test
+    void expiredLeasesAreReclaimed() throws Exception {
+        Long id = queue(1);
+        jdbcTemplate.update("UPDATE forecast_jobs SET status = 'RUNNING', lease_owner = 'crashed',"
+                + " lease_token = 'stale', lease_expires_at = ?, attempts = 1 WHERE id = ?",
+                System.currentTimeMillis() - 1000, id);
+
+        node("node-a").start();
+
+        awaitStatus(id, ForecastJob.Status.SUCCEEDED);
+        assertEquals(2, ((Number) row(id).get("attempts")).intValue());
+    }
+
+    @Test
+    void lostLeasesCancelTheLocalRun() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+        blockUntilInterrupted(started, interrupted);
+        Long id = queue(1);
+        ForecastJobService service = node("node-a");
+        service.start();
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        jdbcTemplate.update("UPDATE forecast_jobs SET lease_owner = 'node-b', lease_token = 'taken' WHERE id = ?",
+                id);
+        service.heartbeat();
+
+        assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+        service.stop();
+        assertEquals("RUNNING", row(id).get("status"));
+        assertEquals("taken", row(id).get("lease_token"));
+    }
+
+    @Test
+    void shutdownReturnsRunningJobsToTheQueue() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+        blockUntilInterrupted(started, interrupted);
+        Long id = queue(1);
+        ForecastJobService service = node("node-a");
+        service.start();
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        service.stop();
+
+        assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+        Map<String, Object> job = row(id);
+        assertEquals("QUEUED", job.get("status"));
+        assertEquals(0, ((Number) job.get("attempts")).intValue());
+        assertNull(job.get("lease_token"));
+        assertNull(job.get("last_error"));
+    }
+
+    @Test
+    void finishedJobsArePurgedAfterTheRetentionPeriod() {
+        long now = System.currentTimeMillis();
+        Long old = queue(1);
+        Long recent = queue(2);
+        Long queued = queue(3);
+        jdbcTemplate.update("UPDATE forecast_jobs SET status = 'SUCCEEDED', finished_at = ? WHERE id = ?",
+                now - TimeUnit.HOURS.toMillis(48), old);
+        jdbcTemplate.update("UPDATE forecast_jobs SET status = 'FAILED', finished_at = ? WHERE id = ?",
+                now - TimeUnit.HOURS.toMillis(1), recent);
+        jdbcTemplate.update("UPDATE forecast_jobs SET available_at = ? WHERE id = ?",
+                now - TimeUnit.HOURS.toMillis(48), queued);
+
+        node("node-a").purge();
+
+        assertTrue(repository.findById(old).isEmpty());
+        assertTrue(repository.findById(recent).isPresent());
+        assertTrue(repository.findById(queued).isPresent());
+    }
+}
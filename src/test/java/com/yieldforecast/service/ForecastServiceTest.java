@@ -0,0 +1,151 @@
+package com.yieldforecast.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.yieldforecast.dto.AvailabilityRequest;
+import com.yieldforecast.dto.ForecastRunRequest;
+import com.yieldforecast.dto.GeoJsonGeometry;
+import com.yieldforecast.entity.YieldRecord;
+import com.yieldforecast.repository.YieldRecordRepository;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CancellationException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ForecastServiceTest {
+
+    private final GeometryService geometryService = GeometryServiceTest.geometryService(50000, 20000000L);
+    private final PythonExecutionService pythonExecutionService = mock(PythonExecutionService.class);
+    private final ResultSegmentStore resultStore = mock(ResultSegmentStore.class);
+
+    private ForecastService forecastService() {
+        ForecastService service = new ForecastService();
+        ReflectionTestUtils.setField(service, "cacheTtlMinutes", 60L);
+        ReflectionTestUtils.setField(service, "geometryService", geometryService);
+        ReflectionTestUtils.setField(service, "pythonExecutionService", pythonExecutionService);
+        ReflectionTestUtils.setField(service, "resultStore", resultStore);
+        ReflectionTestUtils.setField(service, "tiledAvailabilityService", mock(TiledAvailabilityService.class));
+        return service;
+    }
+
+    private AvailabilityRequest request() throws Exception {
+        return new AvailabilityRequest(new ObjectMapper().readTree("{\"type\":\"Polygon\",\"coordinates\":"
+                + "[[[127.0,36.0],[127.01,36.0],[127.01,36.01],[127.0,36.01],[127.0,36.0]]]}"),
+                LocalDate.of(2024, 3, 1), LocalDate.of(2024, 5, 31));
+    }
+
+    @Test
+    void cacheHitsDoNotSimplifyTheGeometry() throws Exception {
+        when(resultStore.get(anyString())).thenReturn(Optional.of(ResultPayload.of("{\"available\":true}")));
+
+        assertEquals("{\"available\":true}", forecastService().checkAvailability(request()).asString());
+        assertEquals(0L, geometryService.simplificationSnapshot().get("geometries"));
+        verify(pythonExecutionService, never()).executeScript(anyString(), anyList(), any(), any());
+    }
+
+    @Test
+    void cacheMissesSimplifyOnceAndStoreTheResult() throws Exception {
+        when(resultStore.get(anyString())).thenReturn(Optional.empty());
+        when(pythonExecutionService.executeScript(anyString(), anyList(), anyString(), any()))
+                .thenReturn("log line\n{\"available\":true}");
+        when(resultStore.put(anyString(), anyString())).thenAnswer(
+                invocation -> ResultPayload.of(invocation.getArgument(1)));
+
+        assertEquals("{\"available\":true}", forecastService().checkAvailability(request()).asString());
+        assertEquals(1L, geometryService.simplificationSnapshot().get("geometries"));
+        verify(resultStore).put(anyString(), eq("{\"available\":true}"));
+    }
+
+    @Test
+    void resultsWithFallbackValuesAreNotCached() throws Exception {
+        ForecastService service = forecastService();
+        AvailabilityRequest zone = request();
+        GeoJsonGeometry geometry = geometryService.parse(zone.geometry());
+        ForecastRunRequest run = new ForecastRunRequest(null, "Field", zone.endDate(), "NDVI", zone.startDate(),
+                zone.endDate(), zone.geometry());
+        List<String> parameters = List.of("NDVI", "NDMI");
+
+        ReflectionTestUtils.invokeMethod(service, "cacheForecastResult", parameters, run, geometry,
+                "{\"NDVI\":0.5,\"NDMI\":0.0,\"fallbackBands\":[\"NDMI\"]}");
+        verify(resultStore, never()).put(anyString(), anyString());
+
+        ReflectionTestUtils.invokeMethod(service, "cacheForecastResult", parameters, run, geometry,
+                "{\"NDVI\":0.5,\"NDMI\":0.2}");
+        verify(resultStore, times(2)).put(anyString(), anyString());
+    }
+
+    @Test
+    void interruptedForecastsDoNotNotifyTheUser() throws Exception {
+        ForecastService service = forecastService();
+        EntityCache entityCache = mock(EntityCache.class);
+        ReflectionTestUtils.setField(service, "entityCache", entityCache);
+        ReflectionTestUtils.setField(service, "localZonalStatsService", mock(LocalZonalStatsService.class));
+        ReflectionTestUtils.setField(service, "incrementalForecastService", mock(IncrementalForecastService.class));
+        ReflectionTestUtils.setField(service, "seriesStore", mock(ZoneSeriesStore.class));
+        when(resultStore.get(anyString())).thenReturn(Optional.empty());
+        when(pythonExecutionService.executeScript(anyString(), anyList(), anyString(), any(), any()))
+                .thenThrow(new InterruptedException());
+        AvailabilityRequest zone = request();
+        GeoJsonGeometry geometry = geometryService.parse(zone.geometry());
+        ForecastRunRequest run = new ForecastRunRequest(null, "Field", zone.endDate(), "NDVI", zone.startDate(),
+                zone.endDate(), zone.geometry());
+
+        assertThrows(CancellationException.class, () -> service.processForecast(run, geometry,
+                geometryService.preflight(geometry, zone.startDate(), zone.endDate()), 1L));
+        assertTrue(Thread.interrupted());
+        verify(entityCache, never()).findUser(any());
+    }
+
+    @Test
+    void forecastsOnlyOverwriteRecordsOfTheirOwnUser() throws Exception {
+        ForecastService service = forecastService();
+        YieldRecordRepository repository = mock(YieldRecordRepository.class);
+        YieldModelService yieldModelService = mock(YieldModelService.class);
+        ReflectionTestUtils.setField(service, "repository", repository);
+        ReflectionTestUtils.setField(service, "yieldModelService", yieldModelService);
+        ReflectionTestUtils.setField(service, "transactionManager", mock(PlatformTransactionManager.class));
+        ReflectionTestUtils.setField(service, "entityCache", mock(EntityCache.class));
+        ReflectionTestUtils.setField(service, "seriesStore", mock(ZoneSeriesStore.class));
+        when(yieldModelService.predict(anyDouble(), anyString(), anyDouble(), any(), any())).thenReturn(4.2);
+        YieldRecord owned = new YieldRecord();
+        owned.setId(5L);
+        owned.setUserId(1L);
+        when(repository.findById(5L)).thenReturn(Optional.of(owned));
+        when(repository.save(any(YieldRecord.class))).thenAnswer(call -> call.getArgument(0));
+        AvailabilityRequest zone = request();
+        GeoJsonGeometry geometry = geometryService.parse(zone.geometry());
+        ForecastRunRequest run = new ForecastRunRequest(5L, "Field", zone.endDate(), "NDVI", zone.startDate(),
+                zone.endDate(), zone.geometry());
+
+        ReflectionTestUtils.invokeMethod(service, "saveRecord", "{\"NDVI\":0.5}", geometry, run, 2L);
+        ArgumentCaptor<YieldRecord> saved = ArgumentCaptor.forClass(YieldRecord.class);
+        verify(repository).save(saved.capture());
+        assertNotSame(owned, saved.getValue());
+        assertEquals(2L, saved.getValue().getUserId());
+        assertEquals(1L, owned.getUserId());
+        assertEquals(null, owned.getPrediction());
+
+        ReflectionTestUtils.invokeMethod(service, "saveRecord", "{\"NDVI\":0.5}", geometry, run, 1L);
+        verify(repository).save(owned);
+        assertEquals(4.2, owned.getPrediction());
+    }
+}
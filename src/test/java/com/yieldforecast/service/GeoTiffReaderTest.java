@@ -0,0 +1,300 @@
+package com.yieldforecast.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntBinaryOperator;
+import java.util.zip.Deflater;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GeoTiffReaderTest {
+
+    static final double ORIGIN_LONGITUDE = 127.0;
+    static final double ORIGIN_LATITUDE = 37.0;
+    static final double PIXEL_SIZE = 0.001;
+
+    @TempDir
+    Path directory;
+
+    /**
+     * Writes a single-band 16-bit EPSG:4326 GeoTIFF whose top-left corner is at
+     * ({@link #ORIGIN_LONGITUDE}, {@link #ORIGIN_LATITUDE}) with {@link #PIXEL_SIZE} degree pixels.
+     * A {@code blockWidth} of 0 writes strips of {@code blockHeight} rows instead of tiles.
+     */
+    static void writeTiff(Path file, int width, int height, int blockWidth, int blockHeight, int compression,
+            int predictor, ByteOrder order, String noData, IntBinaryOperator value) throws IOException {
+        boolean tiled = blockWidth > 0;
+        int columns = tiled ? blockWidth : width;
+        int across = tiled ? (width + blockWidth - 1) / blockWidth : 1;
+        int down = (height + blockHeight - 1) / blockHeight;
+
+        List<byte[]> blocks = new ArrayList<>();
+        for (int by = 0; by < down; by++) {
+            for (int bx = 0; bx < across; bx++) {
+                int rows = tiled ? blockHeight : Math.min(blockHeight, height - by * blockHeight);
+                ByteBuffer raw = ByteBuffer.allocate(rows * columns * 2).order(order);
+                for (int y = 0; y < rows; y++) {
+                    int previous = 0;
+                    for (int x = 0; x < columns; x++) {
+                        int row = by * blockHeight + y;
+                        int col = bx * columns + x;
+                        int sample = row < height && col < width ? value.applyAsInt(row, col) : 0;
+                        raw.putShort((short) (predictor == 2 ? sample - previous : sample));
+                        previous = sample;
+                    }
+                }
+                blocks.add(switch (compression) {
+                    case 1 -> raw.array();
+                    case 5 -> lzw(raw.array());
+                    default -> deflate(raw.array());
+                });
+            }
+        }
+
+        ByteArrayOutputStream data = new ByteArrayOutputStream();
+        long[] offsets = new long[blocks.size()];
+        long[] counts = new long[blocks.size()];
+        for (int i = 0; i < blocks.size(); i++) {
+            offsets[i] = 8 + data.size();
+            counts[i] = blocks.get(i).length;
+            data.write(blocks.get(i));
+        }
+        if (data.size() % 2 == 1) {
+            data.write(0);
+        }
+
+        List<Object[]> tags = new ArrayList<>();
+        tags.add(new Object[] { 256, 4, new long[] { width } });
+        tags.add(new Object[] { 257, 4, new long[] { height } });
+        tags.add(new Object[] { 258, 3, new long[] { 16 } });
+        tags.add(new Object[] { 259, 3, new long[] { compression } });
+        tags.add(new Object[] { 262, 3, new long[] { 1 } });
+        if (!tiled) {
+            tags.add(new Object[] { 273, 4, offsets });
+        }
+        tags.add(new Object[] { 277, 3, new long[] { 1 } });
+        if (!tiled) {
+            tags.add(new Object[] { 278, 4, new long[] { blockHeight } });
+            tags.add(new Object[] { 279, 4, counts });
+        }
+        tags.add(new Object[] { 317, 3, new long[] { predictor } });
+        if (tiled) {
+            tags.add(new Object[] { 322, 3, new long[] { blockWidth } });
+            tags.add(new Object[] { 323, 3, new long[] { blockHeight } });
+            tags.add(new Object[] { 324, 4, offsets });
+            tags.add(new Object[] { 325, 4, counts });
+        }
+        tags.add(new Object[] { 339, 3, new long[] { 1 } });
+        tags.add(new Object[] { 33550, 12, new double[] { PIXEL_SIZE, PIXEL_SIZE, 0 } });
+        tags.add(new Object[] { 33922, 12, new double[] { 0, 0, 0, ORIGIN_LONGITUDE, ORIGIN_LATITUDE, 0 } });
+        tags.add(new Object[] { 34735, 3, new long[] { 1, 1, 0, 3, 1024, 0, 1, 2, 1025, 0, 1, 1, 2048, 0, 1,
+                4326 } });
+        if (noData != null) {
+            tags.add(new Object[] { 42113, 2, (noData + "\0").getBytes(StandardCharsets.US_ASCII) });
+        }
+
+        int ifdOffset = 8 + data.size();
+        int extraOffset = ifdOffset + 2 + tags.size() * 12 + 4;
+        ByteBuffer ifd = ByteBuffer.allocate(2 + tags.size() * 12 + 4).order(order);
+        ByteBuffer extra = ByteBuffer.allocate(1 << 16).order(order);
+        ifd.putShort((short) tags.size());
+        for (Object[] tag : tags) {
+            int type = (Integer) tag[1];
+            ByteBuffer payload = ByteBuffer.allocate(1 << 12).order(order);
+            int count;
+            if (tag[2] instanceof double[] doubles) {
+                count = doubles.length;
+                for (double d : doubles) {
+                    payload.putDouble(d);
+                }
+            } else if (tag[2] instanceof byte[] bytes) {
+                count = bytes.length;
+                payload.put(bytes);
+            } else {
+                long[] longs = (long[]) tag[2];
+                count = longs.length;
+                for (long l : longs) {
+                    if (type == 3) {
+                        payload.putShort((short) l);
+                    } else {
+                        payload.putInt((int) l);
+                    }
+                }
+            }
+            payload.flip();
+            ifd.putShort((short) (int) (Integer) tag[0]).putShort((short) type).putInt(count);
+            if (payload.remaining() <= 4) {
+                byte[] inline = new byte[4];
+                payload.get(inline, 0, payload.remaining());
+                ifd.put(inline);
+            } else {
+                ifd.putInt(extraOffset + extra.position());
+                extra.put(payload);
+                if (extra.position() % 2 == 1) {
+                    extra.put((byte) 0);
+                }
+            }
+        }
+        ifd.putInt(0);
+
+        ByteBuffer header = ByteBuffer.allocate(8).order(order);
+        header.put((byte) (order == ByteOrder.LITTLE_ENDIAN ? 'I' : 'M'));
+        header.put((byte) (order == ByteOrder.LITTLE_ENDIAN ? 'I' : 'M'));
+        header.putShort((short) 42).putInt(ifdOffset);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(header.array());
+        data.writeTo(out);
+        out.write(ifd.array());
+        out.write(extra.array(), 0, extra.position());
+        Files.write(file, out.toByteArray());
+    }
+
+    private static byte[] deflate(byte[] data) {
+        Deflater deflater = new Deflater();
+        deflater.setInput(data);
+        deflater.finish();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] chunk = new byte[8192];
+        while (!deflater.finished()) {
+            out.write(chunk, 0, deflater.deflate(chunk));
+        }
+        deflater.end();
+        return out.toByteArray();
+    }
+
+    private static byte[] lzw(byte[] data) {
+        LzwWriter writer = new LzwWriter();
+        Map<Integer, Integer> table = new HashMap<>();
+        int next = 258;
+        int codeLength = 9;
+        writer.write(256, codeLength);
+        int prefix = data[0] & 0xff;
+        for (int i = 1; i <= data.length; i++) {
+            if (i < data.length) {
+                Integer code = table.get(prefix << 8 | (data[i] & 0xff));
+                if (code != null) {
+                    prefix = code;
+                    continue;
+                }
+                table.put(prefix << 8 | (data[i] & 0xff), next);
+            }
+            writer.write(prefix, codeLength);
+            next++;
+            if (next == 4094) {
+                writer.write(256, codeLength);
+                table.clear();
+                next = 258;
+                codeLength = 9;
+            } else if (next > (1 << codeLength) - 1) {
+                codeLength++;
+            }
+            if (i < data.length) {
+                prefix = data[i] & 0xff;
+            }
+        }
+        writer.write(257, codeLength);
+        return writer.finish();
+    }
+
+    private static final class LzwWriter {
+        private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        private long buffer;
+        private int bits;
+
+        void write(int code, int length) {
+            buffer = (buffer << length) | code;
+            bits += length;
+            while (bits >= 8) {
+                out.write((int) (buffer >>> (bits - 8)) & 0xff);
+                bits -= 8;
+            }
+        }
+
+        byte[] finish() {
+            if (bits > 0) {
+                out.write((int) (buffer << (8 - bits)) & 0xff);
+            }
+            return out.toByteArray();
+        }
+    }
+
+    private static void assertSamples(Path file, int width, int height, IntBinaryOperator expected)
+            throws IOException {
+        try (GeoTiffReader reader = new GeoTiffReader(file, 4)) {
+            assertEquals(width, reader.getWidth());
+            assertEquals(height, reader.getHeight());
+            assertEquals(ORIGIN_LONGITUDE, reader.getMinLongitude(), 1e-9);
+            assertEquals(ORIGIN_LATITUDE, reader.getMaxLatitude(), 1e-9);
+            assertEquals(ORIGIN_LONGITUDE + width * PIXEL_SIZE, reader.getMaxLongitude(), 1e-9);
+            for (int row = 0; row < height; row++) {
+                for (int col = 0; col < width; col++) {
+                    float sample = reader.sample(ORIGIN_LONGITUDE + (col + 0.5) * PIXEL_SIZE,
+                            ORIGIN_LATITUDE - (row + 0.5) * PIXEL_SIZE);
+                    int value = expected.applyAsInt(row, col);
+                    if (value < 0) {
+                        assertTrue(Float.isNaN(sample), "pixel " + row + "," + col + " is no-data");
+                    } else {
+                        assertEquals(value, sample, "pixel " + row + "," + col);
+                    }
+                }
+            }
+            assertTrue(Float.isNaN(reader.sample(ORIGIN_LONGITUDE - PIXEL_SIZE, ORIGIN_LATITUDE)));
+        }
+    }
+
+    private static int noise(int row, int col) {
+        int h = row * 73856093 ^ col * 19349663;
+        h ^= h >>> 13;
+        h *= 0x5bd1e995;
+        return (h ^ h >>> 15) & 0xffff;
+    }
+
+    @Test
+    void readsDeflateTilesWithHorizontalPredictor() throws IOException {
+        Path file = directory.resolve("deflate.tif");
+        IntBinaryOperator values = (row, col) -> 40000 + row * 700 - col * 311;
+        writeTiff(file, 40, 30, 16, 16, 8, 2, ByteOrder.LITTLE_ENDIAN, null, values);
+
+        assertSamples(file, 40, 30, values);
+    }
+
+    @Test
+    void readsLzwStripsWithHorizontalPredictorInBigEndianOrder() throws IOException {
+        Path file = directory.resolve("lzw-predictor.tif");
+        IntBinaryOperator values = (row, col) -> (row * 977 + col * col * 13) & 0xffff;
+        writeTiff(file, 300, 100, 0, 16, 5, 2, ByteOrder.BIG_ENDIAN, null, values);
+
+        assertSamples(file, 300, 100, values);
+    }
+
+    @Test
+    void readsLzwTilesThatOverflowTheCodeTable() throws IOException {
+        Path file = directory.resolve("lzw-noise.tif");
+        writeTiff(file, 256, 256, 256, 256, 5, 1, ByteOrder.LITTLE_ENDIAN, null, GeoTiffReaderTest::noise);
+
+        assertSamples(file, 256, 256, GeoTiffReaderTest::noise);
+    }
+
+    @Test
+    void masksNoDataInUncompressedStrips() throws IOException {
+        Path file = directory.resolve("plain.tif");
+        writeTiff(file, 25, 12, 0, 5, 1, 1, ByteOrder.LITTLE_ENDIAN, "0",
+                (row, col) -> (row + col) % 5 == 0 ? 0 : row * 25 + col);
+
+        assertSamples(file, 25, 12, (row, col) -> (row + col) % 5 == 0 ? -1 : row * 25 + col);
+    }
+}
@@ -0,0 +1,174 @@
+package com.yieldforecast.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.yieldforecast.dto.GeoJsonGeometry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GeometryServiceTest {
+
+    private static final LocalDate START = LocalDate.of(2024, 3, 1);
+    private static final LocalDate END = LocalDate.of(2024, 5, 31);
+
+    static GeometryService geometryService(int maxVertices, long maxIntersectionChecks) {
+        GeometryService service = new GeometryService();
+        ReflectionTestUtils.setField(service, "simplifyEnabled", true);
+        ReflectionTestUtils.setField(service, "analysisScaleMeters", 100.0);
+        ReflectionTestUtils.setField(service, "toleranceFraction", 0.5);
+        ReflectionTestUtils.setField(service, "maxVertices", maxVertices);
+        ReflectionTestUtils.setField(service, "maxAreaHectares", 5000000.0);
+        ReflectionTestUtils.setField(service, "maxSpanDegrees", 10.0);
+        ReflectionTestUtils.setField(service, "maxIntersectionChecks", maxIntersectionChecks);
+        ReflectionTestUtils.setField(service, "largeJobPixelMonths", 1000000.0);
+        return service;
+    }
+
+    /** A closed ring of {@code teeth} spikes that all overlap in x, the worst case for the x-sorted sweep. */
+    static String comb(int teeth) {
+        StringBuilder json = new StringBuilder("{\"type\":\"Polygon\",\"coordinates\":[[[127.0,36.0]");
+        for (int i = 0; i < teeth; i++) {
+            double y = 36.0 + 0.1 * (i + 1) / teeth;
+            json.append(String.format(Locale.ROOT, ",[127.1,%.9f],[127.0,%.9f]", y, y + 0.05 / teeth));
+        }
+        return json.append(",[126.99,36.2],[126.99,36.0],[127.0,36.0]]]}").toString();
+    }
+
+    @Test
+    void acceptsASimplePolygon() {
+        GeometryService service = geometryService(50000, 20000000L);
+        GeoJsonGeometry square = service.parse("{\"type\":\"Polygon\",\"coordinates\":"
+                + "[[[127.0,36.0],[127.01,36.0],[127.01,36.01],[127.0,36.01],[127.0,36.0]]]}");
+
+        assertEquals(4, service.preflight(square, START, END).vertexCount());
+    }
+
+    @Test
+    void keepsTheCanonicalTreeUnchangedWhenSimplifying() {
+        GeometryService service = geometryService(50000, 20000000L);
+        GeoJsonGeometry geometry = service.parse("{\"coordinates\":[[[127,36],[127.000001,36],[127.01,36],"
+                + "[127.01,36.01],[127,36.01],[127,36]]],\"type\":\"Polygon\"}");
+        String json = geometry.getJson();
+
+        assertTrue(json.startsWith("{\"coordinates\":[[[127,36],"), json);
+        assertNotEquals(json, service.prepareForDispatch(geometry));
+        assertEquals(json, geometry.getNode().toString());
+        assertEquals(5, service.preflight(geometry, START, END).vertexCount());
+    }
+
+    @Test
+    void parsedGeometriesAreNotChangedThroughTheirTrees() throws Exception {
+        GeometryService service = geometryService(50000, 20000000L);
+        ObjectNode input = (ObjectNode) new ObjectMapper().readTree("{\"type\":\"Point\","
+                + "\"properties\":{\"radius\":250,\"label\":\"well\"},\"coordinates\":[127.0,36.0]}");
+        GeoJsonGeometry geometry = service.parse(input);
+        String json = geometry.getJson();
+        assertEquals("{\"coordinates\":[127.0,36.0],\"properties\":{\"label\":\"well\",\"radius\":250},"
+                + "\"type\":\"Point\"}", json);
+
+        input.put("type", "Polygon");
+        ((ArrayNode) input.get("coordinates")).set(0, 0.0);
+        ObjectNode tree = (ObjectNode) geometry.getNode();
+        tree.put("type", "MultiPolygon");
+        ((ObjectNode) tree.get("properties")).put("radius", 99999);
+
+        assertEquals(json, geometry.getNode().toString());
+        assertEquals(json, service.parse(json).getJson());
+        assertEquals(service.parse(json).getHash(), geometry.getHash());
+    }
+
+    /** A polygon in metres east and north of 127 E, 36 N, converted the same way simplification projects it. */
+    private static String polygonInMeters(double[][] ring) {
+        double metersPerDegree = Math.toRadians(1.0) * GeometryService.EARTH_RADIUS_METERS;
+        double originLat = Math.toRadians(36.0 + ring[0][1] / metersPerDegree);
+        StringBuilder json = new StringBuilder("{\"type\":\"Polygon\",\"coordinates\":[[");
+        for (int i = 0; i <= ring.length; i++) {
+            double[] point = ring[i % ring.length];
+            json.append(i == 0 ? "" : ",").append(String.format(Locale.ROOT, "[%.10f,%.10f]",
+                    127.0 + point[0] / (metersPerDegree * Math.cos(originLat)), 36.0 + point[1] / metersPerDegree));
+        }
+        return json.append("]]}").toString();
+    }
+
+    @Test
+    void keepsTheOriginalRingsWhenSimplificationWouldMakeThemCross() {
+        GeometryService service = geometryService(50000, 20000000L);
+        GeoJsonGeometry hook = service.parse(polygonInMeters(new double[][] { { 700, 60 }, { 300, 10 }, { 1000, 10 },
+                { 200, 5 }, { 0, 60 }, { 600, 65 }, { 200, 90 } }));
+        service.preflight(hook, START, END);
+
+        String dispatched = service.prepareForDispatch(hook);
+
+        assertEquals(hook.getJson(), dispatched);
+        assertEquals(1L, service.simplificationSnapshot().get("fallbacks"));
+        assertEquals(7, service.preflight(service.parse(dispatched), START, END).vertexCount());
+    }
+
+    @Test
+    void simplifiedRingsThatStayValidAreDispatched() {
+        GeometryService service = geometryService(50000, 20000000L);
+        GeoJsonGeometry field = service.parse(polygonInMeters(new double[][] { { 0, 0 }, { 500, 10 }, { 1000, 0 },
+                { 1000, 800 }, { 500, 790 }, { 0, 800 } }));
+
+        String dispatched = service.prepareForDispatch(field);
+
+        assertNotEquals(field.getJson(), dispatched);
+        assertEquals(0L, service.simplificationSnapshot().get("fallbacks"));
+        assertEquals(4, service.preflight(service.parse(dispatched), START, END).vertexCount());
+    }
+
+    @Test
+    void rejectsSelfIntersectingRings() {
+        GeometryService service = geometryService(50000, 20000000L);
+        GeoJsonGeometry bowtie = service.parse("{\"type\":\"Polygon\",\"coordinates\":"
+                + "[[[127.0,36.0],[127.01,36.01],[127.01,36.0],[127.0,36.01],[127.0,36.0]]]}");
+
+        assertThrows(IllegalArgumentException.class, () -> service.preflight(bowtie, START, END));
+    }
+
+    @Test
+    void enforcesTheVertexLimitBeforeCheckingIntersections() {
+        GeometryService service = geometryService(1000, Long.MAX_VALUE);
+        GeoJsonGeometry huge = service.parse(comb(100000));
+
+        ResponseStatusException e = assertTimeoutPreemptively(Duration.ofSeconds(2),
+                () -> assertThrows(ResponseStatusException.class, () -> service.preflight(huge, START, END)));
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, e.getStatusCode());
+        assertTrue(e.getReason().contains("vertices"), e.getReason());
+    }
+
+    @Test
+    void enforcesTheSpanLimitBeforeCheckingIntersections() {
+        GeometryService service = geometryService(50000, 0L);
+        GeoJsonGeometry wide = service.parse("{\"type\":\"Polygon\",\"coordinates\":"
+                + "[[[120.0,36.0],[135.0,36.0],[135.0,36.001],[120.0,36.001],[120.0,36.0]]]}");
+
+        ResponseStatusException e = assertThrows(ResponseStatusException.class,
+                () -> service.preflight(wide, START, END));
+        assertTrue(e.getReason().contains("spans"), e.getReason());
+    }
+
+    @Test
+    void stopsTheIntersectionSweepAtItsBudget() {
+        GeometryService service = geometryService(50000, 100000L);
+        GeoJsonGeometry comb = service.parse(comb(10000));
+
+        ResponseStatusException e = assertThrows(ResponseStatusException.class,
+                () -> service.preflight(comb, START, END));
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, e.getStatusCode());
+        assertTrue(e.getReason().contains("too complex"), e.getReason());
+    }
+}
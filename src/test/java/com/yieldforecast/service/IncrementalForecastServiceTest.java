@@ -0,0 +1,121 @@
+package com.yieldforecast.service;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class IncrementalForecastServiceTest {
+
+    private static final LocalDate START = LocalDate.of(2024, 3, 1);
+    private static final LocalDate END = LocalDate.of(2024, 6, 1);
+
+    @TempDir
+    Path directory;
+
+    private final List<ResultSegmentStore> stores = new ArrayList<>();
+
+    @AfterEach
+    void closeStores() {
+        stores.forEach(ResultSegmentStore::close);
+    }
+
+    static ResultSegmentStore resultStore(Path directory) throws Exception {
+        ResultSegmentStore store = new ResultSegmentStore();
+        ReflectionTestUtils.setField(store, "directory", directory.toString());
+        ReflectionTestUtils.setField(store, "segmentSizeMb", 1);
+        ReflectionTestUtils.setField(store, "retentionHours", 168L);
+        ReflectionTestUtils.setField(store, "compactionLiveRatio", 0.5);
+        ReflectionTestUtils.setField(store, "compactionIntervalMinutes", 30L);
+        store.open();
+        return store;
+    }
+
+    private IncrementalForecastService service(ResultSegmentStore store) throws Exception {
+        PythonExecutionService python = mock(PythonExecutionService.class);
+        when(python.executeScript(anyString(), anyList(), anyString(), any(), any())).thenAnswer(invocation -> {
+            List<String> args = invocation.getArgument(1);
+            JSONArray missing = new JSONArray(args.get(5));
+            JSONArray segments = new JSONArray();
+            for (int i = 0; i < missing.length(); i++) {
+                JSONObject stats = new JSONObject().put("sum", 5.0).put("count", 10)
+                        .put("histogram", new JSONArray("[[0.0, 5], [0.5, 5]]"));
+                if (args.contains("--series")) {
+                    stats.put("series", new JSONArray().put(new JSONObject()
+                            .put("date", missing.getJSONArray(i).getString(0)).put("value", 0.5)));
+                }
+                segments.put(new JSONObject().put("start", missing.getJSONArray(i).getString(0))
+                        .put("end", missing.getJSONArray(i).getString(1))
+                        .put("stats", new JSONObject().put("NDVI", stats)));
+            }
+            return new JSONObject().put("segments", segments).toString();
+        });
+
+        IncrementalForecastService service = new IncrementalForecastService();
+        ReflectionTestUtils.setField(service, "enabled", true);
+        ReflectionTestUtils.setField(service, "settleDays", 5);
+        ReflectionTestUtils.setField(service, "pythonExecutionService", python);
+        ReflectionTestUtils.setField(service, "geometryService", GeometryServiceTest.geometryService(50000, 1000L));
+        ReflectionTestUtils.setField(service, "resultStore", store);
+        return service;
+    }
+
+    private JSONObject forecast(IncrementalForecastService service, boolean withSeries) throws Exception {
+        GeometryService geometryService = GeometryServiceTest.geometryService(50000, 1000L);
+        return new JSONObject(service.computeForecast(geometryService.parse("{\"type\":\"Polygon\",\"coordinates\":"
+                + "[[[127.0,36.0],[127.01,36.0],[127.01,36.01],[127.0,36.01],[127.0,36.0]]]}"), List.of("NDVI"),
+                START, END, withSeries, JobLane.INTERACTIVE, JobPriority.FORECAST));
+    }
+
+    @Test
+    void settledSegmentsSurviveARestart() throws Exception {
+        ResultSegmentStore store = resultStore(directory);
+        stores.add(store);
+        JSONObject first = forecast(service(store), false);
+        assertEquals(0, first.getInt("segmentsReused"));
+        assertEquals(3, first.getInt("segmentsComputed"));
+        assertEquals(0.5, first.getDouble("NDVI"), 1e-9);
+        store.close();
+
+        ResultSegmentStore reopened = resultStore(directory);
+        stores.add(reopened);
+        JSONObject second = forecast(service(reopened), false);
+        assertEquals(3, second.getInt("segmentsReused"));
+        assertEquals(0, second.getInt("segmentsComputed"));
+        assertEquals(first.getDouble("NDVI"), second.getDouble("NDVI"), 1e-9);
+        assertEquals(30, second.getLong("pixelCount"));
+    }
+
+    @Test
+    void reusedSegmentsStillFeedTheSceneSeries() throws Exception {
+        ResultSegmentStore store = resultStore(directory);
+        stores.add(store);
+        IncrementalForecastService service = service(store);
+        assertFalse(forecast(service, false).has("series"));
+
+        JSONObject first = forecast(service, true);
+        assertEquals(3, first.getInt("segmentsComputed"));
+        assertEquals(3, first.getJSONObject("series").getJSONArray("NDVI").length());
+
+        JSONObject second = forecast(service, true);
+        assertEquals(3, second.getInt("segmentsReused"));
+        assertEquals("2024-03-01", second.getJSONObject("series").getJSONArray("NDVI").getJSONObject(0)
+                .getString("date"));
+        assertEquals(3, second.getJSONObject("series").getJSONArray("NDVI").length());
+    }
+}
@@ -0,0 +1,99 @@
+package com.yieldforecast.service;
+
+import com.yieldforecast.dto.GeoJsonGeometry;
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class LocalZonalStatsServiceTest {
+
+    private static final String FIELD = "{\"type\":\"Polygon\",\"coordinates\":"
+            + "[[[127.01,36.95],[127.03,36.95],[127.03,36.97],[127.01,36.97],[127.01,36.95]]]}";
+
+    @TempDir
+    Path directory;
+
+    private final GeometryService geometryService = GeometryServiceTest.geometryService(50000, 20000000L);
+
+    private RasterTileStore tileStore() throws Exception {
+        RasterTileStore store = new RasterTileStore();
+        ReflectionTestUtils.setField(store, "directory", directory.toString());
+        ReflectionTestUtils.setField(store, "cachedSourceBlocks", 4);
+        store.open();
+        return store;
+    }
+
+    private void scene(String name, int red, Double cloudCover) throws Exception {
+        Path scene = Files.createDirectories(directory.resolve("inbox").resolve(name));
+        GeoTiffReaderTest.writeTiff(scene.resolve("B8.tif"), 64, 64, 0, 16, 8, 2, ByteOrder.LITTLE_ENDIAN, null,
+                (row, col) -> 3000);
+        GeoTiffReaderTest.writeTiff(scene.resolve("B4.tif"), 64, 64, 32, 32, 5, 1, ByteOrder.BIG_ENDIAN, null,
+                (row, col) -> red);
+        if (cloudCover != null) {
+            Files.writeString(scene.resolve("metadata.json"),
+                    new JSONObject().put("properties", Map.of("CLOUDY_PIXEL_PERCENTAGE", cloudCover)).toString());
+        }
+    }
+
+    private LocalZonalStatsService service(RasterTileStore store) {
+        LocalZonalStatsService service = new LocalZonalStatsService();
+        ReflectionTestUtils.setField(service, "enabled", true);
+        ReflectionTestUtils.setField(service, "scaleMeters", 100.0);
+        ReflectionTestUtils.setField(service, "maxPoints", 250000);
+        ReflectionTestUtils.setField(service, "maxGapDays", 10);
+        ReflectionTestUtils.setField(service, "maxCloudPercentage", 20.0);
+        ReflectionTestUtils.setField(service, "tileStore", store);
+        ReflectionTestUtils.setField(service, "geometryService", geometryService);
+        return service;
+    }
+
+    private String compute(LocalZonalStatsService service, LocalDate start, LocalDate end) {
+        GeoJsonGeometry geometry = geometryService.parse(FIELD);
+        GeometryCost cost = geometryService.preflight(geometry, start, end);
+        return service.computeForecast(geometry, cost, List.of("NDVI"), start, end);
+    }
+
+    @Test
+    void usesClearScenesOnlyWhenTheRangeIsCovered() throws Exception {
+        scene("S2_20240403", 1000, 3.0);
+        scene("S2_20240408", 2000, 65.0);
+        scene("S2_20240413", 1000, 12.5);
+        scene("S2_20240418", 1000, 0.0);
+        scene("S2_20240420_no_metadata", 1000, null);
+        RasterTileStore store = tileStore();
+
+        Map<String, Object> ingest = store.ingestInbox();
+        assertEquals(4, ((List<?>) ingest.get("ingested")).size());
+        assertEquals(1, ((Map<?, ?>) ingest.get("failed")).size());
+
+        LocalZonalStatsService service = service(store);
+        JSONObject result = new JSONObject(compute(service, LocalDate.of(2024, 4, 1), LocalDate.of(2024, 4, 20)));
+        assertEquals(3, result.getInt("totalImages"));
+        assertEquals(0.5, result.getDouble("NDVI"), 1e-6);
+        assertEquals(3, result.getJSONObject("series").getJSONArray("NDVI").length());
+
+        assertNull(compute(service, LocalDate.of(2024, 4, 1), LocalDate.of(2024, 5, 10)));
+        assertNull(compute(service, LocalDate.of(2024, 3, 15), LocalDate.of(2024, 4, 20)));
+    }
+
+    @Test
+    void skipsRangesWhereEveryAcquisitionIsCloudy() throws Exception {
+        scene("S2_20240403", 1000, 45.0);
+        scene("S2_20240408", 1000, 20.0);
+        RasterTileStore store = tileStore();
+        store.ingestInbox();
+
+        assertNull(compute(service(store), LocalDate.of(2024, 4, 1), LocalDate.of(2024, 4, 10)));
+    }
+}
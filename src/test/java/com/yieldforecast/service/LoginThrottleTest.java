@@ -0,0 +1,75 @@
+package com.yieldforecast.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LoginThrottleTest {
+
+    private static LoginThrottle throttle(int maxTrackedKeys, String... trustedProxies) {
+        LoginThrottle throttle = new LoginThrottle();
+        ReflectionTestUtils.setField(throttle, "ipAttempts", 3);
+        ReflectionTestUtils.setField(throttle, "ipWindowSeconds", 60L);
+        ReflectionTestUtils.setField(throttle, "accountFailures", 5);
+        ReflectionTestUtils.setField(throttle, "accountWindowSeconds", 900L);
+        ReflectionTestUtils.setField(throttle, "maxTrackedKeys", maxTrackedKeys);
+        ReflectionTestUtils.setField(throttle, "trustedProxies", List.of(trustedProxies));
+        throttle.init();
+        return throttle;
+    }
+
+    @Test
+    void forwardedAddressesAreOnlyTrustedFromConfiguredProxies() {
+        LoginThrottle throttle = throttle(1000, "10.0.0.0/8", "2001:db8::1");
+
+        assertEquals("203.0.113.7", throttle.clientIp("203.0.113.7", "198.51.100.1"));
+        assertEquals("198.51.100.1", throttle.clientIp("10.1.2.3", "198.51.100.1"));
+        assertEquals("198.51.100.1", throttle.clientIp("10.1.2.3", "6.6.6.6, 198.51.100.1, 10.9.9.9"));
+        assertEquals("198.51.100.1", throttle.clientIp("2001:db8::1", "198.51.100.1"));
+        assertEquals("10.1.2.3", throttle.clientIp("10.1.2.3", "not-an-address"));
+        assertEquals("10.1.2.3", throttle.clientIp("10.1.2.3", "999.1.1.1"));
+        assertEquals("10.1.2.3", throttle.clientIp("10.1.2.3", null));
+    }
+
+    @Test
+    void clientsBehindAProxyAreThrottledSeparately() {
+        LoginThrottle throttle = throttle(1000, "10.0.0.1");
+        for (int i = 0; i < 3; i++) {
+            throttle.acquire(throttle.clientIp("10.0.0.1", "198.51.100.1"), "a" + i + "@example.com");
+        }
+        assertThrows(LoginRejectedException.class,
+                () -> throttle.acquire(throttle.clientIp("10.0.0.1", "198.51.100.1"), "b@example.com"));
+        assertDoesNotThrow(() -> throttle.acquire(throttle.clientIp("10.0.0.1", "198.51.100.2"), "b@example.com"));
+    }
+
+    @Test
+    void failedSignInsOnlyLockTheAccountForTheirAddress() {
+        LoginThrottle throttle = throttle(1000);
+        for (int i = 0; i < 5; i++) {
+            throttle.recordFailure("203.0.113.9", "Victim@Example.com");
+        }
+
+        assertThrows(LoginRejectedException.class, () -> throttle.acquire("203.0.113.9", "victim@example.com"));
+        assertDoesNotThrow(() -> throttle.acquire("198.51.100.4", "victim@example.com"));
+
+        throttle.recordSuccess("198.51.100.4", "victim@example.com");
+        assertThrows(LoginRejectedException.class, () -> throttle.acquire("203.0.113.9", "victim@example.com"));
+    }
+
+    @Test
+    void trackedAddressesStayBounded() {
+        LoginThrottle throttle = throttle(100);
+        for (int i = 0; i < 1000; i++) {
+            throttle.acquire("198.51." + (i / 256) + "." + (i % 256), "user@example.com");
+            throttle.recordFailure("198.51.100.1", "spray" + i + "@example.com");
+        }
+        assertTrue((Integer) throttle.snapshot().get("trackedIps") <= 100);
+        assertTrue((Integer) throttle.snapshot().get("trackedAccountAddresses") <= 100);
+    }
+}
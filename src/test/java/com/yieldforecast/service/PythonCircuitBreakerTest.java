@@ -0,0 +1,70 @@
+package com.yieldforecast.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PythonCircuitBreakerTest {
+
+    static PythonCircuitBreaker breaker(long openDurationSeconds) {
+        PythonCircuitBreaker breaker = new PythonCircuitBreaker();
+        ReflectionTestUtils.setField(breaker, "windowSize", 20);
+        ReflectionTestUtils.setField(breaker, "minimumCalls", 5);
+        ReflectionTestUtils.setField(breaker, "failureRateThreshold", 0.5);
+        ReflectionTestUtils.setField(breaker, "openDurationSeconds", openDurationSeconds);
+        ReflectionTestUtils.setField(breaker, "halfOpenProbes", 2);
+        breaker.init();
+        return breaker;
+    }
+
+    static void open(PythonCircuitBreaker breaker) {
+        for (int i = 0; i < 5; i++) {
+            breaker.onFailure(false, "Quota exceeded");
+        }
+        assertEquals(PythonCircuitBreaker.State.OPEN, breaker.getState());
+    }
+
+    @Test
+    void checkPermissionRejectsWhileOpen() {
+        PythonCircuitBreaker breaker = breaker(60);
+        assertDoesNotThrow(breaker::checkPermission);
+        open(breaker);
+        assertThrows(CircuitOpenException.class, breaker::checkPermission);
+    }
+
+    @Test
+    void checkPermissionDoesNotTakeHalfOpenProbes() {
+        PythonCircuitBreaker breaker = breaker(0);
+        open(breaker);
+        for (int i = 0; i < 5; i++) {
+            breaker.checkPermission();
+        }
+        assertEquals(PythonCircuitBreaker.State.OPEN, breaker.getState());
+        assertTrue(breaker.acquirePermission());
+        assertTrue(breaker.acquirePermission());
+        assertThrows(CircuitOpenException.class, breaker::checkPermission);
+    }
+
+    @Test
+    void largeLaneCallFailsFastWhileOpen() {
+        PythonCircuitBreaker breaker = breaker(60);
+        open(breaker);
+        PythonExecutionService service = new PythonExecutionService();
+        ReflectionTestUtils.setField(service, "circuitBreaker", breaker);
+        ReflectionTestUtils.setField(service, "simulatorScript", "");
+        ReflectionTestUtils.setField(service, "largeConcurrency", 0);
+        ReflectionTestUtils.setField(service, "queueTimeoutSeconds", 30L);
+        service.initLanes();
+
+        long startedAt = System.nanoTime();
+        assertThrows(CircuitOpenException.class,
+                () -> service.executeScript("script.py", List.of(), null, JobLane.LARGE, JobPriority.BATCH));
+        assertTrue(System.nanoTime() - startedAt < 1_000_000_000L);
+    }
+}
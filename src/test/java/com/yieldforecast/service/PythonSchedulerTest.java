@@ -0,0 +1,91 @@
+package com.yieldforecast.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class PythonSchedulerTest {
+
+    private final PythonCircuitBreaker breaker = PythonCircuitBreakerTest.breaker(60);
+
+    private final PythonConcurrencyLimiter limiter = new PythonConcurrencyLimiter();
+
+    private PythonScheduler scheduler(int capacity, int interactiveReserved, int forecastReserved) {
+        ReflectionTestUtils.setField(limiter, "enabled", false);
+
+        PythonScheduler scheduler = new PythonScheduler();
+        ReflectionTestUtils.setField(scheduler, "limiter", limiter);
+        ReflectionTestUtils.setField(scheduler, "circuitBreaker", breaker);
+        ReflectionTestUtils.setField(scheduler, "capacity", capacity);
+        ReflectionTestUtils.setField(scheduler, "interactiveReserved", interactiveReserved);
+        ReflectionTestUtils.setField(scheduler, "interactiveMax", capacity);
+        ReflectionTestUtils.setField(scheduler, "interactiveQueueTimeoutSeconds", 30L);
+        ReflectionTestUtils.setField(scheduler, "forecastReserved", forecastReserved);
+        ReflectionTestUtils.setField(scheduler, "forecastMax", capacity);
+        ReflectionTestUtils.setField(scheduler, "forecastQueueTimeoutSeconds", 30L);
+        ReflectionTestUtils.setField(scheduler, "batchReserved", 0);
+        ReflectionTestUtils.setField(scheduler, "batchMax", capacity);
+        ReflectionTestUtils.setField(scheduler, "batchQueueTimeoutSeconds", 30L);
+        scheduler.initLanes();
+        return scheduler;
+    }
+
+    @Test
+    void reservedInteractiveSlotsSurviveALowAdaptiveLimit() throws Exception {
+        PythonScheduler scheduler = scheduler(8, 3, 1);
+        ReflectionTestUtils.setField(limiter, "enabled", true);
+        ReflectionTestUtils.setField(limiter, "limit", 1);
+
+        try (PythonScheduler.Permit forecast = scheduler.acquire(JobPriority.FORECAST);
+                PythonScheduler.Permit first = acquireQuickly(scheduler, JobPriority.INTERACTIVE);
+                PythonScheduler.Permit second = acquireQuickly(scheduler, JobPriority.INTERACTIVE);
+                PythonScheduler.Permit third = acquireQuickly(scheduler, JobPriority.INTERACTIVE)) {
+            ExecutorService pool = Executors.newSingleThreadExecutor();
+            try {
+                Future<PythonScheduler.Permit> borrowing = pool.submit(
+                        () -> scheduler.acquire(JobPriority.INTERACTIVE));
+                assertThrows(TimeoutException.class, () -> borrowing.get(300, TimeUnit.MILLISECONDS));
+                borrowing.cancel(true);
+            } finally {
+                pool.shutdownNow();
+            }
+        }
+    }
+
+    private static PythonScheduler.Permit acquireQuickly(PythonScheduler scheduler, JobPriority priority)
+            throws Exception {
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        try {
+            return pool.submit(() -> scheduler.acquire(priority)).get(1, TimeUnit.SECONDS);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void queuedCallsFailWhenTheCircuitOpens() throws Exception {
+        PythonScheduler scheduler = scheduler(1, 1, 0);
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        try (PythonScheduler.Permit running = scheduler.acquire(JobPriority.INTERACTIVE)) {
+            Future<?> queued = pool.submit(() -> {
+                scheduler.acquire(JobPriority.INTERACTIVE).close();
+                return null;
+            });
+            Thread.sleep(200);
+            PythonCircuitBreakerTest.open(breaker);
+            ExecutionException e = assertThrows(ExecutionException.class, () -> queued.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(CircuitOpenException.class, e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
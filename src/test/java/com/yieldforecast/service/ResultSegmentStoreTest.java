@@ -0,0 +1,93 @@
+package com.yieldforecast.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ResultSegmentStoreTest {
+
+    private static final int HEADER_BYTES = 24;
+
+    @TempDir
+    Path directory;
+
+    private static String value(String key, int length) {
+        return "{\"key\":\"" + key + "\",\"data\":\"" + "x".repeat(length) + "\"}";
+    }
+
+    private static Optional<String> read(ResultSegmentStore store, String key) {
+        return store.get(key).map(ResultPayload::asString);
+    }
+
+    private static int recordLength(String key, String value) {
+        return HEADER_BYTES + key.getBytes(StandardCharsets.UTF_8).length
+                + value.getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    private List<Path> segmentFiles() throws Exception {
+        try (var listing = Files.list(directory)) {
+            return listing.filter(p -> p.getFileName().toString().startsWith("segment-")).sorted().toList();
+        }
+    }
+
+    @Test
+    void entriesSurviveAReopenAcrossSegments() throws Exception {
+        ResultSegmentStore store = IncrementalForecastServiceTest.resultStore(directory);
+        for (int i = 0; i < 12; i++) {
+            store.put("forecast:" + i, value("v1-" + i, 200_000));
+        }
+        store.put("forecast:3", value("v2-3", 10));
+        store.put("소유자:한글", value("unicode", 5));
+        store.close();
+        assertTrue(segmentFiles().size() > 1);
+
+        ResultSegmentStore reopened = IncrementalForecastServiceTest.resultStore(directory);
+        for (int i = 0; i < 12; i++) {
+            String expected = value((i == 3 ? "v2-" : "v1-") + i, i == 3 ? 10 : 200_000);
+            assertEquals(Optional.of(expected), read(reopened, "forecast:" + i), "entry " + i);
+        }
+        assertEquals(Optional.of(value("unicode", 5)), read(reopened, "소유자:한글"));
+        assertEquals(13, reopened.snapshot().get("entries"));
+        reopened.close();
+    }
+
+    @Test
+    void tornWritesAreTruncatedOnRecovery() throws Exception {
+        ResultSegmentStore store = IncrementalForecastServiceTest.resultStore(directory);
+        store.put("a", value("a", 100));
+        store.put("b", value("b", 100));
+        store.put("c", value("c", 100));
+        store.close();
+
+        int tornOffset = recordLength("a", value("a", 100)) + recordLength("b", value("b", 100));
+        try (FileChannel channel = FileChannel.open(segmentFiles().get(0), StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[] { '?' }), tornOffset + HEADER_BYTES + 1 + 50);
+        }
+
+        ResultSegmentStore recovered = IncrementalForecastServiceTest.resultStore(directory);
+        assertEquals(Optional.of(value("a", 100)), read(recovered, "a"));
+        assertEquals(Optional.of(value("b", 100)), read(recovered, "b"));
+        assertFalse(recovered.contains("c"));
+
+        recovered.put("d", value("d", 20));
+        recovered.close();
+
+        ResultSegmentStore reopened = IncrementalForecastServiceTest.resultStore(directory);
+        assertEquals(Optional.of(value("b", 100)), read(reopened, "b"));
+        assertEquals(Optional.of(value("d", 20)), read(reopened, "d"));
+        assertFalse(reopened.contains("c"));
+        reopened.close();
+    }
+}
@@ -0,0 +1,95 @@
+package com.yieldforecast.service;
+
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SimulatedBackendTest {
+
+    private static final String SIMULATOR = "src/main/python/simulated_backend.py";
+    private static final String GEOMETRY = "{\"type\":\"Point\",\"coordinates\":[127.0,36.0]}";
+
+    private final PythonCircuitBreaker breaker = PythonCircuitBreakerTest.breaker(60);
+
+    private PythonExecutionService service(double errorRate) {
+        PythonConcurrencyLimiter limiter = new PythonConcurrencyLimiter();
+        ReflectionTestUtils.setField(limiter, "enabled", false);
+
+        PythonScheduler scheduler = new PythonScheduler();
+        ReflectionTestUtils.setField(scheduler, "limiter", limiter);
+        ReflectionTestUtils.setField(scheduler, "circuitBreaker", breaker);
+        ReflectionTestUtils.setField(scheduler, "capacity", 4);
+        for (String lane : new String[] { "interactive", "forecast", "batch" }) {
+            ReflectionTestUtils.setField(scheduler, lane + "Reserved", 0);
+            ReflectionTestUtils.setField(scheduler, lane + "Max", 4);
+            ReflectionTestUtils.setField(scheduler, lane + "QueueTimeoutSeconds", 30L);
+        }
+        scheduler.initLanes();
+
+        PythonExecutionService service = new PythonExecutionService();
+        ReflectionTestUtils.setField(service, "pythonExecutable", "python3");
+        ReflectionTestUtils.setField(service, "simulatorScript", SIMULATOR);
+        ReflectionTestUtils.setField(service, "simulatorLatencyScale", 0.0);
+        ReflectionTestUtils.setField(service, "simulatorLatencySigma", 0.5);
+        ReflectionTestUtils.setField(service, "simulatorErrorRate", errorRate);
+        ReflectionTestUtils.setField(service, "simulatorTimeoutRate", 0.0);
+        ReflectionTestUtils.setField(service, "simulatorCapacity", 0);
+        ReflectionTestUtils.setField(service, "interactiveTimeoutSeconds", 60L);
+        ReflectionTestUtils.setField(service, "largeTimeoutSeconds", 60L);
+        ReflectionTestUtils.setField(service, "largeConcurrency", 1);
+        ReflectionTestUtils.setField(service, "queueTimeoutSeconds", 30L);
+        ReflectionTestUtils.setField(service, "circuitBreaker", breaker);
+        ReflectionTestUtils.setField(service, "scheduler", scheduler);
+        ReflectionTestUtils.setField(service, "limiter", limiter);
+        service.initLanes();
+        return service;
+    }
+
+    @Test
+    void availabilityIsShapedLikeTheRealScriptAndStableForAZone() throws Exception {
+        PythonExecutionService service = service(0.0);
+        List<String> args = List.of("-", "2024-05-01", "2024-06-30");
+
+        String first = service.executeScript("src/main/python/check_data_availability.py", args, GEOMETRY);
+        JSONObject result = new JSONObject(first);
+        assertTrue(result.getInt("totalImages") > 0);
+        assertEquals("2024-05-01", result.getJSONObject("dateRange").getString("start"));
+        assertTrue(result.getJSONArray("availableDates").getJSONObject(0).has("cloudCoverage"));
+        assertEquals(first, service.executeScript("src/main/python/check_data_availability.py", args, GEOMETRY));
+        assertTrue(service.warmUp());
+    }
+
+    @Test
+    void forecastsListBandsWithoutClearScenesAsFallbacks() throws Exception {
+        PythonExecutionService service = service(0.0);
+
+        JSONObject series = new JSONObject(service.executeScript("src/main/python/yield_forecast.py",
+                List.of("-", "NDVI", "2024-05-01", "2024-06-30", "--series"), GEOMETRY));
+        assertTrue(series.getDouble("NDVI") > 0);
+        assertFalse(series.has("fallbackBands"));
+        assertFalse(series.getJSONObject("series").getJSONArray("NDVI").isEmpty());
+
+        JSONObject empty = new JSONObject(service.executeScript("src/main/python/yield_forecast.py",
+                List.of("-", "NDVI,NDMI", "2024-06-01", "2024-06-01"), GEOMETRY));
+        assertEquals(0.0, empty.getDouble("NDVI"));
+        assertEquals(List.of("NDVI", "NDMI"), empty.getJSONArray("fallbackBands").toList());
+    }
+
+    @Test
+    void simulatedEarthEngineErrorsCountAsUpstreamFailures() {
+        PythonExecutionService service = service(1.0);
+
+        PythonScriptException e = assertThrows(PythonScriptException.class,
+                () -> service.executeScript("src/main/python/check_data_availability.py",
+                        List.of("-", "2024-05-01", "2024-06-30"), GEOMETRY));
+        assertTrue(e.isUpstreamFailure(), e.getMessage());
+        assertEquals(1L, ((Number) breaker.snapshot().get("windowFailures")).longValue());
+    }
+}
@@ -0,0 +1,81 @@
+package com.yieldforecast.service;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TiledAvailabilityServiceTest {
+
+    private static final LocalDate START = LocalDate.of(2024, 3, 1);
+    private static final LocalDate END = LocalDate.of(2024, 5, 31);
+
+    @TempDir
+    Path directory;
+
+    private final PythonExecutionService python = mock(PythonExecutionService.class);
+
+    private ResultSegmentStore store;
+
+    TiledAvailabilityServiceTest() throws Exception {
+        when(python.executeScript(anyString(), anyList(), anyString(), any())).thenAnswer(invocation -> {
+            JSONObject requested = new JSONObject((String) invocation.getArgument(2)).getJSONObject("tiles");
+            JSONObject tiles = new JSONObject();
+            for (String tile : requested.keySet()) {
+                tiles.put(tile, new JSONObject().put("ids", new JSONArray().put("S2_" + tile))
+                        .put("times", new JSONArray().put(1712000000000L)).put("clouds", new JSONArray().put(5.0)));
+            }
+            return new JSONObject().put("tiles", tiles).toString();
+        });
+    }
+
+    @AfterEach
+    void closeStore() {
+        store.close();
+    }
+
+    private TiledAvailabilityService service() {
+        TiledAvailabilityService service = new TiledAvailabilityService();
+        ReflectionTestUtils.setField(service, "enabled", true);
+        ReflectionTestUtils.setField(service, "precision", 4);
+        ReflectionTestUtils.setField(service, "maxTiles", 64);
+        ReflectionTestUtils.setField(service, "ttlHours", 24L);
+        ReflectionTestUtils.setField(service, "pythonExecutionService", python);
+        ReflectionTestUtils.setField(service, "resultStore", store);
+        return service;
+    }
+
+    private JSONObject check(TiledAvailabilityService service) throws Exception {
+        GeometryCost cost = new GeometryCost(4, 100.0, 127.0, 36.0, 127.01, 36.01, 3, 1000.0, JobLane.INTERACTIVE);
+        return new JSONObject(service.checkAvailability(cost, START, END));
+    }
+
+    @Test
+    void tilesAreKeptInTheResultStoreAcrossRestarts() throws Exception {
+        store = IncrementalForecastServiceTest.resultStore(directory);
+        JSONObject first = check(service());
+        int tiles = first.getJSONObject("tiles").getInt("count");
+        assertEquals(tiles, first.getJSONObject("tiles").getInt("fetched"));
+        store.close();
+
+        store = IncrementalForecastServiceTest.resultStore(directory);
+        JSONObject second = check(service());
+        assertEquals(tiles, second.getJSONObject("tiles").getInt("cached"));
+        assertEquals(first.getInt("totalImages"), second.getInt("totalImages"));
+        verify(python, times(1)).executeScript(anyString(), anyList(), anyString(), any());
+    }
+}
@@ -0,0 +1,140 @@
+package com.yieldforecast.service;
+
+import com.yieldforecast.entity.User;
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TokenServiceTest {
+
+    private static final String SECRET = "current-secret-with-at-least-32-bytes";
+    private static final String OLD_SECRET = "previous-secret-with-at-least-32-bytes";
+
+    static TokenService tokenService(String secret, String previousSecret, String issuer, long accessTtlSeconds) {
+        TokenService service = new TokenService();
+        ReflectionTestUtils.setField(service, "mode", "token");
+        ReflectionTestUtils.setField(service, "secret", secret);
+        ReflectionTestUtils.setField(service, "previousSecret", previousSecret);
+        ReflectionTestUtils.setField(service, "accessTtlSeconds", accessTtlSeconds);
+        ReflectionTestUtils.setField(service, "refreshTtlSeconds", 3600L);
+        ReflectionTestUtils.setField(service, "issuer", issuer);
+        service.init();
+        return service;
+    }
+
+    private static TokenService tokenService(String secret, String previousSecret) {
+        return tokenService(secret, previousSecret, "yield-forecast", 900);
+    }
+
+    static User user(long id, long tokenVersion) {
+        User user = new User("farmer@example.com", "x", "Farmer", null, null);
+        user.setId(id);
+        user.setTokenVersion(tokenVersion);
+        return user;
+    }
+
+    private static String access(TokenService service, User user) {
+        return (String) service.issueTokens(user).get("accessToken");
+    }
+
+    private static String replacePayload(String token, JSONObject payload) {
+        String[] parts = token.split("\\.");
+        String encoded = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(payload.toString().getBytes(StandardCharsets.UTF_8));
+        return parts[0] + "." + encoded + "." + parts[2];
+    }
+
+    private static JSONObject payload(String token) {
+        return new JSONObject(new String(Base64.getUrlDecoder().decode(token.split("\\.")[1]),
+                StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void issuedTokensVerifyWithTheirClaims() {
+        TokenService service = tokenService(SECRET, "");
+        Map<String, Object> tokens = service.issueTokens(user(7, 3));
+
+        TokenService.Claims access = service.verify((String) tokens.get("accessToken"),
+                TokenService.TokenType.ACCESS).orElseThrow();
+        assertEquals(7, access.userId());
+        assertEquals("farmer@example.com", access.email());
+        assertEquals(TokenService.TokenType.ACCESS, access.type());
+        assertEquals(3, access.version());
+        assertEquals(900, access.expiresAt() - access.issuedAt());
+
+        TokenService.Claims refresh = service.verify((String) tokens.get("refreshToken"),
+                TokenService.TokenType.REFRESH).orElseThrow();
+        assertEquals(7, refresh.userId());
+        assertEquals(3, refresh.version());
+    }
+
+    @Test
+    void tamperedTokensAreRejected() {
+        TokenService service = tokenService(SECRET, "");
+        String token = access(service, user(7, 0));
+
+        String otherUser = replacePayload(token, payload(token).put("sub", "8"));
+        assertEquals(Optional.empty(), service.verify(otherUser, TokenService.TokenType.ACCESS));
+
+        int at = token.length() - 10;
+        String badSignature = token.substring(0, at) + (token.charAt(at) == 'A' ? 'B' : 'A')
+                + token.substring(at + 1);
+        assertEquals(Optional.empty(), service.verify(badSignature, TokenService.TokenType.ACCESS));
+
+        assertEquals(Optional.empty(), service.verify(token.substring(0, token.lastIndexOf('.') + 1),
+                TokenService.TokenType.ACCESS));
+        assertEquals(Optional.empty(), service.verify("not.a.token", TokenService.TokenType.ACCESS));
+        assertEquals(Optional.empty(), service.verify(null, TokenService.TokenType.ACCESS));
+    }
+
+    @Test
+    void tokensOnlyVerifyAsTheirOwnType() {
+        TokenService service = tokenService(SECRET, "");
+        Map<String, Object> tokens = service.issueTokens(user(7, 0));
+
+        assertFalse(service.verify((String) tokens.get("refreshToken"), TokenService.TokenType.ACCESS).isPresent());
+        assertFalse(service.verify((String) tokens.get("accessToken"), TokenService.TokenType.REFRESH).isPresent());
+    }
+
+    @Test
+    void tokensFromAnotherIssuerAreRejected() {
+        TokenService other = tokenService(SECRET, "", "another-service", 900);
+        TokenService service = tokenService(SECRET, "");
+
+        assertFalse(service.verify(access(other, user(7, 0)), TokenService.TokenType.ACCESS).isPresent());
+    }
+
+    @Test
+    void expiredTokensAreRejected() {
+        TokenService expiring = tokenService(SECRET, "", "yield-forecast", -1);
+
+        assertFalse(expiring.verify(access(expiring, user(7, 0)), TokenService.TokenType.ACCESS).isPresent());
+    }
+
+    @Test
+    void tokensSignedWithThePreviousSecretVerifyDuringRotation() {
+        String oldToken = access(tokenService(OLD_SECRET, ""), user(7, 0));
+        TokenService rotated = tokenService(SECRET, OLD_SECRET);
+
+        assertTrue(rotated.verify(oldToken, TokenService.TokenType.ACCESS).isPresent());
+        assertTrue(tokenService(SECRET, "").verify(access(rotated, user(7, 0)), TokenService.TokenType.ACCESS)
+                .isPresent());
+        assertFalse(tokenService(SECRET, "").verify(oldToken, TokenService.TokenType.ACCESS).isPresent());
+    }
+
+    @Test
+    void shortSecretsAreRefused() {
+        assertThrows(IllegalStateException.class, () -> tokenService("too-short", ""));
+        assertThrows(IllegalStateException.class, () -> tokenService(SECRET, "too-short"));
+    }
+}
@@ -0,0 +1,169 @@
+package com.yieldforecast.service;
+
+import com.yieldforecast.config.IdGeneratorInitializer;
+import com.yieldforecast.dto.BulkYieldRequest;
+import com.yieldforecast.entity.YieldRecord;
+import com.yieldforecast.repository.YieldRecordRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(IdGeneratorInitializer.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class YieldBulkServiceTest {
+
+    private static final long OWNER = 41L;
+    private static final long OTHER = 42L;
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) throws Exception {
+        Path dir = Files.createTempDirectory("yield-bulk");
+        registry.add("spring.datasource.url",
+                () -> "jdbc:sqlite:" + dir.resolve("test.db") + "?journal_mode=WAL&busy_timeout=10000");
+        registry.add("spring.jpa.show-sql", () -> "false");
+    }
+
+    @Autowired
+    private YieldRecordRepository repository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final ZoneSeriesStore seriesStore = mock(ZoneSeriesStore.class);
+    private final EntityCache entityCache = mock(EntityCache.class);
+    private YieldBulkService service;
+
+    @BeforeEach
+    void setUp() {
+        repository.deleteAll();
+        service = new YieldBulkService();
+        ReflectionTestUtils.setField(service, "batchSize", 2);
+        ReflectionTestUtils.setField(service, "maxIds", 100);
+        ReflectionTestUtils.setField(service, "repository", repository);
+        ReflectionTestUtils.setField(service, "transactionManager", transactionManager);
+        ReflectionTestUtils.setField(service, "entityManager", entityManager);
+        ReflectionTestUtils.setField(service, "clusterService", mock(YieldClusterService.class));
+        ReflectionTestUtils.setField(service, "entityCache", entityCache);
+        ReflectionTestUtils.setField(service, "seriesStore", seriesStore);
+    }
+
+    private Long save(long userId, String parameter, LocalDate date) {
+        YieldRecord record = new YieldRecord("Field", date, 1.0, 36.0, 127.0, null, parameter);
+        record.setUserId(userId);
+        return repository.save(record).getId();
+    }
+
+    private Set<Long> remaining(long userId) {
+        return repository.findAll().stream().filter(r -> r.getUserId() == userId).map(YieldRecord::getId)
+                .collect(Collectors.toSet());
+    }
+
+    @Test
+    void deletingByIdsOnlyRemovesTheCallersRecordsInBatches() {
+        List<Long> owned = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            owned.add(save(OWNER, "NDVI", LocalDate.of(2024, 5, 1 + i)));
+        }
+        Long foreign = save(OTHER, "NDVI", LocalDate.of(2024, 5, 1));
+        List<Long> requested = new ArrayList<>(owned.subList(0, 4));
+        requested.add(foreign);
+
+        Map<String, Object> result = service.delete(OWNER, new BulkYieldRequest(requested, null, null, null, null));
+
+        assertEquals(4, result.get("deleted"));
+        assertEquals(5, result.get("requested"));
+        assertEquals(1, result.get("skipped"));
+        assertEquals(3, result.get("batches"));
+        assertEquals(Set.of(owned.get(4)), remaining(OWNER));
+        assertEquals(Set.of(foreign), remaining(OTHER));
+        verify(seriesStore).deleteZones(argThat(ids -> Set.copyOf(ids).equals(Set.copyOf(owned.subList(0, 4)))));
+        verify(entityCache).evictRecordsOfUser(OWNER);
+    }
+
+    @Test
+    void deletingByFilterHonoursParameterAndDateRange() {
+        Long inside = save(OWNER, "NDVI", LocalDate.of(2024, 6, 10));
+        Long edge = save(OWNER, "NDVI", LocalDate.of(2024, 6, 30));
+        Long before = save(OWNER, "NDVI", LocalDate.of(2024, 5, 31));
+        Long otherParameter = save(OWNER, "EVI", LocalDate.of(2024, 6, 10));
+        Long foreign = save(OTHER, "NDVI", LocalDate.of(2024, 6, 10));
+
+        Map<String, Object> result = service.delete(OWNER, new BulkYieldRequest(null, "NDVI",
+                LocalDate.of(2024, 6, 1), LocalDate.of(2024, 6, 30), null));
+
+        assertEquals(2, result.get("deleted"));
+        assertEquals(1, result.get("batches"));
+        assertEquals(Set.of(before, otherParameter), remaining(OWNER));
+        assertEquals(Set.of(foreign), remaining(OTHER));
+        verify(seriesStore).deleteZones(argThat(ids -> Set.copyOf(ids).equals(Set.of(inside, edge))));
+    }
+
+    @Test
+    void updatesOnlySetTheGivenFieldsOnOwnedRecords() {
+        Long first = save(OWNER, "NDVI", LocalDate.of(2024, 7, 1));
+        Long second = save(OWNER, "EVI", LocalDate.of(2024, 7, 2));
+        Long foreign = save(OTHER, "NDVI", LocalDate.of(2024, 7, 1));
+
+        Map<String, Object> byIds = service.update(OWNER, new BulkYieldRequest(List.of(first, second, foreign),
+                null, null, null, new BulkYieldRequest.Changes("Renamed", null, null)));
+        assertEquals(2, byIds.get("updated"));
+        assertEquals(2, byIds.get("batches"));
+
+        Map<String, Object> byFilter = service.update(OWNER, new BulkYieldRequest(null, "NDVI", null, null,
+                new BulkYieldRequest.Changes(null, LocalDate.of(2025, 1, 1), 2.5)));
+        assertEquals(1, byFilter.get("updated"));
+
+        YieldRecord updated = repository.findById(first).orElseThrow();
+        assertEquals("Renamed", updated.getLocation());
+        assertEquals(LocalDate.of(2025, 1, 1), updated.getDate());
+        assertEquals(2.5, updated.getPrediction());
+        YieldRecord untouchedFields = repository.findById(second).orElseThrow();
+        assertEquals("Renamed", untouchedFields.getLocation());
+        assertEquals(LocalDate.of(2024, 7, 2), untouchedFields.getDate());
+        assertEquals(1.0, untouchedFields.getPrediction());
+        YieldRecord other = repository.findById(foreign).orElseThrow();
+        assertEquals("Field", other.getLocation());
+        assertEquals(LocalDate.of(2024, 7, 1), other.getDate());
+    }
+
+    @Test
+    void requestsWithoutASelectionOrChangesAreRejected() {
+        assertThrows(IllegalArgumentException.class,
+                () -> service.delete(OWNER, new BulkYieldRequest(null, " ", null, null, null)));
+        assertThrows(IllegalArgumentException.class,
+                () -> service.update(OWNER, new BulkYieldRequest(List.of(1L), null, null, null, null)));
+        assertThrows(IllegalArgumentException.class, () -> service.delete(OWNER, new BulkYieldRequest(null,
+                null, LocalDate.of(2024, 2, 1), LocalDate.of(2024, 1, 1), null)));
+    }
+}
@@ -0,0 +1,105 @@
+package com.yieldforecast.service;
+
+import com.yieldforecast.repository.ClusterPointRow;
+import com.yieldforecast.repository.YieldRecordRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class YieldClusterServiceTest {
+
+    private final YieldRecordRepository repository = mock(YieldRecordRepository.class);
+    private final YieldClusterService service = new YieldClusterService();
+    private final ExecutorService pool = Executors.newFixedThreadPool(2);
+    private final List<ClusterPointRow> points = new CopyOnWriteArrayList<>();
+
+    YieldClusterServiceTest() {
+        ReflectionTestUtils.setField(service, "maxPrecision", 7);
+        ReflectionTestUtils.setField(service, "repository", repository);
+    }
+
+    @AfterEach
+    void shutdown() {
+        pool.shutdownNow();
+    }
+
+    private static ClusterPointRow point(double latitude, double longitude, double yieldPrediction) {
+        return new ClusterPointRow() {
+            @Override
+            public Double getLatitude() {
+                return latitude;
+            }
+
+            @Override
+            public Double getLongitude() {
+                return longitude;
+            }
+
+            @Override
+            public Double getYieldPrediction() {
+                return yieldPrediction;
+            }
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    private long count(Map<String, Object> response) {
+        long total = 0;
+        for (Map<String, Object> cluster : (List<Map<String, Object>>) response.get("clusters")) {
+            total += (Long) cluster.get("count");
+        }
+        return total;
+    }
+
+    private Map<String, Object> world() {
+        return service.getClusters(1L, -180, -90, 180, 90, 1);
+    }
+
+    @Test
+    void recordsAddedDuringABuildAreCountedOnce() throws Exception {
+        points.add(point(36.0, 127.0, 20.0));
+        CountDownLatch scanning = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(repository.findClusterPoints(1L)).thenAnswer(invocation -> {
+            List<ClusterPointRow> snapshot = new ArrayList<>(points);
+            scanning.countDown();
+            release.await();
+            return snapshot;
+        }).thenAnswer(invocation -> new ArrayList<>(points));
+
+        Future<Map<String, Object>> building = pool.submit(this::world);
+        assertTrue(scanning.await(5, TimeUnit.SECONDS));
+
+        points.add(point(37.0, 128.0, 30.0));
+        service.recordAdded(1L, 37.0, 128.0, 30.0);
+        Future<Map<String, Object>> reader = pool.submit(this::world);
+        Thread.sleep(100);
+        assertFalse(reader.isDone());
+
+        release.countDown();
+        assertEquals(2, count(building.get(5, TimeUnit.SECONDS)));
+        assertEquals(2, count(reader.get(5, TimeUnit.SECONDS)));
+        verify(repository, times(2)).findClusterPoints(1L);
+
+        service.recordAdded(1L, 38.0, 129.0, 25.0);
+        assertEquals(3, count(world()));
+    }
+}
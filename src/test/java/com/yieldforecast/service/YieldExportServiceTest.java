@@ -0,0 +1,112 @@
+package com.yieldforecast.service;
+
+import com.yieldforecast.entity.YieldRecord;
+import com.yieldforecast.repository.YieldRecordRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class YieldExportServiceTest {
+
+    private final YieldRecordRepository repository = mock(YieldRecordRepository.class);
+
+    private YieldExportService exportService(int maxConcurrent) {
+        YieldExportService service = new YieldExportService();
+        ReflectionTestUtils.setField(service, "maxConcurrent", maxConcurrent);
+        ReflectionTestUtils.setField(service, "queueTimeoutSeconds", 0L);
+        ReflectionTestUtils.setField(service, "maxDurationSeconds", 300L);
+        ReflectionTestUtils.setField(service, "repository", repository);
+        ReflectionTestUtils.setField(service, "transactionManager", mock(PlatformTransactionManager.class));
+        ReflectionTestUtils.setField(service, "entityManager", mock(EntityManager.class));
+        service.init();
+        return service;
+    }
+
+    private static YieldRecord record(long id, String location) {
+        YieldRecord record = new YieldRecord();
+        record.setId(id);
+        record.setLocation(location);
+        record.setParameter("NDVI");
+        return record;
+    }
+
+    @Test
+    void escapesSpreadsheetFormulas() throws Exception {
+        when(repository.streamForExport(any(), any(), any(), any())).thenReturn(Stream.of(
+                record(1, "=HYPERLINK(\"http://x\",\"y\")"), record(2, "@SUM(A1)"), record(3, "+1"),
+                record(4, "-1"), record(5, "North field")));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        exportService(2).export(7L, YieldExportService.Format.CSV, null, null, null, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals("1,\"'=HYPERLINK(\"\"http://x\"\",\"\"y\"\")\",,NDVI,,,,,,,,,", lines[1]);
+        assertTrue(lines[2].startsWith("2,'@SUM(A1),"), lines[2]);
+        assertTrue(lines[3].startsWith("3,'+1,"), lines[3]);
+        assertTrue(lines[4].startsWith("4,'-1,"), lines[4]);
+        assertTrue(lines[5].startsWith("5,North field,"), lines[5]);
+    }
+
+    @Test
+    void rejectsExportsBeyondTheConcurrencyCap() throws Exception {
+        when(repository.streamForExport(any(), any(), any(), any())).thenAnswer(i -> Stream.of(record(1, "a")));
+        YieldExportService service = exportService(1);
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        OutputStream slowClient = new OutputStream() {
+            @Override
+            public void write(int b) {
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                writing.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    throw new InterruptedIOException();
+                }
+            }
+        };
+
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        try {
+            Future<Long> first = pool.submit(
+                    () -> service.export(1L, YieldExportService.Format.CSV, null, null, null, slowClient));
+            assertTrue(writing.await(5, TimeUnit.SECONDS));
+
+            ResponseStatusException e = assertThrows(ResponseStatusException.class, () -> service.export(2L,
+                    YieldExportService.Format.CSV, null, null, null, new ByteArrayOutputStream()));
+            assertEquals(HttpStatus.SERVICE_UNAVAILABLE, e.getStatusCode());
+
+            release.countDown();
+            assertEquals(1L, first.get(5, TimeUnit.SECONDS));
+            assertEquals(1L, service.export(2L, YieldExportService.Format.CSV, null, null, null,
+                    new ByteArrayOutputStream()));
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.yieldforecast.service;
+
+import com.yieldforecast.repository.YieldRecordRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class YieldRescoringServiceTest {
+
+    private final YieldRecordRepository repository = mock(YieldRecordRepository.class);
+    private final YieldModelService yieldModelService = mock(YieldModelService.class);
+    private final YieldRescoringService service = new YieldRescoringService();
+    private final ExecutorService pool = Executors.newSingleThreadExecutor();
+
+    YieldRescoringServiceTest() {
+        YieldModel model = new LinearYieldModel("test", 15.0, 10.0, Map.of(), 0.0, 0.0);
+        when(yieldModelService.getModel()).thenReturn(model);
+        when(yieldModelService.reload()).thenReturn(model);
+        ReflectionTestUtils.setField(service, "pageSize", 100);
+        ReflectionTestUtils.setField(service, "forkThreshold", 16);
+        ReflectionTestUtils.setField(service, "parallelism", 1);
+        ReflectionTestUtils.setField(service, "repository", repository);
+        ReflectionTestUtils.setField(service, "yieldModelService", yieldModelService);
+        ReflectionTestUtils.setField(service, "transactionManager", mock(PlatformTransactionManager.class));
+        ReflectionTestUtils.setField(service, "clusterService", mock(YieldClusterService.class));
+        ReflectionTestUtils.setField(service, "entityCache", mock(EntityCache.class));
+        service.init();
+    }
+
+    @AfterEach
+    void shutdown() {
+        pool.shutdownNow();
+        service.shutdown();
+    }
+
+    @Test
+    void oneUsersRescoreDoesNotBlockAnother() throws Exception {
+        CountDownLatch scanning = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(repository.findScoringPage(anyLong(), any(), any())).thenReturn(List.of());
+        when(repository.findScoringPage(anyLong(), eq(1L), any())).thenAnswer(invocation -> {
+            scanning.countDown();
+            release.await();
+            return List.of();
+        });
+
+        Future<Map<String, Object>> first = pool.submit(() -> service.rescore(1L));
+        assertTrue(scanning.await(5, TimeUnit.SECONDS));
+
+        assertEquals(0L, service.rescore(2L).get("recordsUpdated"));
+        ResponseStatusException e = assertThrows(ResponseStatusException.class, () -> service.rescore(1L));
+        assertEquals(HttpStatus.CONFLICT, e.getStatusCode());
+
+        release.countDown();
+        assertEquals("test", first.get(5, TimeUnit.SECONDS).get("model"));
+        verify(yieldModelService, never()).reload();
+    }
+
+    @Test
+    void reloadingTheModelIsSeparateFromRescoring() {
+        assertEquals(Map.of("model", "test"), service.reloadModel(false));
+        verify(yieldModelService).reload();
+        verify(repository, never()).findScoringPage(anyLong(), any(), any());
+    }
+}
@@ -0,0 +1,100 @@
+package com.yieldforecast.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.yieldforecast.repository.YieldRecordRepository;
+import com.yieldforecast.repository.ZoneGeometryRow;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ZoneClassificationServiceTest {
+
+    private static final String ZONE = "{\"type\":\"Polygon\",\"coordinates\":"
+            + "[[[127.0,36.0],[127.01,36.0],[127.01,36.01],[127.0,36.01],[127.0,36.0]]]}";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ZoneClassificationService service = new ZoneClassificationService();
+
+    ZoneClassificationServiceTest() {
+        ZoneGeometryRow row = mock(ZoneGeometryRow.class);
+        when(row.getId()).thenReturn(9L);
+        when(row.getGeometryJson()).thenReturn(ZONE);
+        YieldRecordRepository repository = mock(YieldRecordRepository.class);
+        when(repository.findZoneGeometries(1L)).thenReturn(List.of(row));
+
+        ReflectionTestUtils.setField(service, "chunkSize", 2);
+        ReflectionTestUtils.setField(service, "repository", repository);
+        ReflectionTestUtils.setField(service, "geometryService", GeometryServiceTest.geometryService(1000, 100000));
+        ReflectionTestUtils.setField(service, "objectMapper", objectMapper);
+    }
+
+    private JsonNode classify(String body) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        service.classify(1L, new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), out);
+        return objectMapper.readTree(out.toByteArray());
+    }
+
+    @Test
+    void completeStreamsEndWithACompleteTrailer() throws Exception {
+        JsonNode result = classify("[[127.005,36.005],{\"id\":\"a\",\"lat\":36.005,\"lng\":127.005},"
+                + "[128.0,37.0],{\"latitude\":36.001,\"longitude\":127.001,\"extra\":[1,{}]},[127.002,36.002]]");
+
+        assertEquals("complete", result.path("status").asText());
+        assertEquals(5, result.path("count").asInt());
+        JsonNode results = result.path("results");
+        assertEquals(5, results.size());
+        assertEquals("[9]", results.get(0).path("zones").toString());
+        assertEquals("a", results.get(1).path("id").asText());
+        assertEquals("[]", results.get(2).path("zones").toString());
+        assertEquals(4, results.get(4).path("index").asInt());
+    }
+
+    @Test
+    void aMalformedPointAfterTheFirstChunkEndsWithAnErrorTrailer() throws Exception {
+        JsonNode result = classify("[[127.005,36.005],[127.005,36.005],[127.005,36.005],[500,36.0],[127.0,36.0]]");
+
+        assertEquals("error", result.path("status").asText());
+        assertTrue(result.path("error").asText().contains("Point 3"));
+        assertEquals(3, result.path("count").asInt());
+        assertEquals(3, result.path("results").size());
+    }
+
+    @Test
+    void truncatedInputIsNotMistakenForTheEndOfTheArray() throws Exception {
+        for (String body : new String[] { "[[127.005,36.005],[127.005,36.005],[127.005,36.005]",
+                "[[127.005,36.005],[127.005,36.005],[127.005,36.005],[127.0",
+                "[[127.005,36.005],[127.005,36.005],{\"lat\":36.005,\"lng\":" }) {
+            JsonNode result = classify(body);
+            assertEquals("error", result.path("status").asText(), body);
+            assertTrue(result.path("error").asText().contains("before the array was closed"), body);
+        }
+    }
+
+    @Test
+    void contentAfterTheArrayIsRejected() throws Exception {
+        JsonNode result = classify("[[127.005,36.005],[127.005,36.005],[127.005,36.005]] [1,2]");
+
+        assertEquals("error", result.path("status").asText());
+    }
+
+    @Test
+    void problemsInTheFirstChunkAreThrownBeforeAnythingIsWritten() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (String body : new String[] { "{}", "[[127.0,36.0", "[[127.0,36.0],[127.0,95.0]]" }) {
+            assertThrows(IllegalArgumentException.class, () -> service.classify(1L,
+                    new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), out), body);
+        }
+        assertEquals(0, out.size());
+    }
+}
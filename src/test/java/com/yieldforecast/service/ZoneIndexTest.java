@@ -0,0 +1,97 @@
+package com.yieldforecast.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ZoneIndexTest {
+
+    private static double[][] square(double minLng, double minLat, double size) {
+        return new double[][] { { minLng, minLat }, { minLng + size, minLat }, { minLng + size, minLat + size },
+                { minLng, minLat + size }, { minLng, minLat } };
+    }
+
+    private static List<double[][]> rings(double[][]... rings) {
+        return List.of(rings);
+    }
+
+    private static long[] sorted(long[] zones) {
+        long[] copy = zones.clone();
+        Arrays.sort(copy);
+        return copy;
+    }
+
+    @Test
+    void holesAreExcludedFromTheirPolygon() {
+        ZoneIndex index = new ZoneIndex.Builder()
+                .addPolygon(1, rings(square(127.0, 36.0, 0.01), square(127.004, 36.004, 0.002)))
+                .build();
+
+        assertArrayEquals(new long[] { 1 }, index.classify(36.002, 127.002));
+        assertArrayEquals(new long[0], index.classify(36.005, 127.005));
+        assertArrayEquals(new long[] { 1 }, index.classify(36.0065, 127.005));
+        assertArrayEquals(new long[0], index.classify(36.02, 127.002));
+    }
+
+    @Test
+    void circleZonesMatchWithinTheirRadius() {
+        ZoneIndex index = new ZoneIndex.Builder().addCircle(5, 36.0, 127.0, 1000).build();
+        double metersPerDegreeLat = Math.toRadians(GeometryService.EARTH_RADIUS_METERS);
+
+        assertArrayEquals(new long[] { 5 }, index.classify(36.0 + 900 / metersPerDegreeLat, 127.0));
+        assertArrayEquals(new long[0], index.classify(36.0 + 1100 / metersPerDegreeLat, 127.0));
+        // inside the bounding box but outside the circle
+        double corner = 800 / metersPerDegreeLat;
+        assertArrayEquals(new long[0], index.classify(36.0 + corner, 127.0 + corner / Math.cos(Math.toRadians(36))));
+    }
+
+    @Test
+    void zonesTooLargeForTheGridAreStillMatched() {
+        ZoneIndex.Builder builder = new ZoneIndex.Builder();
+        for (int i = 0; i < 9; i++) {
+            builder.addPolygon(i, rings(square(127.0 + i * 0.01, 36.0, 0.001)));
+        }
+        builder.addPolygon(100, rings(square(120.0, 30.0, 10.0)));
+        ZoneIndex index = builder.build();
+
+        assertEquals(10, index.size());
+        assertArrayEquals(new long[] { 3, 100 }, sorted(index.classify(36.0005, 127.0305)));
+        assertArrayEquals(new long[] { 100 }, index.classify(38.0, 125.0));
+        assertArrayEquals(new long[0], index.classify(41.0, 125.0));
+    }
+
+    @Test
+    void negativeCellsDoNotCollideWithPositiveOnes() {
+        ZoneIndex.Builder builder = new ZoneIndex.Builder();
+        List<double[]> squares = new ArrayList<>();
+        long id = 0;
+        for (double lng = -3.0; lng < 3.0; lng += 0.5) {
+            for (double lat = -3.0; lat < 3.0; lat += 0.5) {
+                builder.addPolygon(id++, rings(square(lng + 0.05, lat + 0.05, 0.4)));
+                squares.add(new double[] { lng + 0.05, lat + 0.05 });
+            }
+        }
+        ZoneIndex index = builder.build();
+
+        Random random = new Random(7);
+        for (int i = 0; i < 5000; i++) {
+            double lng = random.nextDouble() * 6 - 3;
+            double lat = random.nextDouble() * 6 - 3;
+            List<Long> expected = new ArrayList<>();
+            for (int z = 0; z < squares.size(); z++) {
+                double[] corner = squares.get(z);
+                if (lng > corner[0] && lng < corner[0] + 0.4 && lat > corner[1] && lat < corner[1] + 0.4) {
+                    expected.add((long) z);
+                }
+            }
+            assertArrayEquals(expected.stream().mapToLong(Long::longValue).toArray(),
+                    sorted(index.classify(lat, lng)), "point " + lat + ", " + lng);
+        }
+    }
+}
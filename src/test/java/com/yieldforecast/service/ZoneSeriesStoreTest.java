@@ -0,0 +1,151 @@
+package com.yieldforecast.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ZoneSeriesStoreTest {
+
+    @TempDir
+    Path directory;
+
+    private ZoneSeriesStore store(int blockBytes) throws Exception {
+        ZoneSeriesStore store = new ZoneSeriesStore();
+        ReflectionTestUtils.setField(store, "enabled", true);
+        ReflectionTestUtils.setField(store, "directory", directory.toString());
+        ReflectionTestUtils.setField(store, "blockBytes", blockBytes);
+        ReflectionTestUtils.setField(store, "maxOpenSeries", 16);
+        ReflectionTestUtils.setField(store, "maxScanPoints", 100000);
+        store.init();
+        return store;
+    }
+
+    private static List<ZoneSeriesStore.Point> points(double value) {
+        return List.of(new ZoneSeriesStore.Point(LocalDate.of(2024, 4, 3), value),
+                new ZoneSeriesStore.Point(LocalDate.of(2024, 4, 8), value + 0.1));
+    }
+
+    /**
+     * Irregular revisits with occasional long gaps exercise every delta-of-delta width, and repeated,
+     * negative and full-precision values exercise every XOR encoding.
+     */
+    private static List<ZoneSeriesStore.Point> history(int count) {
+        Random random = new Random(42);
+        List<ZoneSeriesStore.Point> points = new ArrayList<>();
+        LocalDate date = LocalDate.of(2015, 1, 1);
+        double value = 0.25;
+        for (int i = 0; i < count; i++) {
+            date = date.plusDays(switch (i % 50) {
+                case 17 -> 200;
+                case 31 -> 1500;
+                case 44 -> 4000;
+                default -> i % 3 == 0 ? 5 : 1 + random.nextInt(10);
+            });
+            switch (i % 4) {
+                case 0 -> value = random.nextDouble() * 2 - 1;
+                case 1 -> value = Math.round(value * 100) / 100.0;
+                case 2 -> value = -value;
+                default -> {
+                    // repeats the previous value
+                }
+            }
+            points.add(new ZoneSeriesStore.Point(date, value));
+        }
+        return points;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Map<String, Object>> rows(Map<String, Object> result, String key) {
+        return (List<Map<String, Object>>) result.get(key);
+    }
+
+    private static void assertPoints(List<ZoneSeriesStore.Point> expected, Map<String, Object> result) {
+        List<Map<String, Object>> points = rows(result, "points");
+        assertEquals(expected.size(), points.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).date(), points.get(i).get("date"), "date of point " + i);
+            assertEquals(Double.doubleToRawLongBits(expected.get(i).value()),
+                    Double.doubleToRawLongBits((Double) points.get(i).get("value")), "value of point " + i);
+        }
+    }
+
+    @Test
+    void pointsRoundTripAcrossBlocksAndRestarts() throws Exception {
+        List<ZoneSeriesStore.Point> history = history(600);
+        ZoneSeriesStore store = store(192);
+        assertEquals(300, store.append(7, "NDVI", history.subList(0, 300)));
+        assertEquals(0, store.append(7, "NDVI", history.subList(250, 300)));
+        assertPoints(history.subList(0, 300), store.scan(7, "NDVI", null, null, 0));
+
+        ZoneSeriesStore reopened = store(192);
+        assertEquals(300, reopened.append(7, "NDVI", history.subList(300, 600)));
+        Map<String, Object> all = reopened.scan(7, "NDVI", null, null, 0);
+        assertPoints(history, all);
+        assertTrue((Integer) all.get("blocks") > 10);
+
+        assertPoints(history, store(192).scan(7, "NDVI", null, null, 0));
+        LocalDate from = history.get(100).date();
+        LocalDate to = history.get(199).date();
+        assertPoints(history.subList(100, 200), store(192).scan(7, "NDVI", from, to, 0));
+    }
+
+    @Test
+    void downsampledBucketsMatchTheRawPoints() throws Exception {
+        List<ZoneSeriesStore.Point> history = history(400);
+        ZoneSeriesStore store = store(256);
+        store.append(3, "EVI", history);
+        int bucketDays = 365;
+
+        TreeMap<Long, List<Double>> expected = new TreeMap<>();
+        for (ZoneSeriesStore.Point point : history) {
+            expected.computeIfAbsent(Math.floorDiv(point.date().toEpochDay(), bucketDays), k -> new ArrayList<>())
+                    .add(point.value());
+        }
+
+        Map<String, Object> result = store(256).scan(3, "EVI", null, null, bucketDays);
+        List<Map<String, Object>> buckets = rows(result, "buckets");
+        assertEquals(expected.size(), buckets.size());
+        assertTrue((Integer) result.get("blocksSummarized") > 0);
+        int i = 0;
+        for (Map.Entry<Long, List<Double>> entry : expected.entrySet()) {
+            Map<String, Object> bucket = buckets.get(i++);
+            List<Double> values = entry.getValue();
+            assertEquals(LocalDate.ofEpochDay(entry.getKey() * bucketDays), bucket.get("start"));
+            assertEquals((long) values.size(), bucket.get("count"));
+            assertEquals(values.stream().mapToDouble(Double::doubleValue).average().orElseThrow(),
+                    (Double) bucket.get("mean"), 1e-12);
+            assertEquals(values.stream().mapToDouble(Double::doubleValue).min().orElseThrow(), bucket.get("min"));
+            assertEquals(values.stream().mapToDouble(Double::doubleValue).max().orElseThrow(), bucket.get("max"));
+        }
+    }
+
+    @Test
+    void deletesEverySeriesOfTheGivenZones() throws Exception {
+        ZoneSeriesStore store = store(512);
+        for (long zone = 1; zone <= 3; zone++) {
+            store.append(zone, "NDVI", points(0.5));
+            store.append(zone, "EVI", points(0.3));
+        }
+        store.append(12, "NDVI", points(0.4));
+
+        assertEquals(4, store.deleteZones(List.of(1L, 2L, 99L)));
+
+        assertEquals(List.of(), store.parameters(1));
+        assertEquals(List.of(), store.parameters(2));
+        assertEquals(List.of("EVI", "NDVI"), store.parameters(3));
+        assertEquals(List.of("NDVI"), store.parameters(12));
+        assertEquals(0, store.deleteZones(List.of()));
+        assertEquals(2, store.append(1, "NDVI", points(0.6)));
+    }
+}